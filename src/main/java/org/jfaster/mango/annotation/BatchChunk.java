@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 批量操作时按块分批执行，参数为{@code Iterator<T>}或{@code Stream<T>}时边读取边执行
+ *
+ * @author ash
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface BatchChunk {
+
+  /**
+   * 每块的行数
+   */
+  int value();
+
+  /**
+   * 每块执行后单独提交事务
+   */
+  boolean commitPerChunk() default false;
+
+  /**
+   * 每块的目标耗时(毫秒)，大于0时根据实际耗时调整每块的行数
+   */
+  int targetMillis() default 0;
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 分库分表的查询没有分片参数时，在所有分片上并行执行并合并结果
+ * <p/>
+ * 分表策略需实现{@link org.jfaster.mango.sharding.TableShardingTopology}，
+ * 分库策略需实现{@link org.jfaster.mango.sharding.DatabaseShardingTopology}
+ * <p/>
+ * 返回单个数字的查询需要使用{@link SumShards}声明各分片的结果求和
+ *
+ * @author ash
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Broadcast {
+
+  /**
+   * 从查询开始，每个分片结果的最长等待时间(毫秒)，小于等于0时一直等待
+   */
+  long timeoutMillis() default 0;
+
+}
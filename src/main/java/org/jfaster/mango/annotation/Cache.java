@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.annotation;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存查询结果
+ * <p/>
+ * key为空时使用全部参数作为缓存key，否则使用key中以逗号分隔的参数，如":1.id, :2"；
+ * key为空时参数不能是bean，集合与数组参数复制后作为key
+ * <p/>
+ * 当前线程绑定了事务时不使用缓存；查询期间缓存被{@link CacheEvict}清除时，查询结果不写入缓存。
+ * 在事务中执行的{@link CacheEvict}在更新后立即清除缓存，提交前其他线程仍可能把旧数据写入缓存
+ * <p/>
+ * 每次返回缓存结果的副本：集合与数组重新创建，bean按属性浅复制，bean需要有无参构造函数
+ *
+ * @author ash
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Cache {
+
+  long ttl() default 60;
+
+  TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+  int maxEntries() default 1000;
+
+  String key() default "";
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 更新方法执行后清除同一DAO中被{@link Cache}修饰的方法的缓存
+ * <p/>
+ * value为需要清除缓存的方法名，同名的重载方法全部清除，为空时清除该DAO中的全部缓存
+ *
+ * @author ash
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CacheEvict {
+
+  String[] value() default {};
+
+}
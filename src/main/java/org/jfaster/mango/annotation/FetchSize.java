@@ -0,0 +1,34 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 指定流式查询(返回{@code Stream<T>}或{@code Iterator<T>})时的fetch size，
+ * 在mysql中使用{@link Integer#MIN_VALUE}开启逐行读取
+ *
+ * @author ash
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface FetchSize {
+
+  int value();
+
+}
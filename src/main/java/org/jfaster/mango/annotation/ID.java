@@ -16,6 +16,9 @@
 
 package org.jfaster.mango.annotation;
 
+import org.jfaster.mango.id.IdGenerator;
+import org.jfaster.mango.id.NotUseIdGenerator;
+
 import java.lang.annotation.*;
 
 /**
@@ -27,4 +30,12 @@ import java.lang.annotation.*;
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface ID {
+
+  /**
+   * ID生成器，插入数据时ID属性为null或0则使用生成器赋值
+   *
+   * @return
+   */
+  Class<? extends IdGenerator> generator() default NotUseIdGenerator.class;
+
 }
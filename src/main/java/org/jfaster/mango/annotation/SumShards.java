@@ -0,0 +1,34 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 在多个分片上执行的查询（{@link Broadcast}，按分片拆分的in语句，{@link ShardingFrom}与{@link ShardingTo}），
+ * 返回单个数字时各分片的结果求和，适用于count与sum
+ * <p/>
+ * max，min与avg等聚合的结果不能求和，所以返回单个数字的分片查询必须使用该注解声明求和，否则创建时报错
+ *
+ * @author ash
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SumShards {
+}
@@ -38,4 +38,9 @@ public interface BindingParameterInvoker {
    */
   BindingParameter getBindingParameter();
 
+  /**
+   * 获得在{@link ParameterContext}中分配的槽位，未分配时返回-1
+   */
+  int getSlot();
+
 }
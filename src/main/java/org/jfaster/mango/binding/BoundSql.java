@@ -27,43 +27,56 @@ import java.util.List;
  */
 public class BoundSql {
 
-  private final StringBuilder sql;
+  /**
+   * 未修改过的sql，修改后为null
+   */
+  private String sql;
+
+  /**
+   * 修改sql时才创建
+   */
+  private StringBuilder sqlBuilder;
+
   private final List<Object> args;
   private final List<TypeHandler<?>> typeHandlers;
 
   public BoundSql(StringBuilder sql) {
-    this.sql = sql;
-    this.args = new ArrayList<>();
-    this.typeHandlers = new ArrayList<>();
+    this(sql, new ArrayList<Object>(), new ArrayList<TypeHandler<?>>());
   }
 
   public BoundSql(StringBuilder sql, List<Object> args, List<TypeHandler<?>> typeHandlers) {
+    this.sqlBuilder = sql;
+    this.args = args;
+    this.typeHandlers = typeHandlers;
+  }
+
+  public BoundSql(String sql, List<Object> args, List<TypeHandler<?>> typeHandlers) {
     this.sql = sql;
     this.args = args;
     this.typeHandlers = typeHandlers;
   }
 
   public String getSql() {
-    return sql.toString();
+    return sql != null ? sql : sqlBuilder.toString();
   }
 
   public BoundSql append(String str) {
-    sql.append(str);
+    getSqlBuilder().append(str);
     return this;
   }
 
   public BoundSql prepend(String str) {
-    sql.insert(0, str);
+    getSqlBuilder().insert(0, str);
     return this;
   }
 
   public BoundSql append(Object obj) {
-    sql.append(String.valueOf(obj));
+    getSqlBuilder().append(String.valueOf(obj));
     return this;
   }
 
   public BoundSql prepend(Object obj) {
-    sql.insert(0, String.valueOf(obj));
+    getSqlBuilder().insert(0, String.valueOf(obj));
     return this;
   }
 
@@ -93,7 +106,15 @@ public class BoundSql {
     for (TypeHandler<?> typeHandler : getTypeHandlers()) {
       typeHandlers.add(typeHandler);
     }
-    return new BoundSql(new StringBuilder(sql.toString()), args, typeHandlers);
+    return new BoundSql(getSql(), args, typeHandlers);
+  }
+
+  private StringBuilder getSqlBuilder() {
+    if (sqlBuilder == null) {
+      sqlBuilder = new StringBuilder(sql);
+    }
+    sql = null;
+    return sqlBuilder;
   }
 
 }
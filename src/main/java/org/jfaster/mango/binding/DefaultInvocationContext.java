@@ -23,30 +23,78 @@ import javax.annotation.Nullable;
 import java.util.*;
 
 /**
+ * 按数组下标存取参数与绑定值的调用上下文
+ * <p/>
+ * 分配了槽位的绑定参数使用数组缓存绑定值，sql缓冲区在同一线程的调用之间复用
+ *
  * @author ash
  */
 public class DefaultInvocationContext implements InvocationContext {
 
-  private final Map<String, Object> parameterNameToValueMap = new LinkedHashMap<String, Object>();
-  private final List<Object> parameterValues = new LinkedList<Object>();
-  private final Map<String, Object> cache = new HashMap<String, Object>();
+  /**
+   * 槽位中未缓存绑定值的标记
+   */
+  private static final Object NOT_CACHED = new Object();
+
+  /**
+   * 复用的sql缓冲区容量上限，超过上限的缓冲区不再复用
+   */
+  private static final int MAX_REUSABLE_CAPACITY = 8192;
+
+  private static final ThreadLocal<StringBuilder[]> SQL_BUFFER = new ThreadLocal<StringBuilder[]>() {
+    @Override
+    protected StringBuilder[] initialValue() {
+      return new StringBuilder[1];
+    }
+  };
+
+  private final List<String> parameterNames;
+  private final List<Object> parameterValues;
+
+  /**
+   * 槽位到绑定值的缓存
+   */
+  private final Object[] slotCache;
 
-  private final StringBuilder sql = new StringBuilder();
-  private final List<Object> args = new LinkedList<Object>();
-  private final List<TypeHandler<?>> typeHandlers = new LinkedList<TypeHandler<?>>();
+  /**
+   * 未分配槽位的绑定参数的缓存
+   */
+  private Map<String, Object> cache;
+
+  private StringBuilder sql;
+  private String renderedSql;
+  private final List<Object> args = new ArrayList<Object>();
+  private final List<TypeHandler<?>> typeHandlers = new ArrayList<TypeHandler<?>>();
 
   private String globalTable;
 
-  private DefaultInvocationContext() {
+  private Set<String> unchangedProperties;
+
+  private DefaultInvocationContext(List<String> parameterNames, List<Object> parameterValues, int slotCount) {
+    this.parameterNames = parameterNames;
+    this.parameterValues = parameterValues;
+    if (slotCount > 0) {
+      slotCache = new Object[slotCount];
+      Arrays.fill(slotCache, NOT_CACHED);
+    } else {
+      slotCache = null;
+    }
   }
 
   public static DefaultInvocationContext create() {
-    return new DefaultInvocationContext();
+    return new DefaultInvocationContext(new ArrayList<String>(), new ArrayList<Object>(), 0);
+  }
+
+  /**
+   * 使用按位置排列的参数名与参数值创建上下文，参数名与参数值数组不会被复制
+   */
+  public static DefaultInvocationContext create(String[] parameterNames, Object[] parameterValues, int slotCount) {
+    return new DefaultInvocationContext(Arrays.asList(parameterNames), Arrays.asList(parameterValues), slotCount);
   }
 
   @Override
   public void addParameter(String parameterName, Object parameterValue) {
-    parameterNameToValueMap.put(parameterName, parameterValue);
+    parameterNames.add(parameterName);
     parameterValues.add(parameterValue);
   }
 
@@ -62,25 +110,32 @@ public class DefaultInvocationContext implements InvocationContext {
   @Override
   @Nullable
   public Object getNullableBindingValue(BindingParameterInvoker invoker) {
+    int slot = invoker.getSlot();
+    if (isSlotAvailable(slot)) {
+      Object value = slotCache[slot];
+      if (value == NOT_CACHED) {
+        value = invoker.invoke(getParameterValue(invoker));
+        slotCache[slot] = value;
+      }
+      return value;
+    }
     String key = getCacheKey(invoker);
-    if (cache.containsKey(key)) { // 有可能缓存null对象
+    if (cache != null && cache.containsKey(key)) { // 有可能缓存null对象
       return cache.get(key);
     }
-    String parameterName = invoker.getBindingParameter().getParameterName();
-    if (!parameterNameToValueMap.containsKey(parameterName)) { // ParameterContext进行过检测，理论上这段代码执行不到
-      throw new BindingException("Parameter '" + BindingParameter.create(parameterName, "", null) + "' not found, " +
-          "available root parameters are " + transToBindingParameters(parameterNameToValueMap.keySet()));
-    }
-    Object obj = parameterNameToValueMap.get(parameterName);
-    Object value = invoker.invoke(obj);
-    cache.put(key, value);
+    Object value = invoker.invoke(getParameterValue(invoker));
+    setCacheValue(key, value);
     return value;
   }
 
   @Override
   public void setBindingValue(BindingParameterInvoker invoker, Object value) {
-    String key = getCacheKey(invoker);
-    cache.put(key, value);
+    int slot = invoker.getSlot();
+    if (isSlotAvailable(slot)) {
+      slotCache[slot] = value;
+    } else {
+      setCacheValue(getCacheKey(invoker), value);
+    }
   }
 
   @Override
@@ -99,6 +154,7 @@ public class DefaultInvocationContext implements InvocationContext {
     if (Strings.isEmpty(str)) {
       return;
     }
+    StringBuilder sql = getSqlBuffer();
     int start = sql.lastIndexOf(str);
     if (start == -1) {
       return;
@@ -118,7 +174,7 @@ public class DefaultInvocationContext implements InvocationContext {
 
   @Override
   public void writeToSqlBuffer(String str) {
-    sql.append(str);
+    getSqlBuffer().append(str);
   }
 
   @Override
@@ -129,7 +185,12 @@ public class DefaultInvocationContext implements InvocationContext {
 
   @Override
   public BoundSql getBoundSql() {
-    return new BoundSql(sql, args, typeHandlers);
+    if (sql != null) { // 生成sql后归还缓冲区
+      renderedSql = sql.toString();
+      releaseSqlBuffer(sql);
+      sql = null;
+    }
+    return new BoundSql(renderedSql != null ? renderedSql : "", args, typeHandlers);
   }
 
   @Override
@@ -137,13 +198,72 @@ public class DefaultInvocationContext implements InvocationContext {
     return parameterValues;
   }
 
+  @Override
+  @Nullable
+  public Set<String> getUnchangedProperties() {
+    return unchangedProperties;
+  }
+
+  @Override
+  public void setUnchangedProperties(@Nullable Set<String> unchangedProperties) {
+    this.unchangedProperties = unchangedProperties;
+  }
+
+  private boolean isSlotAvailable(int slot) {
+    return slotCache != null && slot >= 0 && slot < slotCache.length;
+  }
+
+  private Object getParameterValue(BindingParameterInvoker invoker) {
+    String parameterName = invoker.getBindingParameter().getParameterName();
+    for (int i = parameterNames.size() - 1; i >= 0; i--) {
+      if (parameterName.equals(parameterNames.get(i))) {
+        return parameterValues.get(i);
+      }
+    }
+    // ParameterContext进行过检测，理论上这段代码执行不到
+    throw new BindingException("Parameter '" + BindingParameter.create(parameterName, "", null) + "' not found, " +
+        "available root parameters are " + transToBindingParameters(parameterNames));
+  }
+
+  private void setCacheValue(String key, Object value) {
+    if (cache == null) {
+      cache = new HashMap<String, Object>();
+    }
+    cache.put(key, value);
+  }
+
+  private StringBuilder getSqlBuffer() {
+    if (sql == null) {
+      StringBuilder[] holder = SQL_BUFFER.get();
+      StringBuilder sb = holder[0];
+      if (sb != null) { // 同一线程同时存在多个上下文时，后来者新建缓冲区
+        holder[0] = null;
+        sb.setLength(0);
+      } else {
+        sb = new StringBuilder(128);
+      }
+      if (renderedSql != null) {
+        sb.append(renderedSql);
+        renderedSql = null;
+      }
+      sql = sb;
+    }
+    return sql;
+  }
+
+  private static void releaseSqlBuffer(StringBuilder sb) {
+    if (sb.capacity() <= MAX_REUSABLE_CAPACITY) {
+      SQL_BUFFER.get()[0] = sb;
+    }
+  }
+
   private String getCacheKey(BindingParameterInvoker invoker) {
     return invoker.getBindingParameter().getFullName();
   }
 
   private Set<BindingParameter> transToBindingParameters(Collection<String> parameterNames) {
     Set<BindingParameter> rs = new LinkedHashSet<BindingParameter>();
-    for (String parameterName : parameterNames) {
+    for (String parameterName : new LinkedHashSet<String>(parameterNames)) {
       rs.add(BindingParameter.create(parameterName, "", null));
     }
     return rs;
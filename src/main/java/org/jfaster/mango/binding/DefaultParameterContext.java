@@ -40,6 +40,11 @@ public class DefaultParameterContext implements ParameterContext {
 
   private final List<ParameterDescriptor> parameterDescriptors = new ArrayList<ParameterDescriptor>();
 
+  /**
+   * 绑定参数全名到槽位的映射
+   */
+  private final Map<String, Integer> fullNameToSlotMap = new HashMap<String, Integer>();
+
   private DefaultParameterContext(List<ParameterDescriptor> parameterDescriptors) {
     for (int i = 0; i < parameterDescriptors.size(); i++) {
       ParameterDescriptor pd = parameterDescriptors.get(i);
@@ -75,7 +80,19 @@ public class DefaultParameterContext implements ParameterContext {
       throw new BindingException("Parameter '" + BindingParameter.create(bindingParameter.getParameterName(), "", null) +
           "' not found, available root parameters are " + transToBindingParameters(nameToTypeMap.keySet()));
     }
-    return TransferableBindingParameterInvoker.create(type, bindingParameter);
+    String fullName = bindingParameter.getFullName();
+    Integer slot = fullNameToSlotMap.get(fullName);
+    BindingParameterInvoker invoker = TransferableBindingParameterInvoker.create(type, bindingParameter,
+        slot != null ? slot : fullNameToSlotMap.size());
+    if (slot == null) {
+      fullNameToSlotMap.put(fullName, invoker.getSlot());
+    }
+    return invoker;
+  }
+
+  @Override
+  public int getSlotCount() {
+    return fullNameToSlotMap.size();
   }
 
   @Override
@@ -20,6 +20,7 @@ import org.jfaster.mango.type.TypeHandler;
 
 import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @author ash
@@ -50,4 +51,12 @@ public interface InvocationContext {
 
   public List<Object> getParameterValues();
 
+  /**
+   * 在#if表达式中视为null的属性
+   */
+  @Nullable
+  public Set<String> getUnchangedProperties();
+
+  public void setUnchangedProperties(@Nullable Set<String> unchangedProperties);
+
 }
@@ -7,8 +7,18 @@ public class InvocationContextFactory {
 
   private ParameterContext parameterContext;
 
+  /**
+   * 按位置排列的参数名
+   */
+  private final String[] parameterNames;
+
   private InvocationContextFactory(ParameterContext parameterContext) {
     this.parameterContext = parameterContext;
+    int size = parameterContext.getParameterDescriptors().size();
+    parameterNames = new String[size];
+    for (int i = 0; i < size; i++) {
+      parameterNames[i] = parameterContext.getParameterNameByPosition(i);
+    }
   }
 
   public static InvocationContextFactory create(ParameterContext parameterContext) {
@@ -16,12 +26,7 @@ public class InvocationContextFactory {
   }
 
   public InvocationContext newInvocationContext(Object[] values) {
-    InvocationContext context = DefaultInvocationContext.create();
-    for (int i = 0; i < values.length; i++) {
-      String parameterName = parameterContext.getParameterNameByPosition(i);
-      context.addParameter(parameterName, values[i]);
-    }
-    return context;
+    return DefaultInvocationContext.create(parameterNames, values, parameterContext.getSlotCount());
   }
 
 }
@@ -36,6 +36,11 @@ public interface ParameterContext {
    */
   public BindingParameterInvoker getBindingParameterInvoker(BindingParameter bindingParameter);
 
+  /**
+   * 获得已分配的绑定参数槽位数，相同的绑定参数共用一个槽位
+   */
+  public int getSlotCount();
+
   /**
    * 获得参数描述
    */
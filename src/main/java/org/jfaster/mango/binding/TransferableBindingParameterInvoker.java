@@ -31,8 +31,9 @@ public class TransferableBindingParameterInvoker implements BindingParameterInvo
   private final Type targetType;
   private final BindingParameter bindingParameter;
   private final TransferableInvoker invoker;
+  private final int slot;
 
-  private TransferableBindingParameterInvoker(Type originalType, BindingParameter bindingParameter) {
+  private TransferableBindingParameterInvoker(Type originalType, BindingParameter bindingParameter, int slot) {
     Type targetType = originalType;
     TransferableInvoker invoker = null;
     if (bindingParameter.hasProperty()) {
@@ -42,12 +43,18 @@ public class TransferableBindingParameterInvoker implements BindingParameterInvo
     this.targetType = targetType;
     this.bindingParameter = bindingParameter;
     this.invoker = invoker;
+    this.slot = slot;
   }
 
   public static TransferableBindingParameterInvoker create(
       Type originalType, BindingParameter bindingParameter) {
+    return create(originalType, bindingParameter, -1);
+  }
+
+  public static TransferableBindingParameterInvoker create(
+      Type originalType, BindingParameter bindingParameter, int slot) {
     try {
-      return new TransferableBindingParameterInvoker(originalType, bindingParameter);
+      return new TransferableBindingParameterInvoker(originalType, bindingParameter, slot);
     } catch (UnreachablePropertyException e) {
       throw new BindingException("Parameter '" + bindingParameter + "' can't be readable", e);
     }
@@ -74,4 +81,9 @@ public class TransferableBindingParameterInvoker implements BindingParameterInvo
   public BindingParameter getBindingParameter() {
     return bindingParameter;
   }
+
+  @Override
+  public int getSlot() {
+    return slot;
+  }
 }
@@ -34,6 +34,7 @@ public class BuildinSqlGenerator implements SqlGenerator {
     buildinBuilderFactories.add(new BuildinAddBuilderFactory());
     buildinBuilderFactories.add(new BuildinAddAndReturnGeneratedIdBuilderFactory());
     buildinBuilderFactories.add(new BuildinBatchAddBuilderFactory());
+    buildinBuilderFactories.add(new BuildinBatchAddAndReturnGeneratedIdBuilderFactory());
     buildinBuilderFactories.add(new BuildinFindOneBuilderFactory());
     buildinBuilderFactories.add(new BuildinFindManyBuilderFactory());
     buildinBuilderFactories.add(new BuildinFindAllBuilderFactory());
@@ -41,9 +42,14 @@ public class BuildinSqlGenerator implements SqlGenerator {
     buildinBuilderFactories.add(new BuildinUpdateBuilderFactory());
     buildinBuilderFactories.add(new BuildinBatchUpdateBuilderFactory());
     buildinBuilderFactories.add(new BuildinDeleteBuilderFactory());
+    buildinBuilderFactories.add(new BuildinBatchDeleteBuilderFactory());
+    buildinBuilderFactories.add(new BuildinUpdateManyBuilderFactory());
     buildinBuilderFactories.add(new BuildinFindAllPageBuilderFactory());
     buildinBuilderFactories.add(new BuildinFindAllSortBuilderFactory());
     buildinBuilderFactories.add(new BuildinGetOneBuilderFactory());
+    buildinBuilderFactories.add(new BuildinUpsertBuilderFactory());
+    buildinBuilderFactories.add(new BuildinBatchUpsertBuilderFactory());
+    buildinBuilderFactories.add(new BuildinAddIfAbsentBuilderFactory());
   }
 
   @Override
@@ -52,7 +58,9 @@ public class BuildinSqlGenerator implements SqlGenerator {
     String sql = null;
     Builder b = getBuilder(md);
     if (b != null) {
-      sql = b.buildSql();
+      sql = b instanceof DialectBuilder ?
+          ((DialectBuilder) b).buildSql(md.getDialect()) :
+          b.buildSql();
     }
     return sql;
   }
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.crud;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * 实现该接口的实体通过mango查询得到时，会记录各属性的快照；
+ * {@link CrudDao#update}中与快照相同的属性在#if表达式中视为null，因此只更新发生变化的列，
+ * 更新成功后快照刷新为当前的属性值；自定义sql的update方法不做跟踪
+ * <p/>
+ * 快照只记录不可变类型（基本类型及其包装类型，String，BigDecimal，java.time，枚举等）的属性值，
+ * Date、List等可变类型的属性可能被原地修改，总是视为已变化
+ * <p/>
+ * 外部事务回滚后快照与数据库不再一致，此时应调用snapshot(null)清除快照
+ *
+ * @author ash
+ */
+public interface ChangeTrackable {
+
+  /**
+   * 获得属性名到属性值的快照，没有快照时返回null，此时更新所有列
+   */
+  @Nullable
+  public Map<String, Object> snapshot();
+
+  public void snapshot(@Nullable Map<String, Object> snapshot);
+
+}
@@ -36,6 +36,14 @@ public interface CrudDao<T, ID> extends NamedCrudDao<T, ID> {
 
   void add(Iterable<T> entities);
 
+  long[] addAndReturnGeneratedIds(Iterable<T> entities);
+
+  int upsert(T entity);
+
+  int[] upsert(Iterable<T> entities);
+
+  boolean addIfAbsent(T entity);
+
   T getOne(ID primaryKey);
 
   Optional<T> findOne(ID primaryKey);
@@ -48,8 +56,12 @@ public interface CrudDao<T, ID> extends NamedCrudDao<T, ID> {
 
   int[] update(Iterable<T> entities);
 
+  int updateMany(Iterable<ID> primaryKeys, T entity);
+
   int delete(ID primaryKey);
 
+  int delete(Iterable<ID> primaryKeys);
+
   List<T> findAll();
 
   PageResult<T> findAll(Page page);
@@ -17,6 +17,8 @@
 package org.jfaster.mango.crud;
 
 import org.jfaster.mango.annotation.*;
+import org.jfaster.mango.id.IdGenerator;
+import org.jfaster.mango.id.NotUseIdGenerator;
 import org.jfaster.mango.util.Strings;
 import org.jfaster.mango.util.bean.BeanUtil;
 import org.jfaster.mango.util.bean.PropertyMeta;
@@ -44,6 +46,9 @@ public class CrudMeta {
   // 使用 @ID 修饰的类属性对应的数据库列
   private final String column4Id;
 
+  // @ID 中指定的ID生成器类
+  private final Class<? extends IdGenerator> idGeneratorClass;
+
   // 使用 @AutoGenerated 修饰的类属性
   private final String property4AutoGenerated;
 
@@ -57,6 +62,7 @@ public class CrudMeta {
     HashMap<String, Type> propToTypeMap = new HashMap<String, Type>();
     String prop4Id = null;
     String col4Id = null;
+    Class<? extends IdGenerator> idGenClass = null;
     String prop4AutoGenerated = null;
     String col4AutoGenerated = null;
 
@@ -73,8 +79,20 @@ public class CrudMeta {
       propToColMap.put(prop, col);
       propToTypeMap.put(prop, propertyMeta.getType());
 
-      prop4Id = extractIdProperty(propertyMeta, prop4Id, col4Id, prop, col);
-      prop4AutoGenerated = extractAutoGeneratedProperty(propertyMeta, prop4AutoGenerated, col4AutoGenerated, prop, col);
+      String newProp4Id = extractIdProperty(propertyMeta, prop4Id, col4Id, prop, col);
+      if (newProp4Id != prop4Id) {
+        prop4Id = newProp4Id;
+        col4Id = col;
+        ID idAnno = propertyMeta.getPropertyAnno(ID.class);
+        idGenClass = idAnno != null && !NotUseIdGenerator.class.equals(idAnno.generator()) ?
+            idAnno.generator() :
+            null;
+      }
+      String newProp4AutoGenerated = extractAutoGeneratedProperty(propertyMeta, prop4AutoGenerated, col4AutoGenerated, prop, col);
+      if (newProp4AutoGenerated != prop4AutoGenerated) {
+        prop4AutoGenerated = newProp4AutoGenerated;
+        col4AutoGenerated = col;
+      }
     }
 
     properties = Collections.unmodifiableList(props);
@@ -83,6 +101,7 @@ public class CrudMeta {
     propertyToTypeMap = Collections.unmodifiableMap(propToTypeMap);
     this.property4Id = prop4Id;
     this.column4Id = col4Id;
+    this.idGeneratorClass = idGenClass;
     this.property4AutoGenerated = prop4AutoGenerated;
     this.column4AutoGenerated = col4AutoGenerated;
   }
@@ -146,6 +165,11 @@ public class CrudMeta {
     return column4Id;
   }
 
+  @Nullable
+  public Class<? extends IdGenerator> getIdGeneratorClass() {
+    return idGeneratorClass;
+  }
+
   public String getProperty4AutoGenerated() {
     return property4AutoGenerated;
   }
@@ -22,16 +22,26 @@ package org.jfaster.mango.crud.buildin.builder;
 public class BuildinDeleteBuilder extends AbstractBuildinBuilder {
 
   private final static String SQL_TEMPLATE = "delete from #table where %s = :1";
+  private final static String BATCH_SQL_TEMPLATE = "delete from #table where %s in (:1)";
 
   private final String columnId;
 
+  private final boolean isBatch;
+
   public BuildinDeleteBuilder(String colId) {
+    this(colId, false);
+  }
+
+  public BuildinDeleteBuilder(String colId, boolean isBatch) {
     columnId = colId;
+    this.isBatch = isBatch;
   }
 
   @Override
   public String buildSql() {
-    return String.format(SQL_TEMPLATE, columnId);
+    return isBatch ?
+        String.format(BATCH_SQL_TEMPLATE, columnId) :
+        String.format(SQL_TEMPLATE, columnId);
   }
 
 }
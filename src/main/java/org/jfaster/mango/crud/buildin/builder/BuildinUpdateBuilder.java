@@ -36,9 +36,20 @@ public class BuildinUpdateBuilder extends AbstractBuildinBuilder {
 
   private final List<String> columns ;
 
+  // 为true时按id列表更新，第1个参数为id列表，第2个参数为实体
+  private final boolean isMany;
+
   public BuildinUpdateBuilder(
           String property4Id, String property4AutoGenerated,
           List<String> props, List<String> cols) {
+    this(property4Id, property4AutoGenerated, props, cols, false);
+  }
+
+  public BuildinUpdateBuilder(
+          String property4Id, String property4AutoGenerated,
+          List<String> props, List<String> cols, boolean isMany) {
+
+    this.isMany = isMany;
 
     properties = new ArrayList<String>(props); // 深拷贝
     columns = new ArrayList<String>(cols); // 深拷贝
@@ -66,12 +77,14 @@ public class BuildinUpdateBuilder extends AbstractBuildinBuilder {
   public String buildSql() {
     StringBuilder sb = new StringBuilder();
     for (int i = 0; i < properties.size(); i++) {
-      String prop = ":" + properties.get(i);
+      String prop = (isMany ? ":2." : ":") + properties.get(i);
       String col = columns.get(i);
       sb.append(String.format("#if (%s != null) %s = %s,#end ", prop, col, prop));
     }
     sb.append("#trim_comma");
-    String str = column4Id + " = :" + property4Id;
+    String str = isMany ?
+        column4Id + " in (:1)" :
+        column4Id + " = :" + property4Id;
     return String.format(SQL_TEMPLATE, sb.toString(), str);
   }
 
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.crud.buildin.builder;
+
+import org.jfaster.mango.crud.DialectBuilder;
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.util.Joiner;
+import org.jfaster.mango.util.jdbc.Dialect;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按主键插入或更新（upsert），以及主键不存在时才插入（addIfAbsent）
+ * <p/>
+ * mysql使用on duplicate key update，postgresql使用on conflict，hsqldb、h2、oracle使用merge
+ * <p/>
+ * mysql的addIfAbsent使用insert ... select ... where not exists，主键已存在时影响行数为0；
+ * 并发插入相同主键时后执行的语句可能抛出主键冲突异常
+ *
+ * @author ash
+ */
+public class BuildinUpsertBuilder extends AbstractBuildinBuilder implements DialectBuilder {
+
+  // 使用 @ID 修饰的类属性
+  private final String property4Id;
+
+  // 使用 @ID 修饰的类属性对应的数据库列
+  private final String column4Id;
+
+  private final List<String> properties;
+
+  private final List<String> columns;
+
+  /**
+   * 为true时主键已存在则不做任何操作
+   */
+  private final boolean ignoreExisting;
+
+  public BuildinUpsertBuilder(
+      String property4Id, String property4AutoGenerated,
+      List<String> props, List<String> cols, boolean ignoreExisting) {
+    properties = new ArrayList<String>(props); // 深拷贝
+    columns = new ArrayList<String>(cols); // 深拷贝
+    int index = properties.indexOf(property4Id);
+    if (index < 0) {
+      throw new IllegalArgumentException("error property4Id [" + property4Id + "]");
+    }
+    this.property4Id = property4Id;
+    this.column4Id = columns.get(index);
+    if (property4AutoGenerated != null // 主键以外的自增列
+        && !property4Id.equals(property4AutoGenerated)) {
+      index = properties.indexOf(property4AutoGenerated);
+      if (index < 0) {
+        throw new IllegalArgumentException("error property4AutoGenerated [" + property4AutoGenerated + "]");
+      }
+      properties.remove(index);
+      columns.remove(index);
+    }
+    this.ignoreExisting = ignoreExisting;
+  }
+
+  /**
+   * 未指定方言时按mysql生成
+   */
+  @Override
+  public String buildSql() {
+    return buildSql(Dialect.MYSQL);
+  }
+
+  @Override
+  public String buildSql(Dialect dialect) {
+    switch (dialect) {
+      case MYSQL:
+        return buildMySql();
+      case POSTGRESQL:
+        return buildPostgreSql();
+      case HSQLDB:
+        return buildMergeSql("(values(" + Joiner.on(", ").join(parameters()) + ")) s(" +
+            Joiner.on(", ").join(columns) + ")");
+      case H2:
+      case ORACLE:
+        List<String> selects = new ArrayList<String>();
+        for (int i = 0; i < properties.size(); i++) {
+          selects.add(":" + properties.get(i) + " " + columns.get(i));
+        }
+        return buildMergeSql("(select " + Joiner.on(", ").join(selects) + " from dual) s");
+      default:
+        throw new DescriptionException("upsert is not supported by dialect " + dialect + ", " +
+            "please specify the dialect by Config#setDialect");
+    }
+  }
+
+  private String buildMySql() {
+    if (ignoreExisting) {
+      // on duplicate key update id = id在连接使用CLIENT_FOUND_ROWS（jdbc驱动的默认值）时，主键已存在也返回1
+      return "insert into #table(" + Joiner.on(", ").join(columns) + ") " +
+          "select " + Joiner.on(", ").join(parameters()) + " from dual " +
+          "where not exists (select 1 from #table where " + column4Id + " = :" + property4Id + ")";
+    }
+    List<String> sets = new ArrayList<String>();
+    for (String col : updateColumns()) {
+      sets.add(col + " = values(" + col + ")");
+    }
+    if (sets.isEmpty()) { // 只有主键一列
+      sets.add(column4Id + " = " + column4Id);
+    }
+    return buildInsertSql() + " on duplicate key update " + Joiner.on(", ").join(sets);
+  }
+
+  private String buildPostgreSql() {
+    List<String> sets = new ArrayList<String>();
+    if (!ignoreExisting) {
+      for (String col : updateColumns()) {
+        sets.add(col + " = excluded." + col);
+      }
+    }
+    String action = sets.isEmpty() ? "do nothing" : "do update set " + Joiner.on(", ").join(sets);
+    return buildInsertSql() + " on conflict (" + column4Id + ") " + action;
+  }
+
+  private String buildMergeSql(String source) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("merge into #table t using ").append(source)
+        .append(" on (t.").append(column4Id).append(" = s.").append(column4Id).append(")");
+    List<String> sets = new ArrayList<String>();
+    if (!ignoreExisting) {
+      for (String col : updateColumns()) {
+        sets.add("t." + col + " = s." + col);
+      }
+    }
+    if (!sets.isEmpty()) {
+      sb.append(" when matched then update set ").append(Joiner.on(", ").join(sets));
+    }
+    List<String> values = new ArrayList<String>();
+    for (String col : columns) {
+      values.add("s." + col);
+    }
+    sb.append(" when not matched then insert (").append(Joiner.on(", ").join(columns))
+        .append(") values (").append(Joiner.on(", ").join(values)).append(")");
+    return sb.toString();
+  }
+
+  private String buildInsertSql() {
+    return "insert into #table(" + Joiner.on(", ").join(columns) + ") " +
+        "values(" + Joiner.on(", ").join(parameters()) + ")";
+  }
+
+  private List<String> parameters() {
+    List<String> ps = new ArrayList<String>();
+    for (String prop : properties) {
+      ps.add(":" + prop);
+    }
+    return ps;
+  }
+
+  private List<String> updateColumns() {
+    List<String> cols = new ArrayList<String>(columns);
+    cols.remove(column4Id);
+    return cols;
+  }
+
+}
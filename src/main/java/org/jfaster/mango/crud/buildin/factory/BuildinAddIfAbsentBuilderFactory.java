@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.crud.buildin.factory;
+
+import org.jfaster.mango.crud.CrudMeta;
+import org.jfaster.mango.crud.buildin.builder.AbstractBuildinBuilder;
+import org.jfaster.mango.crud.buildin.builder.BuildinUpsertBuilder;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 主键不存在时插入数据，已存在时不做任何操作
+ *
+ * @author ash
+ */
+public class BuildinAddIfAbsentBuilderFactory extends AbstractBuildinBuilderFactory {
+
+  @Override
+  String expectedMethodName() {
+    return "addIfAbsent";
+  }
+
+  @Override
+  Type expectedReturnType(Class<?> entityClass) {
+    return boolean.class;
+  }
+
+  @Override
+  List<Type> expectedParameterType(Class<?> entityClass, Class<?> idClass) {
+    List<Type> types = new ArrayList<Type>();
+    types.add(entityClass);
+    return types;
+  }
+
+  @Override
+  AbstractBuildinBuilder createInternalBuilder(CrudMeta cm) {
+    return new BuildinUpsertBuilder(cm.getProperty4Id(), cm.getProperty4AutoGenerated(),
+        cm.getProperties(), cm.getColumns(), true);
+  }
+
+}
@@ -20,6 +20,7 @@ import org.jfaster.mango.annotation.*;
 import org.jfaster.mango.exception.DescriptionException;
 import org.jfaster.mango.util.Strings;
 import org.jfaster.mango.util.ToStringHelper;
+import org.jfaster.mango.util.jdbc.Dialect;
 import org.jfaster.mango.util.logging.InternalLogger;
 import org.jfaster.mango.util.logging.InternalLoggerFactory;
 import org.jfaster.mango.util.reflect.Reflection;
@@ -29,6 +30,7 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * 方法描述
@@ -44,21 +46,39 @@ public class MethodDescriptor {
   private final ReturnDescriptor returnDescriptor;
   private final List<ParameterDescriptor> parameterDescriptors;
 
+  /**
+   * 方法返回{@code CompletableFuture<T>}或{@code CompletionStage<T>}，此时returnDescriptor描述的是T
+   */
+  private final boolean isAsync;
+
   private String cachedSQL;
 
+  /**
+   * 数据库方言，只在生成方言相关sql时解析
+   */
+  @Nullable
+  private Supplier<Dialect> dialectSupplier;
+
   private MethodDescriptor(
       String name, Class<?> daoClass, ReturnDescriptor returnDescriptor,
-      List<ParameterDescriptor> parameterDescriptors) {
+      List<ParameterDescriptor> parameterDescriptors, boolean isAsync) {
     this.name = name;
     this.daoClass = daoClass;
     this.returnDescriptor = returnDescriptor;
     this.parameterDescriptors = Collections.unmodifiableList(parameterDescriptors);
+    this.isAsync = isAsync;
   }
 
   public static MethodDescriptor create(
       String name, Class<?> daoClass, ReturnDescriptor returnDescriptor,
       List<ParameterDescriptor> parameterDescriptors) {
-    return new MethodDescriptor(name, daoClass, returnDescriptor, parameterDescriptors);
+    return new MethodDescriptor(name, daoClass, returnDescriptor, parameterDescriptors, false);
+  }
+
+  public static MethodDescriptor create(
+      String name, Class<?> daoClass, ReturnDescriptor returnDescriptor,
+      List<ParameterDescriptor> parameterDescriptors, boolean isAsync) {
+    return new MethodDescriptor(name, daoClass, returnDescriptor, parameterDescriptors, isAsync);
   }
 
   public String getName() {
@@ -102,6 +122,10 @@ public class MethodDescriptor {
     return parameterDescriptors;
   }
 
+  public boolean isAsync() {
+    return isAsync;
+  }
+
   public String getSQL() {
     if (cachedSQL != null) {
       return cachedSQL;
@@ -133,6 +157,14 @@ public class MethodDescriptor {
     return cachedSQL;
   }
 
+  public void setDialectSupplier(@Nullable Supplier<Dialect> dialectSupplier) {
+    this.dialectSupplier = dialectSupplier;
+  }
+
+  public Dialect getDialect() {
+    return dialectSupplier != null ? dialectSupplier.get() : Dialect.UNKNOWN;
+  }
+
   @Nullable
   public String getGlobalTable() {
     DB dbAnno = getAnnotation(DB.class);
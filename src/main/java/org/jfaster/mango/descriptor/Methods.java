@@ -25,6 +25,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * @author ash
@@ -42,6 +44,10 @@ public class Methods {
 
     TypeToken<?> daoTypeToken = TypeToken.of(daoClass);
     Type returnType = fixAndResolveType(method.getGenericReturnType(), daoTypeToken);
+    boolean isAsync = isAsyncType(returnType);
+    if (isAsync) { // 异步方法使用CompletableFuture<T>中的T描述返回
+      returnType = ((ParameterizedType) returnType).getActualTypeArguments()[0];
+    }
     ReturnDescriptor rd = ReturnDescriptor.create(returnType, mas);
 
     List<ParameterDescriptor> pds = new LinkedList<ParameterDescriptor>();
@@ -55,7 +61,7 @@ public class Methods {
       pds.add(ParameterDescriptor.create(i, type, Arrays.asList(pas), name));
     }
 
-    return MethodDescriptor.create(method.getName(), daoClass, rd, pds);
+    return MethodDescriptor.create(method.getName(), daoClass, rd, pds, isAsync);
   }
 
   public static List<Method> listMethods(Class<?> clazz) {
@@ -69,6 +75,14 @@ public class Methods {
     return methods;
   }
 
+  static boolean isAsyncType(Type type) {
+    if (type instanceof ParameterizedType) {
+      Type rawType = ((ParameterizedType) type).getRawType();
+      return CompletableFuture.class.equals(rawType) || CompletionStage.class.equals(rawType);
+    }
+    return false;
+  }
+
   static Type fixAndResolveType(Type type, TypeToken<?> daoTypeToken) {
     type = fixTypeInJava6(type);
     return resolveType(type, daoTypeToken);
@@ -57,6 +57,14 @@ public class ParameterDescriptor extends TypeWithAnnotationDescriptor {
     return name;
   }
 
+  public boolean isStream() {
+    return typeWrapper.isStream();
+  }
+
+  public boolean isIterator() {
+    return typeWrapper.isIterator();
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (obj == null)
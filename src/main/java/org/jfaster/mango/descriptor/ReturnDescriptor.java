@@ -45,6 +45,14 @@ public class ReturnDescriptor extends TypeWithAnnotationDescriptor {
     return typeWrapper.isPageResult();
   }
 
+  public boolean isStream() {
+    return typeWrapper.isStream();
+  }
+
+  public boolean isIterator() {
+    return typeWrapper.isIterator();
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (obj == null)
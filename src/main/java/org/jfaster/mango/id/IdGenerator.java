@@ -0,0 +1,34 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.id;
+
+/**
+ * ID生成器，由{@link org.jfaster.mango.annotation.ID#generator()}指定，
+ * 插入数据前为ID属性赋值，使分库分表可以在渲染sql前按ID路由
+ *
+ * @author ash
+ */
+public interface IdGenerator {
+
+  /**
+   * 生成下一个ID，需要线程安全
+   *
+   * @return
+   */
+  long nextId();
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.id;
+
+import org.jfaster.mango.util.reflect.Reflection;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * ID生成器实例缓存，同一个生成器类只实例化一次，保证号段等状态全局共享；
+ * 只能实例化有无参构造函数的生成器，其他生成器需要通过{@link org.jfaster.mango.operator.Mango#registerIdGenerator}注册
+ *
+ * @author ash
+ */
+public class IdGenerators {
+
+  private final static ConcurrentMap<Class<? extends IdGenerator>, IdGenerator> cache =
+      new ConcurrentHashMap<Class<? extends IdGenerator>, IdGenerator>();
+
+  @Nullable
+  public static IdGenerator getInstance(Class<? extends IdGenerator> clazz) {
+    if (NotUseIdGenerator.class.equals(clazz)) {
+      return null;
+    }
+    IdGenerator generator = cache.get(clazz);
+    if (generator == null) {
+      IdGenerator newGenerator = Reflection.instantiateClass(clazz);
+      generator = cache.putIfAbsent(clazz, newGenerator);
+      if (generator == null) {
+        generator = newGenerator;
+      }
+    }
+    return generator;
+  }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.id;
+
+import org.jfaster.mango.annotation.DB;
+import org.jfaster.mango.annotation.SQL;
+import org.jfaster.mango.datasource.AbstractDataSourceFactory;
+import org.jfaster.mango.jdbc.exception.DataRetrievalFailureException;
+import org.jfaster.mango.operator.AsyncExecutors;
+import org.jfaster.mango.operator.Mango;
+import org.jfaster.mango.transaction.Transaction;
+import org.jfaster.mango.transaction.TransactionFactory;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 号段ID生成器
+ * <p/>
+ * 每次从序列表中预留step个ID，号段内的ID无锁分配；当前号段消耗10%后异步预取下一号段。
+ * 序列表位于mango的默认数据源中，需要预先创建，并为每个bizTag插入一行：
+ * <pre>
+ * create table mango_sequence (biz_tag varchar(128) primary key, max_id bigint not null)
+ * </pre>
+ * 号段总是在executor线程中申请，不会加入调用线程上已开启的事务
+ * <p/>
+ * 没有无参构造函数，用于{@link org.jfaster.mango.annotation.ID#generator()}时，
+ * 为每个bizTag定义子类并通过{@link Mango#registerIdGenerator}注册实例：
+ * <pre>
+ * mango.registerIdGenerator(new OrderIdGenerator(mango)); // OrderIdGenerator extends SegmentIdGenerator
+ * </pre>
+ *
+ * @author ash
+ */
+public class SegmentIdGenerator implements IdGenerator {
+
+  public final static String DEFAULT_TABLE = "mango_sequence";
+
+  private final Mango mango;
+
+  private final SequenceDao sequenceDao;
+
+  private final String table;
+
+  private final String bizTag;
+
+  private final int step;
+
+  private final Executor executor;
+
+  private volatile Segment current = new Segment(0, 0, 0);
+
+  /**
+   * 预取中的下一号段
+   */
+  @Nullable
+  private CompletableFuture<Segment> next;
+
+  public SegmentIdGenerator(Mango mango, String bizTag, int step) {
+    this(mango, DEFAULT_TABLE, bizTag, step, AsyncExecutors.defaultExecutor());
+  }
+
+  public SegmentIdGenerator(Mango mango, String table, String bizTag, int step, Executor executor) {
+    if (step <= 0) {
+      throw new IllegalArgumentException("step must be positive, but " + step);
+    }
+    this.mango = mango;
+    this.sequenceDao = mango.create(SequenceDao.class);
+    this.table = table;
+    this.bizTag = bizTag;
+    this.step = step;
+    this.executor = executor;
+  }
+
+  @Override
+  public long nextId() {
+    for (;;) {
+      Segment s = current;
+      long id = s.cursor.getAndIncrement();
+      if (id < s.end) {
+        if (id == s.prefetchAt) {
+          prefetch();
+        }
+        return id;
+      }
+      switchSegment(s);
+    }
+  }
+
+  private synchronized void prefetch() {
+    if (next == null) {
+      next = allocate();
+    }
+  }
+
+  private synchronized void switchSegment(Segment exhausted) {
+    if (current != exhausted) { // 其他线程已切换
+      return;
+    }
+    CompletableFuture<Segment> f = next != null ? next : allocate();
+    next = null;
+    try {
+      current = f.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw e;
+    }
+  }
+
+  private CompletableFuture<Segment> allocate() {
+    return CompletableFuture.supplyAsync(new Supplier<Segment>() {
+      @Override
+      public Segment get() {
+        long maxId = reserve();
+        long start = maxId - step + 1;
+        return new Segment(start, maxId + 1, start + step / 10);
+      }
+    }, executor);
+  }
+
+  /**
+   * 在独立事务中将序列表的max_id增加step，返回增加后的值
+   */
+  private long reserve() {
+    Transaction tx = TransactionFactory.newTransaction(mango, AbstractDataSourceFactory.DEFULT_NAME);
+    Long maxId;
+    try {
+      int r = sequenceDao.increase(table, bizTag, step);
+      maxId = r == 1 ? sequenceDao.getMaxId(table, bizTag) : null;
+    } catch (RuntimeException e) {
+      tx.rollback();
+      throw e;
+    }
+    if (maxId == null) {
+      tx.rollback();
+      throw new DataRetrievalFailureException("can't find biz_tag [" + bizTag + "] in table [" + table + "]");
+    }
+    tx.commit();
+    return maxId;
+  }
+
+  private static class Segment {
+
+    private final AtomicLong cursor;
+
+    /**
+     * 号段结束位置（不包含）
+     */
+    private final long end;
+
+    /**
+     * 分配到该ID时预取下一号段
+     */
+    private final long prefetchAt;
+
+    Segment(long start, long end, long prefetchAt) {
+      this.cursor = new AtomicLong(start);
+      this.end = end;
+      this.prefetchAt = prefetchAt;
+    }
+  }
+
+  @DB
+  interface SequenceDao {
+
+    @SQL("update #{:1} set max_id = max_id + :3 where biz_tag = :2")
+    int increase(String table, String bizTag, int step);
+
+    @SQL("select max_id from #{:1} where biz_tag = :2")
+    Long getMaxId(String table, String bizTag);
+
+  }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按时间有序的64位ID生成器
+ * <p/>
+ * 1位符号位 + 41位毫秒时间戳（相对于epoch） + 10位workerId + 12位序列号，
+ * 同一毫秒内序列号用尽或时钟回拨时借用后续毫秒，保证ID单调递增且无需加锁
+ *
+ * @author ash
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+  /**
+   * 默认epoch，2014-01-01 00:00:00 UTC
+   */
+  public final static long DEFAULT_EPOCH = 1388534400000L;
+
+  private final static int WORKER_ID_BITS = 10;
+
+  private final static int SEQUENCE_BITS = 12;
+
+  public final static long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+
+  private final static long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+  private final long epoch;
+
+  private final long workerId;
+
+  /**
+   * 高位为相对epoch的毫秒数，低12位为序列号
+   */
+  private final AtomicLong state = new AtomicLong();
+
+  public TimeOrderedIdGenerator(long workerId) {
+    this(workerId, DEFAULT_EPOCH);
+  }
+
+  public TimeOrderedIdGenerator(long workerId, long epoch) {
+    if (workerId < 0 || workerId > MAX_WORKER_ID) {
+      throw new IllegalArgumentException("workerId must be between 0 and " + MAX_WORKER_ID + ", but " + workerId);
+    }
+    this.workerId = workerId;
+    this.epoch = epoch;
+  }
+
+  @Override
+  public long nextId() {
+    for (;;) {
+      long s = state.get();
+      long millis = currentTimeMillis() - epoch;
+      long next;
+      if (millis > (s >>> SEQUENCE_BITS)) {
+        next = millis << SEQUENCE_BITS;
+      } else {
+        next = s + 1; // 序列号溢出时进位到下一毫秒
+      }
+      if (state.compareAndSet(s, next)) {
+        return ((next >>> SEQUENCE_BITS) << (WORKER_ID_BITS + SEQUENCE_BITS))
+            | (workerId << SEQUENCE_BITS)
+            | (next & SEQUENCE_MASK);
+      }
+    }
+  }
+
+  /**
+   * 从ID中解析生成时间
+   */
+  public long getTimeMillis(long id) {
+    return (id >>> (WORKER_ID_BITS + SEQUENCE_BITS)) + epoch;
+  }
+
+  public long getWorkerId() {
+    return workerId;
+  }
+
+  protected long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * 主键ID生成器：号段ID生成器与按时间有序的64位ID生成器
+ *
+ * 依赖包:
+ *  org.jfaster.mango.annotation
+ *  org.jfaster.mango.datasource
+ *  org.jfaster.mango.operator
+ *  org.jfaster.mango.transaction
+ */
+package org.jfaster.mango.id;
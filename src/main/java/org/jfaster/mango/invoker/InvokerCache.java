@@ -21,6 +21,7 @@ import org.jfaster.mango.util.bean.BeanUtil;
 import org.jfaster.mango.util.bean.PropertyMeta;
 import org.jfaster.mango.util.local.DoubleCheckCache;
 import org.jfaster.mango.util.local.LoadingCache;
+import org.jfaster.mango.util.reflect.TypeToken;
 
 import java.util.*;
 
@@ -29,7 +30,20 @@ import java.util.*;
  */
 public class InvokerCache {
 
+  /**
+   * 获得属性调用器，多级属性使用"."分隔
+   */
   public static TransferableInvoker getInvoker(Class<?> clazz, String propertyName) {
+    if (propertyName.indexOf('.') != -1) {
+      List<TransferableInvoker> invokers = new ArrayList<>();
+      Class<?> type = clazz;
+      for (String name : propertyName.split("\\.")) {
+        TransferableInvoker invoker = getInvoker(type, name);
+        invokers.add(invoker);
+        type = TypeToken.of(invoker.getColumnType()).getRawType();
+      }
+      return new PropertyPathInvoker(propertyName, invokers);
+    }
     TransferableInvoker invoker = cache.get(clazz).getInvoker(propertyName);
     if (invoker == null) {
       throw new UnreachablePropertyException("There is no getter/setter for property named '" + propertyName + "' in '" + clazz + "'");
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.invoker;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * 多级属性调用器，例如{@code userBag.item.price}
+ * <p/>
+ * 由逐级的属性调用器组合而成，中间属性为null时get返回null
+ *
+ * @author ash
+ */
+class PropertyPathInvoker implements TransferableInvoker {
+
+  private final String name;
+
+  private final TransferableInvoker[] invokers;
+
+  private final TransferableInvoker last;
+
+  PropertyPathInvoker(String name, List<TransferableInvoker> invokers) {
+    this.name = name;
+    this.invokers = invokers.toArray(new TransferableInvoker[invokers.size()]);
+    this.last = this.invokers[this.invokers.length - 1];
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public Object invokeGet(Object obj) {
+    Object r = obj;
+    for (TransferableInvoker invoker : invokers) {
+      if (r == null) {
+        return null;
+      }
+      r = invoker.invokeGet(r);
+    }
+    return r;
+  }
+
+  @Override
+  public void invokeSet(Object object, @Nullable Object columnValue) {
+    Object target = object;
+    for (int i = 0; i < invokers.length - 1; i++) {
+      target = invokers[i].invokeGet(target);
+      if (target == null) {
+        throw new NullPointerException("property " + invokers[i].getName() + " of path " + name + " is null");
+      }
+    }
+    last.invokeSet(target, columnValue);
+  }
+
+  @Override
+  public Type getColumnType() {
+    return last.getColumnType();
+  }
+
+}
@@ -18,15 +18,19 @@ package org.jfaster.mango.invoker;
 
 import org.jfaster.mango.annotation.Transfer;
 import org.jfaster.mango.exception.UncheckedException;
+import org.jfaster.mango.util.Primitives;
 import org.jfaster.mango.util.ToStringHelper;
 import org.jfaster.mango.util.bean.PropertyMeta;
+import org.jfaster.mango.util.reflect.Accessors;
 import org.jfaster.mango.util.reflect.Reflection;
 import org.jfaster.mango.util.reflect.TokenTuple;
 import org.jfaster.mango.util.reflect.TypeToken;
 
+import javax.annotation.Nullable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.function.*;
 
 /**
  * TODO 优化异常提示
@@ -41,6 +45,28 @@ public class TransferablePropertyInvoker implements TransferableInvoker {
 
   private final Method setter;
 
+  /**
+   * 直接调用get方法的访问器
+   */
+  private final Function<Object, Object> getterAccessor;
+
+  /**
+   * 直接调用set方法的访问器
+   */
+  private final BiConsumer<Object, Object> setterAccessor;
+
+  /**
+   * set方法参数类型的包装类型，类型一致的值才通过访问器设置
+   */
+  private final Class<?> setterParameterType;
+
+  /**
+   * 属性为int，long或double且没有转换器时，不装箱设置属性的访问器
+   */
+  private final ObjIntConsumer<Object> intSetter;
+  private final ObjLongConsumer<Object> longSetter;
+  private final ObjDoubleConsumer<Object> doubleSetter;
+
   private final PropertyTransfer propertyTransfer;
 
   private final Type columnType;
@@ -72,6 +98,14 @@ public class TransferablePropertyInvoker implements TransferableInvoker {
     }
     handleMethod(getter);
     handleMethod(setter);
+    getterAccessor = Accessors.getter(getter);
+    setterAccessor = Accessors.setter(setter);
+    Class<?> parameterType = setter.getParameterTypes()[0];
+    setterParameterType = Primitives.wrap(parameterType);
+    boolean primitiveSettable = propertyTransfer == null;
+    intSetter = primitiveSettable && int.class.equals(parameterType) ? Accessors.intSetter(setter) : null;
+    longSetter = primitiveSettable && long.class.equals(parameterType) ? Accessors.longSetter(setter) : null;
+    doubleSetter = primitiveSettable && double.class.equals(parameterType) ? Accessors.doubleSetter(setter) : null;
   }
 
   public static TransferablePropertyInvoker create(PropertyMeta propertyMeta) {
@@ -86,35 +120,69 @@ public class TransferablePropertyInvoker implements TransferableInvoker {
   @SuppressWarnings("unchecked")
   @Override
   public Object invokeGet(Object obj) {
+    Object r;
     try {
-      Object r = getter.invoke(obj);
-      if (propertyTransfer != null) {
-        r = propertyTransfer.propertyToColumn(r);
-      }
-      return r;
-    } catch (IllegalAccessException | InvocationTargetException e) {
-      throw new UncheckedException(e.getMessage(), e.getCause());
+      r = getterAccessor.apply(obj);
+    } catch (Throwable e) { // 与反射调用一致，包装get方法抛出的异常
+      throw new UncheckedException(e.getMessage(), e);
     }
+    if (propertyTransfer != null) {
+      r = propertyTransfer.propertyToColumn(r);
+    }
+    return r;
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public void invokeSet(Object object, Object columnValue) {
-    try {
-      Object propertyValue = columnValue;
-      if (propertyTransfer != null) {
-        propertyValue = propertyTransfer.columnToProperty(columnValue, actualPropertyToken.getType());
-      }
-      if (propertyValue == null && actualPropertyToken.isPrimitive()) {
-        throw new NullPointerException("property " + getName() + " of " +
-            object.getClass() + " is primitive, can not be assigned to null");
+    Object propertyValue = columnValue;
+    if (propertyTransfer != null) {
+      propertyValue = propertyTransfer.columnToProperty(columnValue, actualPropertyToken.getType());
+    }
+    if (propertyValue == null && actualPropertyToken.isPrimitive()) {
+      throw new NullPointerException("property " + getName() + " of " +
+          object.getClass() + " is primitive, can not be assigned to null");
+    }
+    if (propertyValue != null && !setterParameterType.isInstance(propertyValue)) {
+      // 类型不一致时由反射完成基本类型的拓宽转换与类型检查
+      try {
+        setter.invoke(object, propertyValue);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        throw new UncheckedException(e.getMessage(), e.getCause());
       }
-      setter.invoke(object, propertyValue);
-    } catch (IllegalAccessException | InvocationTargetException e) {
-      throw new UncheckedException(e.getMessage(), e.getCause());
+      return;
+    }
+    try {
+      setterAccessor.accept(object, propertyValue);
+    } catch (Throwable e) { // 与反射调用一致，包装set方法抛出的异常
+      throw new UncheckedException(e.getMessage(), e);
     }
   }
 
+  /**
+   * 不装箱设置int属性的访问器，属性不是int或存在转换器时返回null
+   */
+  @Nullable
+  public ObjIntConsumer<Object> getIntSetter() {
+    return intSetter;
+  }
+
+  /**
+   * 不装箱设置long属性的访问器，属性不是long或存在转换器时返回null
+   */
+  @Nullable
+  public ObjLongConsumer<Object> getLongSetter() {
+    return longSetter;
+  }
+
+  /**
+   * 不装箱设置double属性的访问器，属性不是double或存在转换器时返回null
+   */
+  @Nullable
+  public ObjDoubleConsumer<Object> getDoubleSetter() {
+    return doubleSetter;
+  }
+
   @Override
   public Type getColumnType() {
     return columnType;
@@ -43,6 +43,10 @@ public interface JdbcOperations {
   public <T> Object queryForArray(DataSource ds, BoundSql boundSql, RowMapper<T> rowMapper)
       throws DataAccessException;
 
+  public <T> CloseableIterator<T> queryForIterator(DataSource ds, BoundSql boundSql,
+                                                  RowMapper<T> rowMapper, int fetchSize)
+      throws DataAccessException;
+
   public int update(DataSource ds, BoundSql boundSql)
       throws DataAccessException;
 
@@ -52,4 +56,10 @@ public interface JdbcOperations {
   public int[] batchUpdate(DataSource ds, List<BoundSql> boundSql)
       throws DataAccessException;
 
+  /**
+   * 批量更新，并将每条语句生成的key按顺序写入holders
+   */
+  public int[] batchUpdate(DataSource ds, List<BoundSql> boundSql, List<GeneratedKeyHolder> holders)
+      throws DataAccessException;
+
 }
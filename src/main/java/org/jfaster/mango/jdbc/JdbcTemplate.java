@@ -28,10 +28,12 @@ import org.jfaster.mango.util.local.LoadingCache;
 import org.jfaster.mango.util.logging.InternalLogger;
 import org.jfaster.mango.util.logging.InternalLoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 
@@ -42,6 +44,22 @@ public class JdbcTemplate implements JdbcOperations {
 
   private final static InternalLogger logger = InternalLoggerFactory.getInstance(JdbcTemplate.class);
 
+  /**
+   * 每个连接缓存PreparedStatement的最大数量，为0时不缓存
+   */
+  private final int statementCacheSize;
+
+  public JdbcTemplate() {
+    this(0);
+  }
+
+  public JdbcTemplate(int statementCacheSize) {
+    if (statementCacheSize < 0) {
+      throw new IllegalArgumentException("statementCacheSize can't be negative, but " + statementCacheSize);
+    }
+    this.statementCacheSize = statementCacheSize;
+  }
+
   @Override
   public <T> T queryForObject(DataSource dataSource, BoundSql boundSql, RowMapper<T> rowMapper)
       throws DataAccessException {
@@ -72,6 +90,37 @@ public class JdbcTemplate implements JdbcOperations {
     return executeQuery(dataSource, boundSql, new ArrayResultSetExtractor<T>(rowMapper));
   }
 
+  @Override
+  public <T> CloseableIterator<T> queryForIterator(DataSource dataSource, BoundSql boundSql,
+                                                  RowMapper<T> rowMapper, int fetchSize)
+      throws DataAccessException {
+
+    Connection conn = DataSourceUtils.getConnection(dataSource);
+    PreparedStatement ps = null;
+    ResultSet rs = null;
+    String sql = boundSql.getSql();
+    try {
+      ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      if (fetchSize != 0) {
+        ps.setFetchSize(fetchSize);
+      }
+      setValues(ps, boundSql);
+
+      if (logger.isDebugEnabled()) {
+        logger.debug("Executing \"{}\" {}", sql, boundSql.getArgs());
+      }
+
+      rs = ps.executeQuery();
+      return new ResultSetIterator<T>(dataSource, conn, ps, rs, sql, rowMapper);
+    } catch (SQLException e) {
+      closeResultSet(rs);
+      closeStatement(ps);
+      DataSourceUtils.releaseConnection(conn, dataSource);
+
+      throw getExceptionTranslator(dataSource).translate(sql, e);
+    }
+  }
+
   @Override
   public int update(DataSource dataSource, BoundSql boundSql)
       throws DataAccessException {
@@ -89,15 +138,14 @@ public class JdbcTemplate implements JdbcOperations {
     String sql = boundSql.getSql();
     try {
       boolean needGenerateKey = holder != null;
-      ps = needGenerateKey ?
-          conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) : // 生成自增key
-          conn.prepareStatement(sql); // 不生成自增key
+      ps = prepareStatement(conn, sql, needGenerateKey);
       setValues(ps, boundSql);
 
       if (logger.isDebugEnabled()) {
         logger.debug("Executing \"{}\" {}", sql, boundSql.getArgs());
       }
 
+      StatementCanceller.register(ps);
       int r = ps.executeUpdate();
       if (needGenerateKey) { // 生成自增key
         rs = ps.getGeneratedKeys();
@@ -112,7 +160,7 @@ public class JdbcTemplate implements JdbcOperations {
     } catch (SQLException e) {
       closeResultSet(rs);
       rs = null;
-      closeStatement(ps);
+      discardStatement(conn, ps);
       ps = null;
       DataSourceUtils.releaseConnection(conn, dataSource);
       conn = null;
@@ -120,16 +168,22 @@ public class JdbcTemplate implements JdbcOperations {
       throw getExceptionTranslator(dataSource).translate(sql, e);
     } finally {
       closeResultSet(rs);
-      closeStatement(ps);
+      releaseStatement(conn, ps);
       DataSourceUtils.releaseConnection(conn, dataSource);
     }
   }
 
   @Override
   public int[] batchUpdate(DataSource dataSource, List<BoundSql> boundSqls) throws DataAccessException {
+    return batchUpdate(dataSource, boundSqls, null);
+  }
+
+  @Override
+  public int[] batchUpdate(DataSource dataSource, List<BoundSql> boundSqls,
+                           @Nullable List<GeneratedKeyHolder> holders) throws DataAccessException {
     return isUniqueSql(boundSqls) ?
-        batchUpdateForUniqueSql(dataSource, boundSqls) :
-        batchUpdateForDifferentSql(dataSource, boundSqls);
+        batchUpdateForUniqueSql(dataSource, boundSqls, holders) :
+        batchUpdateForDifferentSql(dataSource, boundSqls, holders);
   }
 
   private <T> T executeQuery(DataSource dataSource, BoundSql boundSql, ResultSetExtractor<T> rse)
@@ -140,19 +194,20 @@ public class JdbcTemplate implements JdbcOperations {
     ResultSet rs = null;
     String sql = boundSql.getSql();
     try {
-      ps = conn.prepareStatement(sql);
+      ps = prepareStatement(conn, sql, false);
       setValues(ps, boundSql);
 
       if (logger.isDebugEnabled()) {
         logger.debug("Executing \"{}\" {}", sql, boundSql.getArgs());
       }
 
+      StatementCanceller.register(ps);
       rs = ps.executeQuery();
       return rse.extractData(rs);
     } catch (SQLException e) {
       closeResultSet(rs);
       rs = null;
-      closeStatement(ps);
+      discardStatement(conn, ps);
       ps = null;
       DataSourceUtils.releaseConnection(conn, dataSource);
       conn = null;
@@ -160,18 +215,19 @@ public class JdbcTemplate implements JdbcOperations {
       throw getExceptionTranslator(dataSource).translate(sql, e);
     } finally {
       closeResultSet(rs);
-      closeStatement(ps);
+      releaseStatement(conn, ps);
       DataSourceUtils.releaseConnection(conn, dataSource);
     }
   }
 
-  private int[] batchUpdateForUniqueSql(DataSource dataSource, List<BoundSql> boundSqls)
+  private int[] batchUpdateForUniqueSql(DataSource dataSource, List<BoundSql> boundSqls,
+                                        @Nullable List<GeneratedKeyHolder> holders)
       throws DataAccessException {
     Connection conn = DataSourceUtils.getConnection(dataSource);
     PreparedStatement ps = null;
     String sql = boundSqls.get(0).getSql();
     try {
-      ps = conn.prepareStatement(sql);
+      ps = prepareStatement(conn, sql, holders != null);
       setBatchValues(ps, boundSqls);
 
       if (logger.isDebugEnabled()) {
@@ -182,49 +238,73 @@ public class JdbcTemplate implements JdbcOperations {
         logger.debug("Executing \"{}\" {}", sql, debugBatchArgs);
       }
 
-      return ps.executeBatch();
+      StatementCanceller.register(ps);
+      int[] r = ps.executeBatch();
+      if (holders != null) {
+        setGeneratedKeys(ps, holders);
+      }
+      return r;
     } catch (SQLException e) {
-      closeStatement(ps);
+      discardStatement(conn, ps);
       ps = null;
       DataSourceUtils.releaseConnection(conn, dataSource);
       conn = null;
 
       throw getExceptionTranslator(dataSource).translate(sql, e);
     } finally {
-      closeStatement(ps);
+      releaseStatement(conn, ps);
       DataSourceUtils.releaseConnection(conn, dataSource);
     }
   }
 
-  private int[] batchUpdateForDifferentSql(DataSource dataSource, List<BoundSql> boundSqls)
+  /**
+   * 同一连接上，sql相同的连续语句合并为一次executeBatch
+   */
+  private int[] batchUpdateForDifferentSql(DataSource dataSource, List<BoundSql> boundSqls,
+                                           @Nullable List<GeneratedKeyHolder> holders)
       throws DataAccessException {
     int size = boundSqls.size();
     int[] r = new int[size];
     Connection conn = DataSourceUtils.getConnection(dataSource);
     try {
-      for (int i = 0; i < size; i++) {
-        BoundSql boundSql = boundSqls.get(i);
-        String sql = boundSql.getSql();
+      int from = 0;
+      while (from < size) {
+        String sql = boundSqls.get(from).getSql();
+        int to = from + 1;
+        while (to < size && sql.equals(boundSqls.get(to).getSql())) {
+          to++;
+        }
+        List<BoundSql> run = boundSqls.subList(from, to);
         PreparedStatement ps = null;
         try {
-          ps = conn.prepareStatement(sql);
-          setValues(ps, boundSql);
+          ps = prepareStatement(conn, sql, holders != null);
+          setBatchValues(ps, run);
 
           if (logger.isDebugEnabled()) {
-            logger.debug("Executing \"{}\" {}", sql, boundSql.getArgs());
+            List<List<Object>> debugBatchArgs = new ArrayList<List<Object>>(run.size());
+            for (BoundSql boundSql : run) {
+              debugBatchArgs.add(boundSql.getArgs());
+            }
+            logger.debug("Executing \"{}\" {}", sql, debugBatchArgs);
           }
 
-          r[i] = ps.executeUpdate();
+          StatementCanceller.register(ps);
+          int[] ints = ps.executeBatch();
+          System.arraycopy(ints, 0, r, from, ints.length);
+          if (holders != null) {
+            setGeneratedKeys(ps, holders.subList(from, to));
+          }
         } catch (SQLException e) {
-          closeStatement(ps);
+          discardStatement(conn, ps);
           ps = null;
           DataSourceUtils.releaseConnection(conn, dataSource);
           conn = null;
 
           throw getExceptionTranslator(dataSource).translate(sql, e);
         } finally {
-          closeStatement(ps);
+          releaseStatement(conn, ps);
         }
+        from = to;
       }
     } finally {
       DataSourceUtils.releaseConnection(conn, dataSource);
@@ -232,6 +312,70 @@ public class JdbcTemplate implements JdbcOperations {
     return r;
   }
 
+  /**
+   * 批量执行后按顺序读取每条语句生成的key
+   */
+  private void setGeneratedKeys(PreparedStatement ps, List<GeneratedKeyHolder> holders) throws SQLException {
+    ResultSet rs = ps.getGeneratedKeys();
+    try {
+      for (GeneratedKeyHolder holder : holders) {
+        if (!rs.next()) {
+          throw new DataRetrievalFailureException("Unable to retrieve the generated keys, expected " +
+              holders.size() + " keys. Check that the table has an identity column enabled.");
+        }
+        holder.setKey(holder.getTypeHandler().getResult(rs, 1));
+      }
+    } finally {
+      closeResultSet(rs);
+    }
+  }
+
+  private PreparedStatement prepareStatement(Connection conn, String sql, boolean returnGeneratedKeys)
+      throws SQLException {
+    if (statementCacheSize > 0) {
+      PreparedStatement ps = StatementCache.get(conn, sql, returnGeneratedKeys);
+      if (ps != null) {
+        return ps;
+      }
+    }
+    PreparedStatement ps = returnGeneratedKeys ?
+        conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) : // 生成自增key
+        conn.prepareStatement(sql); // 不生成自增key
+    if (statementCacheSize > 0) {
+      StatementCache.put(conn, sql, returnGeneratedKeys, ps, statementCacheSize);
+    }
+    return ps;
+  }
+
+  /**
+   * 语句正常执行结束，开启缓存时保留语句，否则关闭语句
+   */
+  private void releaseStatement(@Nullable Connection conn, @Nullable PreparedStatement ps) {
+    if (ps == null) {
+      return;
+    }
+    if (statementCacheSize > 0 && conn != null) {
+      StatementCanceller.unregister(ps);
+      try {
+        ps.clearParameters();
+      } catch (SQLException e) {
+        discardStatement(conn, ps);
+      }
+    } else {
+      closeStatement(ps);
+    }
+  }
+
+  /**
+   * 语句执行出错，从缓存中移除并关闭语句
+   */
+  private void discardStatement(@Nullable Connection conn, @Nullable PreparedStatement ps) {
+    if (ps != null && statementCacheSize > 0 && conn != null) {
+      StatementCache.remove(conn, ps);
+    }
+    closeStatement(ps);
+  }
+
   @SuppressWarnings("unchecked")
   private void setValues(PreparedStatement ps, BoundSql boundSql) throws SQLException {
     List<Object> args = boundSql.getArgs();
@@ -275,6 +419,84 @@ public class JdbcTemplate implements JdbcOperations {
         }
       });
 
+  /**
+   * 流式查询结果，连接在迭代结束、出现异常或调用close时释放
+   */
+  private class ResultSetIterator<T> implements CloseableIterator<T> {
+
+    private final DataSource dataSource;
+    private final Connection conn;
+    private final PreparedStatement ps;
+    private final ResultSet rs;
+    private final String sql;
+    private final RowMapper<T> rowMapper;
+
+    private int rowNum = 0;
+    private boolean hasNext;
+    private boolean fetched;
+    private boolean closed;
+
+    ResultSetIterator(DataSource dataSource, Connection conn, PreparedStatement ps,
+                      ResultSet rs, String sql, RowMapper<T> rowMapper) {
+      this.dataSource = dataSource;
+      this.conn = conn;
+      this.ps = ps;
+      this.rs = rs;
+      this.sql = sql;
+      this.rowMapper = rowMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (closed) {
+        return false;
+      }
+      if (!fetched) {
+        try {
+          hasNext = rs.next();
+        } catch (SQLException e) {
+          close();
+          throw getExceptionTranslator(dataSource).translate(sql, e);
+        }
+        fetched = true;
+        if (!hasNext) {
+          close();
+        }
+      }
+      return hasNext;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      fetched = false;
+      try {
+        return rowMapper.mapRow(rs, rowNum++);
+      } catch (SQLException e) {
+        close();
+        throw getExceptionTranslator(dataSource).translate(sql, e);
+      }
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("remove");
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        closeResultSet(rs);
+        closeStatement(ps);
+        DataSourceUtils.releaseConnection(conn, dataSource);
+      }
+    }
+
+  }
+
   /**
    * 关闭语句
    *
@@ -282,6 +504,7 @@ public class JdbcTemplate implements JdbcOperations {
    */
   private void closeStatement(Statement stmt) {
     if (stmt != null) {
+      StatementCanceller.unregister(stmt);
       try {
         stmt.close();
       } catch (SQLException e) {
@@ -72,6 +72,5 @@ private DataAccessException handleNonTransientException(String sql, SQLException
 }
 
 //Refactoring end
-  }
 
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.jdbc;
+
+import org.jfaster.mango.util.logging.InternalLogger;
+import org.jfaster.mango.util.logging.InternalLoggerFactory;
+
+import javax.annotation.Nullable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按连接缓存PreparedStatement
+ * <p/>
+ * 连接只在持有它的线程中使用(事务连接也绑定在线程上)，所以缓存放在ThreadLocal中，
+ * 连接真正关闭前必须调用{@link #clear(Connection)}关闭缓存的语句；
+ * 连接池返回的连接是逻辑连接，归还后缓存即被清空，缓存不会跨越两次借出的连接
+ *
+ * @author ash
+ */
+public abstract class StatementCache {
+
+  private final static InternalLogger logger = InternalLoggerFactory.getInstance(StatementCache.class);
+
+  private static final ThreadLocal<Map<Connection, LinkedHashMap<Key, PreparedStatement>>> STATEMENTS =
+      new ThreadLocal<Map<Connection, LinkedHashMap<Key, PreparedStatement>>>();
+
+  private static final AtomicLong hitCount = new AtomicLong();
+  private static final AtomicLong missCount = new AtomicLong();
+  private static final AtomicLong evictionCount = new AtomicLong();
+
+  @Nullable
+  static PreparedStatement get(Connection conn, String sql, boolean returnGeneratedKeys) {
+    Map<Connection, LinkedHashMap<Key, PreparedStatement>> map = STATEMENTS.get();
+    LinkedHashMap<Key, PreparedStatement> statements = map != null ? map.get(conn) : null;
+    PreparedStatement ps = statements != null ? statements.get(new Key(sql, returnGeneratedKeys)) : null;
+    if (ps != null) {
+      hitCount.incrementAndGet();
+    } else {
+      missCount.incrementAndGet();
+    }
+    return ps;
+  }
+
+  static void put(Connection conn, String sql, boolean returnGeneratedKeys,
+                  PreparedStatement ps, final int maxSize) {
+    Map<Connection, LinkedHashMap<Key, PreparedStatement>> map = STATEMENTS.get();
+    if (map == null) {
+      map = new IdentityHashMap<Connection, LinkedHashMap<Key, PreparedStatement>>();
+      STATEMENTS.set(map);
+    }
+    LinkedHashMap<Key, PreparedStatement> statements = map.get(conn);
+    if (statements == null) {
+      statements = new LinkedHashMap<Key, PreparedStatement>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+          boolean r = size() > maxSize;
+          if (r) {
+            evictionCount.incrementAndGet();
+            close(eldest.getValue());
+          }
+          return r;
+        }
+      };
+      map.put(conn, statements);
+    }
+    statements.put(new Key(sql, returnGeneratedKeys), ps);
+  }
+
+  static void remove(Connection conn, PreparedStatement ps) {
+    Map<Connection, LinkedHashMap<Key, PreparedStatement>> map = STATEMENTS.get();
+    LinkedHashMap<Key, PreparedStatement> statements = map != null ? map.get(conn) : null;
+    if (statements != null) {
+      statements.values().remove(ps);
+    }
+  }
+
+  /**
+   * 关闭并清除连接上缓存的全部语句
+   */
+  public static void clear(Connection conn) {
+    Map<Connection, LinkedHashMap<Key, PreparedStatement>> map = STATEMENTS.get();
+    if (map == null) {
+      return;
+    }
+    LinkedHashMap<Key, PreparedStatement> statements = map.remove(conn);
+    if (map.isEmpty()) {
+      STATEMENTS.remove();
+    }
+    if (statements != null) {
+      for (PreparedStatement ps : statements.values()) {
+        close(ps);
+      }
+    }
+  }
+
+  public static long getHitCount() {
+    return hitCount.get();
+  }
+
+  public static long getMissCount() {
+    return missCount.get();
+  }
+
+  public static long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  public static double getHitRate() {
+    long hit = hitCount.get();
+    long total = hit + missCount.get();
+    return total == 0 ? 1.0 : (double) hit / total;
+  }
+
+  private static void close(PreparedStatement ps) {
+    try {
+      ps.close();
+    } catch (SQLException e) {
+      logger.error("Could not close cached JDBC Statement", e);
+    } catch (Throwable e) {
+      logger.error("Unexpected exception on closing cached JDBC Statement", e);
+    }
+  }
+
+  private static class Key {
+
+    private final String sql;
+    private final boolean returnGeneratedKeys;
+
+    private Key(String sql, boolean returnGeneratedKeys) {
+      this.sql = sql;
+      this.returnGeneratedKeys = returnGeneratedKeys;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return returnGeneratedKeys == other.returnGeneratedKeys && sql.equals(other.sql);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * sql.hashCode() + (returnGeneratedKeys ? 1 : 0);
+    }
+
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.jdbc;
+
+import org.jfaster.mango.util.logging.InternalLogger;
+import org.jfaster.mango.util.logging.InternalLoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 绑定在执行线程上，用于取消当前线程中正在执行的语句
+ *
+ * @author ash
+ */
+public class StatementCanceller {
+
+  private final static InternalLogger logger = InternalLoggerFactory.getInstance(StatementCanceller.class);
+
+  private final static ThreadLocal<StatementCanceller> current = new ThreadLocal<StatementCanceller>();
+
+  private volatile Statement statement;
+
+  private volatile boolean cancelled;
+
+  public static void bind(StatementCanceller canceller) {
+    current.set(canceller);
+  }
+
+  public static void unbind() {
+    current.remove();
+  }
+
+  static void register(Statement stmt) throws SQLException {
+    StatementCanceller canceller = current.get();
+    if (canceller != null) {
+      canceller.statement = stmt;
+      if (canceller.cancelled) {
+        stmt.cancel();
+      }
+    }
+  }
+
+  static void unregister(Statement stmt) {
+    StatementCanceller canceller = current.get();
+    if (canceller != null && canceller.statement == stmt) {
+      canceller.statement = null;
+    }
+  }
+
+  /**
+   * 取消正在执行的语句，之后在该线程中注册的语句也会被立即取消
+   */
+  public void cancel() {
+    cancelled = true;
+    Statement stmt = statement;
+    if (stmt != null) {
+      try {
+        stmt.cancel();
+      } catch (SQLException e) {
+        logger.error("Could not cancel JDBC Statement", e);
+      } catch (Throwable e) {
+        logger.error("Unexpected exception on canceling JDBC Statement", e);
+      }
+    }
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.jdbc.exception;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 并行执行分库批量更新时，部分数据源执行失败
+ * <p/>
+ * 成功的数据源已经执行完成，不会回滚
+ *
+ * @author ash
+ */
+public class ShardedBatchUpdateException extends DataAccessException {
+
+  private final List<DataSource> succeededDataSources;
+
+  private final Map<DataSource, Throwable> failures;
+
+  public ShardedBatchUpdateException(List<DataSource> succeededDataSources, Map<DataSource, Throwable> failures) {
+    super("batch update failed on " + failures.size() + " of " +
+            (succeededDataSources.size() + failures.size()) + " data sources, " +
+            "succeeded " + succeededDataSources + ", failed " + failures.keySet(),
+        failures.values().iterator().next());
+    this.succeededDataSources = succeededDataSources;
+    this.failures = failures;
+    boolean first = true;
+    for (Throwable t : failures.values()) {
+      if (!first) {
+        addSuppressed(t);
+      }
+      first = false;
+    }
+  }
+
+  /**
+   * 执行成功的数据源
+   */
+  public List<DataSource> getSucceededDataSources() {
+    return succeededDataSources;
+  }
+
+  /**
+   * 执行失败的数据源及对应的异常
+   */
+  public Map<DataSource, Throwable> getFailures() {
+    return failures;
+  }
+
+}
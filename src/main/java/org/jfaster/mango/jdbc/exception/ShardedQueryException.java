@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.jdbc.exception;
+
+import org.jfaster.mango.sharding.Shard;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 跨分片查询时，部分分片执行失败或超时
+ * <p/>
+ * 可以通过{@link #getPartialResult()}获得成功分片合并后的结果
+ *
+ * @author ash
+ */
+public class ShardedQueryException extends DataAccessException {
+
+  private final List<Shard> succeededShards;
+
+  private final Map<Shard, Throwable> failures;
+
+  @Nullable
+  private final Object partialResult;
+
+  public ShardedQueryException(List<Shard> succeededShards, Map<Shard, Throwable> failures,
+                               @Nullable Object partialResult) {
+    super("query failed on " + failures.size() + " of " +
+            (succeededShards.size() + failures.size()) + " shards, " +
+            "succeeded " + succeededShards + ", failed " + failures.keySet(),
+        failures.values().iterator().next());
+    this.succeededShards = succeededShards;
+    this.failures = failures;
+    this.partialResult = partialResult;
+    boolean first = true;
+    for (Throwable t : failures.values()) {
+      if (!first) {
+        addSuppressed(t);
+      }
+      first = false;
+    }
+  }
+
+  /**
+   * 执行成功的分片
+   */
+  public List<Shard> getSucceededShards() {
+    return succeededShards;
+  }
+
+  /**
+   * 执行失败的分片及对应的异常
+   */
+  public Map<Shard, Throwable> getFailures() {
+    return failures;
+  }
+
+  /**
+   * 成功分片合并后的结果
+   */
+  @Nullable
+  public Object getPartialResult() {
+    return partialResult;
+  }
+
+}
@@ -16,10 +16,16 @@
 
 package org.jfaster.mango.mapper;
 
+import org.jfaster.mango.crud.ChangeTrackable;
 import org.jfaster.mango.invoker.InvokerCache;
 import org.jfaster.mango.invoker.TransferableInvoker;
+import org.jfaster.mango.invoker.TransferablePropertyInvoker;
+import org.jfaster.mango.type.PrimitiveDoubleTypeHandler;
+import org.jfaster.mango.type.PrimitiveIntTypeHandler;
+import org.jfaster.mango.type.PrimitiveLongTypeHandler;
 import org.jfaster.mango.type.TypeHandler;
 import org.jfaster.mango.type.TypeHandlerRegistry;
+import org.jfaster.mango.util.Objects;
 import org.jfaster.mango.util.PropertyTokenizer;
 import org.jfaster.mango.util.Strings;
 import org.jfaster.mango.util.jdbc.ResultSetWrapper;
@@ -28,11 +34,16 @@ import org.jfaster.mango.util.logging.InternalLoggerFactory;
 import org.jfaster.mango.util.reflect.Reflection;
 import org.jfaster.mango.util.reflect.TypeToken;
 
+import javax.annotation.Nullable;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
 
 /**
  * 单列或多列组装对象RowMapper
@@ -51,6 +62,18 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 
   private boolean checkColumn;
 
+  /**
+   * mappedClass实现了{@link ChangeTrackable}时，记录快照使用的属性调用器，否则为null
+   */
+  private List<TransferableInvoker> trackedInvokers;
+
+  private final MappingPlanCache<MappingPlan> planCache = new MappingPlanCache<MappingPlan>() {
+    @Override
+    MappingPlan createPlan(ResultSetWrapper rsw) {
+      return BeanPropertyRowMapper.this.createPlan(rsw);
+    }
+  };
+
   public BeanPropertyRowMapper(Class<T> mappedClass, Map<String, String> propertyToColumnMap, boolean checkColumn) {
     initialize(mappedClass, propertyToColumnMap, checkColumn);
   }
@@ -72,6 +95,7 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 
     // 初始化invokerMap
     List<TransferableInvoker> invokers = InvokerCache.getInvokers(mappedClass);
+    trackedInvokers = ChangeTrackable.class.isAssignableFrom(mappedClass) ? invokers : null;
     for (TransferableInvoker invoker : invokers) {
       String column = propertyToColumnMap.get(invoker.getName());
       if (column != null) { // 使用配置映射
@@ -86,45 +110,157 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
     }
   }
 
+  @SuppressWarnings("unchecked")
   public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
+    MappingPlan plan = planCache.getPlan(rs);
+    if (rowNumber == 0 && logger.isDebugEnabled()) {
+      plan.log();
+    }
     T mappedObject = Reflection.instantiate(mappedClass);
+    int[] indexes = plan.indexes;
+    int[] kinds = plan.kinds;
+    TransferableInvoker[] invokers = plan.invokers;
+    TypeHandler<?>[] typeHandlers = plan.typeHandlers;
+    Object[] primitiveSetters = plan.primitiveSetters;
+    for (int i = 0; i < indexes.length; i++) {
+      int index = indexes[i];
+      switch (kinds[i]) {
+        case INT:
+          int intValue = ((PrimitiveIntTypeHandler) typeHandlers[i]).getInt(rs, index);
+          if (intValue == 0 && rs.wasNull()) {
+            invokers[i].invokeSet(mappedObject, null); // 抛出基本类型属性不能为null的异常
+          }
+          ((ObjIntConsumer<Object>) primitiveSetters[i]).accept(mappedObject, intValue);
+          break;
+        case LONG:
+          long longValue = ((PrimitiveLongTypeHandler) typeHandlers[i]).getLong(rs, index);
+          if (longValue == 0 && rs.wasNull()) {
+            invokers[i].invokeSet(mappedObject, null);
+          }
+          ((ObjLongConsumer<Object>) primitiveSetters[i]).accept(mappedObject, longValue);
+          break;
+        case DOUBLE:
+          double doubleValue = ((PrimitiveDoubleTypeHandler) typeHandlers[i]).getDouble(rs, index);
+          if (doubleValue == 0 && rs.wasNull()) {
+            invokers[i].invokeSet(mappedObject, null);
+          }
+          ((ObjDoubleConsumer<Object>) primitiveSetters[i]).accept(mappedObject, doubleValue);
+          break;
+        default:
+          invokers[i].invokeSet(mappedObject, typeHandlers[i].getResult(rs, index));
+      }
+    }
+    if (trackedInvokers != null) {
+      Map<String, Object> snapshot = new HashMap<String, Object>();
+      for (TransferableInvoker invoker : trackedInvokers) {
+        Object value = invoker.invokeGet(mappedObject);
+        if (Objects.isImmutable(value)) { // 可变对象可能被原地修改，不记录快照，总是视为已变化
+          snapshot.put(invoker.getName(), value);
+        }
+      }
+      ((ChangeTrackable) mappedObject).snapshot(snapshot);
+    }
+    return mappedObject;
+  }
 
-    ResultSetWrapper rsw = new ResultSetWrapper(rs);
+  /**
+   * 根据结果集的列生成映射计划
+   */
+  private MappingPlan createPlan(ResultSetWrapper rsw) {
     int columnCount = rsw.getColumnCount();
-
+    List<Integer> indexes = new ArrayList<>();
+    List<String> columnNames = new ArrayList<>();
+    List<TransferableInvoker> invokers = new ArrayList<>();
+    List<TypeHandler<?>> typeHandlers = new ArrayList<>();
     for (int index = 1; index <= columnCount; index++) {
       String columnName = rsw.getColumnName(index);
       String lowerCaseColumnName = columnName.toLowerCase();
       String propertyPath = columnToPropertyMap.get(lowerCaseColumnName);
-
-      //TODO 优化
-      if (propertyPath != null) { // 使用自定义多级映射
-        setValueByProperty(mappedObject, propertyPath, rsw, index, rowNumber);
+      TransferableInvoker invoker = invokerMap.get(propertyPath != null ? propertyPath : lowerCaseColumnName);
+      if (invoker != null) {
+        Class<?> columnRawType = TypeToken.of(invoker.getColumnType()).getRawType();
+        indexes.add(index);
+        columnNames.add(columnName);
+        invokers.add(invoker);
+        typeHandlers.add(TypeHandlerRegistry.getTypeHandler(columnRawType, rsw.getJdbcType(index)));
       } else {
-        setValueByProperty(mappedObject, lowerCaseColumnName, rsw, index, rowNumber);
+        if (checkColumn) {
+          throw new MappingException("Unable to map column '" + columnName +
+              "' to any property of '" + mappedClass + "'");
+        }
       }
     }
-    return mappedObject;
+    return new MappingPlan(indexes, columnNames, invokers, typeHandlers);
   }
-  private void setValueByProperty(Object mappedObject, String lowerCaseColumnName, ResultSetWrapper rsw,
-                                  int index, int rowNumber) throws SQLException {
-
-    TransferableInvoker invoker = invokerMap.get(lowerCaseColumnName);
-    if (invoker != null) {
-      Class<?> columnRawType = TypeToken.of(invoker.getColumnType()).getRawType();
-      TypeHandler<?> typeHandler = TypeHandlerRegistry.getTypeHandler(columnRawType, rsw.getJdbcType(index));
-      Object value = typeHandler.getResult(rsw.getResultSet(), index);
-      if (logger.isDebugEnabled() && rowNumber == 0) {
-        logger.debug("Mapping column '" + rsw.getColumnName(index) + "' to property '" +
-            invoker.getName() + "' of type " + columnRawType);
+
+  private static final int OBJECT = 0;
+  private static final int INT = 1;
+  private static final int LONG = 2;
+  private static final int DOUBLE = 3;
+
+  /**
+   * 映射计划，第i个映射列的下标，映射方式，属性调用器与类型处理器
+   * <p/>
+   * 没有转换器的int，long与double属性使用基本类型读取与设置，不装箱
+   */
+  private static class MappingPlan {
+
+    private final int[] indexes;
+    private final int[] kinds;
+    private final String[] columnNames;
+    private final TransferableInvoker[] invokers;
+    private final TypeHandler<?>[] typeHandlers;
+    private final Object[] primitiveSetters;
+
+    MappingPlan(List<Integer> indexes, List<String> columnNames,
+                List<TransferableInvoker> invokers, List<TypeHandler<?>> typeHandlers) {
+      int size = indexes.size();
+      this.indexes = new int[size];
+      for (int i = 0; i < size; i++) {
+        this.indexes[i] = indexes.get(i);
       }
-      invoker.invokeSet(mappedObject, value);
-    } else {
-      if (checkColumn) {
-        throw new MappingException("Unable to map column '" + rsw.getColumnName(index) +
-            "' to any property of '" + mappedClass + "'");
+      this.columnNames = columnNames.toArray(new String[size]);
+      this.invokers = invokers.toArray(new TransferableInvoker[size]);
+      this.typeHandlers = typeHandlers.toArray(new TypeHandler<?>[size]);
+      this.kinds = new int[size];
+      this.primitiveSetters = new Object[size];
+      for (int i = 0; i < size; i++) {
+        TransferableInvoker invoker = this.invokers[i];
+        if (!(invoker instanceof TransferablePropertyInvoker)) {
+          continue;
+        }
+        TransferablePropertyInvoker tpi = (TransferablePropertyInvoker) invoker;
+        TypeHandler<?> typeHandler = this.typeHandlers[i];
+        if (tpi.getIntSetter() != null && typeHandler instanceof PrimitiveIntTypeHandler) {
+          kinds[i] = INT;
+          primitiveSetters[i] = tpi.getIntSetter();
+        } else if (tpi.getLongSetter() != null && typeHandler instanceof PrimitiveLongTypeHandler) {
+          kinds[i] = LONG;
+          primitiveSetters[i] = tpi.getLongSetter();
+        } else if (tpi.getDoubleSetter() != null && typeHandler instanceof PrimitiveDoubleTypeHandler) {
+          kinds[i] = DOUBLE;
+          primitiveSetters[i] = tpi.getDoubleSetter();
+        }
       }
     }
+
+    void log() {
+      for (int i = 0; i < indexes.length; i++) {
+        logger.debug("Mapping column '" + columnNames[i] + "' to property '" +
+            invokers[i].getName() + "' of type " + TypeToken.of(invokers[i].getColumnType()).getRawType());
+      }
+    }
+
+  }
+
+  /**
+   * 获得列对应的属性调用器，列映射到嵌套属性或不存在时返回null
+   */
+  @Nullable
+  public TransferableInvoker getInvokerByColumn(String column) {
+    String lowerCaseColumnName = column.toLowerCase();
+    String propertyPath = columnToPropertyMap.get(lowerCaseColumnName);
+    return invokerMap.get(propertyPath != null ? propertyPath : lowerCaseColumnName);
   }
 
   @Override
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.mapper;
+
+import org.jfaster.mango.util.jdbc.ResultSetWrapper;
+
+import java.lang.ref.WeakReference;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 映射计划缓存
+ * <p/>
+ * 映射计划按结果集的列名与jdbc类型缓存，同一个结果集的后续行直接复用上一次的计划，
+ * 不再读取{@link java.sql.ResultSetMetaData}；上一次的计划按线程保存，并发查询之间互不覆盖
+ *
+ * @author ash
+ */
+abstract class MappingPlanCache<P> {
+
+  /**
+   * 缓存的结果集形状上限，超过上限后不再缓存新的计划
+   */
+  private static final int MAX_PLANS = 64;
+
+  private final ConcurrentHashMap<String, P> plans = new ConcurrentHashMap<String, P>();
+
+  private final ThreadLocal<LastPlan<P>> lastPlan = new ThreadLocal<LastPlan<P>>();
+
+  P getPlan(ResultSet rs) throws SQLException {
+    LastPlan<P> last = lastPlan.get();
+    if (last != null && last.resultSet.get() == rs) {
+      return last.plan;
+    }
+    ResultSetWrapper rsw = new ResultSetWrapper(rs);
+    String signature = signature(rsw);
+    P plan = plans.get(signature);
+    if (plan == null) {
+      plan = createPlan(rsw);
+      if (plans.size() < MAX_PLANS) {
+        plans.putIfAbsent(signature, plan);
+      }
+    }
+    lastPlan.set(new LastPlan<P>(rs, plan));
+    return plan;
+  }
+
+  abstract P createPlan(ResultSetWrapper rsw) throws SQLException;
+
+  private static String signature(ResultSetWrapper rsw) {
+    StringBuilder sb = new StringBuilder();
+    for (int index = 1; index <= rsw.getColumnCount(); index++) {
+      sb.append(rsw.getColumnName(index)).append('\0').append(rsw.getJdbcType(index)).append('\0');
+    }
+    return sb.toString();
+  }
+
+  private static class LastPlan<P> {
+
+    /**
+     * 不阻止结果集被回收
+     */
+    private final WeakReference<ResultSet> resultSet;
+
+    private final P plan;
+
+    LastPlan(ResultSet resultSet, P plan) {
+      this.resultSet = new WeakReference<ResultSet>(resultSet);
+      this.plan = plan;
+    }
+
+  }
+
+}
@@ -32,25 +32,27 @@ public class SingleColumnRowMapper<T> implements RowMapper<T> {
 
   private Class<T> mappedClass;
 
+  /**
+   * 结果集第一列的类型处理器
+   */
+  private final MappingPlanCache<TypeHandler<?>> planCache = new MappingPlanCache<TypeHandler<?>>() {
+    @Override
+    TypeHandler<?> createPlan(ResultSetWrapper rsw) {
+      /**
+       * 在对oralce进行单列分页查询时会引入行号变量，导致单列变成双列，所以不检测列数
+       */
+      return TypeHandlerRegistry.getTypeHandler(mappedClass, rsw.getJdbcType(1));
+    }
+  };
+
   public SingleColumnRowMapper(Class<T> mappedClass) {
     this.mappedClass = mappedClass;
   }
 
   @SuppressWarnings("unchecked")
   public T mapRow(ResultSet rs, int rowNum) throws SQLException {
-    ResultSetWrapper rsw = new ResultSetWrapper(rs);
-
-    /**
-     * 在对oralce进行单列分页查询时会引入行号变量，导致单列变成双列，所以去掉下面的检测
-     */
-    //if (rsw.getColumnCount() != 1) {
-    //  throw new MappingException("incorrect column count, expected 1 but " + rsw.getColumnCount());
-    //}
-
-    int index = 1;
-    TypeHandler<?> typeHandler = TypeHandlerRegistry.getTypeHandler(mappedClass, rsw.getJdbcType(index));
-    Object value = typeHandler.getResult(rsw.getResultSet(), index);
-    return (T) value;
+    TypeHandler<?> typeHandler = planCache.getPlan(rs);
+    return (T) typeHandler.getResult(rs, 1);
   }
 
   @Override
@@ -16,6 +16,8 @@
 
 package org.jfaster.mango.operator;
 
+import org.jfaster.mango.annotation.BatchChunk;
+import org.jfaster.mango.annotation.FetchSize;
 import org.jfaster.mango.annotation.UseTransactionForBatchUpdate;
 import org.jfaster.mango.binding.InvocationContextFactory;
 import org.jfaster.mango.descriptor.MethodDescriptor;
@@ -101,6 +103,16 @@ public abstract class AbstractOperator implements Operator {
     if (anno != null) {
       config.setUseTransactionForBatchUpdate(anno.value());
     }
+    BatchChunk batchChunkAnno = md.getAnnotation(BatchChunk.class);
+    if (batchChunkAnno != null) {
+      config.setBatchChunkSize(batchChunkAnno.value());
+      config.setCommitPerChunk(batchChunkAnno.commitPerChunk());
+      config.setBatchChunkTargetMillis(batchChunkAnno.targetMillis());
+    }
+    FetchSize fetchSizeAnno = md.getAnnotation(FetchSize.class);
+    if (fetchSizeAnno != null) {
+      config.setFetchSize(fetchSizeAnno.value());
+    }
   }
 
 }
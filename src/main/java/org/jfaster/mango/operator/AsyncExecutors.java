@@ -0,0 +1,115 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator;
+
+import org.jfaster.mango.util.logging.InternalLogger;
+import org.jfaster.mango.util.logging.InternalLoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步方法与跨分片并行执行默认使用的executor
+ * <p/>
+ * 异步方法在JDK21及以上每个任务使用一个虚拟线程，否则使用固定大小的守护线程池；
+ * 跨分片并行执行总是使用固定大小的守护线程池，限制同时占用的连接数
+ *
+ * @author ash
+ */
+public class AsyncExecutors {
+
+  private final static InternalLogger logger = InternalLoggerFactory.getInstance(AsyncExecutors.class);
+
+  private static volatile Executor defaultExecutor;
+
+  private static volatile Executor defaultShardExecutor;
+
+  public static Executor defaultExecutor() {
+    Executor executor = defaultExecutor;
+    if (executor == null) {
+      synchronized (AsyncExecutors.class) {
+        executor = defaultExecutor;
+        if (executor == null) {
+          executor = createDefaultExecutor();
+          defaultExecutor = executor;
+        }
+      }
+    }
+    return executor;
+  }
+
+  public static Executor defaultShardExecutor() {
+    Executor executor = defaultShardExecutor;
+    if (executor == null) {
+      synchronized (AsyncExecutors.class) {
+        executor = defaultShardExecutor;
+        if (executor == null) {
+          executor = newDaemonThreadPool("mango-shard-");
+          defaultShardExecutor = executor;
+        }
+      }
+    }
+    return executor;
+  }
+
+  private static Executor createDefaultExecutor() {
+    try {
+      Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      Executor executor = (Executor) m.invoke(null);
+      if (logger.isInfoEnabled()) {
+        logger.info("Using virtual thread executor for async methods");
+      }
+      return executor;
+    } catch (NoSuchMethodException e) {
+      // JDK21以下
+    } catch (Exception e) {
+      if (logger.isWarnEnabled()) {
+        logger.warn("Could not create virtual thread executor, use thread pool instead", e);
+      }
+    }
+    return newDaemonThreadPool("mango-async-");
+  }
+
+  private static Executor newDaemonThreadPool(String namePrefix) {
+    int nThreads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(nThreads, nThreads, 60L, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory(namePrefix));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  private static class DaemonThreadFactory implements ThreadFactory {
+
+    private final String namePrefix;
+
+    private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+    DaemonThreadFactory(String namePrefix) {
+      this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, namePrefix + threadNumber.getAndIncrement());
+      t.setDaemon(true);
+      return t;
+    }
+
+  }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator;
+
+import org.jfaster.mango.descriptor.MethodDescriptor;
+import org.jfaster.mango.jdbc.StatementCanceller;
+import org.jfaster.mango.transaction.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 在executor中执行被装饰的operator，返回{@link CompletableFuture}
+ * <p/>
+ * 事务绑定在调用线程上，executor中的语句会在另一个连接上自动提交；
+ * 所以调用线程绑定了事务时，在调用线程中同步执行以加入事务，返回已完成的future
+ *
+ * @author ash
+ */
+public class AsyncOperator implements Operator {
+
+  private final Operator operator;
+  private final Executor executor;
+
+  public AsyncOperator(Operator operator, Executor executor) {
+    this.operator = operator;
+    this.executor = executor;
+  }
+
+  @Override
+  public Object execute(final Object[] values) {
+    if (TransactionSynchronizationManager.hasConnectionHolder()) {
+      CompletableFuture<Object> future = new CompletableFuture<Object>();
+      try {
+        future.complete(operator.execute(values));
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+      return future;
+    }
+    return supplyAsync(new Supplier<Object>() {
+      @Override
+      public Object get() {
+        return operator.execute(values);
+      }
+    }, executor);
+  }
+
+  /**
+   * 在executor中执行supplier，取消返回的future时同时取消正在执行的jdbc语句
+   */
+  static <T> CompletableFuture<T> supplyAsync(final Supplier<T> supplier, Executor executor) {
+    final StatementCanceller canceller = new StatementCanceller();
+    final CancellableFuture<T> future = new CancellableFuture<T>(canceller);
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          if (future.isDone()) { // 执行前已被取消
+            return;
+          }
+          StatementCanceller.bind(canceller);
+          try {
+            future.complete(supplier.get());
+          } catch (Throwable e) {
+            future.completeExceptionally(e);
+          } finally {
+            StatementCanceller.unbind();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  @Override
+  public MethodDescriptor getMethodDescriptor() {
+    return operator.getMethodDescriptor();
+  }
+
+  /**
+   * 取消时同时取消正在执行的jdbc语句
+   */
+  static class CancellableFuture<T> extends CompletableFuture<T> {
+
+    private final StatementCanceller canceller;
+
+    CancellableFuture(StatementCanceller canceller) {
+      this.canceller = canceller;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean r = super.cancel(mayInterruptIfRunning);
+      if (r) {
+        canceller.cancel();
+      }
+      return r;
+    }
+
+  }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator;
+
+/**
+ * 批量操作的分块大小，设置目标耗时后根据上一块的实际耗时调整，
+ * 每次最多放大或缩小一倍，并限制在初始大小的1/16到4倍之间
+ *
+ * @author ash
+ */
+final class BatchChunkSizer {
+
+  private final long targetNanos;
+  private final int minSize;
+  private final int maxSize;
+  private int size;
+
+  BatchChunkSizer(int size, int targetMillis) {
+    this.size = size;
+    this.targetNanos = targetMillis * 1000000L;
+    this.minSize = Math.max(1, size / 16);
+    this.maxSize = size > Integer.MAX_VALUE / 4 ? Integer.MAX_VALUE : size * 4;
+  }
+
+  int getSize() {
+    return size;
+  }
+
+  /**
+   * 记录一块的行数与耗时
+   */
+  void record(int rowNum, long elapsedNanos) {
+    if (targetNanos <= 0 || rowNum < size) { // 未开启自适应或最后一块不足
+      return;
+    }
+    double ratio = (double) targetNanos / Math.max(elapsedNanos, 1);
+    ratio = Math.max(0.5, Math.min(2, ratio));
+    long next = Math.round(size * ratio);
+    size = (int) Math.max(minSize, Math.min(maxSize, next));
+  }
+
+}
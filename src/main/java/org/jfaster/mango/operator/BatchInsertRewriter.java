@@ -0,0 +1,301 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator;
+
+import org.jfaster.mango.binding.BoundSql;
+import org.jfaster.mango.type.TypeHandler;
+
+import javax.annotation.Nullable;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将批量的单行insert/replace语句改写为多行values语句，
+ * 改写后每条语句受占位符数量与sql长度限制
+ *
+ * @author ash
+ */
+final class BatchInsertRewriter {
+
+  private BatchInsertRewriter() {
+  }
+
+  /**
+   * 改写批量语句，sql相同的连续语句合并，无法改写的语句原样保留
+   */
+  static Result rewrite(List<BoundSql> boundSqls, int maxPlaceholders, int maxSqlLength) {
+    int size = boundSqls.size();
+    List<BoundSql> rewritten = new ArrayList<BoundSql>();
+    int[] rowNums = new int[size];
+    int from = 0;
+    while (from < size) {
+      String sql = boundSqls.get(from).getSql();
+      int to = from + 1;
+      while (to < size && sql.equals(boundSqls.get(to).getSql())) {
+        to++;
+      }
+      Template template = to - from > 1 ? Template.parse(sql) : null;
+      if (template == null) {
+        for (int i = from; i < to; i++) {
+          rowNums[rewritten.size()] = 1;
+          rewritten.add(boundSqls.get(i));
+        }
+      } else {
+        int i = from;
+        while (i < to) {
+          int end = template.chunkEnd(boundSqls, i, to, maxPlaceholders, maxSqlLength);
+          rowNums[rewritten.size()] = end - i;
+          rewritten.add(template.merge(boundSqls.subList(i, end)));
+          i = end;
+        }
+      }
+      from = to;
+    }
+    int[] r = new int[rewritten.size()];
+    System.arraycopy(rowNums, 0, r, 0, r.length);
+    return new Result(rewritten, r);
+  }
+
+  static class Result {
+
+    private final List<BoundSql> boundSqls;
+
+    /**
+     * 每条改写后语句包含的行数
+     */
+    private final int[] rowNums;
+
+    Result(List<BoundSql> boundSqls, int[] rowNums) {
+      this.boundSqls = boundSqls;
+      this.rowNums = rowNums;
+    }
+
+    List<BoundSql> getBoundSqls() {
+      return boundSqls;
+    }
+
+    /**
+     * 将改写后语句的更新行数还原为每行的更新行数，
+     * 多行语句的更新行数与行数相同时每行记为1，否则无法区分，记为{@link Statement#SUCCESS_NO_INFO}
+     */
+    int[] expand(int[] ints) {
+      int total = 0;
+      for (int rowNum : rowNums) {
+        total += rowNum;
+      }
+      int[] r = new int[total];
+      int p = 0;
+      for (int i = 0; i < rowNums.length; i++) {
+        int rowNum = rowNums[i];
+        if (rowNum == 1) {
+          r[p++] = ints[i];
+        } else {
+          int v = ints[i] == rowNum ? 1 : Statement.SUCCESS_NO_INFO;
+          for (int j = 0; j < rowNum; j++) {
+            r[p++] = v;
+          }
+        }
+      }
+      return r;
+    }
+  }
+
+  /**
+   * insert ... values (...) ... 形式的sql，所有占位符都位于values后的括号内
+   */
+  static class Template {
+
+    private final String prefix;
+    private final String tuple;
+    private final String suffix;
+    private final int placeholderNum;
+
+    private String lastSql;
+    private int lastRowNum;
+
+    private Template(String prefix, String tuple, String suffix, int placeholderNum) {
+      this.prefix = prefix;
+      this.tuple = tuple;
+      this.suffix = suffix;
+      this.placeholderNum = placeholderNum;
+    }
+
+    @Nullable
+    static Template parse(String sql) {
+      int len = sql.length();
+      int depth = 0;
+      int valuesEnd = -1;
+      for (int i = 0; i < len && valuesEnd < 0; i++) {
+        char c = sql.charAt(i);
+        if (isQuote(c)) {
+          i = skipQuoted(sql, i);
+          if (i < 0) {
+            return null;
+          }
+        } else if (c == '?') {
+          return null; // values前出现占位符
+        } else if (c == '(') {
+          depth++;
+        } else if (c == ')') {
+          depth--;
+        } else if (depth == 0 && isKeyword(sql, i, "values")) {
+          valuesEnd = i + 6;
+        }
+      }
+      if (valuesEnd < 0) {
+        return null;
+      }
+      int open = valuesEnd;
+      while (open < len && Character.isWhitespace(sql.charAt(open))) {
+        open++;
+      }
+      if (open == len || sql.charAt(open) != '(') {
+        return null;
+      }
+      int placeholderNum = 0;
+      int close = -1;
+      depth = 0;
+      for (int i = open; i < len && close < 0; i++) {
+        char c = sql.charAt(i);
+        if (isQuote(c)) {
+          i = skipQuoted(sql, i);
+          if (i < 0) {
+            return null;
+          }
+        } else if (c == '?') {
+          placeholderNum++;
+        } else if (c == '(') {
+          depth++;
+        } else if (c == ')' && --depth == 0) {
+          close = i;
+        }
+      }
+      if (close < 0) {
+        return null;
+      }
+      String suffix = sql.substring(close + 1);
+      for (int i = 0; i < suffix.length(); i++) {
+        char c = suffix.charAt(i);
+        if (isQuote(c)) {
+          i = skipQuoted(suffix, i);
+          if (i < 0) {
+            return null;
+          }
+        } else if (c == '?') {
+          return null; // values后出现占位符
+        } else if (c == ',' && suffix.substring(0, i).trim().isEmpty()) {
+          return null; // 已经是多行values
+        }
+      }
+      return new Template(sql.substring(0, open), sql.substring(open, close + 1), suffix, placeholderNum);
+    }
+
+    /**
+     * 从from开始，在占位符数量与sql长度限制内能合并的最后一行（不包含）
+     */
+    int chunkEnd(List<BoundSql> boundSqls, int from, int to, int maxPlaceholders, int maxSqlLength) {
+      int maxRows = placeholderNum > 0 ? Math.max(1, maxPlaceholders / placeholderNum) : Integer.MAX_VALUE;
+      int length = prefix.length() + suffix.length();
+      int end = from;
+      while (end < to && end - from < maxRows) {
+        BoundSql boundSql = boundSqls.get(end);
+        if (boundSql.getArgs().size() != placeholderNum) {
+          return end == from ? from + 1 : end;
+        }
+        length += tuple.length() + 1 + estimateLength(boundSql.getArgs());
+        if (length > maxSqlLength && end > from) {
+          break;
+        }
+        end++;
+      }
+      return end;
+    }
+
+    BoundSql merge(List<BoundSql> boundSqls) {
+      int rowNum = boundSqls.size();
+      if (rowNum == 1) {
+        return boundSqls.get(0);
+      }
+      List<Object> args = new ArrayList<Object>(rowNum * placeholderNum);
+      List<TypeHandler<?>> typeHandlers = new ArrayList<TypeHandler<?>>(rowNum * placeholderNum);
+      for (BoundSql boundSql : boundSqls) {
+        args.addAll(boundSql.getArgs());
+        typeHandlers.addAll(boundSql.getTypeHandlers());
+      }
+      return new BoundSql(getSql(rowNum), args, typeHandlers);
+    }
+
+    private String getSql(int rowNum) {
+      if (rowNum == lastRowNum) {
+        return lastSql;
+      }
+      StringBuilder sb = new StringBuilder(prefix.length() + suffix.length() + (tuple.length() + 1) * rowNum);
+      sb.append(prefix).append(tuple);
+      for (int i = 1; i < rowNum; i++) {
+        sb.append(',').append(tuple);
+      }
+      sb.append(suffix);
+      lastSql = sb.toString();
+      lastRowNum = rowNum;
+      return lastSql;
+    }
+
+  }
+
+  private static int estimateLength(List<Object> args) {
+    int length = 0;
+    for (Object arg : args) {
+      if (arg instanceof CharSequence) {
+        length += ((CharSequence) arg).length() + 2;
+      } else if (arg instanceof byte[]) {
+        length += ((byte[]) arg).length * 2 + 3;
+      } else {
+        length += 20;
+      }
+    }
+    return length;
+  }
+
+  private static boolean isQuote(char c) {
+    return c == '\'' || c == '"' || c == '`';
+  }
+
+  /**
+   * 返回结束引号的位置，未结束时返回-1
+   */
+  private static int skipQuoted(String sql, int start) {
+    char quote = sql.charAt(start);
+    for (int i = start + 1; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == quote) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isKeyword(String sql, int i, String keyword) {
+    int end = i + keyword.length();
+    return sql.regionMatches(true, i, keyword, 0, keyword.length()) &&
+        (i == 0 || !Character.isJavaIdentifierPart(sql.charAt(i - 1))) &&
+        (end == sql.length() || !Character.isJavaIdentifierPart(sql.charAt(end)));
+  }
+
+}
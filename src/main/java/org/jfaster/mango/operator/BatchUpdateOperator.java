@@ -18,16 +18,32 @@ package org.jfaster.mango.operator;
 
 import org.jfaster.mango.binding.BoundSql;
 import org.jfaster.mango.binding.InvocationContext;
+import org.jfaster.mango.crud.CrudMeta;
 import org.jfaster.mango.descriptor.MethodDescriptor;
 import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.invoker.InvokerCache;
+import org.jfaster.mango.invoker.TransferableInvoker;
+import org.jfaster.mango.jdbc.GeneratedKeyHolder;
+import org.jfaster.mango.jdbc.exception.ShardedBatchUpdateException;
 import org.jfaster.mango.parser.ASTRootNode;
 import org.jfaster.mango.transaction.Transaction;
 import org.jfaster.mango.transaction.TransactionFactory;
+import org.jfaster.mango.transaction.TransactionSynchronizationManager;
+import org.jfaster.mango.type.TypeHandler;
+import org.jfaster.mango.type.TypeHandlerRegistry;
 import org.jfaster.mango.util.IterObj;
 import org.jfaster.mango.util.ToStringHelper;
+import org.jfaster.mango.util.jdbc.SQLType;
+import org.jfaster.mango.util.reflect.TypeToken;
 
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 /**
  * @author ash
@@ -36,35 +52,209 @@ public class BatchUpdateOperator extends AbstractOperator {
 
   protected Transformer transformer;
 
+  /**
+   * 是否将批量insert/replace改写为多行values语句
+   */
+  private final boolean rewriteInsert;
+
+  /**
+   * 批量插入时是否返回自增id
+   */
+  private final boolean returnGeneratedId;
+
+  private GeneratedTransformer generatedTransformer;
+
+  private TypeHandler<? extends Number> generatedKeyTypeHandler;
+
+  /**
+   * 自增id回写到实体中使用 @AutoGenerated 修饰的属性，没有该属性时为null
+   */
+  @Nullable
+  private TransferableInvoker generatedKeyInvoker;
+
+  /**
+   * 渲染sql前为实体的ID属性赋值，使分库分表可以按ID路由
+   */
+  @Nullable
+  private final IdAssigner idAssigner;
+
+  @Nullable
+  private final ChangeTracker changeTracker;
+
   public BatchUpdateOperator(ASTRootNode rootNode, MethodDescriptor md, Config config) {
     super(rootNode, md, config);
-    transformer = TRANSFORMERS.get(md.getReturnRawType());
-    if (transformer == null) {
-      String expected = ToStringHelper.toString(TRANSFORMERS.keySet());
-      throw new DescriptionException("the return type of batch update " +
-          "expected one of " + expected + " but " + md.getReturnRawType());
+    SQLType sqlType = rootNode.getSQLType();
+    returnGeneratedId = md.isReturnGeneratedId() && sqlType == SQLType.INSERT;
+    if (returnGeneratedId) {
+      initGeneratedId(md);
+    } else {
+      transformer = TRANSFORMERS.get(md.getReturnRawType());
+      if (transformer == null) {
+        String expected = ToStringHelper.toString(TRANSFORMERS.keySet());
+        throw new DescriptionException("the return type of batch update " +
+            "expected one of " + expected + " but " + md.getReturnRawType());
+      }
     }
+    // 改写为多行values后无法区分每行的自增id
+    rewriteInsert = config.isRewriteBatchInsert() && !returnGeneratedId &&
+        (sqlType == SQLType.INSERT || sqlType == SQLType.REPLACE);
+    idAssigner = IdAssigner.create(md, sqlType, config);
+    changeTracker = ChangeTracker.create(md, sqlType);
+  }
+
+  private void initGeneratedId(MethodDescriptor md) {
+    Class<?> returnRawType = md.getReturnRawType();
+    generatedTransformer = GENERATED_TRANSFORMERS.get(returnRawType);
+    if (generatedTransformer == null ||
+        (List.class.equals(returnRawType) && !Long.class.equals(md.getReturnDescriptor().getMappedClass()))) {
+      throw new DescriptionException("the return type of batch update(returnGeneratedId) " +
+          "expected one of [void, long[], List<Long>] but " + md.getReturnType());
+    }
+    Class<?> entityClass = md.getParameterDescriptors().get(0).getMappedClass();
+    String prop = entityClass != null ? new CrudMeta(entityClass).getProperty4AutoGenerated() : null;
+    Class<? extends Number> keyType = long.class;
+    if (prop != null) {
+      generatedKeyInvoker = InvokerCache.getInvoker(entityClass, prop);
+      Class<?> columnType = TypeToken.of(generatedKeyInvoker.getColumnType()).getRawType();
+      if (!GENERATED_KEY_TYPES.contains(columnType)) {
+        throw new DescriptionException("the type of @AutoGenerated property [" + prop + "] " +
+            "expected one of [int, long, Integer, Long] but " + columnType);
+      }
+      @SuppressWarnings("unchecked")
+      Class<? extends Number> numberType = (Class<? extends Number>) columnType;
+      keyType = numberType;
+    }
+    generatedKeyTypeHandler = TypeHandlerRegistry.getTypeHandler(keyType);
   }
 
   @Override
   public Object execute(Object[] values) {
+    Object firstValue = values[0];
+    if (firstValue == null) {
+      throw new NullPointerException("batchUpdate's parameter can't be null");
+    }
+    if (firstValue instanceof Stream) {
+      Stream<?> stream = (Stream<?>) firstValue;
+      try {
+        return transform(executeChunks(stream.iterator(), -1));
+      } finally {
+        stream.close();
+      }
+    }
+    if (firstValue instanceof Iterator) {
+      return transform(executeChunks((Iterator<?>) firstValue, -1));
+    }
     IterObj iterObj = getIterObj(values);
     if (iterObj.isEmpty()) {
-      return transformer.transform(new int[]{});
+      return transform(new BatchResult(new int[]{}, new long[]{}));
     }
+    return transform(executeChunks(iterObj.iterator(), iterObj.size()));
+  }
 
-    Map<DataSource, Group> gorupMap = new HashMap<DataSource, Group>();
-    int t = 0;
-    for (Object obj : iterObj) {
-      InvocationContext context = invocationContextFactory.newInvocationContext(new Object[]{obj});
-      group(context, gorupMap, t++);
+  private Object transform(BatchResult result) {
+    return returnGeneratedId ?
+        generatedTransformer.transform(result.keys) :
+        transformer.transform(result.counts);
+  }
+
+  /**
+   * 按块读取并执行，每块执行完后才读取下一块
+   *
+   * @param size 元素总数，未知时为-1
+   */
+  private BatchResult executeChunks(Iterator<?> it, int size) {
+    int chunkSize = config.getBatchChunkSize();
+    if (chunkSize <= 0) {
+      chunkSize = size >= 0 ? Math.max(size, 1) : DEFAULT_STREAM_CHUNK_SIZE;
     }
-    int[] ints = executeDb(gorupMap, t);
-    return transformer.transform(ints);
+    BatchChunkSizer sizer = new BatchChunkSizer(chunkSize, config.getBatchChunkTargetMillis());
+    // 并行执行时事务绑定在执行线程上，无法跨块
+    Map<DataSource, Transaction> transactions =
+        config.isUseTransactionForBatchUpdate() && !config.isCommitPerChunk() && !config.isParallelBatchUpdate() ?
+            new LinkedHashMap<DataSource, Transaction>() :
+            null;
+    Map<String, String> sqlMap = rootNode.isStatic() ? new HashMap<String, String>() : null;
+    int[] r = new int[size >= 0 ? size : Math.min(chunkSize, 1024)];
+    long[] keys = returnGeneratedId ? new long[r.length] : null;
+    int total = 0;
+    List<Object> trackedElements = changeTracker != null ? new ArrayList<Object>() : null; // 成功后刷新快照
+    try {
+      while (it.hasNext()) {
+        Map<DataSource, Group> groupMap = new HashMap<DataSource, Group>();
+        int limit = sizer.getSize();
+        List<Object> elements = returnGeneratedId ? new ArrayList<Object>() : null;
+        int t = 0;
+        while (t < limit && it.hasNext()) {
+          Object element = it.next();
+          if (idAssigner != null) {
+            idAssigner.assign(element);
+          }
+          if (elements != null) {
+            elements.add(element);
+          }
+          InvocationContext context = invocationContextFactory.newInvocationContext(new Object[]{element});
+          if (changeTracker != null) {
+            Set<String> unchangedProperties = changeTracker.getUnchangedProperties(element);
+            if (unchangedProperties != null) {
+              if (changeTracker.isUnchanged(unchangedProperties)) { // 没有需要更新的属性，结果为0
+                t++;
+                continue;
+              }
+              context.setUnchangedProperties(unchangedProperties);
+              trackedElements.add(element);
+            }
+          }
+          group(context, groupMap, sqlMap, t++);
+        }
+        long start = System.nanoTime();
+        Number[] chunkKeys = returnGeneratedId ? new Number[t] : null;
+        int[] ints = executeDb(groupMap, t, transactions, chunkKeys);
+        sizer.record(t, System.nanoTime() - start);
+        if (total + t > r.length) {
+          r = Arrays.copyOf(r, Math.max(total + t, r.length * 2));
+          if (keys != null) {
+            keys = Arrays.copyOf(keys, r.length);
+          }
+        }
+        System.arraycopy(ints, 0, r, total, t);
+        if (keys != null) {
+          for (int i = 0; i < t; i++) {
+            keys[total + i] = chunkKeys[i].longValue();
+            if (generatedKeyInvoker != null) {
+              generatedKeyInvoker.invokeSet(elements.get(i), chunkKeys[i]);
+            }
+          }
+        }
+        total += t;
+      }
+    } catch (RuntimeException e) {
+      if (transactions != null) {
+        Transactions.rollbackAll(transactions.values(), e);
+      }
+      throw e;
+    }
+    if (transactions != null) {
+      Transactions.commitAll(transactions.values());
+    }
+    if (trackedElements != null) {
+      for (Object element : trackedElements) {
+        changeTracker.refresh(element);
+      }
+    }
+    if (total != r.length) {
+      r = Arrays.copyOf(r, total);
+      keys = keys != null ? Arrays.copyOf(keys, total) : null;
+    }
+    return new BatchResult(r, keys);
   }
 
-  protected void group(InvocationContext context, Map<DataSource, Group> groupMap, int position) {
-    context.setGlobalTable(tableGenerator.getTable(context));
+  /**
+   * sqlMap不为null时，静态sql每张表只渲染一次，之后只绑定参数
+   */
+  protected void group(InvocationContext context, Map<DataSource, Group> groupMap,
+                       @Nullable Map<String, String> sqlMap, int position) {
+    String table = tableGenerator.getTable(context);
+    context.setGlobalTable(table);
     DataSource ds = dataSourceGenerator.getDataSource(context, methodDescriptor.getDaoClass());
     Group group = groupMap.get(ds);
     if (group == null) {
@@ -72,8 +262,18 @@ public class BatchUpdateOperator extends AbstractOperator {
       groupMap.put(ds, group);
     }
 
-    rootNode.render(context);
-    BoundSql boundSql = context.getBoundSql();
+    BoundSql boundSql;
+    if (sqlMap != null) {
+      String sql = sqlMap.get(table);
+      if (sql == null) {
+        sql = rootNode.renderStaticSql(table);
+        sqlMap.put(table, sql);
+      }
+      boundSql = rootNode.bindStaticSql(sql, context);
+    } else {
+      rootNode.render(context);
+      boundSql = context.getBoundSql();
+    }
 
     group.add(boundSql, position);
   }
@@ -87,27 +287,121 @@ public class BatchUpdateOperator extends AbstractOperator {
     return iterObj;
   }
 
-  protected int[] executeDb(Map<DataSource, Group> groupMap, int batchNum) {
+  /**
+   * transactions不为null时，每个数据源的事务跨越所有块，由调用方统一提交
+   */
+  protected int[] executeDb(Map<DataSource, Group> groupMap, int batchNum,
+                            @Nullable Map<DataSource, Transaction> transactions, @Nullable Number[] keys) {
     int[] r = new int[batchNum];
-    for (Map.Entry<DataSource, Group> entry : groupMap.entrySet()) {
-      DataSource ds = entry.getKey();
-      List<BoundSql> boundSqls = entry.getValue().getBoundSqls();
-      List<Integer> positions = entry.getValue().getPositions();
-      int[] ints = config.isUseTransactionForBatchUpdate() ?
-          useTransactionBatchUpdate(ds, boundSqls) :
-          jdbcOperations.batchUpdate(ds, boundSqls);
-      for (int i = 0; i < ints.length; i++) {
-        r[positions.get(i)] = ints[i];
+    if (config.isParallelBatchUpdate() && groupMap.size() > 1) {
+      executeDbInParallel(groupMap, r, keys);
+    } else {
+      for (Map.Entry<DataSource, Group> entry : groupMap.entrySet()) {
+        executeGroup(entry.getKey(), entry.getValue(), r, keys, transactions);
       }
     }
     return r;
   }
 
-  private int[]  useTransactionBatchUpdate(DataSource ds, List<BoundSql> boundSqls) {
+  /**
+   * 各数据源的批量并行执行，全部执行结束后汇总失败的数据源；
+   * 当前线程已在某数据源的事务中时，该数据源的批量在当前线程执行
+   */
+  private void executeDbInParallel(Map<DataSource, Group> groupMap, final int[] r, @Nullable final Number[] keys) {
+    Executor executor = config.getShardExecutor();
+    if (executor == null) {
+      executor = AsyncExecutors.defaultShardExecutor();
+    }
+    Map<DataSource, CompletableFuture<Void>> futures = new LinkedHashMap<DataSource, CompletableFuture<Void>>();
+    List<Map.Entry<DataSource, Group>> localGroups = new ArrayList<Map.Entry<DataSource, Group>>();
+    for (final Map.Entry<DataSource, Group> entry : groupMap.entrySet()) {
+      if (TransactionSynchronizationManager.getConnectionHolder(entry.getKey()) != null) {
+        localGroups.add(entry);
+      } else {
+        futures.put(entry.getKey(), CompletableFuture.runAsync(new Runnable() {
+          @Override
+          public void run() {
+            executeGroup(entry.getKey(), entry.getValue(), r, keys, null);
+          }
+        }, executor));
+      }
+    }
+
+    List<DataSource> succeeded = new ArrayList<DataSource>();
+    Map<DataSource, Throwable> failures = new LinkedHashMap<DataSource, Throwable>();
+    for (Map.Entry<DataSource, Group> entry : localGroups) {
+      try {
+        executeGroup(entry.getKey(), entry.getValue(), r, keys, null);
+        succeeded.add(entry.getKey());
+      } catch (RuntimeException e) {
+        failures.put(entry.getKey(), e);
+      }
+    }
+    for (Map.Entry<DataSource, CompletableFuture<Void>> entry : futures.entrySet()) {
+      try {
+        entry.getValue().join();
+        succeeded.add(entry.getKey());
+      } catch (CompletionException e) {
+        failures.put(entry.getKey(), e.getCause() != null ? e.getCause() : e);
+      } catch (CancellationException e) {
+        failures.put(entry.getKey(), e);
+      }
+    }
+    if (!failures.isEmpty()) {
+      throw new ShardedBatchUpdateException(succeeded, failures);
+    }
+  }
+
+  private void executeGroup(DataSource ds, Group group, int[] r, @Nullable Number[] keys,
+                            @Nullable Map<DataSource, Transaction> transactions) {
+    List<BoundSql> boundSqls = group.getBoundSqls();
+    int[] positions = group.getPositions();
+    if (transactions != null && !transactions.containsKey(ds)) {
+      transactions.put(ds, TransactionFactory.newTransaction(ds));
+    }
+    int[] ints;
+    if (keys != null) {
+      List<GeneratedKeyHolder> holders = new ArrayList<GeneratedKeyHolder>(boundSqls.size());
+      for (int i = 0; i < boundSqls.size(); i++) {
+        holders.add(new GeneratedKeyHolder(generatedKeyTypeHandler));
+      }
+      ints = batchUpdate(ds, boundSqls, holders, transactions != null);
+      for (int i = 0; i < holders.size(); i++) {
+        keys[positions[i]] = holders.get(i).getKey();
+      }
+    } else if (rewriteInsert) {
+      BatchInsertRewriter.Result result = BatchInsertRewriter.rewrite(boundSqls,
+          config.getMaxPlaceholdersPerStatement(), config.getMaxRewrittenSqlLength());
+      ints = result.expand(batchUpdate(ds, result.getBoundSqls(), null, transactions != null));
+    } else {
+      ints = batchUpdate(ds, boundSqls, null, transactions != null);
+    }
+    for (int i = 0; i < ints.length; i++) {
+      r[positions[i]] = ints[i];
+    }
+  }
+
+  private int[] batchUpdate(DataSource ds, List<BoundSql> boundSqls,
+                            @Nullable List<GeneratedKeyHolder> holders, boolean inTransaction) {
+    boolean useTransaction = !inTransaction &&
+        (config.isUseTransactionForBatchUpdate() || config.isCommitPerChunk());
+    return useTransaction ?
+        useTransactionBatchUpdate(ds, boundSqls, holders) :
+        batchUpdate(ds, boundSqls, holders);
+  }
+
+  private int[] batchUpdate(DataSource ds, List<BoundSql> boundSqls, @Nullable List<GeneratedKeyHolder> holders) {
+    return holders != null ?
+        jdbcOperations.batchUpdate(ds, boundSqls, holders) :
+        jdbcOperations.batchUpdate(ds, boundSqls);
+  }
+
+  private int[] useTransactionBatchUpdate(DataSource ds, List<BoundSql> boundSqls,
+                                          @Nullable List<GeneratedKeyHolder> holders) {
     int[] ints;
     Transaction transaction = TransactionFactory.newTransaction(ds);
     try {
-      ints = jdbcOperations.batchUpdate(ds, boundSqls);
+      ints = batchUpdate(ds, boundSqls, holders);
     } catch (RuntimeException e) {
       transaction.rollback();
       throw e;
@@ -116,24 +410,85 @@ public class BatchUpdateOperator extends AbstractOperator {
     return ints;
   }
 
+  /**
+   * 同一数据源下的批量语句，按sql分桶，保证相同sql的语句连续排列，
+   * 使每个分表都能使用一次真正的jdbc批量
+   */
   protected static class Group {
-    private List<BoundSql> boundSqls = new LinkedList<BoundSql>();
-    private List<Integer> positions = new LinkedList<Integer>();
+    private Map<String, Bucket> bucketMap = new LinkedHashMap<String, Bucket>();
+    private int size;
 
     public void add(BoundSql boundSql, int position) {
-      boundSqls.add(boundSql);
-      positions.add(position);
+      String sql = boundSql.getSql();
+      Bucket bucket = bucketMap.get(sql);
+      if (bucket == null) {
+        bucket = new Bucket();
+        bucketMap.put(sql, bucket);
+      }
+      bucket.add(boundSql, position);
+      size++;
     }
 
     public List<BoundSql> getBoundSqls() {
+      if (bucketMap.size() == 1) {
+        return bucketMap.values().iterator().next().boundSqls;
+      }
+      List<BoundSql> boundSqls = new ArrayList<BoundSql>(size);
+      for (Bucket bucket : bucketMap.values()) {
+        boundSqls.addAll(bucket.boundSqls);
+      }
       return boundSqls;
     }
 
-    public List<Integer> getPositions() {
+    public int[] getPositions() {
+      if (bucketMap.size() == 1) {
+        Bucket bucket = bucketMap.values().iterator().next();
+        return bucket.size == bucket.positions.length ?
+            bucket.positions :
+            Arrays.copyOf(bucket.positions, bucket.size);
+      }
+      int[] positions = new int[size];
+      int p = 0;
+      for (Bucket bucket : bucketMap.values()) {
+        System.arraycopy(bucket.positions, 0, positions, p, bucket.size);
+        p += bucket.size;
+      }
       return positions;
     }
   }
 
+  private static class Bucket {
+    private final List<BoundSql> boundSqls = new ArrayList<BoundSql>();
+    private int[] positions = new int[16];
+    private int size;
+
+    void add(BoundSql boundSql, int position) {
+      boundSqls.add(boundSql);
+      if (size == positions.length) {
+        positions = Arrays.copyOf(positions, size * 2);
+      }
+      positions[size++] = position;
+    }
+  }
+
+  private static class BatchResult {
+
+    private final int[] counts;
+
+    @Nullable
+    private final long[] keys;
+
+    BatchResult(int[] counts, @Nullable long[] keys) {
+      this.counts = counts;
+      this.keys = keys;
+    }
+  }
+
+  /**
+   * {@code Iterator<T>}与{@code Stream<T>}参数未设置分块大小时，每块的默认行数
+   */
+  private final static int DEFAULT_STREAM_CHUNK_SIZE = 1000;
+
   private final static Map<Class, Transformer> TRANSFORMERS = new LinkedHashMap<Class, Transformer>();
 
   static {
@@ -149,6 +504,57 @@ public class BatchUpdateOperator extends AbstractOperator {
     Object transform(int[] s);
   }
 
+  /**
+   * 返回自增id的批量插入支持的返回类型
+   */
+  private final static Map<Class, GeneratedTransformer> GENERATED_TRANSFORMERS =
+      new LinkedHashMap<Class, GeneratedTransformer>();
+
+  private final static Set<Class<?>> GENERATED_KEY_TYPES = new HashSet<Class<?>>(
+      Arrays.<Class<?>>asList(int.class, long.class, Integer.class, Long.class));
+
+  static {
+    GENERATED_TRANSFORMERS.put(void.class, VoidGeneratedTransformer.INSTANCE);
+    GENERATED_TRANSFORMERS.put(long[].class, LongArrayTransformer.INSTANCE);
+    GENERATED_TRANSFORMERS.put(Void.class, VoidGeneratedTransformer.INSTANCE);
+    GENERATED_TRANSFORMERS.put(List.class, LongListTransformer.INSTANCE);
+  }
+
+  interface GeneratedTransformer {
+    Object transform(long[] keys);
+  }
+
+  enum VoidGeneratedTransformer implements GeneratedTransformer {
+    INSTANCE;
+
+    @Override
+    public Object transform(long[] keys) {
+      return null;
+    }
+  }
+
+  enum LongArrayTransformer implements GeneratedTransformer {
+    INSTANCE;
+
+    @Override
+    public Object transform(long[] keys) {
+      return keys;
+    }
+  }
+
+  enum LongListTransformer implements GeneratedTransformer {
+    INSTANCE;
+
+    @Override
+    public Object transform(long[] keys) {
+      List<Long> r = new ArrayList<Long>(keys.length);
+      for (long key : keys) {
+        r.add(key);
+      }
+      return r;
+    }
+  }
+
   enum IntArrayTransformer implements Transformer {
     INSTANCE;
 
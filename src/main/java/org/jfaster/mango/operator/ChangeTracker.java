@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator;
+
+import org.jfaster.mango.annotation.SQL;
+import org.jfaster.mango.annotation.UseSqlGenerator;
+import org.jfaster.mango.crud.BuildinSqlGenerator;
+import org.jfaster.mango.crud.ChangeTrackable;
+import org.jfaster.mango.crud.CrudDao;
+import org.jfaster.mango.descriptor.MethodDescriptor;
+import org.jfaster.mango.descriptor.ParameterDescriptor;
+import org.jfaster.mango.invoker.InvokerCache;
+import org.jfaster.mango.invoker.TransferableInvoker;
+import org.jfaster.mango.util.Objects;
+import org.jfaster.mango.util.jdbc.SQLType;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 比较{@link ChangeTrackable}实体与快照，找出未变化的属性
+ *
+ * @author ash
+ */
+class ChangeTracker {
+
+  private final List<TransferableInvoker> invokers;
+
+  private ChangeTracker(List<TransferableInvoker> invokers) {
+    this.invokers = invokers;
+  }
+
+  /**
+   * 只有{@link CrudDao}内置的update方法，且参数（或批量参数的元素）实现了{@link ChangeTrackable}时返回非null；
+   * 自定义sql的效果不一定只来自实体属性，并且#if可能出现在where子句中，所以不做跟踪
+   */
+  @Nullable
+  static ChangeTracker create(MethodDescriptor md, SQLType sqlType) {
+    List<ParameterDescriptor> pds = md.getParameterDescriptors();
+    if (sqlType != SQLType.UPDATE || pds.size() != 1 || !isBuildinUpdate(md)) {
+      return null;
+    }
+    Class<?> entityClass = pds.get(0).getMappedClass();
+    if (entityClass == null || !ChangeTrackable.class.isAssignableFrom(entityClass)) {
+      return null;
+    }
+    return new ChangeTracker(InvokerCache.getInvokers(entityClass));
+  }
+
+  private static boolean isBuildinUpdate(MethodDescriptor md) {
+    if (md.getAnnotation(SQL.class) != null || !"update".equals(md.getName())) {
+      return false;
+    }
+    for (UseSqlGenerator anno : md.getAnnotations(UseSqlGenerator.class)) {
+      if (BuildinSqlGenerator.class.equals(anno.value())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 获得与快照相同的属性，实体没有快照时返回null；
+   * 快照保存的是属性值的引用，Date、List等可变对象可能被原地修改，所以只有不可变类型的值才可能视为未变化
+   */
+  @Nullable
+  Set<String> getUnchangedProperties(@Nullable Object entity) {
+    if (!(entity instanceof ChangeTrackable)) {
+      return null;
+    }
+    Map<String, Object> snapshot = ((ChangeTrackable) entity).snapshot();
+    if (snapshot == null) {
+      return null;
+    }
+    Set<String> unchangedProperties = new HashSet<String>();
+    for (TransferableInvoker invoker : invokers) {
+      String name = invoker.getName();
+      Object value = invoker.invokeGet(entity);
+      if (snapshot.containsKey(name) && Objects.isImmutable(value) && Objects.equal(snapshot.get(name), value)) {
+        unchangedProperties.add(name);
+      }
+    }
+    return unchangedProperties;
+  }
+
+  /**
+   * 更新成功后用当前的属性值刷新快照，避免属性改回快照中的旧值时被误判为未变化
+   */
+  void refresh(Object entity) {
+    Map<String, Object> snapshot = new HashMap<String, Object>();
+    for (TransferableInvoker invoker : invokers) {
+      Object value = invoker.invokeGet(entity);
+      if (Objects.isImmutable(value)) {
+        snapshot.put(invoker.getName(), value);
+      }
+    }
+    ((ChangeTrackable) entity).snapshot(snapshot);
+  }
+
+  /**
+   * 所有属性都未变化
+   */
+  boolean isUnchanged(Set<String> unchangedProperties) {
+    return unchangedProperties.size() == invokers.size();
+  }
+
+}
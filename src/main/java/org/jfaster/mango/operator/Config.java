@@ -16,6 +16,14 @@
 
 package org.jfaster.mango.operator;
 
+import org.jfaster.mango.id.IdGenerator;
+import org.jfaster.mango.util.jdbc.Dialect;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
 /**
  * mango的一些扩展配置信息
  *
@@ -31,6 +39,82 @@ public class Config {
 
   private boolean isUseTransactionForBatchUpdate = false;
 
+  private int fetchSize = 0;
+
+  /**
+   * 执行返回{@code CompletableFuture}的方法，为null时使用{@link AsyncExecutors#defaultExecutor()}；
+   * 调用线程绑定了事务时不使用executor，在调用线程中同步执行
+   */
+  private Executor asyncExecutor;
+
+  /**
+   * 每个连接缓存PreparedStatement的最大数量，为0时不缓存
+   * <p/>
+   * 缓存只在连接归还连接池之前有效：非事务的操作每次执行后归还连接并清空缓存，
+   * 所以只有同一事务内或同一次批量执行中重复的语句才会命中；
+   * 需要跨连接复用语句时，请使用连接池自身的语句缓存(如druid的poolPreparedStatements)
+   */
+  private int statementCacheSize = 0;
+
+  /**
+   * 批量insert/replace时，是否将多条单行语句改写为一条多行values语句
+   */
+  private boolean isRewriteBatchInsert = false;
+
+  /**
+   * 改写后单条语句的最大占位符数量
+   */
+  private int maxPlaceholdersPerStatement = 65535;
+
+  /**
+   * 改写后单条语句的最大估算长度，应小于数据库的最大包大小
+   */
+  private int maxRewrittenSqlLength = 1024 * 1024;
+
+  /**
+   * 批量操作每块的行数，为0时集合与数组一次执行，{@code Iterator<T>}与{@code Stream<T>}每块1000行
+   */
+  private int batchChunkSize = 0;
+
+  /**
+   * 批量操作每块执行后单独提交事务
+   */
+  private boolean isCommitPerChunk = false;
+
+  /**
+   * 批量操作每块的目标耗时(毫秒)，大于0时根据实际耗时调整每块的行数
+   */
+  private int batchChunkTargetMillis = 0;
+
+  /**
+   * 批量更新涉及多个数据源时，是否并行执行各数据源的批量
+   */
+  private boolean isParallelBatchUpdate = false;
+
+  /**
+   * 跨分片并行执行时使用的executor，为null时使用{@link AsyncExecutors#defaultShardExecutor()}，
+   * 其线程数即同时执行的分片数上限
+   */
+  private Executor shardExecutor;
+
+  /**
+   * 生成方言相关sql（如upsert）时使用的数据库方言，为null时根据数据源的产品名识别
+   */
+  private Dialect dialect;
+
+  /**
+   * in语句中单条语句的最大元素数量，超过时拆成多条语句执行，小于等于0时不拆分；
+   * 拆分后的更新语句在每个数据源上的同一事务中执行，跨数据源时各自提交
+   */
+  private int maxInListSize = 1000;
+
+  /**
+   * 注册的ID生成器实例，{@link org.jfaster.mango.annotation.ID#generator()}优先使用注册的实例，
+   * 没有注册时通过无参构造函数创建
+   */
+  private final ConcurrentMap<Class<? extends IdGenerator>, IdGenerator> idGenerators =
+      new ConcurrentHashMap<Class<? extends IdGenerator>, IdGenerator>();
+
   public boolean isCompatibleWithEmptyList() {
     return isCompatibleWithEmptyList;
   }
@@ -63,12 +147,146 @@ public class Config {
     isUseTransactionForBatchUpdate = useTransactionForBatchUpdate;
   }
 
+  public int getFetchSize() {
+    return fetchSize;
+  }
+
+  public void setFetchSize(int fetchSize) {
+    this.fetchSize = fetchSize;
+  }
+
+  public Executor getAsyncExecutor() {
+    return asyncExecutor;
+  }
+
+  public void setAsyncExecutor(Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  public int getStatementCacheSize() {
+    return statementCacheSize;
+  }
+
+  public void setStatementCacheSize(int statementCacheSize) {
+    this.statementCacheSize = statementCacheSize;
+  }
+
+  public boolean isRewriteBatchInsert() {
+    return isRewriteBatchInsert;
+  }
+
+  public void setRewriteBatchInsert(boolean rewriteBatchInsert) {
+    isRewriteBatchInsert = rewriteBatchInsert;
+  }
+
+  public int getMaxPlaceholdersPerStatement() {
+    return maxPlaceholdersPerStatement;
+  }
+
+  public void setMaxPlaceholdersPerStatement(int maxPlaceholdersPerStatement) {
+    this.maxPlaceholdersPerStatement = maxPlaceholdersPerStatement;
+  }
+
+  public int getMaxRewrittenSqlLength() {
+    return maxRewrittenSqlLength;
+  }
+
+  public void setMaxRewrittenSqlLength(int maxRewrittenSqlLength) {
+    this.maxRewrittenSqlLength = maxRewrittenSqlLength;
+  }
+
+  public int getBatchChunkSize() {
+    return batchChunkSize;
+  }
+
+  public void setBatchChunkSize(int batchChunkSize) {
+    this.batchChunkSize = batchChunkSize;
+  }
+
+  public boolean isCommitPerChunk() {
+    return isCommitPerChunk;
+  }
+
+  public void setCommitPerChunk(boolean commitPerChunk) {
+    isCommitPerChunk = commitPerChunk;
+  }
+
+  public int getBatchChunkTargetMillis() {
+    return batchChunkTargetMillis;
+  }
+
+  public void setBatchChunkTargetMillis(int batchChunkTargetMillis) {
+    this.batchChunkTargetMillis = batchChunkTargetMillis;
+  }
+
+  public boolean isParallelBatchUpdate() {
+    return isParallelBatchUpdate;
+  }
+
+  public void setParallelBatchUpdate(boolean parallelBatchUpdate) {
+    isParallelBatchUpdate = parallelBatchUpdate;
+  }
+
+  public Executor getShardExecutor() {
+    return shardExecutor;
+  }
+
+  public void setShardExecutor(Executor shardExecutor) {
+    this.shardExecutor = shardExecutor;
+  }
+
+  public Dialect getDialect() {
+    return dialect;
+  }
+
+  public void setDialect(Dialect dialect) {
+    this.dialect = dialect;
+  }
+
+  public int getMaxInListSize() {
+    return maxInListSize;
+  }
+
+  public void setMaxInListSize(int maxInListSize) {
+    this.maxInListSize = maxInListSize;
+  }
+
+  /**
+   * 注册ID生成器实例，用于需要构造参数的生成器，如{@link org.jfaster.mango.id.SegmentIdGenerator}；
+   * 实例按其类注册，每个{@code @ID(generator = ...)}使用的类只能注册一个实例
+   */
+  public void registerIdGenerator(IdGenerator idGenerator) {
+    if (idGenerator == null) {
+      throw new NullPointerException("idGenerator can't be null");
+    }
+    idGenerators.put(idGenerator.getClass(), idGenerator);
+  }
+
+  @Nullable
+  public IdGenerator getIdGenerator(Class<? extends IdGenerator> clazz) {
+    return idGenerators.get(clazz);
+  }
+
   public Config copy() {
     Config config = new Config();
     config.setCompatibleWithEmptyList(isCompatibleWithEmptyList());
     config.setCheckColumn(isCheckColumn());
     config.setUseActualParamName(isUseActualParamName());
     config.setUseTransactionForBatchUpdate(isUseTransactionForBatchUpdate());
+    config.setFetchSize(getFetchSize());
+    config.setAsyncExecutor(getAsyncExecutor());
+    config.setStatementCacheSize(getStatementCacheSize());
+    config.setRewriteBatchInsert(isRewriteBatchInsert());
+    config.setMaxPlaceholdersPerStatement(getMaxPlaceholdersPerStatement());
+    config.setMaxRewrittenSqlLength(getMaxRewrittenSqlLength());
+    config.setBatchChunkSize(getBatchChunkSize());
+    config.setCommitPerChunk(isCommitPerChunk());
+    config.setBatchChunkTargetMillis(getBatchChunkTargetMillis());
+    config.setParallelBatchUpdate(isParallelBatchUpdate());
+    config.setShardExecutor(getShardExecutor());
+    config.setDialect(getDialect());
+    config.setMaxInListSize(getMaxInListSize());
+    config.idGenerators.putAll(idGenerators);
     return config;
   }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator;
+
+import org.jfaster.mango.crud.CrudMeta;
+import org.jfaster.mango.descriptor.MethodDescriptor;
+import org.jfaster.mango.descriptor.ParameterDescriptor;
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.id.IdGenerator;
+import org.jfaster.mango.id.IdGenerators;
+import org.jfaster.mango.invoker.InvokerCache;
+import org.jfaster.mango.invoker.TransferableInvoker;
+import org.jfaster.mango.type.TypeHandlerRegistry;
+import org.jfaster.mango.util.jdbc.SQLType;
+import org.jfaster.mango.util.reflect.BeanInstantiationException;
+import org.jfaster.mango.util.reflect.TypeToken;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * 插入数据前，使用{@link org.jfaster.mango.annotation.ID#generator()}为实体的ID属性赋值；
+ * 生成器优先使用{@link Config#registerIdGenerator}注册的实例
+ *
+ * @author ash
+ */
+class IdAssigner {
+
+  private final IdGenerator idGenerator;
+
+  private final TransferableInvoker invoker;
+
+  private IdAssigner(IdGenerator idGenerator, TransferableInvoker invoker) {
+    this.idGenerator = idGenerator;
+    this.invoker = invoker;
+  }
+
+  /**
+   * 只有单参数的insert语句，且参数（或批量参数的元素）为指定了ID生成器的实体时返回非null
+   */
+  @Nullable
+  static IdAssigner create(MethodDescriptor md, SQLType sqlType, Config config) {
+    List<ParameterDescriptor> pds = md.getParameterDescriptors();
+    if (sqlType != SQLType.INSERT || pds.size() != 1) {
+      return null;
+    }
+    Class<?> entityClass = pds.get(0).getMappedClass();
+    if (entityClass == null || TypeHandlerRegistry.hasTypeHandler(entityClass)) {
+      return null;
+    }
+    CrudMeta cm = new CrudMeta(entityClass);
+    Class<? extends IdGenerator> idGeneratorClass = cm.getIdGeneratorClass();
+    if (idGeneratorClass == null) {
+      return null;
+    }
+    String prop = cm.getProperty4Id();
+    TransferableInvoker invoker = InvokerCache.getInvoker(entityClass, prop);
+    Class<?> idType = TypeToken.of(invoker.getColumnType()).getRawType();
+    if (!long.class.equals(idType) && !Long.class.equals(idType)) {
+      throw new DescriptionException("the type of @ID property [" + prop + "] with generator " +
+          "expected long or Long but " + idType);
+    }
+    IdGenerator idGenerator = config.getIdGenerator(idGeneratorClass); // 优先使用注册的实例
+    if (idGenerator == null) {
+      try {
+        idGenerator = IdGenerators.getInstance(idGeneratorClass);
+      } catch (BeanInstantiationException e) {
+        throw new DescriptionException("can't instantiate id generator " + idGeneratorClass.getName() +
+            ", please register an instance by Mango#registerIdGenerator if it has no default constructor", e);
+      }
+    }
+    return new IdAssigner(idGenerator, invoker);
+  }
+
+  /**
+   * ID属性为null或0时赋值
+   */
+  void assign(@Nullable Object entity) {
+    if (entity == null) {
+      return;
+    }
+    Object id = invoker.invokeGet(entity);
+    if (id == null || ((Long) id) == 0L) {
+      invoker.invokeSet(entity, idGenerator.nextId());
+    }
+  }
+
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator;
+
+import org.jfaster.mango.annotation.DatabaseShardingBy;
+import org.jfaster.mango.annotation.ShardingBy;
+import org.jfaster.mango.annotation.TableShardingBy;
+import org.jfaster.mango.binding.BindingParameter;
+import org.jfaster.mango.binding.InvocationContext;
+import org.jfaster.mango.binding.InvocationContextFactory;
+import org.jfaster.mango.binding.ParameterContext;
+import org.jfaster.mango.descriptor.MethodDescriptor;
+import org.jfaster.mango.descriptor.ParameterDescriptor;
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.operator.generator.DataSourceGenerator;
+import org.jfaster.mango.operator.generator.TableGenerator;
+import org.jfaster.mango.parser.ASTJDBCIterableParameter;
+import org.jfaster.mango.parser.ASTRootNode;
+import org.jfaster.mango.parser.EmptyArrayException;
+import org.jfaster.mango.parser.EmptyCollectionException;
+import org.jfaster.mango.sharding.Shard;
+import org.jfaster.mango.util.IterObj;
+
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 拆分sql中唯一的in语句参数：参数同时是分库分表参数时，按元素路由到各个分片，
+ * 每个分片内再按最大元素数量切块，每块对应一条语句；更新语句逐条执行，查询语句并行执行后合并结果
+ *
+ * @author ash
+ */
+class InListSplitter {
+
+  /**
+   * 被拆分的参数位置
+   */
+  private final int position;
+
+  /**
+   * 被拆分的参数名
+   */
+  private final String parameterName;
+
+  /**
+   * 被拆分的参数同时是分库分表参数
+   */
+  private final boolean sharded;
+
+  /**
+   * 每块的最大元素数量，小于等于0时不切块
+   */
+  private final int maxSize;
+
+  private InListSplitter(int position, String parameterName, boolean sharded, int maxSize) {
+    this.position = position;
+    this.parameterName = parameterName;
+    this.sharded = sharded;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * sql中只有一个直接使用方法参数的in语句，并且需要切块或按分片路由时返回非null
+   */
+  @Nullable
+  static InListSplitter create(ASTRootNode rootNode, MethodDescriptor md, ParameterContext context, int maxSize) {
+    List<ASTJDBCIterableParameter> ips = rootNode.getJDBCIterableParameters();
+    if (ips.size() != 1) {
+      return null;
+    }
+    BindingParameter bp = ips.get(0).getBindingParameter();
+    if (bp.hasProperty()) {
+      return null;
+    }
+    Integer position = null;
+    for (ParameterDescriptor pd : context.getParameterDescriptors()) {
+      if (bp.getParameterName().equals(context.getParameterNameByPosition(pd.getPosition()))) {
+        position = pd.getPosition();
+      }
+    }
+    if (position == null) {
+      return null;
+    }
+    boolean sharded = false;
+    if (md.getShardingAnno() != null) {
+      for (ParameterDescriptor pd : context.getParameterDescriptors()) {
+        if (isShardingParameter(pd) && pd.canIterable()) {
+          if (pd.getPosition() != position) {
+            throw new DescriptionException("the iterable parameter modified @ShardingBy, @TableShardingBy " +
+                "or @DatabaseShardingBy must be used in the in clause of sql");
+          }
+          sharded = true;
+        }
+      }
+    }
+    if (!sharded && maxSize <= 0) {
+      return null;
+    }
+    return new InListSplitter(position, bp.getParameterName(), sharded, maxSize);
+  }
+
+  private static boolean isShardingParameter(ParameterDescriptor pd) {
+    return pd.isAnnotationPresent(ShardingBy.class) ||
+        pd.isAnnotationPresent(TableShardingBy.class) ||
+        pd.isAnnotationPresent(DatabaseShardingBy.class);
+  }
+
+  /**
+   * 拆分参数，返回的每一部分已确定表名与数据源
+   */
+  List<Part> split(Object[] values, InvocationContextFactory invocationContextFactory,
+                   TableGenerator tableGenerator, DataSourceGenerator dataSourceGenerator, Class<?> daoClass) {
+    Object objs = values[position];
+    if (objs == null) {
+      throw new NullPointerException("value of :" + parameterName + " can't be null");
+    }
+    IterObj iterObj = new IterObj(objs);
+    if (iterObj.isEmpty()) {
+      if (iterObj.isCollection()) {
+        throw new EmptyCollectionException("value of :" + parameterName + " can't be empty");
+      } else {
+        throw new EmptyArrayException("value of :" + parameterName + " can't be empty");
+      }
+    }
+
+    List<Part> parts = new ArrayList<Part>();
+    if (!sharded) {
+      InvocationContext context = invocationContextFactory.newInvocationContext(values);
+      String table = tableGenerator.getTable(context);
+      Shard shard = new Shard(ShardedQueryExecutor.getDataSourceFactoryName(dataSourceGenerator, context), table);
+      DataSource ds = dataSourceGenerator.getDataSource(context, daoClass);
+      if (maxSize <= 0 || iterObj.size() <= maxSize) {
+        parts.add(new Part(values, shard, ds));
+      } else {
+        List<Object> elements = new ArrayList<Object>(iterObj.size());
+        for (Object obj : iterObj) {
+          elements.add(obj);
+        }
+        addParts(parts, values, elements, shard, ds);
+      }
+      return parts;
+    }
+
+    // 按元素路由，相同分片的元素放在一起
+    Map<Shard, List<Object>> targets = new LinkedHashMap<Shard, List<Object>>();
+    Map<Shard, DataSource> dataSources = new HashMap<Shard, DataSource>();
+    for (Object obj : iterObj) {
+      Object[] elementValues = values.clone();
+      elementValues[position] = obj;
+      InvocationContext context = invocationContextFactory.newInvocationContext(elementValues);
+      String table = tableGenerator.getTable(context);
+      Shard shard = new Shard(ShardedQueryExecutor.getDataSourceFactoryName(dataSourceGenerator, context), table);
+      List<Object> elements = targets.get(shard);
+      if (elements == null) {
+        elements = new ArrayList<Object>();
+        targets.put(shard, elements);
+        dataSources.put(shard, dataSourceGenerator.getDataSource(context, daoClass));
+      }
+      elements.add(obj);
+    }
+    for (Map.Entry<Shard, List<Object>> entry : targets.entrySet()) {
+      addParts(parts, values, entry.getValue(), entry.getKey(), dataSources.get(entry.getKey()));
+    }
+    return parts;
+  }
+
+  private void addParts(List<Part> parts, Object[] values, List<Object> elements, Shard shard, DataSource ds) {
+    int size = maxSize > 0 ? maxSize : elements.size();
+    for (int i = 0; i < elements.size(); i += size) {
+      Object[] partValues = values.clone();
+      partValues[position] = elements.subList(i, Math.min(i + size, elements.size()));
+      parts.add(new Part(partValues, shard, ds));
+    }
+  }
+
+  boolean isSharded() {
+    return sharded;
+  }
+
+  /**
+   * 拆分后的一部分参数，及其对应的表名与数据源
+   */
+  static class Part {
+
+    private final Object[] values;
+
+    private final Shard shard;
+
+    private final DataSource dataSource;
+
+    Part(Object[] values, Shard shard, DataSource dataSource) {
+      this.values = values;
+      this.shard = shard;
+      this.dataSource = dataSource;
+    }
+
+    Object[] getValues() {
+      return values;
+    }
+
+    Shard getShard() {
+      return shard;
+    }
+
+    @Nullable
+    String getTable() {
+      return shard.getTable();
+    }
+
+    DataSource getDataSource() {
+      return dataSource;
+    }
+
+  }
+
+}
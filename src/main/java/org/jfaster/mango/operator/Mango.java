@@ -22,6 +22,8 @@ import org.jfaster.mango.datasource.DataSourceFactoryGroup;
 import org.jfaster.mango.datasource.SimpleDataSourceFactory;
 import org.jfaster.mango.descriptor.MethodDescriptor;
 import org.jfaster.mango.descriptor.Methods;
+import org.jfaster.mango.operator.cache.CacheEvictOperator;
+import org.jfaster.mango.operator.cache.ResultCacheManager;
 import org.jfaster.mango.page.MySQLPageHandler;
 import org.jfaster.mango.page.PageHandler;
 import org.jfaster.mango.util.ToStringHelper;
@@ -61,6 +63,11 @@ public class Mango extends Config {
    */
   private PageHandler pageHandler = new MySQLPageHandler();
 
+  /**
+   * 查询结果缓存
+   */
+  private final ResultCacheManager resultCacheManager = new ResultCacheManager();
+
   /**
    * mango实例
    */
@@ -135,8 +142,10 @@ public class Mango extends Config {
       throw new IllegalArgumentException("please set dataSource or dataSourceFactory or dataSourceFactories");
     }
 
+    CacheEvictOperator.checkMethodNames(daoClass);
+
     MangoInvocationHandler handler = new MangoInvocationHandler(
-        daoClass, dataSourceFactoryGroup, pageHandler, this);
+        daoClass, dataSourceFactoryGroup, pageHandler, this, resultCacheManager);
     return Reflection.newProxy(daoClass, handler);
   }
 
@@ -178,6 +187,10 @@ public class Mango extends Config {
     dataSourceFactoryGroup = new DataSourceFactoryGroup(dataSourceFactories);
   }
 
+  public ResultCacheManager getResultCacheManager() {
+    return resultCacheManager;
+  }
+
   public void setPageHandler(PageHandler pageHandler) {
     if (pageHandler == null) {
       throw new NullPointerException("pageHandler can't be null");
@@ -207,10 +220,11 @@ public class Mango extends Config {
         Class<?> daoClass,
         DataSourceFactoryGroup dataSourceFactoryGroup,
         PageHandler pageHandler,
-        Config config) {
+        Config config,
+        ResultCacheManager resultCacheManager) {
       this.daoClass = daoClass;
       this.isUseActualParamName = config.isUseActualParamName();
-      operatorFactory = new OperatorFactory(dataSourceFactoryGroup, pageHandler, config);
+      operatorFactory = new OperatorFactory(dataSourceFactoryGroup, pageHandler, config, resultCacheManager);
     }
 
     @Override
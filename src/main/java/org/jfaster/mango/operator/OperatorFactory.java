@@ -16,6 +16,11 @@
 
 package org.jfaster.mango.operator;
 
+import org.jfaster.mango.annotation.Broadcast;
+import org.jfaster.mango.annotation.Cache;
+import org.jfaster.mango.annotation.CacheEvict;
+import org.jfaster.mango.annotation.Sharding;
+import org.jfaster.mango.annotation.SumShards;
 import org.jfaster.mango.annotation.UseMaster;
 import org.jfaster.mango.binding.DefaultParameterContext;
 import org.jfaster.mango.binding.InvocationContextFactory;
@@ -24,21 +29,38 @@ import org.jfaster.mango.datasource.DataSourceFactoryGroup;
 import org.jfaster.mango.datasource.DataSourceType;
 import org.jfaster.mango.descriptor.MethodDescriptor;
 import org.jfaster.mango.descriptor.ParameterDescriptor;
+import org.jfaster.mango.exception.DescriptionException;
 import org.jfaster.mango.jdbc.JdbcOperations;
 import org.jfaster.mango.jdbc.JdbcTemplate;
+import org.jfaster.mango.jdbc.exception.MetaDataAccessException;
+import org.jfaster.mango.operator.cache.CacheEvictOperator;
+import org.jfaster.mango.operator.cache.CacheableOperator;
+import org.jfaster.mango.operator.cache.ResultCacheManager;
 import org.jfaster.mango.operator.generator.DataSourceGenerator;
 import org.jfaster.mango.operator.generator.DataSourceGeneratorFactory;
+import org.jfaster.mango.operator.generator.ShardTopologyFactory;
 import org.jfaster.mango.operator.generator.TableGenerator;
 import org.jfaster.mango.operator.generator.TableGeneratorFactory;
 import org.jfaster.mango.page.InvocationPageHandler;
 import org.jfaster.mango.page.PageHandler;
 import org.jfaster.mango.parser.ASTRootNode;
 import org.jfaster.mango.parser.SqlParser;
+import org.jfaster.mango.sharding.Shard;
+import org.jfaster.mango.transaction.DataSourceUtils;
+import org.jfaster.mango.util.jdbc.Dialect;
 import org.jfaster.mango.util.jdbc.OperatorType;
 import org.jfaster.mango.util.jdbc.SQLType;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 /**
  * @author ash
@@ -50,17 +72,66 @@ class OperatorFactory {
   private final Config config;
   private final TableGeneratorFactory tableGeneratorFactory;
   private final DataSourceGeneratorFactory dataSourceGeneratorFactory;
+  private final ShardTopologyFactory shardTopologyFactory;
+  private final ResultCacheManager resultCacheManager;
+
+  private final DataSourceFactoryGroup dataSourceFactoryGroup;
+
+  /**
+   * 各数据源识别出的方言
+   */
+  private final ConcurrentMap<DataSource, Dialect> dialectCache = new ConcurrentHashMap<DataSource, Dialect>();
 
   OperatorFactory(DataSourceFactoryGroup dataSourceFactoryGroup,
                          PageHandler pageHandler, Config config) {
+    this(dataSourceFactoryGroup, pageHandler, config, new ResultCacheManager());
+  }
+
+  OperatorFactory(DataSourceFactoryGroup dataSourceFactoryGroup, PageHandler pageHandler,
+                  Config config, ResultCacheManager resultCacheManager) {
+    this.dataSourceFactoryGroup = dataSourceFactoryGroup;
     this.pageHandler = pageHandler;
     this.config = config;
-    this.jdbcOperations = new JdbcTemplate();
+    this.resultCacheManager = resultCacheManager;
+    this.jdbcOperations = new JdbcTemplate(config.getStatementCacheSize());
     this.tableGeneratorFactory = new TableGeneratorFactory();
     this.dataSourceGeneratorFactory = new DataSourceGeneratorFactory(dataSourceFactoryGroup);
+    this.shardTopologyFactory = new ShardTopologyFactory(dataSourceFactoryGroup,
+        tableGeneratorFactory, dataSourceGeneratorFactory);
+  }
+
+  Operator getOperator(MethodDescriptor md) {
+    AbstractOperator baseOperator = createOperator(md);
+    Operator operator = baseOperator;
+    if (md.isAnnotationPresent(Cache.class)) { // 缓存查询结果
+      if (!(baseOperator instanceof QueryOperator)) {
+        throw new DescriptionException("@Cache can only be used on query method");
+      }
+      operator = new CacheableOperator(operator, resultCacheManager);
+    }
+    if (md.isAnnotationPresent(CacheEvict.class)) { // 更新后清除缓存
+      if (baseOperator instanceof QueryOperator) {
+        throw new DescriptionException("@CacheEvict can only be used on update method");
+      }
+      operator = new CacheEvictOperator(operator, resultCacheManager);
+    }
+    if (md.isAsync()) { // 异步方法
+      Executor executor = config.getAsyncExecutor();
+      if (executor == null) {
+        executor = AsyncExecutors.defaultExecutor();
+      }
+      operator = new AsyncOperator(operator, executor);
+    }
+    return operator;
   }
 
-  AbstractOperator getOperator(MethodDescriptor md) {
+  AbstractOperator createOperator(final MethodDescriptor md) {
+    md.setDialectSupplier(new Supplier<Dialect>() {
+      @Override
+      public Dialect get() {
+        return getDialect(md.getDataSourceFactoryName());
+      }
+    });
     ASTRootNode rootNode = SqlParser.parse(md.getSQL()).init(); // 初始化抽象语法树
     List<ParameterDescriptor> pds = md.getParameterDescriptors(); // 方法参数描述
     OperatorType operatorType = getOperatorType(pds, rootNode);
@@ -74,24 +145,64 @@ class OperatorFactory {
     rootNode.expandParameter(context); // 扩展简化的参数节点
     rootNode.checkAndBind(context); // 检查类型，设定参数绑定器
 
+    Broadcast broadcastAnno = md.getAnnotation(Broadcast.class);
+    if (broadcastAnno != null && operatorType != OperatorType.QUERY) {
+      throw new DescriptionException("@Broadcast can only be used on query method");
+    }
+    if (md.isAnnotationPresent(SumShards.class) && operatorType != OperatorType.QUERY) {
+      throw new DescriptionException("@SumShards can only be used on query method");
+    }
+    // 广播查询没有分片参数，不使用分库分表策略生成表名与数据源
+    Sharding shardingAnno = broadcastAnno == null ? md.getShardingAnno() : null;
+
+    // 按范围分表的查询在执行时获得所有分表
+    RangeShardingRouter rangeShardingRouter = RangeShardingRouter.create(md, context);
+    if (rangeShardingRouter != null && (operatorType != OperatorType.QUERY || broadcastAnno != null)) {
+      throw new DescriptionException("@ShardingFrom and @ShardingTo can only be used on query method " +
+          "without @Broadcast");
+    }
+
+    // 非广播、非范围分表的查询与更新语句可以拆分in语句
+    InListSplitter inListSplitter = null;
+    if ((operatorType == OperatorType.QUERY && broadcastAnno == null && rangeShardingRouter == null) ||
+        operatorType == OperatorType.UPDATE) {
+      inListSplitter = InListSplitter.create(rootNode, md, context, config.getMaxInListSize());
+    }
+    // 只有in语句能按元素拆分到各个分片时，才允许可迭代的分库分表参数
+    boolean isIterableShardingAllowed = inListSplitter != null && inListSplitter.isSharded();
+
     // 构造表生成器
     boolean isSqlUseGlobalTable = !rootNode.getASTGlobalTables().isEmpty();
     TableGenerator tableGenerator = tableGeneratorFactory.getTableGenerator(
-        md.getShardingAnno(), md.getGlobalTable(), isSqlUseGlobalTable, context);
+        rangeShardingRouter == null ? shardingAnno : null,
+        md.getGlobalTable(), isSqlUseGlobalTable, context, isIterableShardingAllowed);
 
     // 构造数据源生成器
     DataSourceType dataSourceType = getDataSourceType(operatorType, md);
-    DataSourceGenerator dataSourceGenerator = dataSourceGeneratorFactory.
-        getDataSourceGenerator(dataSourceType, md.getShardingAnno(), md.getDataSourceFactoryName(), context);
+    DataSourceGenerator dataSourceGenerator = dataSourceGeneratorFactory.getDataSourceGenerator(
+        dataSourceType, shardingAnno, md.getDataSourceFactoryName(), context, isIterableShardingAllowed);
 
     AbstractOperator operator;
     switch (operatorType) {
       case QUERY:
         InvocationPageHandler invocationPageHandler = new InvocationPageHandler(pageHandler, pds);
-        operator = new QueryOperator(rootNode, md, invocationPageHandler, config);
+        QueryOperator queryOperator = new QueryOperator(rootNode, md, invocationPageHandler, config);
+        if (broadcastAnno != null) {
+          queryOperator.setBroadcastShards(getBroadcastShards(md, dataSourceType), broadcastAnno.timeoutMillis());
+        } else if (rangeShardingRouter != null) {
+          queryOperator.setRangeShardingRouter(rangeShardingRouter);
+        } else {
+          queryOperator.setInListSplitter(inListSplitter);
+        }
+        if (md.isAnnotationPresent(SumShards.class) && !queryOperator.isSharded()) {
+          throw new DescriptionException("@SumShards can only be used on query method executed on several shards");
+        }
+        operator = queryOperator;
         break;
       case UPDATE:
-        operator = new UpdateOperator(rootNode, md, config);
+        UpdateOperator updateOperator = new UpdateOperator(rootNode, md, config);
+        updateOperator.setInListSplitter(inListSplitter);
+        operator = updateOperator;
         break;
       case BATCHUPDATE:
         operator = new BatchUpdateOperator(rootNode, md, config);
@@ -107,6 +218,14 @@ class OperatorFactory {
     return operator;
   }
 
+  /**
+   * 广播查询的所有分片
+   */
+  private Map<Shard, DataSourceGenerator> getBroadcastShards(MethodDescriptor md, DataSourceType dataSourceType) {
+    return shardTopologyFactory.getAllShards(dataSourceType, md.getShardingAnno(),
+        md.getGlobalTable(), md.getDataSourceFactoryName());
+  }
+
   OperatorType getOperatorType(List<ParameterDescriptor> pds, ASTRootNode rootNode) {
     OperatorType operatorType;
     if (rootNode.getSQLType() == SQLType.SELECT) {
@@ -115,7 +234,8 @@ class OperatorFactory {
       operatorType = OperatorType.UPDATE;
       if (pds.size() == 1) { // 只有一个参数
         ParameterDescriptor pd = pds.get(0);
-        if (pd.canIterable() && rootNode.getJDBCIterableParameters().isEmpty()) {
+        boolean canIterable = pd.canIterable() || pd.isIterator() || pd.isStream();
+        if (canIterable && rootNode.getJDBCIterableParameters().isEmpty()) {
           // 参数可迭代，同时sql中没有in语句
           operatorType = OperatorType.BATCHUPDATE;
         }
@@ -132,4 +252,30 @@ class OperatorFactory {
     return dataSourceType;
   }
 
+  /**
+   * 优先使用配置的方言，否则根据主库连接的产品名识别
+   */
+  Dialect getDialect(String dataSourceFactoryName) {
+    if (config.getDialect() != null) {
+      return config.getDialect();
+    }
+    DataSource ds = dataSourceFactoryGroup.getMasterDataSource(dataSourceFactoryName);
+    if (ds == null) {
+      return Dialect.UNKNOWN;
+    }
+    Dialect dialect = dialectCache.get(ds);
+    if (dialect == null) {
+      Connection conn = DataSourceUtils.getConnection(ds);
+      try {
+        dialect = Dialect.fromProductName(conn.getMetaData().getDatabaseProductName());
+      } catch (SQLException e) {
+        throw new MetaDataAccessException("Could not get database product name", e);
+      } finally {
+        DataSourceUtils.releaseConnection(conn, ds);
+      }
+      dialectCache.put(ds, dialect);
+    }
+    return dialect;
+  }
+
 }
@@ -20,29 +20,40 @@ import org.jfaster.mango.annotation.Column;
 import org.jfaster.mango.annotation.Mapper;
 import org.jfaster.mango.annotation.Result;
 import org.jfaster.mango.annotation.Results;
+import org.jfaster.mango.annotation.SumShards;
 import org.jfaster.mango.binding.BoundSql;
 import org.jfaster.mango.binding.InvocationContext;
 import org.jfaster.mango.descriptor.MethodDescriptor;
 import org.jfaster.mango.descriptor.ReturnDescriptor;
+import org.jfaster.mango.exception.DescriptionException;
 import org.jfaster.mango.jdbc.*;
+import org.jfaster.mango.jdbc.exception.ShardedQueryException;
 import org.jfaster.mango.mapper.BeanPropertyRowMapper;
 import org.jfaster.mango.mapper.RowMapper;
 import org.jfaster.mango.mapper.SingleColumnRowMapper;
+import org.jfaster.mango.operator.generator.DataSourceGenerator;
 import org.jfaster.mango.page.InvocationPageHandler;
+import org.jfaster.mango.page.Page;
 import org.jfaster.mango.page.PageResult;
+import org.jfaster.mango.page.Sort;
 import org.jfaster.mango.parser.ASTRootNode;
 import org.jfaster.mango.parser.EmptyObjectException;
+import org.jfaster.mango.sharding.Shard;
 import org.jfaster.mango.type.TypeHandlerRegistry;
+import org.jfaster.mango.util.Primitives;
 import org.jfaster.mango.util.bean.BeanUtil;
 import org.jfaster.mango.util.bean.PropertyMeta;
 import org.jfaster.mango.util.reflect.Reflection;
 
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 import java.lang.reflect.Array;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author ash
@@ -55,6 +66,32 @@ public class QueryOperator extends AbstractOperator {
   private SetSupplier setSupplier;
   private InvocationPageHandler invocationPageHandler;
 
+  /**
+   * 广播查询的所有分片及对应的数据源生成器，为null时不广播
+   */
+  @Nullable
+  private Map<Shard, DataSourceGenerator> broadcastShards;
+
+  /**
+   * in语句参数的拆分器，拆分后的各条语句并行查询
+   */
+  @Nullable
+  private InListSplitter inListSplitter;
+
+  /**
+   * 按范围获得所有分表，各分表并行查询
+   */
+  @Nullable
+  private RangeShardingRouter rangeShardingRouter;
+
+  @Nullable
+  private ShardedQueryExecutor shardedQueryExecutor;
+
+  /**
+   * 在多个分片上执行时，单个数字结果求和
+   */
+  private boolean sumShards;
+
   QueryOperator(ASTRootNode rootNode, MethodDescriptor md,
                        InvocationPageHandler invocationPageHandler, Config config) {
     super(rootNode, md, config);
@@ -78,12 +115,297 @@ public class QueryOperator extends AbstractOperator {
     }
   }
 
+  /**
+   * 在所有分片上执行查询，合并各分片的结果
+   */
+  void setBroadcastShards(Map<Shard, DataSourceGenerator> broadcastShards, long timeoutMillis) {
+    if (returnDescriptor.isStream() || returnDescriptor.isIterator()) {
+      throw new DescriptionException("the return type of @Broadcast query can't be " + returnDescriptor.getType());
+    }
+    initShardMerge();
+    this.broadcastShards = broadcastShards;
+    shardedQueryExecutor = new ShardedQueryExecutor(getShardExecutor(), timeoutMillis);
+  }
+
+  /**
+   * 设置in语句参数的拆分器，只有按分片拆分时才拆分，避免切块改变聚合函数的结果
+   */
+  void setInListSplitter(@Nullable InListSplitter inListSplitter) {
+    if (inListSplitter == null || !inListSplitter.isSharded()) {
+      return;
+    }
+    if (returnDescriptor.isStream() || returnDescriptor.isIterator()) {
+      throw new DescriptionException("the return type of query sharded by iterable parameter can't be " +
+          returnDescriptor.getType());
+    }
+    initShardMerge();
+    this.inListSplitter = inListSplitter;
+    shardedQueryExecutor = new ShardedQueryExecutor(getShardExecutor(), 0);
+  }
+
+  /**
+   * 在范围覆盖的所有分表上执行查询，合并各分表的结果
+   */
+  void setRangeShardingRouter(@Nullable RangeShardingRouter rangeShardingRouter) {
+    if (rangeShardingRouter == null) {
+      return;
+    }
+    if (returnDescriptor.isStream() || returnDescriptor.isIterator()) {
+      throw new DescriptionException("the return type of query sharded by range can't be " +
+          returnDescriptor.getType());
+    }
+    initShardMerge();
+    this.rangeShardingRouter = rangeShardingRouter;
+    shardedQueryExecutor = new ShardedQueryExecutor(getShardExecutor(), 0);
+  }
+
+  /**
+   * 各分片返回的单个数字只有声明了{@link SumShards}才求和，max，avg等聚合的结果不能合并
+   */
+  private void initShardMerge() {
+    boolean isNumber = Number.class.isAssignableFrom(Primitives.wrap(rowMapper.getMappedClass()));
+    boolean isScalar = !returnDescriptor.isIterable()
+        && !returnDescriptor.isCollection()
+        && !returnDescriptor.isListAssignable()
+        && !returnDescriptor.isSetAssignable()
+        && !returnDescriptor.isArray()
+        && !returnDescriptor.isPageResult(); // 单个结果或Optional
+    sumShards = methodDescriptor.isAnnotationPresent(SumShards.class);
+    if (sumShards && !(isScalar && isNumber)) {
+      throw new DescriptionException("@SumShards can only be used on query method returning a number, " +
+          "but " + returnDescriptor.getType());
+    }
+    if (!sumShards && isScalar && isNumber) {
+      throw new DescriptionException("the results of " + returnDescriptor.getType() + " from several shards " +
+          "can't be merged, please use @SumShards if they should be summed, like count");
+    }
+  }
+
+  /**
+   * 是否在多个分片上执行
+   */
+  boolean isSharded() {
+    return shardedQueryExecutor != null;
+  }
+
+  private Executor getShardExecutor() {
+    Executor executor = config.getShardExecutor();
+    return executor != null ? executor : AsyncExecutors.defaultShardExecutor();
+  }
+
   @Override
   public Object execute(Object[] values) {
+    if (broadcastShards != null) {
+      return executeBroadcast(values);
+    }
+    if (inListSplitter != null) {
+      return executeSplit(values);
+    }
+    if (rangeShardingRouter != null) {
+      return executeRange(values);
+    }
     InvocationContext context = invocationContextFactory.newInvocationContext(values);
     return execute(context);
   }
 
+  private Object executeBroadcast(Object[] values) {
+    List<Shard> shards = new ArrayList<Shard>();
+    List<InvocationContext> contexts = new ArrayList<InvocationContext>();
+    List<DataSource> dataSources = new ArrayList<DataSource>();
+    for (Map.Entry<Shard, DataSourceGenerator> entry : broadcastShards.entrySet()) {
+      InvocationContext context = invocationContextFactory.newInvocationContext(values);
+      context.setGlobalTable(entry.getKey().getTable());
+      shards.add(entry.getKey());
+      contexts.add(context);
+      dataSources.add(entry.getValue().getDataSource(context, methodDescriptor.getDaoClass()));
+    }
+    return executeShards(shards, contexts, dataSources);
+  }
+
+  /**
+   * 按分片拆分in语句参数，每个分片只查询属于自己的元素
+   */
+  private Object executeSplit(Object[] values) {
+    List<InListSplitter.Part> parts;
+    try {
+      parts = inListSplitter.split(values, invocationContextFactory,
+          tableGenerator, dataSourceGenerator, methodDescriptor.getDaoClass());
+    } catch (EmptyObjectException e) {
+      if (config.isCompatibleWithEmptyList()) {
+        return EmptyObject();
+      } else {
+        throw e;
+      }
+    }
+    if (parts.size() == 1) { // 不需要拆分
+      InListSplitter.Part part = parts.get(0);
+      InvocationContext context = invocationContextFactory.newInvocationContext(part.getValues());
+      context.setGlobalTable(part.getTable());
+      rootNode.render(context);
+      return executeFromDb(part.getDataSource(), context.getBoundSql(), context);
+    }
+    List<Shard> shards = new ArrayList<Shard>();
+    List<InvocationContext> contexts = new ArrayList<InvocationContext>();
+    List<DataSource> dataSources = new ArrayList<DataSource>();
+    for (InListSplitter.Part part : parts) {
+      InvocationContext context = invocationContextFactory.newInvocationContext(part.getValues());
+      context.setGlobalTable(part.getTable());
+      shards.add(part.getShard());
+      contexts.add(context);
+      dataSources.add(part.getDataSource());
+    }
+    return executeShards(shards, contexts, dataSources);
+  }
+
+  /**
+   * 在范围覆盖的分表上查询，没有Page或Sort参数时结果按分表的先后顺序拼接
+   */
+  private Object executeRange(Object[] values) {
+    InvocationContext rangeContext = invocationContextFactory.newInvocationContext(values);
+    List<String> tables = rangeShardingRouter.getTables(rangeContext);
+    if (tables.isEmpty()) {
+      return EmptyObject();
+    }
+    DataSource ds = dataSourceGenerator.getDataSource(rangeContext, methodDescriptor.getDaoClass());
+    if (tables.size() == 1) { // 只有一个分表
+      rangeContext.setGlobalTable(tables.get(0));
+      try {
+        rootNode.render(rangeContext);
+      } catch (EmptyObjectException e) {
+        if (config.isCompatibleWithEmptyList()) {
+          return EmptyObject();
+        } else {
+          throw e;
+        }
+      }
+      return executeFromDb(ds, rangeContext.getBoundSql(), rangeContext);
+    }
+    String dataSourceFactoryName = ShardedQueryExecutor.getDataSourceFactoryName(dataSourceGenerator, rangeContext);
+    List<Shard> shards = new ArrayList<Shard>();
+    List<InvocationContext> contexts = new ArrayList<InvocationContext>();
+    List<DataSource> dataSources = new ArrayList<DataSource>();
+    for (String table : tables) {
+      InvocationContext context = invocationContextFactory.newInvocationContext(values);
+      context.setGlobalTable(table);
+      shards.add(new Shard(dataSourceFactoryName, table));
+      contexts.add(context);
+      dataSources.add(ds);
+    }
+    return executeShards(shards, contexts, dataSources);
+  }
+
+  /**
+   * 在多个分片上并行查询并合并结果，有Page或Sort参数时按排序归并
+   */
+  private Object executeShards(List<Shard> shards, List<InvocationContext> contexts, List<DataSource> dataSources) {
+    List<ShardedQueryExecutor.ShardQuery> queries = new ArrayList<ShardedQueryExecutor.ShardQuery>();
+    boolean sorted = false;
+    Page page = null;
+    Sort sort = null;
+    for (int i = 0; i < shards.size(); i++) {
+      final InvocationContext context = contexts.get(i);
+      try {
+        rootNode.render(context);
+      } catch (EmptyObjectException e) {
+        if (config.isCompatibleWithEmptyList()) {
+          return EmptyObject();
+        } else {
+          throw e;
+        }
+      }
+      if (i == 0) {
+        page = invocationPageHandler.getPage(context);
+        sort = invocationPageHandler.getSort(context);
+        if (page != null && sort != null) {
+          throw new IllegalArgumentException("page and sort can't be used on a query");
+        }
+        sorted = page != null || sort != null || returnDescriptor.isPageResult();
+      }
+      final BoundSql boundSql = context.getBoundSql();
+      final DataSource ds = dataSources.get(i);
+      if (sorted) {
+        queries.add(newSortedShardQuery(shards.get(i), ds, boundSql, page, sort));
+      } else {
+        queries.add(new ShardedQueryExecutor.ShardQuery(shards.get(i), ds) {
+          @Override
+          Object query() {
+            return executeFromDb(ds, boundSql, context);
+          }
+        });
+      }
+    }
+    ShardedQueryExecutor.Result result = shardedQueryExecutor.execute(queries);
+    return sorted ? gatherSorted(result, page, sort) : gather(result);
+  }
+
+  /**
+   * 分片上的排序与分页查询：分页时取前offset+N行，返回PageResult时同时查询分片的总数
+   */
+  private ShardedQueryExecutor.ShardQuery newSortedShardQuery(
+      Shard shard, final DataSource ds, final BoundSql boundSql, @Nullable Page page, @Nullable Sort sort) {
+    final BoundSql totalBoundSql;
+    if (returnDescriptor.isPageResult()) {
+      totalBoundSql = boundSql.copy();
+      invocationPageHandler.handleCount(totalBoundSql);
+    } else {
+      totalBoundSql = null;
+    }
+    if (page != null) {
+      long limit = ((long) page.getPageNum() + 1) * page.getPageSize();
+      Page shardPage = Page.of(0, (int) Math.min(limit, Integer.MAX_VALUE), page.getSort());
+      invocationPageHandler.handlePage(boundSql, shardPage);
+    } else if (sort != null) {
+      invocationPageHandler.handleSort(boundSql, sort);
+    }
+    return new ShardedQueryExecutor.ShardQuery(shard, ds) {
+      @Override
+      Object query() {
+        long total = 0;
+        if (totalBoundSql != null) {
+          SingleColumnRowMapper<Long> mapper = new SingleColumnRowMapper<>(long.class);
+          total = jdbcOperations.queryForObject(ds, totalBoundSql, mapper);
+        }
+        List<?> rows = jdbcOperations.queryForList(ds, boundSql, SHARD_LIST_SUPPLIER, rowMapper);
+        return new ShardRows(rows, total);
+      }
+    };
+  }
+
+  /**
+   * 按排序k路归并各分片的结果，分页时取满一页即停止，总数为各分片总数之和
+   */
+  private Object gatherSorted(ShardedQueryExecutor.Result result, @Nullable Page page, @Nullable Sort sort) {
+    List<List<?>> shardRows = new ArrayList<List<?>>();
+    long total = 0;
+    for (Object r : result.getResults()) {
+      ShardRows sr = (ShardRows) r;
+      shardRows.add(sr.rows);
+      total += sr.total;
+    }
+    ShardedPageMerger merger = ShardedPageMerger.create(page != null ? page.getSort() : sort, rowMapper,
+        methodDescriptor.getDialect());
+    List<Object> rows = page != null ?
+        merger.merge(shardRows, (int) Math.min((long) page.getPageNum() * page.getPageSize(), Integer.MAX_VALUE),
+            page.getPageSize()) :
+        merger.merge(shardRows, 0, -1);
+    Object r = fromRows(rows, total);
+    if (!result.getFailures().isEmpty()) {
+      throw new ShardedQueryException(result.getSucceededShards(), result.getFailures(), r);
+    }
+    return r;
+  }
+
+  /**
+   * 合并各分片的结果，有分片失败时抛出带有部分结果的异常
+   */
+  private Object gather(ShardedQueryExecutor.Result result) {
+    Object r = merge(result.getResults());
+    if (!result.getFailures().isEmpty()) {
+      throw new ShardedQueryException(result.getSucceededShards(), result.getFailures(), r);
+    }
+    return r;
+  }
+
   protected Object execute(InvocationContext context) {
     context.setGlobalTable(tableGenerator.getTable(context));
 
@@ -149,10 +471,205 @@ public class QueryOperator extends AbstractOperator {
 
         return new PageResult<>(data, total);
       }
+
+      @Override
+      Object visitForStream() {
+        final CloseableIterator<?> it = queryForIterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false)
+            .onClose(new Runnable() {
+              @Override
+              public void run() {
+                it.close();
+              }
+            });
+      }
+
+      @Override
+      Object visitForIterator() {
+        return queryForIterator();
+      }
+
+      private CloseableIterator<?> queryForIterator() {
+        invocationPageHandler.handlePageAndSort(boundSql, context); // 分页与排序
+        return jdbcOperations.queryForIterator(ds, boundSql, rowMapper, config.getFetchSize());
+      }
     }.visit();
     return r;
   }
 
+  /**
+   * 集合与数组按分片顺序拼接，声明了{@link SumShards}的单个数字求和（如count），其他单个结果取第一个非空值
+   */
+  @SuppressWarnings("unchecked")
+  private Object merge(final List<Object> results) {
+    return new QueryVisitor() {
+      @Override
+      Object visitForList() {
+        List<Object> list = (List<Object>) listSupplier.get(rowMapper.getMappedClass());
+        for (Object r : results) {
+          list.addAll((List<?>) r);
+        }
+        return list;
+      }
+
+      @Override
+      Object visitForSet() {
+        Set<Object> set = (Set<Object>) setSupplier.get(rowMapper.getMappedClass());
+        for (Object r : results) {
+          set.addAll((Set<?>) r);
+        }
+        return set;
+      }
+
+      @Override
+      Object visitForArray() {
+        int length = 0;
+        for (Object r : results) {
+          length += Array.getLength(r);
+        }
+        Object array = Array.newInstance(rowMapper.getMappedClass(), length);
+        int pos = 0;
+        for (Object r : results) {
+          int len = Array.getLength(r);
+          System.arraycopy(r, 0, array, pos, len);
+          pos += len;
+        }
+        return array;
+      }
+
+      @Override
+      Object visitForObject() {
+        if (sumShards) {
+          return sum(results, Primitives.wrap(rowMapper.getMappedClass()));
+        }
+        for (Object r : results) {
+          if (r != null) {
+            return r;
+          }
+        }
+        return null;
+      }
+
+      @Override
+      Object visitForOptional() {
+        if (sumShards) {
+          List<Object> values = new ArrayList<Object>(results.size());
+          for (Object r : results) {
+            values.add(((Optional<?>) r).orElse(null));
+          }
+          return Optional.ofNullable(sum(values, Primitives.wrap(rowMapper.getMappedClass())));
+        }
+        for (Object r : results) {
+          if (((Optional<?>) r).isPresent()) {
+            return r;
+          }
+        }
+        return Optional.empty();
+      }
+
+      @Override
+      Object visitForPageResult() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      Object visitForStream() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      Object visitForIterator() {
+        throw new UnsupportedOperationException();
+      }
+    }.visit();
+  }
+
+  /**
+   * 将归并后的行转换为方法的返回类型
+   */
+  @SuppressWarnings("unchecked")
+  private Object fromRows(final List<Object> rows, final long total) {
+    return new QueryVisitor() {
+      @Override
+      Object visitForList() {
+        List<Object> list = (List<Object>) listSupplier.get(rowMapper.getMappedClass());
+        list.addAll(rows);
+        return list;
+      }
+
+      @Override
+      Object visitForSet() {
+        Set<Object> set = (Set<Object>) setSupplier.get(rowMapper.getMappedClass());
+        set.addAll(rows);
+        return set;
+      }
+
+      @Override
+      Object visitForArray() {
+        Object array = Array.newInstance(rowMapper.getMappedClass(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+          Array.set(array, i, rows.get(i));
+        }
+        return array;
+      }
+
+      @Override
+      Object visitForObject() {
+        return rows.isEmpty() ? null : rows.get(0);
+      }
+
+      @Override
+      Object visitForOptional() {
+        return Optional.ofNullable(visitForObject());
+      }
+
+      @Override
+      Object visitForPageResult() {
+        return new PageResult<Object>((List<Object>) visitForList(), total);
+      }
+
+      @Override
+      Object visitForStream() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      Object visitForIterator() {
+        throw new UnsupportedOperationException();
+      }
+    }.visit();
+  }
+
+  @Nullable
+  private static Object sum(List<Object> results, Class<?> type) {
+    BigDecimal sum = null;
+    for (Object r : results) {
+      if (r != null) {
+        BigDecimal n = r instanceof BigDecimal ? (BigDecimal) r : new BigDecimal(r.toString());
+        sum = sum == null ? n : sum.add(n);
+      }
+    }
+    if (sum == null) {
+      return null;
+    }
+    if (Integer.class.equals(type)) {
+      return sum.intValue();
+    } else if (Long.class.equals(type)) {
+      return sum.longValue();
+    } else if (Short.class.equals(type)) {
+      return sum.shortValue();
+    } else if (Byte.class.equals(type)) {
+      return sum.byteValue();
+    } else if (Double.class.equals(type)) {
+      return sum.doubleValue();
+    } else if (Float.class.equals(type)) {
+      return sum.floatValue();
+    } else if (BigInteger.class.equals(type)) {
+      return sum.toBigInteger();
+    }
+    return sum;
+  }
+
   private <T> RowMapper<?> getRowMapper(Class<T> clazz, ReturnDescriptor rd) {
     Mapper mapperAnno = rd.getAnnotation(Mapper.class);
     if (mapperAnno != null) { // 自定义mapper
@@ -222,9 +739,36 @@ public class QueryOperator extends AbstractOperator {
       Object visitForPageResult() {
         return PageResult.empty(rowMapper.getMappedClass());
       }
+
+      @Override
+      Object visitForStream() {
+        return Stream.empty();
+      }
+
+      @Override
+      Object visitForIterator() {
+        return Collections.emptyIterator();
+      }
     }.visit();
   }
 
+  private final static ListSupplier SHARD_LIST_SUPPLIER = new ArrayListSuppliter();
+
+  /**
+   * 单个分片已排好序的行及分片的总数
+   */
+  private static class ShardRows {
+
+    private final List<?> rows;
+
+    private final long total;
+
+    ShardRows(List<?> rows, long total) {
+      this.rows = rows;
+      this.total = total;
+    }
+  }
+
   abstract class QueryVisitor {
 
     public Object visit() {
@@ -241,6 +785,10 @@ public class QueryOperator extends AbstractOperator {
         r = visitForOptional();
       } else if (returnDescriptor.isPageResult()) {
         r = visitForPageResult();
+      } else if (returnDescriptor.isStream()) {
+        r = visitForStream();
+      } else if (returnDescriptor.isIterator()) {
+        r = visitForIterator();
       } else {
         r = visitForObject();
       }
@@ -259,6 +807,10 @@ public class QueryOperator extends AbstractOperator {
 
     abstract Object visitForPageResult();
 
+    abstract Object visitForStream();
+
+    abstract Object visitForIterator();
+
   }
 
 }
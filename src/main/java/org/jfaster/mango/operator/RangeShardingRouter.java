@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.operator;
+
+import org.jfaster.mango.annotation.Sharding;
+import org.jfaster.mango.annotation.ShardingFrom;
+import org.jfaster.mango.annotation.ShardingTo;
+import org.jfaster.mango.binding.BindingParameter;
+import org.jfaster.mango.binding.BindingParameterInvoker;
+import org.jfaster.mango.binding.InvocationContext;
+import org.jfaster.mango.binding.ParameterContext;
+import org.jfaster.mango.descriptor.MethodDescriptor;
+import org.jfaster.mango.descriptor.ParameterDescriptor;
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.sharding.NotUseShardingStrategy;
+import org.jfaster.mango.sharding.NotUseTableShardingStrategy;
+import org.jfaster.mango.sharding.RangeTableShardingStrategy;
+import org.jfaster.mango.sharding.TableShardingStrategy;
+import org.jfaster.mango.util.reflect.Reflection;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * 按{@link ShardingFrom}与{@link ShardingTo}修饰的参数，获得范围[from, to)覆盖的所有分表
+ *
+ * @author ash
+ */
+class RangeShardingRouter {
+
+  private final String table;
+
+  private final RangeTableShardingStrategy<Object> strategy;
+
+  private final BindingParameterInvoker fromInvoker;
+
+  private final BindingParameterInvoker toInvoker;
+
+  private RangeShardingRouter(String table, RangeTableShardingStrategy<Object> strategy,
+                              BindingParameterInvoker fromInvoker, BindingParameterInvoker toInvoker) {
+    this.table = table;
+    this.strategy = strategy;
+    this.fromInvoker = fromInvoker;
+    this.toInvoker = toInvoker;
+  }
+
+  /**
+   * 方法参数中没有{@link ShardingFrom}与{@link ShardingTo}时返回null
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  static RangeShardingRouter create(MethodDescriptor md, ParameterContext context) {
+    BindingParameter from = null;
+    BindingParameter to = null;
+    int fromNum = 0;
+    int toNum = 0;
+    for (ParameterDescriptor pd : context.getParameterDescriptors()) {
+      String parameterName = context.getParameterNameByPosition(pd.getPosition());
+      ShardingFrom fromAnno = pd.getAnnotation(ShardingFrom.class);
+      if (fromAnno != null) {
+        from = BindingParameter.create(parameterName, fromAnno.value(), null);
+        fromNum++;
+      }
+      ShardingTo toAnno = pd.getAnnotation(ShardingTo.class);
+      if (toAnno != null) {
+        to = BindingParameter.create(parameterName, toAnno.value(), null);
+        toNum++;
+      }
+    }
+    if (fromNum == 0 && toNum == 0) {
+      return null;
+    }
+    if (fromNum != 1 || toNum != 1) {
+      throw new DescriptionException("need one and only one @ShardingFrom and one and only one @ShardingTo " +
+          "on method's parameter but found " + fromNum + " and " + toNum);
+    }
+    TableShardingStrategy strategy = getTableShardingStrategy(md.getShardingAnno());
+    if (!(strategy instanceof RangeTableShardingStrategy)) {
+      throw new DescriptionException("if @ShardingFrom and @ShardingTo are used, " +
+          "@Sharding.tableShardingStrategy must implement " + RangeTableShardingStrategy.class.getName());
+    }
+    String table = md.getGlobalTable();
+    if (table == null) {
+      throw new DescriptionException("if @ShardingFrom and @ShardingTo are used, @DB.table must be defined");
+    }
+    return new RangeShardingRouter(table, (RangeTableShardingStrategy<Object>) strategy,
+        context.getBindingParameterInvoker(from), context.getBindingParameterInvoker(to));
+  }
+
+  @Nullable
+  private static TableShardingStrategy getTableShardingStrategy(@Nullable Sharding shardingAnno) {
+    if (shardingAnno == null) {
+      return null;
+    }
+    if (!shardingAnno.tableShardingStrategy().equals(NotUseTableShardingStrategy.class)) {
+      return Reflection.instantiateClass(shardingAnno.tableShardingStrategy());
+    }
+    if (!shardingAnno.shardingStrategy().equals(NotUseShardingStrategy.class)) {
+      return Reflection.instantiateClass(shardingAnno.shardingStrategy());
+    }
+    return null;
+  }
+
+  /**
+   * 获得范围覆盖的所有分表，按范围的先后顺序排列
+   */
+  List<String> getTables(InvocationContext context) {
+    Object from = context.getBindingValue(fromInvoker);
+    Object to = context.getBindingValue(toInvoker);
+    if (from == null || to == null) {
+      throw new NullPointerException("value of @ShardingFrom and @ShardingTo can't be null");
+    }
+    return strategy.getTargetTables(table, from, to);
+  }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.operator;
+
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.invoker.TransferableInvoker;
+import org.jfaster.mango.mapper.BeanPropertyRowMapper;
+import org.jfaster.mango.mapper.RowMapper;
+import org.jfaster.mango.mapper.SingleColumnRowMapper;
+import org.jfaster.mango.page.Direction;
+import org.jfaster.mango.page.Order;
+import org.jfaster.mango.page.Sort;
+import org.jfaster.mango.util.jdbc.Dialect;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 跨分片的排序与分页，各分片按相同的排序返回前offset+N行，
+ * 使用堆对各分片结果做k路归并，取满一页即停止
+ * <p/>
+ * 各分片的前offset+N行先读入内存再归并，不使用游标边读边归并：游标需要在归并期间同时占用每个分片的连接，
+ * 连接池小于分片数时会互相等待，mysql的流式结果集也不能在同一连接上并存；所以深分页时内存占用为分片数*(offset+N)行
+ * <p/>
+ * 归并在内存中比较排序键，与数据库的排序规则不完全相同：
+ * null的位置按方言确定，postgresql与oracle升序时null在最后，其他数据库升序时null在最前，
+ * 不支持sql中显式的nulls first或nulls last；
+ * 字符串按{@link String#compareTo}区分大小写比较，mysql的_ci等不区分大小写的排序规则下，
+ * 跨分片的顺序可能与单库不同，需要一致时应使用二进制排序规则或非字符串的排序键
+ *
+ * @author ash
+ */
+class ShardedPageMerger {
+
+  /**
+   * 行比较器，为null时按分片顺序拼接
+   */
+  @Nullable
+  private final Comparator<Object> rowComparator;
+
+  private ShardedPageMerger(@Nullable Comparator<Object> rowComparator) {
+    this.rowComparator = rowComparator;
+  }
+
+  static ShardedPageMerger create(@Nullable Sort sort, RowMapper<?> rowMapper, Dialect dialect) {
+    if (sort == null || sort.getOrders().isEmpty()) {
+      return new ShardedPageMerger(null);
+    }
+    boolean nullsHigh = dialect == Dialect.POSTGRESQL || dialect == Dialect.ORACLE;
+    Comparator<Object> c = null;
+    for (Order order : sort.getOrders()) {
+      Comparator<Object> oc = new OrderComparator(getKeyExtractor(order.getProperty(), rowMapper), nullsHigh);
+      if (order.getDirection() == Direction.DESC) {
+        oc = oc.reversed();
+      }
+      c = c == null ? oc : c.thenComparing(oc);
+    }
+    return new ShardedPageMerger(c);
+  }
+
+  /**
+   * 归并各分片已排好序的行，跳过前offset行，最多取limit行，limit小于0时取全部
+   */
+  List<Object> merge(List<List<?>> shardRows, int offset, int limit) {
+    PriorityQueue<Cursor> heap = new PriorityQueue<Cursor>(Math.max(shardRows.size(), 1));
+    for (int i = 0; i < shardRows.size(); i++) {
+      List<?> rows = shardRows.get(i);
+      if (!rows.isEmpty()) {
+        heap.add(new Cursor(i, rows));
+      }
+    }
+    List<Object> r = new ArrayList<Object>(limit >= 0 ? limit : 16);
+    int skipped = 0;
+    while (!heap.isEmpty() && (limit < 0 || r.size() < limit)) {
+      Cursor cursor = heap.poll();
+      if (skipped < offset) {
+        skipped++;
+      } else {
+        r.add(cursor.current());
+      }
+      if (cursor.next()) {
+        heap.add(cursor);
+      }
+    }
+    return r;
+  }
+
+  private static KeyExtractor getKeyExtractor(String property, RowMapper<?> rowMapper) {
+    if (rowMapper instanceof SingleColumnRowMapper) { // 单列时行即排序键
+      return IdentityKeyExtractor.INSTANCE;
+    }
+    if (rowMapper instanceof BeanPropertyRowMapper) {
+      String column = property.trim();
+      int index = column.lastIndexOf('.');
+      if (index != -1) { // 去掉表别名
+        column = column.substring(index + 1);
+      }
+      column = column.replace("`", "").replace("\"", "");
+      final TransferableInvoker invoker = ((BeanPropertyRowMapper<?>) rowMapper).getInvokerByColumn(column);
+      if (invoker != null) {
+        return new KeyExtractor() {
+          @Override
+          public Object extract(Object row) {
+            return invoker.invokeGet(row);
+          }
+        };
+      }
+    }
+    throw new DescriptionException("can't merge rows of shards by order [" + property + "], " +
+        "the column is not mapped to any property of " + rowMapper.getMappedClass());
+  }
+
+  interface KeyExtractor {
+    @Nullable
+    Object extract(Object row);
+  }
+
+  enum IdentityKeyExtractor implements KeyExtractor {
+    INSTANCE;
+
+    @Override
+    public Object extract(Object row) {
+      return row;
+    }
+  }
+
+  /**
+   * 按排序键升序比较，nullsHigh为true时null大于任何值，否则小于任何值
+   */
+  static class OrderComparator implements Comparator<Object> {
+
+    private final KeyExtractor keyExtractor;
+    private final boolean nullsHigh;
+
+    OrderComparator(KeyExtractor keyExtractor, boolean nullsHigh) {
+      this.keyExtractor = keyExtractor;
+      this.nullsHigh = nullsHigh;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public int compare(Object o1, Object o2) {
+      Object k1 = keyExtractor.extract(o1);
+      Object k2 = keyExtractor.extract(o2);
+      if (k1 == null || k2 == null) {
+        int c = k1 == null ? (k2 == null ? 0 : -1) : 1;
+        return nullsHigh ? -c : c;
+      }
+      if (!(k1 instanceof Comparable)) {
+        throw new IllegalStateException("sort key " + k1.getClass() + " is not comparable");
+      }
+      return ((Comparable<Object>) k1).compareTo(k2);
+    }
+  }
+
+  /**
+   * 单个分片结果的游标，排序键相同时按分片顺序
+   */
+  class Cursor implements Comparable<Cursor> {
+
+    private final int shardIndex;
+
+    private final Iterator<?> rows;
+
+    private Object current;
+
+    Cursor(int shardIndex, List<?> rows) {
+      this.shardIndex = shardIndex;
+      this.rows = rows.iterator();
+      this.current = this.rows.next();
+    }
+
+    Object current() {
+      return current;
+    }
+
+    boolean next() {
+      if (!rows.hasNext()) {
+        return false;
+      }
+      current = rows.next();
+      return true;
+    }
+
+    @Override
+    public int compareTo(Cursor o) {
+      int c = rowComparator != null ? rowComparator.compare(current(), o.current()) : 0;
+      return c != 0 ? c : Integer.compare(shardIndex, o.shardIndex);
+    }
+  }
+
+}
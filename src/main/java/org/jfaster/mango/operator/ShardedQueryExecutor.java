@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator;
+
+import org.jfaster.mango.binding.InvocationContext;
+import org.jfaster.mango.jdbc.exception.QueryTimeoutException;
+import org.jfaster.mango.operator.generator.AbstractDataSourceGenerator;
+import org.jfaster.mango.operator.generator.DataSourceGenerator;
+import org.jfaster.mango.sharding.Shard;
+import org.jfaster.mango.transaction.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 在多个分片上并行执行查询，汇总各分片的结果与异常
+ *
+ * @author ash
+ */
+class ShardedQueryExecutor {
+
+  private final Executor executor;
+
+  /**
+   * 从开始执行起，每个分片结果的最长等待时间(毫秒)，小于等于0时一直等待
+   */
+  private final long timeoutMillis;
+
+  ShardedQueryExecutor(Executor executor, long timeoutMillis) {
+    this.executor = executor;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * 只有一个分片，或当前线程已在某分片数据源的事务中时，该分片在当前线程执行；
+   * 等待超时的分片会取消其正在执行的jdbc语句
+   */
+  Result execute(List<ShardQuery> queries) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    List<CompletableFuture<Object>> futures = new ArrayList<CompletableFuture<Object>>(queries.size());
+    for (final ShardQuery query : queries) {
+      boolean local = queries.size() == 1 ||
+          TransactionSynchronizationManager.getConnectionHolder(query.getDataSource()) != null;
+      futures.add(local ? null : AsyncOperator.supplyAsync(new Supplier<Object>() {
+        @Override
+        public Object get() {
+          return query.query();
+        }
+      }, executor));
+    }
+
+    Result result = new Result();
+    for (int i = 0; i < queries.size(); i++) {
+      ShardQuery query = queries.get(i);
+      CompletableFuture<Object> future = futures.get(i);
+      try {
+        result.addResult(query.getShard(), future == null ? query.query() : waitFor(future, deadline));
+      } catch (ExecutionException e) {
+        result.addFailure(query.getShard(), e.getCause() != null ? e.getCause() : e);
+      } catch (TimeoutException e) {
+        future.cancel(true);
+        result.addFailure(query.getShard(), new QueryTimeoutException("query on shard [" + query.getShard() + "] " +
+            "did not complete in " + timeoutMillis + " ms"));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        result.addFailure(query.getShard(), e);
+      } catch (RuntimeException e) {
+        result.addFailure(query.getShard(), e);
+      }
+    }
+    return result;
+  }
+
+  private Object waitFor(CompletableFuture<Object> future, long deadline)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    if (timeoutMillis <= 0) {
+      return future.get();
+    }
+    return future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * 获得数据源工厂名称，用于标识分片
+   */
+  static String getDataSourceFactoryName(DataSourceGenerator dataSourceGenerator, InvocationContext context) {
+    return dataSourceGenerator instanceof AbstractDataSourceGenerator ?
+        ((AbstractDataSourceGenerator) dataSourceGenerator).getDataSourceFactoryName(context) :
+        dataSourceGenerator.getClass().getSimpleName();
+  }
+
+  /**
+   * 一个分片上的查询
+   */
+  abstract static class ShardQuery {
+
+    private final Shard shard;
+
+    private final DataSource dataSource;
+
+    ShardQuery(Shard shard, DataSource dataSource) {
+      this.shard = shard;
+      this.dataSource = dataSource;
+    }
+
+    Shard getShard() {
+      return shard;
+    }
+
+    DataSource getDataSource() {
+      return dataSource;
+    }
+
+    abstract Object query();
+
+  }
+
+  /**
+   * 按分片顺序排列的成功结果，以及失败的分片
+   */
+  static class Result {
+
+    private final List<Shard> succeededShards = new ArrayList<Shard>();
+
+    private final List<Object> results = new ArrayList<Object>();
+
+    private final Map<Shard, Throwable> failures = new LinkedHashMap<Shard, Throwable>();
+
+    void addResult(Shard shard, Object result) {
+      succeededShards.add(shard);
+      results.add(result);
+    }
+
+    void addFailure(Shard shard, Throwable t) {
+      failures.put(shard, t);
+    }
+
+    List<Shard> getSucceededShards() {
+      return succeededShards;
+    }
+
+    List<Object> getResults() {
+      return results;
+    }
+
+    Map<Shard, Throwable> getFailures() {
+      return failures;
+    }
+
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.operator;
+
+import org.jfaster.mango.transaction.Transaction;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+
+/**
+ * 结束多个数据源上的事务，保证每个事务都被结束并解除与线程的绑定
+ *
+ * @author ash
+ */
+class Transactions {
+
+  /**
+   * 依次提交全部事务，某个事务提交失败后回滚其余的事务；
+   * 抛出第一个异常，其余异常作为它的suppressed异常
+   */
+  static void commitAll(Collection<Transaction> transactions) {
+    RuntimeException failure = null;
+    for (Transaction transaction : transactions) {
+      try {
+        if (failure == null) {
+          transaction.commit();
+        } else {
+          transaction.rollback();
+        }
+      } catch (RuntimeException e) {
+        failure = suppress(failure, e);
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * 回滚全部事务，回滚时的异常作为cause的suppressed异常
+   */
+  static void rollbackAll(Collection<Transaction> transactions, Throwable cause) {
+    for (Transaction transaction : transactions) {
+      try {
+        transaction.rollback();
+      } catch (RuntimeException e) {
+        cause.addSuppressed(e);
+      }
+    }
+  }
+
+  private static RuntimeException suppress(@Nullable RuntimeException failure, RuntimeException e) {
+    if (failure == null) {
+      return e;
+    }
+    failure.addSuppressed(e);
+    return failure;
+  }
+
+}
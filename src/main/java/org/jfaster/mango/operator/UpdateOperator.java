@@ -23,14 +23,19 @@ import org.jfaster.mango.exception.DescriptionException;
 import org.jfaster.mango.jdbc.GeneratedKeyHolder;
 import org.jfaster.mango.parser.ASTRootNode;
 import org.jfaster.mango.parser.EmptyObjectException;
+import org.jfaster.mango.transaction.Transaction;
+import org.jfaster.mango.transaction.TransactionFactory;
 import org.jfaster.mango.type.TypeHandler;
 import org.jfaster.mango.type.TypeHandlerRegistry;
 import org.jfaster.mango.util.ToStringHelper;
 import org.jfaster.mango.util.jdbc.SQLType;
 
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author ash
@@ -43,9 +48,20 @@ public class UpdateOperator extends AbstractOperator {
 
   private TypeHandler<? extends Number> generatedKeyTypeHandler;
 
+  @Nullable
+  private final IdAssigner idAssigner;
+
+  @Nullable
+  private final ChangeTracker changeTracker;
+
+  @Nullable
+  private InListSplitter inListSplitter;
+
   public UpdateOperator(ASTRootNode rootNode, MethodDescriptor md, Config config) {
     super(rootNode, md, config);
     init(md, rootNode.getSQLType());
+    idAssigner = IdAssigner.create(md, rootNode.getSQLType(), config);
+    changeTracker = ChangeTracker.create(md, rootNode.getSQLType());
   }
 
   private void init(MethodDescriptor md, SQLType sqlType) {
@@ -72,9 +88,34 @@ public class UpdateOperator extends AbstractOperator {
     }
   }
 
+  /**
+   * 设置in语句参数的拆分器，生成自增id的插入语句不拆分
+   */
+  void setInListSplitter(@Nullable InListSplitter inListSplitter) {
+    this.inListSplitter = returnGeneratedId ? null : inListSplitter;
+  }
+
   @Override
   public Object execute(Object[] values) {
+    if (idAssigner != null) {
+      idAssigner.assign(values[0]);
+    }
+    if (inListSplitter != null) {
+      return executeSplit(values);
+    }
     InvocationContext context = invocationContextFactory.newInvocationContext(values);
+    if (changeTracker != null) {
+      Set<String> unchangedProperties = changeTracker.getUnchangedProperties(values[0]);
+      if (unchangedProperties != null) {
+        if (changeTracker.isUnchanged(unchangedProperties)) { // 没有需要更新的属性
+          return transformer.transform(0);
+        }
+        context.setUnchangedProperties(unchangedProperties);
+        Object r = execute(context);
+        changeTracker.refresh(values[0]);
+        return r;
+      }
+    }
     return execute(context);
   }
 
@@ -97,6 +138,49 @@ public class UpdateOperator extends AbstractOperator {
     return transformer.transform(r);
   }
 
+  /**
+   * in语句的参数拆分后逐条执行，返回影响行数之和；
+   * 拆成多条语句时，每个数据源上的语句在同一事务中执行，已在事务中时加入该事务
+   */
+  private Object executeSplit(Object[] values) {
+    List<InListSplitter.Part> parts;
+    try {
+      parts = inListSplitter.split(values, invocationContextFactory,
+          tableGenerator, dataSourceGenerator, methodDescriptor.getDaoClass());
+    } catch (EmptyObjectException e) {
+      if (config.isCompatibleWithEmptyList()) {
+        return transformer.transform(0);
+      } else {
+        throw e;
+      }
+    }
+    Map<DataSource, Transaction> transactions = parts.size() > 1 ?
+        new LinkedHashMap<DataSource, Transaction>() :
+        null;
+    long r = 0;
+    try {
+      for (InListSplitter.Part part : parts) {
+        InvocationContext context = invocationContextFactory.newInvocationContext(part.getValues());
+        context.setGlobalTable(part.getTable());
+        rootNode.render(context);
+        DataSource ds = part.getDataSource();
+        if (transactions != null && !transactions.containsKey(ds)) {
+          transactions.put(ds, TransactionFactory.newTransaction(ds));
+        }
+        r += executeDb(ds, context.getBoundSql()).longValue();
+      }
+    } catch (RuntimeException e) {
+      if (transactions != null) {
+        Transactions.rollbackAll(transactions.values(), e);
+      }
+      throw e;
+    }
+    if (transactions != null) {
+      Transactions.commitAll(transactions.values());
+    }
+    return transformer.transform(r);
+  }
+
   private Number executeDb(DataSource ds, BoundSql boundSql) {
     Number r;
     if (returnGeneratedId) {
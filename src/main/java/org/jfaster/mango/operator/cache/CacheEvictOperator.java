@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator.cache;
+
+import org.jfaster.mango.annotation.Cache;
+import org.jfaster.mango.annotation.CacheEvict;
+import org.jfaster.mango.descriptor.MethodDescriptor;
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.operator.Operator;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 被装饰的更新operator执行后清除缓存
+ *
+ * @author ash
+ */
+public class CacheEvictOperator implements Operator {
+
+  private final Operator operator;
+  private final ResultCacheManager cacheManager;
+  private final Class<?> daoClass;
+  private final String[] methodNames;
+
+  public CacheEvictOperator(Operator operator, ResultCacheManager cacheManager) {
+    this.operator = operator;
+    this.cacheManager = cacheManager;
+    MethodDescriptor md = operator.getMethodDescriptor();
+    CacheEvict evictAnno = md.getAnnotation(CacheEvict.class);
+    if (evictAnno == null) {
+      throw new IllegalStateException("@CacheEvict not found");
+    }
+    this.daoClass = md.getDaoClass();
+    this.methodNames = evictAnno.value();
+  }
+
+  @Override
+  public Object execute(Object[] values) {
+    try {
+      return operator.execute(values);
+    } finally {
+      cacheManager.evict(daoClass, methodNames);
+    }
+  }
+
+  @Override
+  public MethodDescriptor getMethodDescriptor() {
+    return operator.getMethodDescriptor();
+  }
+
+  /**
+   * 检查DAO中{@link CacheEvict}指定的方法名，每个方法名都需要对应被{@link Cache}修饰的方法
+   */
+  public static void checkMethodNames(Class<?> daoClass) {
+    Set<String> cacheMethodNames = new HashSet<String>();
+    for (Method method : daoClass.getMethods()) {
+      if (method.isAnnotationPresent(Cache.class)) {
+        cacheMethodNames.add(method.getName());
+      }
+    }
+    for (Method method : daoClass.getMethods()) {
+      CacheEvict evictAnno = method.getAnnotation(CacheEvict.class);
+      if (evictAnno == null) {
+        continue;
+      }
+      for (String methodName : evictAnno.value()) {
+        if (!cacheMethodNames.contains(methodName)) {
+          throw new DescriptionException("@CacheEvict on method [" + method.getName() + "] refers to [" +
+              methodName + "], but there is no method named [" + methodName + "] with @Cache in " +
+              daoClass.getName());
+        }
+      }
+    }
+  }
+
+}
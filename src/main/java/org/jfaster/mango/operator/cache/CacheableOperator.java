@@ -0,0 +1,255 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator.cache;
+
+import org.jfaster.mango.annotation.Cache;
+import org.jfaster.mango.binding.BindingParameter;
+import org.jfaster.mango.binding.BindingParameterInvoker;
+import org.jfaster.mango.binding.DefaultParameterContext;
+import org.jfaster.mango.binding.ParameterContext;
+import org.jfaster.mango.descriptor.MethodDescriptor;
+import org.jfaster.mango.descriptor.ParameterDescriptor;
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.operator.Operator;
+import org.jfaster.mango.page.Page;
+import org.jfaster.mango.page.Sort;
+import org.jfaster.mango.transaction.TransactionSynchronizationManager;
+import org.jfaster.mango.util.Objects;
+import org.jfaster.mango.util.Strings;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 缓存被装饰的查询operator的结果
+ *
+ * @author ash
+ */
+public class CacheableOperator implements Operator {
+
+  private final static Pattern KEY_PATTERN = Pattern.compile(":(\\w+)((\\.\\w+)*)");
+
+  private final Operator operator;
+  private final ResultCache cache;
+  private final ResultCopier resultCopier;
+
+  /**
+   * 为null时使用全部参数作为缓存key
+   */
+  private final List<KeyPart> keyParts;
+
+  public CacheableOperator(Operator operator, ResultCacheManager cacheManager) {
+    this.operator = operator;
+    MethodDescriptor md = operator.getMethodDescriptor();
+    Cache cacheAnno = md.getAnnotation(Cache.class);
+    if (cacheAnno == null) {
+      throw new IllegalStateException("@Cache not found");
+    }
+    if (md.getReturnDescriptor().isStream() || md.getReturnDescriptor().isIterator()) {
+      throw new DescriptionException("@Cache can't be used on method returning Stream or Iterator");
+    }
+    this.resultCopier = new ResultCopier(md.getReturnDescriptor());
+    List<Type> parameterTypes = new ArrayList<Type>();
+    for (ParameterDescriptor pd : md.getParameterDescriptors()) {
+      parameterTypes.add(pd.getType());
+    }
+    this.cache = cacheManager.getOrCreate(md.getDaoClass(), md.getName(), parameterTypes,
+        cacheAnno.timeUnit().toNanos(cacheAnno.ttl()), cacheAnno.maxEntries());
+    if (Strings.isNotEmpty(cacheAnno.key())) {
+      this.keyParts = parseKey(cacheAnno.key(), md.getParameterDescriptors());
+    } else {
+      checkKeyParameters(md.getParameterDescriptors());
+      this.keyParts = null;
+    }
+  }
+
+  /**
+   * 缓存的结果不直接返回给调用者，每次返回复制的结果
+   * <p/>
+   * 当前线程绑定了事务时，查询可能读到未提交的数据，不读取也不写入缓存；
+   * 查询期间缓存被清除时，查询结果可能是清除前的旧数据，不写入缓存
+   */
+  @Override
+  public Object execute(Object[] values) {
+    if (TransactionSynchronizationManager.hasConnectionHolder()) {
+      return operator.execute(values);
+    }
+    Object key = getKey(values);
+    long generation = cache.getGeneration();
+    Object r = cache.get(key);
+    if (r == null) {
+      r = operator.execute(values);
+      cache.put(key, r != null ? r : NullValue.INSTANCE, generation);
+    } else if (r == NullValue.INSTANCE) {
+      r = null;
+    }
+    return resultCopier.copy(r);
+  }
+
+  @Override
+  public MethodDescriptor getMethodDescriptor() {
+    return operator.getMethodDescriptor();
+  }
+
+  private Object getKey(Object[] values) {
+    Object[] keyValues;
+    if (keyParts == null) {
+      keyValues = new Object[values != null ? values.length : 0];
+      for (int i = 0; i < keyValues.length; i++) {
+        keyValues[i] = copyKeyValue(values[i]);
+      }
+    } else {
+      keyValues = new Object[keyParts.size()];
+      for (int i = 0; i < keyValues.length; i++) {
+        KeyPart part = keyParts.get(i);
+        keyValues[i] = copyKeyValue(part.invoker.invoke(values[part.position]));
+      }
+    }
+    return new CacheKey(keyValues);
+  }
+
+  /**
+   * 复制集合、数组与Date，调用者之后修改参数不会改变缓存中的key
+   */
+  @Nullable
+  private static Object copyKeyValue(@Nullable Object value) {
+    if (value == null || Objects.isImmutable(value)) {
+      return value;
+    }
+    if (value instanceof Date) {
+      return ((Date) value).clone();
+    }
+    if (value.getClass().isArray()) {
+      int length = Array.getLength(value);
+      Object array = Array.newInstance(value.getClass().getComponentType(), length);
+      for (int i = 0; i < length; i++) {
+        Array.set(array, i, copyKeyValue(Array.get(value, i)));
+      }
+      return array;
+    }
+    if (value instanceof Set) {
+      Set<Object> set = new HashSet<Object>();
+      for (Object element : (Set<?>) value) {
+        set.add(copyKeyValue(element));
+      }
+      return set;
+    }
+    if (value instanceof Iterable) {
+      List<Object> list = new ArrayList<Object>();
+      for (Object element : (Iterable<?>) value) {
+        list.add(copyKeyValue(element));
+      }
+      return list;
+    }
+    return value;
+  }
+
+  /**
+   * 没有指定key时使用全部参数作为key，参数只能是不可变类型、Date、分页排序参数，或者它们的集合与数组；
+   * bean可能在调用后被修改，需要通过key指定其中的属性
+   */
+  private static void checkKeyParameters(List<ParameterDescriptor> pds) {
+    for (ParameterDescriptor pd : pds) {
+      Class<?> clazz = pd.canIterable() ? pd.getMappedClass() : pd.getRawType();
+      if (clazz == null || !(Objects.isImmutableType(clazz)
+          || Date.class.isAssignableFrom(clazz)
+          || clazz == Page.class
+          || clazz == Sort.class)) {
+        throw new DescriptionException("@Cache without key can't be used on method with parameter of type " +
+            pd.getType() + ", please specify the key, like @Cache(key = \":1.id\")");
+      }
+    }
+  }
+
+  private static List<KeyPart> parseKey(String key, List<ParameterDescriptor> pds) {
+    ParameterContext context = DefaultParameterContext.create(pds);
+    List<KeyPart> parts = new ArrayList<KeyPart>();
+    for (String str : key.split(",")) {
+      Matcher m = KEY_PATTERN.matcher(str.trim());
+      if (!m.matches()) {
+        throw new DescriptionException("illegal cache key [" + key + "]");
+      }
+      String parameterName = m.group(1);
+      String propertyPath = m.group(2).length() > 0 ? m.group(2).substring(1) : "";
+      BindingParameterInvoker invoker = context.getBindingParameterInvoker(
+          BindingParameter.create(parameterName, propertyPath, null));
+      int position = -1;
+      for (ParameterDescriptor pd : pds) {
+        if (parameterName.equals(context.getParameterNameByPosition(pd.getPosition()))) {
+          position = pd.getPosition();
+        }
+      }
+      parts.add(new KeyPart(position, invoker));
+    }
+    return parts;
+  }
+
+  private static class KeyPart {
+
+    private final int position;
+    private final BindingParameterInvoker invoker;
+
+    private KeyPart(int position, BindingParameterInvoker invoker) {
+      this.position = position;
+      this.invoker = invoker;
+    }
+
+  }
+
+  private static class CacheKey {
+
+    private final Object[] values;
+    private final int hashCode;
+
+    private CacheKey(Object[] values) {
+      this.values = values;
+      this.hashCode = Arrays.deepHashCode(values);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey other = (CacheKey) obj;
+      return hashCode == other.hashCode && Arrays.deepEquals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+  }
+
+  private enum NullValue {
+    INSTANCE
+  }
+
+}
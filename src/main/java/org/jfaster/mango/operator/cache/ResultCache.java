@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator.cache;
+
+import org.jfaster.mango.util.Ticker;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 容量有限的LRU结果缓存，缓存项在ttl后过期
+ *
+ * @author ash
+ */
+public class ResultCache {
+
+  private final long ttlNanos;
+  private final int maxEntries;
+  private final Ticker ticker;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  private final LinkedHashMap<Object, Entry> map;
+
+  /**
+   * 每次清除缓存时加1，由map的锁保护
+   */
+  private long generation;
+
+  public ResultCache(long ttlNanos, int maxEntries) {
+    this(ttlNanos, maxEntries, Ticker.systemTicker());
+  }
+
+  public ResultCache(long ttlNanos, int maxEntries, Ticker ticker) {
+    if (ttlNanos <= 0) {
+      throw new IllegalArgumentException("ttl must be positive, but " + ttlNanos);
+    }
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be positive, but " + maxEntries);
+    }
+    this.ttlNanos = ttlNanos;
+    this.maxEntries = maxEntries;
+    this.ticker = ticker;
+    this.map = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+        boolean r = size() > ResultCache.this.maxEntries;
+        if (r) {
+          evictionCount.incrementAndGet();
+        }
+        return r;
+      }
+    };
+  }
+
+  /**
+   * 获得缓存值，不存在或已过期时返回null
+   */
+  @Nullable
+  public Object get(Object key) {
+    long now = ticker.read();
+    synchronized (map) {
+      Entry entry = map.get(key);
+      if (entry != null) {
+        if (now - entry.writeNanos < ttlNanos) {
+          hitCount.incrementAndGet();
+          return entry.value;
+        }
+        map.remove(key);
+        evictionCount.incrementAndGet();
+      }
+    }
+    missCount.incrementAndGet();
+    return null;
+  }
+
+  public void put(Object key, Object value) {
+    Entry entry = new Entry(value, ticker.read());
+    synchronized (map) {
+      map.put(key, entry);
+    }
+  }
+
+  /**
+   * 只有缓存在查询前获得generation之后没有被清除时才写入，避免清除前查到的旧值覆盖清除；
+   * 返回是否写入
+   */
+  public boolean put(Object key, Object value, long generation) {
+    Entry entry = new Entry(value, ticker.read());
+    synchronized (map) {
+      if (this.generation != generation) {
+        return false;
+      }
+      map.put(key, entry);
+      return true;
+    }
+  }
+
+  /**
+   * 获得当前的generation，查询前获得并传给{@link #put(Object, Object, long)}
+   */
+  public long getGeneration() {
+    synchronized (map) {
+      return generation;
+    }
+  }
+
+  /**
+   * 清除过期的缓存项
+   */
+  public void cleanUp() {
+    long now = ticker.read();
+    synchronized (map) {
+      Iterator<Entry> it = map.values().iterator();
+      while (it.hasNext()) {
+        if (now - it.next().writeNanos >= ttlNanos) {
+          it.remove();
+          evictionCount.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  public void invalidateAll() {
+    synchronized (map) {
+      map.clear();
+      generation++;
+    }
+  }
+
+  public int size() {
+    synchronized (map) {
+      return map.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  private static class Entry {
+
+    private final Object value;
+    private final long writeNanos;
+
+    private Entry(Object value, long writeNanos) {
+      this.value = value;
+      this.writeNanos = writeNanos;
+    }
+
+  }
+
+}
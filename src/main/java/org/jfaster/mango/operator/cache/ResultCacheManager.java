@@ -0,0 +1,115 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator.cache;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按DAO和方法签名管理结果缓存，同名的重载方法使用各自的缓存
+ *
+ * @author ash
+ */
+public class ResultCacheManager {
+
+  private final ConcurrentMap<Class<?>, ConcurrentMap<MethodKey, ResultCache>> caches =
+      new ConcurrentHashMap<Class<?>, ConcurrentMap<MethodKey, ResultCache>>();
+
+  public ResultCache getOrCreate(Class<?> daoClass, String methodName, List<Type> parameterTypes,
+                                 long ttlNanos, int maxEntries) {
+    ConcurrentMap<MethodKey, ResultCache> daoCaches = getDaoCaches(daoClass);
+    MethodKey key = new MethodKey(methodName, parameterTypes);
+    ResultCache cache = daoCaches.get(key);
+    if (cache == null) {
+      ResultCache newCache = new ResultCache(ttlNanos, maxEntries);
+      cache = daoCaches.putIfAbsent(key, newCache);
+      if (cache == null) {
+        cache = newCache;
+      }
+    }
+    return cache;
+  }
+
+  @Nullable
+  public ResultCache getResultCache(Class<?> daoClass, String methodName, Type... parameterTypes) {
+    ConcurrentMap<MethodKey, ResultCache> daoCaches = caches.get(daoClass);
+    return daoCaches != null ? daoCaches.get(new MethodKey(methodName, Arrays.asList(parameterTypes))) : null;
+  }
+
+  /**
+   * 清除DAO中指定方法(包括其全部重载方法)的缓存，methodNames为空时清除该DAO的全部缓存
+   */
+  public void evict(Class<?> daoClass, String... methodNames) {
+    ConcurrentMap<MethodKey, ResultCache> daoCaches = caches.get(daoClass);
+    if (daoCaches == null) {
+      return;
+    }
+    List<String> names = Arrays.asList(methodNames);
+    for (Map.Entry<MethodKey, ResultCache> entry : daoCaches.entrySet()) {
+      if (names.isEmpty() || names.contains(entry.getKey().methodName)) {
+        entry.getValue().invalidateAll();
+      }
+    }
+  }
+
+  private ConcurrentMap<MethodKey, ResultCache> getDaoCaches(Class<?> daoClass) {
+    ConcurrentMap<MethodKey, ResultCache> daoCaches = caches.get(daoClass);
+    if (daoCaches == null) {
+      ConcurrentMap<MethodKey, ResultCache> newDaoCaches = new ConcurrentHashMap<MethodKey, ResultCache>();
+      daoCaches = caches.putIfAbsent(daoClass, newDaoCaches);
+      if (daoCaches == null) {
+        daoCaches = newDaoCaches;
+      }
+    }
+    return daoCaches;
+  }
+
+  private static class MethodKey {
+
+    private final String methodName;
+    private final List<Type> parameterTypes;
+
+    private MethodKey(String methodName, List<Type> parameterTypes) {
+      this.methodName = methodName;
+      this.parameterTypes = parameterTypes;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof MethodKey)) {
+        return false;
+      }
+      MethodKey other = (MethodKey) obj;
+      return methodName.equals(other.methodName) && parameterTypes.equals(other.parameterTypes);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * methodName.hashCode() + parameterTypes.hashCode();
+    }
+
+  }
+
+}
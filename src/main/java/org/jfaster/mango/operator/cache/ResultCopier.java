@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.operator.cache;
+
+import org.jfaster.mango.descriptor.ReturnDescriptor;
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.page.PageResult;
+import org.jfaster.mango.util.Objects;
+import org.jfaster.mango.util.bean.BeanUtil;
+import org.jfaster.mango.util.bean.PropertyMeta;
+import org.jfaster.mango.util.reflect.Accessors;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 复制缓存的查询结果，调用者修改返回值不会影响缓存中的值
+ * <p/>
+ * 集合、数组、{@link Optional}与{@link PageResult}总是复制；其中的元素，
+ * 不可变类型直接复用，{@link Date}复制，其他bean按属性浅复制
+ *
+ * @author ash
+ */
+class ResultCopier {
+
+  private final UnaryOperator<Object> elementCopier;
+
+  ResultCopier(ReturnDescriptor returnDescriptor) {
+    this.elementCopier = createElementCopier(returnDescriptor.getMappedClass());
+  }
+
+  @Nullable
+  Object copy(@Nullable Object r) {
+    if (r == null) {
+      return null;
+    }
+    if (r instanceof PageResult) {
+      PageResult<?> pr = (PageResult<?>) r;
+      return new PageResult<Object>(copyAll(pr.getData(), new ArrayList<Object>(pr.getData().size())), pr.getTotal());
+    }
+    if (r instanceof Optional) {
+      return ((Optional<?>) r).map(elementCopier);
+    }
+    if (r instanceof LinkedList) {
+      return copyAll((Collection<?>) r, new LinkedList<Object>());
+    }
+    if (r instanceof List) {
+      return copyAll((Collection<?>) r, new ArrayList<Object>(((List<?>) r).size()));
+    }
+    if (r instanceof Set) {
+      return copyAll((Collection<?>) r, new HashSet<Object>());
+    }
+    if (r.getClass().isArray()) {
+      int length = Array.getLength(r);
+      Object array = Array.newInstance(r.getClass().getComponentType(), length);
+      if (r.getClass().getComponentType().isPrimitive()) {
+        System.arraycopy(r, 0, array, 0, length);
+      } else {
+        for (int i = 0; i < length; i++) {
+          Array.set(array, i, copyElement(Array.get(r, i)));
+        }
+      }
+      return array;
+    }
+    return copyElement(r);
+  }
+
+  private <C extends Collection<Object>> C copyAll(Collection<?> source, C target) {
+    for (Object element : source) {
+      target.add(copyElement(element));
+    }
+    return target;
+  }
+
+  @Nullable
+  private Object copyElement(@Nullable Object element) {
+    return element != null ? elementCopier.apply(element) : null;
+  }
+
+  private static UnaryOperator<Object> createElementCopier(Class<?> clazz) {
+    if (Objects.isImmutableType(clazz)) {
+      return UnaryOperator.identity();
+    }
+    if (Date.class.isAssignableFrom(clazz)) {
+      return element -> ((Date) element).clone();
+    }
+    if (clazz == byte[].class) {
+      return element -> ((byte[]) element).clone();
+    }
+    final Supplier<?> constructor = clazz != Object.class && !Modifier.isAbstract(clazz.getModifiers()) ?
+        Accessors.constructor(clazz) :
+        null;
+    if (constructor == null) {
+      throw new DescriptionException("@Cache can't be used on method returning " + clazz.getName() +
+          ", it is not immutable and has no default constructor to copy");
+    }
+    final List<Function<Object, Object>> getters = new ArrayList<Function<Object, Object>>();
+    final List<BiConsumer<Object, Object>> setters = new ArrayList<BiConsumer<Object, Object>>();
+    for (PropertyMeta pm : BeanUtil.fetchPropertyMetas(clazz)) {
+      if (pm.getReadMethod() != null && pm.getWriteMethod() != null) {
+        getters.add(Accessors.getter(pm.getReadMethod()));
+        setters.add(Accessors.setter(pm.getWriteMethod()));
+      }
+    }
+    return element -> {
+      Object copy = constructor.get();
+      for (int i = 0; i < getters.size(); i++) {
+        setters.get(i).accept(copy, getters.get(i).apply(element));
+      }
+      return copy;
+    };
+  }
+
+}
@@ -51,6 +51,15 @@ public class DataSourceGeneratorFactory {
   public DataSourceGenerator getDataSourceGenerator(
             DataSourceType dataSourceType, @Nullable Sharding shardingAnno,
             String dataSourceFactoryName, ParameterContext context) {
+        return getDataSourceGenerator(dataSourceType, shardingAnno, dataSourceFactoryName, context, false);
+    }
+
+    /**
+     * @param isIterableShardingAllowed 是否允许可迭代的分库参数，此时由调用方按元素拆分参数后再选择数据源
+     */
+    public DataSourceGenerator getDataSourceGenerator(
+            DataSourceType dataSourceType, @Nullable Sharding shardingAnno,
+            String dataSourceFactoryName, ParameterContext context, boolean isIterableShardingAllowed) {
 
         DatabaseShardingStrategy strategy = getDatabaseShardingStrategy(shardingAnno);
         TypeToken<?> strategyToken = getStrategyToken(strategy);
@@ -58,7 +67,7 @@ public class DataSourceGeneratorFactory {
         ShardingParameterInfo shardingParameterInfo = getShardingParameterInfo(context);
         DataSourceGenerator dataSourceGenerator;
         if (strategy != null) {
-            dataSourceGenerator = createShardedDataSourceGenerator(dataSourceFactoryGroup, dataSourceType, shardingParameterInfo, strategy, strategyToken);
+            dataSourceGenerator = createShardedDataSourceGenerator(dataSourceFactoryGroup, dataSourceType, shardingParameterInfo, strategy, strategyToken, isIterableShardingAllowed);
         } else {
             dataSourceGenerator = new SimpleDataSourceGenerator(dataSourceFactoryGroup, dataSourceType, dataSourceFactoryName);
         }
@@ -66,7 +75,7 @@ public class DataSourceGeneratorFactory {
 
     }
 
-    private DataSourceGenerator createShardedDataSourceGenerator(DataSourceFactoryGroup dataSourceFactoryGroup, DataSourceType dataSourceType, ShardingParameterInfo shardingParameterInfo, DatabaseShardingStrategy strategy, TypeToken<?> strategyToken) {
+    private DataSourceGenerator createShardedDataSourceGenerator(DataSourceFactoryGroup dataSourceFactoryGroup, DataSourceType dataSourceType, ShardingParameterInfo shardingParameterInfo, DatabaseShardingStrategy strategy, TypeToken<?> strategyToken, boolean isIterableShardingAllowed) {
         DataSourceGenerator dataSourceGenerator;
         if (shardingParameterInfo.getShardingParameterNum() == 1) {
             BindingParameterInvoker shardingParameterInvoker
@@ -74,12 +83,12 @@ public class DataSourceGeneratorFactory {
             Type shardingParameterType = shardingParameterInvoker.getTargetType();
             TypeWrapper tw = new TypeWrapper(shardingParameterType);
             Class<?> mappedClass = tw.getMappedClass();
-            if (mappedClass == null || tw.canIterable()) {
+            if (mappedClass == null || (tw.canIterable() && !isIterableShardingAllowed)) {
                 throw new IncorrectParameterTypeException("the type of parameter Modified @DatabaseShardingBy is error, " +
                         "type is " + shardingParameterType + ", " +
                         "please note that @ShardingBy = @TableShardingBy + @DatabaseShardingBy");
             }
-            TypeToken<?> shardToken = TypeToken.of(shardingParameterType);
+            TypeToken<?> shardToken = TypeToken.of(tw.canIterable() ? tw.getMappedType() : shardingParameterType); // 可迭代参数检查元素类型
             if (!strategyToken.isAssignableFrom(shardToken.wrap())) {
                 throw new ClassCastException("DatabaseShardingStrategy[" + strategy.getClass() + "]'s " +
                         "generic type[" + strategyToken.getType() + "] must be assignable from " +
@@ -127,7 +136,7 @@ public class DataSourceGeneratorFactory {
     }
 
     @Nullable
-    private DatabaseShardingStrategy getDatabaseShardingStrategy(@Nullable Sharding shardingAnno) {
+    DatabaseShardingStrategy getDatabaseShardingStrategy(@Nullable Sharding shardingAnno) {
         if (shardingAnno == null) {
             return null;
         }
@@ -175,24 +184,4 @@ public class DataSourceGeneratorFactory {
     }
 //Refactoring end
 
-  }
-
-  @Nullable
-  private DatabaseShardingStrategy getDatabaseShardingStrategy(@Nullable Sharding shardingAnno) {
-    if (shardingAnno == null) {
-      return null;
-    }
-    Class<? extends DatabaseShardingStrategy> strategyClass = shardingAnno.databaseShardingStrategy();
-    if (!strategyClass.equals(NotUseDatabaseShardingStrategy.class)) {
-      DatabaseShardingStrategy strategy = Reflection.instantiateClass(strategyClass);
-      return strategy;
-    }
-    strategyClass = shardingAnno.shardingStrategy();
-    if (!strategyClass.equals(NotUseShardingStrategy.class)) {
-      DatabaseShardingStrategy strategy = Reflection.instantiateClass(strategyClass);
-      return strategy;
-    }
-    return null;
-  }
-
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator.generator;
+
+import org.jfaster.mango.annotation.Sharding;
+import org.jfaster.mango.datasource.DataSourceFactoryGroup;
+import org.jfaster.mango.datasource.DataSourceType;
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.sharding.*;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * 根据分库分表策略列出所有分片，用于{@link org.jfaster.mango.annotation.Broadcast}广播查询
+ *
+ * @author ash
+ */
+public class ShardTopologyFactory {
+
+  private final DataSourceFactoryGroup dataSourceFactoryGroup;
+  private final TableGeneratorFactory tableGeneratorFactory;
+  private final DataSourceGeneratorFactory dataSourceGeneratorFactory;
+
+  public ShardTopologyFactory(DataSourceFactoryGroup dataSourceFactoryGroup,
+                              TableGeneratorFactory tableGeneratorFactory,
+                              DataSourceGeneratorFactory dataSourceGeneratorFactory) {
+    this.dataSourceFactoryGroup = dataSourceFactoryGroup;
+    this.tableGeneratorFactory = tableGeneratorFactory;
+    this.dataSourceGeneratorFactory = dataSourceGeneratorFactory;
+  }
+
+  /**
+   * 获得所有分片及对应的数据源生成器
+   * <p/>
+   * 分库或分表策略实现了{@link ShardingTopology}时直接使用其列出的分片，
+   * 否则组合{@link DatabaseShardingTopology}列出的所有数据源与{@link TableShardingTopology}列出的所有表
+   */
+  public Map<Shard, DataSourceGenerator> getAllShards(DataSourceType dataSourceType, @Nullable Sharding shardingAnno,
+                                                      @Nullable String table, String dataSourceFactoryName) {
+    TableShardingStrategy tableStrategy = tableGeneratorFactory.getTableShardingStrategy(shardingAnno);
+    DatabaseShardingStrategy databaseStrategy = dataSourceGeneratorFactory.getDatabaseShardingStrategy(shardingAnno);
+    if (tableStrategy != null && table == null) {
+      throw new DescriptionException("if @Sharding.tableShardingStrategy is defined, " +
+          "@DB.table must be defined");
+    }
+
+    List<Shard> shards;
+    if (databaseStrategy instanceof ShardingTopology) {
+      shards = ((ShardingTopology) databaseStrategy).getAllShards(table);
+    } else if (tableStrategy instanceof ShardingTopology) {
+      shards = ((ShardingTopology) tableStrategy).getAllShards(table);
+    } else {
+      List<String> tables = getAllTables(tableStrategy, table);
+      shards = new ArrayList<Shard>();
+      for (String name : getAllDataSourceFactoryNames(databaseStrategy, dataSourceFactoryName)) {
+        for (String t : tables) {
+          shards.add(new Shard(name, t));
+        }
+      }
+    }
+
+    Map<String, DataSourceGenerator> generators = new HashMap<String, DataSourceGenerator>();
+    Map<Shard, DataSourceGenerator> r = new LinkedHashMap<Shard, DataSourceGenerator>();
+    for (Shard shard : shards) {
+      String name = shard.getDataSourceFactoryName();
+      DataSourceGenerator generator = generators.get(name);
+      if (generator == null) {
+        generator = new SimpleDataSourceGenerator(dataSourceFactoryGroup, dataSourceType, name);
+        generators.put(name, generator);
+      }
+      r.put(shard, generator);
+    }
+    return r;
+  }
+
+  private List<String> getAllTables(@Nullable TableShardingStrategy strategy, @Nullable String table) {
+    if (strategy == null) {
+      return Collections.singletonList(table);
+    }
+    if (!(strategy instanceof TableShardingTopology)) {
+      throw new DescriptionException("if @Broadcast is used, TableShardingStrategy[" + strategy.getClass() + "] " +
+          "must implement " + TableShardingTopology.class.getName() + " or " + ShardingTopology.class.getName());
+    }
+    return ((TableShardingTopology) strategy).getAllTargetTables(table);
+  }
+
+  private List<String> getAllDataSourceFactoryNames(@Nullable DatabaseShardingStrategy strategy,
+                                                    String dataSourceFactoryName) {
+    if (strategy == null) {
+      return Collections.singletonList(dataSourceFactoryName);
+    }
+    if (!(strategy instanceof DatabaseShardingTopology)) {
+      throw new DescriptionException("if @Broadcast is used, DatabaseShardingStrategy[" + strategy.getClass() + "] " +
+          "must implement " + DatabaseShardingTopology.class.getName() + " or " + ShardingTopology.class.getName());
+    }
+    return ((DatabaseShardingTopology) strategy).getAllDataSourceFactoryNames();
+  }
+
+}
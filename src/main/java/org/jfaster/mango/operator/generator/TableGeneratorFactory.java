@@ -45,6 +45,18 @@ public class TableGeneratorFactory {
         @Nullable String table,
         boolean isSqlUseGlobalTable,
         ParameterContext context) {
+    return getTableGenerator(shardingAnno, table, isSqlUseGlobalTable, context, false);
+  }
+
+  /**
+   * @param isIterableShardingAllowed 是否允许可迭代的分表参数，此时由调用方按元素拆分参数后再生成表名
+   */
+  public TableGenerator getTableGenerator(
+        @Nullable Sharding shardingAnno,
+        @Nullable String table,
+        boolean isSqlUseGlobalTable,
+        ParameterContext context,
+        boolean isIterableShardingAllowed) {
 
     TableShardingStrategy strategy = getTableShardingStrategy(shardingAnno);
     TypeToken<?> strategyToken = getStrategyToken(strategy);
@@ -58,17 +70,13 @@ public class TableGeneratorFactory {
                 "@DB.table must be defined");
     }
 
-    TableShardingBy tableShardingByAnno = findTableShardingByAnnotation(context);
-    ShardingBy shardingByAnno = null;
-    if (tableShardingByAnno == null) {
-        shardingByAnno = findShardingByAnnotation(context);
-    }
-
+    TableGenerator tableGenerator;
     if (strategy != null) {
-        return createShardedTableGenerator(table, context, strategyToken, tableShardingByAnno, shardingByAnno);
+        tableGenerator = createShardedTableGenerator(table, context, strategy, strategyToken, isIterableShardingAllowed);
     } else {
-        return new SimpleTableGenerator(table);
+        tableGenerator = new SimpleTableGenerator(table);
     }
+    return tableGenerator;
 }
 
 private TypeToken<?> getStrategyToken(TableShardingStrategy strategy) {
@@ -78,82 +86,59 @@ private TypeToken<?> getStrategyToken(TableShardingStrategy strategy) {
     return null;
 }
 
-@Nullable
-private TableShardingBy findTableShardingByAnnotation(ParameterContext context) {
+private TableGenerator createShardedTableGenerator(
+        @Nullable String table,
+        ParameterContext context,
+        TableShardingStrategy strategy,
+        TypeToken<?> strategyToken,
+        boolean isIterableShardingAllowed) {
+
+    int shardingParameterNum = 0;
+    String shardingParameterName = null;
+    String shardingParameterProperty = null;
     for (ParameterDescriptor pd : context.getParameterDescriptors()) {
-        TableShardingBy annotation = pd.getAnnotation(TableShardingBy.class);
-        if (annotation != null) {
-            return annotation;
+        TableShardingBy tableShardingByAnno = pd.getAnnotation(TableShardingBy.class);
+        if (tableShardingByAnno != null) {
+            shardingParameterName = context.getParameterNameByPosition(pd.getPosition());
+            shardingParameterProperty = tableShardingByAnno.value();
+            shardingParameterNum++;
+            continue; // 有了@TableShardingBy，则忽略@ShardingBy
         }
-    }
-    return null;
-}
-
-@Nullable
-private ShardingBy findShardingByAnnotation(ParameterContext context) {
-    for (ParameterDescriptor pd : context.getParameterDescriptors()) {
-        ShardingBy annotation = pd.getAnnotation(ShardingBy.class);
-        if (annotation != null) {
-            return annotation;
+        ShardingBy shardingByAnno = pd.getAnnotation(ShardingBy.class);
+        if (shardingByAnno != null) {
+            shardingParameterName = context.getParameterNameByPosition(pd.getPosition());
+            shardingParameterProperty = shardingByAnno.value();
+            shardingParameterNum++;
         }
     }
-    return null;
-}
-
-private TableGenerator createShardedTableGenerator(
-        @Nullable String table, 
-        ParameterContext context, 
-        TypeToken<?> strategyToken, 
-        TableShardingBy tableShardingByAnno, 
-        ShardingBy shardingByAnno) {
 
-    String parameterName = getParameterName(context, tableShardingByAnno, shardingByAnno);
-    String propertyPath = getPropertyPath(tableShardingByAnno, shardingByAnno);
-
-    if (parameterName != null && propertyPath != null) {
-        BindingParameter bp = BindingParameter.create(parameterName, propertyPath, null);
+    if (shardingParameterNum == 1) {
+        BindingParameter bp = BindingParameter.create(shardingParameterName, shardingParameterProperty, null);
         BindingParameterInvoker invoker = context.getBindingParameterInvoker(bp);
         Type targetType = invoker.getTargetType();
         TypeWrapper tw = new TypeWrapper(targetType);
 
-        validateShardingType(targetType, tw, strategyToken);
+        validateShardingType(targetType, tw, strategy, strategyToken, isIterableShardingAllowed);
 
-        return new ShardedTableGenerator(table, invoker, (TableShardingStrategy) strategyToken.getRawType().cast(strategyToken));
+        return new ShardedTableGenerator(table, invoker, strategy);
     } else {
         throw new DescriptionException("if @Sharding.tableShardingStrategy is defined, " +
-                "need one and only one @TableShardingBy on method's parameter but found, " +
+                "need one and only one @TableShardingBy on method's parameter but found " + shardingParameterNum + ", " +
                 "please note that @ShardingBy = @TableShardingBy + @DatabaseShardingBy");
     }
 }
 
-private String getParameterName(ParameterContext context, TableShardingBy tableShardingByAnno, ShardingBy shardingByAnno) {
-    if (tableShardingByAnno != null) {
-        return context.getParameterNameByPosition(tableShardingByAnno.annotationType().getAnnotation(ParameterDescriptor.class).position());
-    } else if (shardingByAnno != null) {
-        return context.getParameterNameByPosition(shardingByAnno.annotationType().getAnnotation(ParameterDescriptor.class).position());
-    }
-    return null;
-}
-
-private String getPropertyPath(TableShardingBy tableShardingByAnno, ShardingBy shardingByAnno) {
-    if (tableShardingByAnno != null) {
-        return tableShardingByAnno.value();
-    } else if (shardingByAnno != null) {
-        return shardingByAnno.value();
-    }
-    return null;
-}
-
-private void validateShardingType(Type targetType, TypeWrapper tw, TypeToken<?> strategyToken) {
+private void validateShardingType(Type targetType, TypeWrapper tw, TableShardingStrategy strategy,
+                                  TypeToken<?> strategyToken, boolean isIterableShardingAllowed) {
     Class<?> mappedClass = tw.getMappedClass();
-    if (mappedClass == null || tw.canIterable()) {
+    if (mappedClass == null || (tw.canIterable() && !isIterableShardingAllowed)) {
         throw new IncorrectParameterTypeException("the type of parameter Modified @TableShardingBy is error, " +
                 "type is " + targetType + ", " +
                 "please note that @ShardingBy = @TableShardingBy + @DatabaseShardingBy");
     }
-    TypeToken<?> shardToken = TypeToken.of(targetType);
+    TypeToken<?> shardToken = TypeToken.of(tw.canIterable() ? tw.getMappedType() : targetType); // 可迭代参数检查元素类型
     if (!strategyToken.isAssignableFrom(shardToken.wrap())) {
-        throw new ClassCastException("TableShardingStrategy[" + strategyToken.getRawType() + "]'s " +
+        throw new ClassCastException("TableShardingStrategy[" + strategy.getClass() + "]'s " +
                 "generic type[" + strategyToken.getType() + "] must be assignable from " +
                 "the type of parameter Modified @TableShardingBy [" + shardToken.getType() + "], " +
                 "please note that @ShardingBy = @TableShardingBy + @DatabaseShardingBy");
@@ -162,7 +147,7 @@ private void validateShardingType(Type targetType, TypeWrapper tw, TypeToken<?>
 
 
 @Nullable
-private TableShardingStrategy getTableShardingStrategy(@Nullable Sharding shardingAnno) {
+TableShardingStrategy getTableShardingStrategy(@Nullable Sharding shardingAnno) {
     if (shardingAnno == null) {
         return null;
     }
@@ -179,22 +164,4 @@ private TableShardingStrategy getTableShardingStrategy(@Nullable Sharding shardi
 
 //Refactoring end
 
-  @Nullable
-  private TableShardingStrategy getTableShardingStrategy(@Nullable Sharding shardingAnno) {
-    if (shardingAnno == null) {
-      return null;
-    }
-    Class<? extends TableShardingStrategy> strategyClass = shardingAnno.tableShardingStrategy();
-    if (!strategyClass.equals(NotUseTableShardingStrategy.class)) {
-      TableShardingStrategy strategy = Reflection.instantiateClass(strategyClass);
-      return strategy;
-    }
-    strategyClass = shardingAnno.shardingStrategy();
-    if (!strategyClass.equals(NotUseShardingStrategy.class)) {
-      TableShardingStrategy strategy = Reflection.instantiateClass(strategyClass);
-      return strategy;
-    }
-    return null;
-  }
-
 }
@@ -20,6 +20,8 @@ import org.jfaster.mango.binding.BoundSql;
 import org.jfaster.mango.binding.InvocationContext;
 import org.jfaster.mango.descriptor.ParameterDescriptor;
 
+import javax.annotation.Nullable;
+
 import java.util.List;
 
 /**
@@ -29,35 +31,40 @@ public class InvocationPageHandler {
 
   private final PageHandler pageHandler;
 
-  private final List<ParameterDescriptor> parameterDescriptors;
+  /**
+   * Page参数的位置，不存在时为-1
+   */
+  private final int pagePosition;
+
+  /**
+   * Sort参数的位置，不存在时为-1
+   */
+  private final int sortPosition;
 
   public InvocationPageHandler(PageHandler pageHandler,
                                List<ParameterDescriptor> parameterDescriptors) {
     this.pageHandler = pageHandler;
-    this.parameterDescriptors = parameterDescriptors;
-  }
-
-  public void handlePageAndSort(BoundSql boundSql, InvocationContext context) {
-    List<Object> parameterValues = context.getParameterValues();
-    Page page = null;
-    Sort sort = null;
-    for (int i = 0; i < parameterValues.size(); i++) {
+    int pagePosition = -1;
+    int sortPosition = -1;
+    for (int i = 0; i < parameterDescriptors.size(); i++) {
       ParameterDescriptor pd = parameterDescriptors.get(i);
       if (Page.class.equals(pd.getRawType())) {
-        Object val = parameterValues.get(i);
-        if (val == null) {
-          throw new IllegalArgumentException("Parameter page is null");
-        }
-        page = (Page) val;
+        pagePosition = i;
       }
       if (Sort.class.equals(pd.getRawType())) {
-        Object val = parameterValues.get(i);
-        if (val == null) {
-          throw new IllegalArgumentException("Parameter sort is null");
-        }
-        sort = (Sort) val;
+        sortPosition = i;
       }
     }
+    this.pagePosition = pagePosition;
+    this.sortPosition = sortPosition;
+  }
+
+  public void handlePageAndSort(BoundSql boundSql, InvocationContext context) {
+    if (pagePosition == -1 && sortPosition == -1) {
+      return;
+    }
+    Page page = getPage(context);
+    Sort sort = getSort(context);
     if (page != null & sort != null) { // Page和Sort不能同时存在
       throw new IllegalArgumentException("page and sort can't be used on a query");
     }
@@ -69,6 +76,44 @@ public class InvocationPageHandler {
     }
   }
 
+  /**
+   * 获得Page参数，不存在时返回null
+   */
+  @Nullable
+  public Page getPage(InvocationContext context) {
+    if (pagePosition == -1) {
+      return null;
+    }
+    Object val = context.getParameterValues().get(pagePosition);
+    if (val == null) {
+      throw new IllegalArgumentException("Parameter page is null");
+    }
+    return (Page) val;
+  }
+
+  /**
+   * 获得Sort参数，不存在时返回null
+   */
+  @Nullable
+  public Sort getSort(InvocationContext context) {
+    if (sortPosition == -1) {
+      return null;
+    }
+    Object val = context.getParameterValues().get(sortPosition);
+    if (val == null) {
+      throw new IllegalArgumentException("Parameter sort is null");
+    }
+    return (Sort) val;
+  }
+
+  public void handlePage(BoundSql boundSql, Page page) {
+    pageHandler.handlePage(boundSql, page);
+  }
+
+  public void handleSort(BoundSql boundSql, Sort sort) {
+    pageHandler.handleSort(boundSql, sort);
+  }
+
   public void handleCount(BoundSql boundSql) {
     pageHandler.handleCount(boundSql);
   }
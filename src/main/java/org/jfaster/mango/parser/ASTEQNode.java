@@ -32,6 +32,10 @@ public class ASTEQNode extends AbstractExpression {
   public boolean evaluate(InvocationContext context) {
     Object left = ((AbstractExpression) jjtGetChild(0)).value(context);
     Object right = ((AbstractExpression) jjtGetChild(1)).value(context);
+    return isEqual(left, right);
+  }
+
+  static boolean isEqual(Object left, Object right) {
     if (left instanceof Number && right instanceof Number) {
       return MathUtils.compare((Number) left, (Number) right) == 0;
     }
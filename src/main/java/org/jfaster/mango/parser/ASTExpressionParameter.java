@@ -21,6 +21,7 @@ import org.jfaster.mango.binding.BindingParameterInvoker;
 import org.jfaster.mango.binding.InvocationContext;
 import org.jfaster.mango.util.IterObj;
 
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -72,7 +73,7 @@ public class ASTExpressionParameter extends AbstractExpression implements Parame
     if (bindingParameterInvoker == null) {
       throw new NullPointerException("invoker must set");
     }
-    Object obj = context.getNullableBindingValue(bindingParameterInvoker);
+    Object obj = value(context);
 
     // 布尔
     if (obj instanceof Boolean) {
@@ -100,6 +101,10 @@ public class ASTExpressionParameter extends AbstractExpression implements Parame
     if (bindingParameterInvoker == null) {
       throw new NullPointerException("invoker must set");
     }
+    Set<String> unchangedProperties = context.getUnchangedProperties();
+    if (unchangedProperties != null && unchangedProperties.contains(bindingParameter.getPropertyName())) {
+      return null; // 未变化的属性视为null
+    }
     return context.getNullableBindingValue(bindingParameterInvoker);
   }
 
@@ -126,4 +131,8 @@ public class ASTExpressionParameter extends AbstractExpression implements Parame
   public void setBindingParameterInvoker(BindingParameterInvoker bindingParameterInvoker) {
     this.bindingParameterInvoker = bindingParameterInvoker;
   }
+
+  public BindingParameterInvoker getBindingParameterInvoker() {
+    return bindingParameterInvoker;
+  }
 }
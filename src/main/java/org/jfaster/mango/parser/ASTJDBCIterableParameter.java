@@ -147,6 +147,14 @@ public class ASTJDBCIterableParameter extends AbstractRenderableNode implements
     this.typeHandler = typeHandler;
   }
 
+  public BindingParameterInvoker getBindingParameterInvoker() {
+    return bindingParameterInvoker;
+  }
+
+  public TypeHandler<?> getTypeHandler() {
+    return typeHandler;
+  }
+
   public String getPropertyOfMapper() {
     return propertyOfMapper;
   }
@@ -117,6 +117,14 @@ public class ASTJDBCParameter extends AbstractRenderableNode implements Paramete
     this.bindingParameterInvoker = bindingParameterInvoker;
   }
 
+  public BindingParameterInvoker getBindingParameterInvoker() {
+    return bindingParameterInvoker;
+  }
+
+  public TypeHandler<?> getTypeHandler() {
+    return typeHandler;
+  }
+
   public void setTypeHandler(TypeHandler<?> typeHandler) {
     this.typeHandler = typeHandler;
   }
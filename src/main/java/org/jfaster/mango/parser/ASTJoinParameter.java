@@ -97,4 +97,8 @@ public class ASTJoinParameter extends AbstractRenderableNode implements Paramete
   public void setBindingParameterInvoker(BindingParameterInvoker bindingParameterInvoker) {
     this.bindingParameterInvoker = bindingParameterInvoker;
   }
+
+  public BindingParameterInvoker getBindingParameterInvoker() {
+    return bindingParameterInvoker;
+  }
 }
\ No newline at end of file
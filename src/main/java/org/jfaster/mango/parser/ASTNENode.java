@@ -32,26 +32,7 @@ public class ASTNENode extends AbstractExpression {
   public boolean evaluate(InvocationContext context) {
     Object left = ((AbstractExpression) jjtGetChild(0)).value(context);
     Object right = ((AbstractExpression) jjtGetChild(1)).value(context);
-    if (left instanceof Number && right instanceof Number) {
-      return MathUtils.compare((Number) left, (Number) right) != 0;
-    }
-
-    // 都不为null，一个是另一个的子类，则使用equals操作
-    if (left != null && right != null &&
-        (left.getClass().isAssignableFrom(right.getClass()) ||
-            right.getClass().isAssignableFrom(left.getClass()))) {
-      return !left.equals(right);
-    }
-
-    if (left == null && right == null) { // 都为null
-      return false;
-    } else if (left == null || right == null) { // 一个为null，一个不为null
-      return true;
-    } else { // 都不为null
-      left = left.toString();
-      right = right.toString();
-      return !left.equals(right);
-    }
+    return !ASTEQNode.isEqual(left, right);
   }
 
   @Override
@@ -1,16 +1,23 @@
 package org.jfaster.mango.parser;
 
+import org.jfaster.mango.binding.BoundSql;
 import org.jfaster.mango.binding.InvocationContext;
 import org.jfaster.mango.binding.ParameterContext;
 import org.jfaster.mango.parser.visitor.*;
 import org.jfaster.mango.util.jdbc.SQLType;
 
+import javax.annotation.Nullable;
 import java.util.List;
 
 public class ASTRootNode extends AbstractRenderableNode {
 
   private NodeInfo nodeInfo = new NodeInfo();
 
+  /**
+   * 静态sql的预编译结果，包含动态节点时为null
+   */
+  private PrecompiledSql precompiledSql;
+
   public ASTRootNode(int id) {
     super(id);
   }
@@ -28,6 +35,17 @@ public class ASTRootNode extends AbstractRenderableNode {
 
   @Override
   public boolean render(InvocationContext context) {
+    if (precompiledSql != null && context.getUnchangedProperties() == null) { // 使用预编译的渲染程序，有未变化的属性时遍历语法树
+      precompiledSql.render(context);
+      return true;
+    }
+    return renderTree(context);
+  }
+
+  /**
+   * 遍历语法树渲染
+   */
+  boolean renderTree(InvocationContext context) {
     getDMLNode().render(context);
     getBlock().render(context);
     return true;
@@ -49,6 +67,43 @@ public class ASTRootNode extends AbstractRenderableNode {
    */
   public void checkAndBind(ParameterContext context) {
     getBlock().jjtAccept(CheckAndBindVisitor.INSTANCE, context);
+    precompiledSql = PrecompiledSql.compile(getDMLNode(), getBlock(), context);
+  }
+
+  /**
+   * 语法树中不包含动态节点
+   */
+  public boolean isStatic() {
+    return precompiledSql != null && precompiledSql.isStatic();
+  }
+
+  /**
+   * 使用指定的全局表渲染静态sql，同一张表的sql只需渲染一次
+   */
+  public String renderStaticSql(@Nullable String table) {
+    checkStatic();
+    return precompiledSql.renderSql(table);
+  }
+
+  /**
+   * 使用{@link #renderStaticSql(String)}渲染出的sql，只绑定参数
+   */
+  public BoundSql bindStaticSql(String sql, InvocationContext context) {
+    checkStatic();
+    return precompiledSql.bind(sql, context);
+  }
+
+  private void checkStatic() {
+    if (!isStatic()) {
+      throw new IllegalStateException("sql is not static");
+    }
+  }
+
+  /**
+   * 语法树已编译为渲染程序
+   */
+  boolean isPrecompiled() {
+    return precompiledSql != null;
   }
 
   public List<ASTJDBCParameter> getJDBCParameters() {
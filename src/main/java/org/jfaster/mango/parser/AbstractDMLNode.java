@@ -40,6 +40,10 @@ public abstract class AbstractDMLNode extends AbstractRenderableNode {
     return true;
   }
 
+  public String getValue() {
+    return value;
+  }
+
   public void setValue(String value) {
     this.value = value;
   }
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.parser;
+
+import org.jfaster.mango.binding.BindingParameterInvoker;
+import org.jfaster.mango.binding.ParameterContext;
+import org.jfaster.mango.util.reflect.TypeToken;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 编译后的#if与#elseif条件
+ * <p/>
+ * 编译时根据参数的目标类型选择判断方式，渲染时不再遍历表达式语法树
+ *
+ * @author ash
+ */
+abstract class CompiledCondition {
+
+  abstract boolean test(List<Object> values);
+
+  /**
+   * 编译表达式，包含无法编译的节点时返回null
+   */
+  @Nullable
+  static CompiledCondition compile(AbstractExpression expr, ParameterContext context) {
+    if (expr instanceof ASTExpression) {
+      return compile((AbstractExpression) expr.jjtGetChild(0), context);
+    }
+    if (expr instanceof ASTAndNode || expr instanceof ASTOrNode) {
+      CompiledCondition left = compile((AbstractExpression) expr.jjtGetChild(0), context);
+      CompiledCondition right = compile((AbstractExpression) expr.jjtGetChild(1), context);
+      if (left == null || right == null) {
+        return null;
+      }
+      return expr instanceof ASTAndNode ? new And(left, right) : new Or(left, right);
+    }
+    if (expr instanceof ASTNotNode) {
+      CompiledCondition c = compile((AbstractExpression) expr.jjtGetChild(0), context);
+      return c != null ? new Not(c) : null;
+    }
+    if (expr instanceof ASTExpressionParameter) {
+      Operand operand = Operand.compile(expr, context);
+      return operand != null ? truth(operand) : null;
+    }
+    if (expr instanceof ASTIntegerLiteral || expr instanceof ASTStringLiteral ||
+        expr instanceof ASTTrue || expr instanceof ASTFalse || expr instanceof ASTNull) {
+      return expr.evaluate(null) ? Constant.TRUE : Constant.FALSE;
+    }
+    if (expr.jjtGetNumChildren() == 2) {
+      Operand left = Operand.compile((AbstractExpression) expr.jjtGetChild(0), context);
+      Operand right = Operand.compile((AbstractExpression) expr.jjtGetChild(1), context);
+      if (left == null || right == null) {
+        return null;
+      }
+      if (expr instanceof ASTEQNode) {
+        return isIntegral(left) && isIntegral(right) ? new IntegralCompare(left, right, EQ) : new Equals(left, right, true);
+      }
+      if (expr instanceof ASTNENode) {
+        return isIntegral(left) && isIntegral(right) ? new IntegralCompare(left, right, NE) : new Equals(left, right, false);
+      }
+      int op = expr instanceof ASTGTNode ? GT :
+          expr instanceof ASTGENode ? GE :
+              expr instanceof ASTLTNode ? LT :
+                  expr instanceof ASTLENode ? LE : -1;
+      if (op != -1) {
+        return isIntegral(left) && isIntegral(right) ? new IntegralCompare(left, right, op) : new Compare(left, right, op);
+      }
+    }
+    return null;
+  }
+
+  private static final int EQ = 0;
+  private static final int NE = 1;
+  private static final int GT = 2;
+  private static final int GE = 3;
+  private static final int LT = 4;
+  private static final int LE = 5;
+
+  private static boolean match(int cmp, int op) {
+    switch (op) {
+      case EQ:
+        return cmp == 0;
+      case NE:
+        return cmp != 0;
+      case GT:
+        return cmp > 0;
+      case GE:
+        return cmp >= 0;
+      case LT:
+        return cmp < 0;
+      default:
+        return cmp <= 0;
+    }
+  }
+
+  /**
+   * 目标类型为int或long的参数，以及整数字面值
+   */
+  private static boolean isIntegral(Operand operand) {
+    if (operand instanceof Literal) {
+      Object value = ((Literal) operand).value;
+      return value instanceof Integer || value instanceof Long;
+    }
+    Class<?> clazz = ((Parameter) operand).rawType;
+    return int.class.equals(clazz) || long.class.equals(clazz);
+  }
+
+  private static CompiledCondition truth(Operand operand) {
+    Class<?> clazz = ((Parameter) operand).rawType;
+    if (boolean.class.equals(clazz) || Boolean.class.equals(clazz)) {
+      return new BooleanTruth(operand);
+    }
+    if (String.class.equals(clazz)) {
+      return new StringTruth(operand);
+    }
+    if (clazz.isPrimitive()) {
+      return Constant.TRUE;
+    }
+    return new ObjectTruth(operand);
+  }
+
+  /**
+   * 条件中的操作数
+   */
+  abstract static class Operand {
+
+    abstract Object get(List<Object> values);
+
+    @Nullable
+    static Operand compile(AbstractExpression expr, ParameterContext context) {
+      if (expr instanceof ASTExpressionParameter) {
+        BindingParameterInvoker invoker = ((ASTExpressionParameter) expr).getBindingParameterInvoker();
+        if (invoker == null) {
+          return null;
+        }
+        Integer position = PrecompiledSql.getPosition(invoker.getBindingParameter().getParameterName(), context);
+        if (position == null) {
+          return null;
+        }
+        return new Parameter(position, invoker);
+      }
+      if (expr instanceof ASTIntegerLiteral || expr instanceof ASTStringLiteral ||
+          expr instanceof ASTTrue || expr instanceof ASTFalse || expr instanceof ASTNull) {
+        return new Literal(expr.value(null));
+      }
+      return null;
+    }
+
+  }
+
+  static class Parameter extends Operand {
+
+    private final int position;
+    private final BindingParameterInvoker invoker;
+    private final Class<?> rawType;
+
+    Parameter(int position, BindingParameterInvoker invoker) {
+      this.position = position;
+      this.invoker = invoker;
+      Type type = invoker.getTargetType();
+      this.rawType = TypeToken.of(type).getRawType();
+    }
+
+    @Override
+    Object get(List<Object> values) {
+      return invoker.invoke(values.get(position));
+    }
+
+  }
+
+  static class Literal extends Operand {
+
+    private final Object value;
+
+    Literal(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    Object get(List<Object> values) {
+      return value;
+    }
+
+  }
+
+  private static class Constant extends CompiledCondition {
+
+    static final Constant TRUE = new Constant(true);
+    static final Constant FALSE = new Constant(false);
+
+    private final boolean value;
+
+    private Constant(boolean value) {
+      this.value = value;
+    }
+
+    @Override
+    boolean test(List<Object> values) {
+      return value;
+    }
+
+  }
+
+  private static class And extends CompiledCondition {
+
+    private final CompiledCondition left;
+    private final CompiledCondition right;
+
+    And(CompiledCondition left, CompiledCondition right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    boolean test(List<Object> values) {
+      return left.test(values) && right.test(values);
+    }
+
+  }
+
+  private static class Or extends CompiledCondition {
+
+    private final CompiledCondition left;
+    private final CompiledCondition right;
+
+    Or(CompiledCondition left, CompiledCondition right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    boolean test(List<Object> values) {
+      return left.test(values) || right.test(values);
+    }
+
+  }
+
+  private static class Not extends CompiledCondition {
+
+    private final CompiledCondition condition;
+
+    Not(CompiledCondition condition) {
+      this.condition = condition;
+    }
+
+    @Override
+    boolean test(List<Object> values) {
+      return !condition.test(values);
+    }
+
+  }
+
+  private static class BooleanTruth extends CompiledCondition {
+
+    private final Operand operand;
+
+    BooleanTruth(Operand operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    boolean test(List<Object> values) {
+      Boolean b = (Boolean) operand.get(values);
+      return b != null && b;
+    }
+
+  }
+
+  private static class StringTruth extends CompiledCondition {
+
+    private final Operand operand;
+
+    StringTruth(Operand operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    boolean test(List<Object> values) {
+      String s = (String) operand.get(values);
+      return s != null && !s.isEmpty();
+    }
+
+  }
+
+  /**
+   * 与{@link ASTExpressionParameter#evaluate}的判断规则相同
+   */
+  private static class ObjectTruth extends CompiledCondition {
+
+    private final Operand operand;
+
+    ObjectTruth(Operand operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    boolean test(List<Object> values) {
+      Object obj = operand.get(values);
+      if (obj == null) {
+        return false;
+      }
+      if (obj instanceof Boolean) {
+        return (Boolean) obj;
+      }
+      if (obj instanceof String) {
+        return !((String) obj).isEmpty();
+      }
+      if (obj instanceof Collection) {
+        return !((Collection<?>) obj).isEmpty();
+      }
+      if (obj instanceof Iterable) {
+        return ((Iterable<?>) obj).iterator().hasNext();
+      }
+      if (obj.getClass().isArray()) {
+        return Array.getLength(obj) > 0;
+      }
+      return true;
+    }
+
+  }
+
+  private static class IntegralCompare extends CompiledCondition {
+
+    private final Operand left;
+    private final Operand right;
+    private final int op;
+
+    IntegralCompare(Operand left, Operand right, int op) {
+      this.left = left;
+      this.right = right;
+      this.op = op;
+    }
+
+    @Override
+    boolean test(List<Object> values) {
+      long l = ((Number) left.get(values)).longValue();
+      long r = ((Number) right.get(values)).longValue();
+      return match(l < r ? -1 : (l > r ? 1 : 0), op);
+    }
+
+  }
+
+  private static class Compare extends CompiledCondition {
+
+    private final Operand left;
+    private final Operand right;
+    private final int op;
+
+    Compare(Operand left, Operand right, int op) {
+      this.left = left;
+      this.right = right;
+      this.op = op;
+    }
+
+    @Override
+    boolean test(List<Object> values) {
+      Object l = left.get(values);
+      Object r = right.get(values);
+      if (!(l instanceof Number)) {
+        throw new ClassCastException(l.getClass() + " cannot be cast to " + Number.class);
+      } else if (!(r instanceof Number)) {
+        throw new ClassCastException(r.getClass() + " cannot be cast to " + Number.class);
+      }
+      return match(MathUtils.compare((Number) l, (Number) r), op);
+    }
+
+  }
+
+  private static class Equals extends CompiledCondition {
+
+    private final Operand left;
+    private final Operand right;
+    private final boolean expected;
+
+    Equals(Operand left, Operand right, boolean expected) {
+      this.left = left;
+      this.right = right;
+      this.expected = expected;
+    }
+
+    @Override
+    boolean test(List<Object> values) {
+      return ASTEQNode.isEqual(left.get(values), right.get(values)) == expected;
+    }
+
+  }
+
+}
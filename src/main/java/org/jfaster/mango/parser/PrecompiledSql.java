@@ -0,0 +1,434 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.parser;
+
+import org.jfaster.mango.binding.BindingException;
+import org.jfaster.mango.binding.BindingParameterInvoker;
+import org.jfaster.mango.binding.BoundSql;
+import org.jfaster.mango.binding.InvocationContext;
+import org.jfaster.mango.binding.ParameterContext;
+import org.jfaster.mango.descriptor.ParameterDescriptor;
+import org.jfaster.mango.type.TypeHandler;
+import org.jfaster.mango.util.IterObj;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 预编译的sql渲染程序
+ * <p/>
+ * 语法树在编译期展开为扁平的指令序列，相邻文本合并为一个片段，
+ * #if/#elseif/#else转换为条件跳转，渲染时顺序执行指令，不再遍历语法树
+ *
+ * @author ash
+ */
+public class PrecompiledSql {
+
+  private static final int TEXT = 0;
+  private static final int TABLE = 1;
+  private static final int ARG = 2;
+  private static final int ITERABLE_ARG = 3;
+  private static final int JOIN = 4;
+  private static final int TRIM_COMMA = 5;
+  private static final int JUMP_IF_FALSE = 6;
+  private static final int JUMP = 7;
+
+  private final int[] opcodes;
+
+  /**
+   * TEXT指向texts，ARG/ITERABLE_ARG/JOIN指向参数数组，JUMP_IF_FALSE指向conditions
+   */
+  private final int[] operands;
+
+  /**
+   * 跳转指令的目标位置
+   */
+  private final int[] targets;
+
+  private final String[] texts;
+  private final int[] positions;
+  private final BindingParameterInvoker[] invokers;
+  private final TypeHandler<?>[] typeHandlers;
+  private final CompiledCondition[] conditions;
+
+  /**
+   * 只包含文本，全局表与普通参数
+   */
+  private final boolean isStatic;
+
+  /**
+   * 静态sql中ARG指令的操作数，按出现顺序排列
+   */
+  private final int[] argOperands;
+
+  /**
+   * 静态sql每次渲染得到的类型处理器都相同，所有绑定结果共享
+   */
+  private final List<TypeHandler<?>> argTypeHandlers;
+
+  private PrecompiledSql(Builder b) {
+    int size = b.opcodes.size();
+    opcodes = new int[size];
+    operands = new int[size];
+    targets = new int[size];
+    boolean onlyStatic = true;
+    for (int i = 0; i < size; i++) {
+      opcodes[i] = b.opcodes.get(i);
+      operands[i] = b.operands.get(i);
+      targets[i] = b.targets.get(i);
+      onlyStatic = onlyStatic && opcodes[i] <= ARG;
+    }
+    isStatic = onlyStatic;
+    texts = b.texts.toArray(new String[b.texts.size()]);
+    int paramSize = b.invokers.size();
+    positions = new int[paramSize];
+    for (int i = 0; i < paramSize; i++) {
+      positions[i] = b.positions.get(i);
+    }
+    invokers = b.invokers.toArray(new BindingParameterInvoker[paramSize]);
+    typeHandlers = b.typeHandlers.toArray(new TypeHandler<?>[paramSize]);
+    conditions = b.conditions.toArray(new CompiledCondition[b.conditions.size()]);
+
+    int argNum = 0;
+    for (int opcode : opcodes) {
+      if (opcode == ARG) {
+        argNum++;
+      }
+    }
+    argOperands = new int[argNum];
+    List<TypeHandler<?>> handlers = new ArrayList<TypeHandler<?>>(argNum);
+    for (int i = 0, j = 0; i < size; i++) {
+      if (opcodes[i] == ARG) {
+        argOperands[j++] = operands[i];
+        handlers.add(typeHandlers[operands[i]]);
+      }
+    }
+    argTypeHandlers = Collections.unmodifiableList(handlers);
+  }
+
+  /**
+   * 编译语法树，语法树中包含无法编译的节点时返回null
+   */
+  @Nullable
+  static PrecompiledSql compile(AbstractDMLNode dmlNode, ASTBlock block, ParameterContext context) {
+    Builder b = new Builder(context);
+    b.text(dmlNode.getValue());
+    return b.block(block) ? new PrecompiledSql(b) : null;
+  }
+
+  public void render(InvocationContext context) {
+    List<Object> values = context.getParameterValues();
+    int pc = 0;
+    int size = opcodes.length;
+    while (pc < size) {
+      int operand = operands[pc];
+      switch (opcodes[pc]) {
+        case TEXT:
+          context.writeToSqlBuffer(texts[operand]);
+          break;
+        case TABLE:
+          String table = context.getGlobalTable();
+          if (table == null) {
+            throw new IllegalStateException("global table in InvocationContext can't be null");
+          }
+          context.writeToSqlBuffer(table);
+          break;
+        case ARG:
+          context.appendToArgs(invokers[operand].invoke(values.get(positions[operand])), typeHandlers[operand]);
+          break;
+        case ITERABLE_ARG:
+          renderIterable(context, values, operand);
+          break;
+        case JOIN:
+          BindingParameterInvoker invoker = invokers[operand];
+          Object obj = invoker.invoke(values.get(positions[operand]));
+          if (obj == null) {
+            throw new BindingException("Parameter '" + invoker.getBindingParameter() + "' need a non-null value");
+          }
+          context.writeToSqlBuffer(obj.toString());
+          break;
+        case TRIM_COMMA:
+          context.trim(",");
+          break;
+        case JUMP_IF_FALSE:
+          if (!conditions[operand].test(values)) {
+            pc = targets[pc];
+            continue;
+          }
+          break;
+        case JUMP:
+          pc = targets[pc];
+          continue;
+        default:
+          throw new IllegalStateException("unknown opcode " + opcodes[pc]);
+      }
+      pc++;
+    }
+  }
+
+  private void renderIterable(InvocationContext context, List<Object> values, int operand) {
+    BindingParameterInvoker invoker = invokers[operand];
+    Object objs = invoker.invoke(values.get(positions[operand]));
+    String fullName = invoker.getBindingParameter().getFullName();
+    if (objs == null) {
+      throw new NullPointerException("value of " + fullName + " can't be null");
+    }
+    IterObj iterObj = new IterObj(objs);
+    if (iterObj.isEmpty()) {
+      if (iterObj.isCollection()) {
+        throw new EmptyCollectionException("value of " + fullName + " can't be empty");
+      } else {
+        throw new EmptyArrayException("value of " + fullName + " can't be empty");
+      }
+    }
+    TypeHandler<?> typeHandler = typeHandlers[operand];
+    context.writeToSqlBuffer("in (");
+    int t = 0;
+    for (Object obj : iterObj) {
+      context.appendToArgs(obj, typeHandler);
+      context.writeToSqlBuffer(t == 0 ? "?" : ",?");
+      t++;
+    }
+    context.writeToSqlBuffer(")");
+  }
+
+  /**
+   * 语法树中不包含动态节点
+   */
+  public boolean isStatic() {
+    return isStatic;
+  }
+
+  /**
+   * 不包含全局表的静态sql的完整sql
+   */
+  @Nullable
+  public String getSql() {
+    if (!isStatic) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < opcodes.length; i++) {
+      if (opcodes[i] == TABLE) {
+        return null;
+      }
+      if (opcodes[i] == TEXT) {
+        sb.append(texts[operands[i]]);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * 使用指定的全局表渲染静态sql，只渲染文本，不绑定参数
+   */
+  public String renderSql(@Nullable String table) {
+    if (!isStatic) {
+      throw new IllegalStateException("only static sql can be rendered without parameters");
+    }
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < opcodes.length; i++) {
+      if (opcodes[i] == TEXT) {
+        sb.append(texts[operands[i]]);
+      } else if (opcodes[i] == TABLE) {
+        if (table == null) {
+          throw new IllegalStateException("global table in InvocationContext can't be null");
+        }
+        sb.append(table);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * 使用已渲染的静态sql，只绑定参数
+   */
+  public BoundSql bind(String sql, InvocationContext context) {
+    if (!isStatic) {
+      throw new IllegalStateException("only static sql can be bound without rendering");
+    }
+    List<Object> values = context.getParameterValues();
+    Object[] args = new Object[argOperands.length];
+    for (int i = 0; i < argOperands.length; i++) {
+      int operand = argOperands[i];
+      args[i] = invokers[operand].invoke(values.get(positions[operand]));
+    }
+    return new BoundSql(sql, Arrays.asList(args), argTypeHandlers);
+  }
+
+  @Nullable
+  static Integer getPosition(String parameterName, ParameterContext context) {
+    for (ParameterDescriptor pd : context.getParameterDescriptors()) {
+      int position = pd.getPosition();
+      if (parameterName.equals(context.getParameterNameByPosition(position))) {
+        return position;
+      }
+    }
+    return null;
+  }
+
+  private static class Builder {
+
+    private final ParameterContext context;
+
+    private final List<Integer> opcodes = new ArrayList<Integer>();
+    private final List<Integer> operands = new ArrayList<Integer>();
+    private final List<Integer> targets = new ArrayList<Integer>();
+    private final List<String> texts = new ArrayList<String>();
+    private final List<Integer> positions = new ArrayList<Integer>();
+    private final List<BindingParameterInvoker> invokers = new ArrayList<BindingParameterInvoker>();
+    private final List<TypeHandler<?>> typeHandlers = new ArrayList<TypeHandler<?>>();
+    private final List<CompiledCondition> conditions = new ArrayList<CompiledCondition>();
+
+    /**
+     * 最近一个跳转目标的位置，文本不能合并到跳转目标之前的指令中
+     */
+    private int lastLabel = -1;
+
+    Builder(ParameterContext context) {
+      this.context = context;
+    }
+
+    boolean block(ASTBlock block) {
+      AbstractRenderableNode node = block.head;
+      while (node != null) {
+        if (!node(node)) {
+          return false;
+        }
+        node = node.next;
+      }
+      return true;
+    }
+
+    boolean node(AbstractRenderableNode node) {
+      if (node instanceof AbstractStringNode) {
+        text(((AbstractStringNode) node).getGroupValue());
+        return true;
+      }
+      if (node instanceof ASTGlobalTable) {
+        emit(TABLE, 0);
+        return true;
+      }
+      if (node instanceof ASTTrimComma) {
+        emit(TRIM_COMMA, 0);
+        return true;
+      }
+      if (node instanceof ASTJDBCParameter) {
+        ASTJDBCParameter p = (ASTJDBCParameter) node;
+        text("?");
+        return param(ARG, p.getBindingParameterInvoker(), p.getTypeHandler());
+      }
+      if (node instanceof ASTJDBCIterableParameter) {
+        ASTJDBCIterableParameter p = (ASTJDBCIterableParameter) node;
+        return param(ITERABLE_ARG, p.getBindingParameterInvoker(), p.getTypeHandler());
+      }
+      if (node instanceof ASTJoinParameter) {
+        return param(JOIN, ((ASTJoinParameter) node).getBindingParameterInvoker(), null);
+      }
+      if (node instanceof ASTIfStatement) {
+        return ifStatement(node);
+      }
+      return false;
+    }
+
+    /**
+     * cond JUMP_IF_FALSE next; block; JUMP end; next: ...; end:
+     */
+    boolean ifStatement(AbstractRenderableNode node) {
+      List<Integer> jumpsToEnd = new ArrayList<Integer>();
+      int n = node.jjtGetNumChildren();
+      for (int i = 0; i < n; i++) {
+        Node stmt = i == 0 ? node : node.jjtGetChild(i);
+        if (i == 1) {
+          continue; // #if的语句块
+        }
+        boolean isElse = stmt instanceof ASTElseStatement;
+        int jumpIfFalse = -1;
+        if (!isElse) {
+          CompiledCondition condition = CompiledCondition.compile((AbstractExpression) stmt.jjtGetChild(0), context);
+          if (condition == null) {
+            return false;
+          }
+          conditions.add(condition);
+          jumpIfFalse = emit(JUMP_IF_FALSE, conditions.size() - 1);
+        }
+        ASTBlock block = (ASTBlock) (isElse ? stmt.jjtGetChild(0) : stmt.jjtGetChild(1));
+        if (!block(block)) {
+          return false;
+        }
+        boolean isLast = i == n - 1 || (i == 0 && n == 2);
+        if (!isLast) {
+          jumpsToEnd.add(emit(JUMP, 0));
+        }
+        if (jumpIfFalse != -1) {
+          label(jumpIfFalse);
+        }
+      }
+      for (int jump : jumpsToEnd) {
+        label(jump);
+      }
+      return true;
+    }
+
+    void text(String text) {
+      int last = opcodes.size() - 1;
+      if (last >= 0 && last != lastLabel - 1 && opcodes.get(last) == TEXT) {
+        int idx = operands.get(last);
+        texts.set(idx, texts.get(idx) + text);
+      } else {
+        texts.add(text);
+        emit(TEXT, texts.size() - 1);
+      }
+    }
+
+    boolean param(int opcode, @Nullable BindingParameterInvoker invoker, @Nullable TypeHandler<?> typeHandler) {
+      if (invoker == null) {
+        return false;
+      }
+      Integer position = getPosition(invoker.getBindingParameter().getParameterName(), context);
+      if (position == null) {
+        return false;
+      }
+      positions.add(position);
+      invokers.add(invoker);
+      typeHandlers.add(typeHandler);
+      emit(opcode, invokers.size() - 1);
+      return true;
+    }
+
+    int emit(int opcode, int operand) {
+      opcodes.add(opcode);
+      operands.add(operand);
+      targets.add(-1);
+      return opcodes.size() - 1;
+    }
+
+    /**
+     * 将跳转指令的目标设置为下一条指令
+     */
+    void label(int jump) {
+      int target = opcodes.size();
+      targets.set(jump, target);
+      lastLabel = target;
+    }
+
+  }
+
+}
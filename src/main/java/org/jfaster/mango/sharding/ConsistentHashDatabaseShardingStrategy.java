@@ -0,0 +1,40 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.sharding;
+
+/**
+ * 一致性哈希分库，继承后在构造函数中给出所有数据源工厂名称，新增的数据源工厂需放在最后
+ * <p>分片参数只支持整数与字符串，见{@link ConsistentHashRing#getNode(Object)}
+ *
+ * @author ash
+ */
+public class ConsistentHashDatabaseShardingStrategy extends IndexedDatabaseShardingStrategy<Object> {
+
+  private final ConsistentHashRing ring;
+
+  public ConsistentHashDatabaseShardingStrategy(String... dataSourceFactoryNames) {
+    super(dataSourceFactoryNames);
+    ring = new ConsistentHashRing(dataSourceFactoryNames.length);
+  }
+
+  @Override
+  protected int getDataSourceIndex(Object shardingParameter) {
+    return ring.getNode(shardingParameter);
+  }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.sharding;
+
+import org.jfaster.mango.util.HashUtil;
+
+import java.util.Arrays;
+
+/**
+ * 虚拟节点一致性哈希环，节点用下标表示，增加节点时只迁移少量的键
+ *
+ * @author ash
+ */
+public class ConsistentHashRing {
+
+  public static final int DEFAULT_VIRTUAL_NODE_NUM = 160;
+
+  private final int nodeNum;
+
+  /**
+   * 环上的点，升序排列
+   */
+  private final int[] points;
+
+  /**
+   * 每个点对应的节点下标
+   */
+  private final int[] nodes;
+
+  public ConsistentHashRing(int nodeNum) {
+    this(nodeNum, DEFAULT_VIRTUAL_NODE_NUM);
+  }
+
+  public ConsistentHashRing(int nodeNum, int virtualNodeNum) {
+    if (nodeNum <= 0) {
+      throw new IllegalArgumentException("nodeNum need > 0, but nodeNum is " + nodeNum);
+    }
+    if (virtualNodeNum <= 0) {
+      throw new IllegalArgumentException("virtualNodeNum need > 0, but virtualNodeNum is " + virtualNodeNum);
+    }
+    this.nodeNum = nodeNum;
+    int size = nodeNum * virtualNodeNum;
+    long[] entries = new long[size]; // 高32位为点，低32位为节点下标，排序后即按点升序
+    for (int node = 0; node < nodeNum; node++) {
+      for (int v = 0; v < virtualNodeNum; v++) {
+        int point = HashUtil.murmur3_32("SHARD-" + node + "-NODE-" + v);
+        entries[node * virtualNodeNum + v] = ((long) point << 32) | node;
+      }
+    }
+    Arrays.sort(entries);
+    points = new int[size];
+    nodes = new int[size];
+    for (int i = 0; i < size; i++) {
+      points[i] = (int) (entries[i] >> 32);
+      nodes[i] = (int) entries[i];
+    }
+  }
+
+  /**
+   * 获得键所在的节点下标：整数与字符串按值哈希，保证不同进程间结果一致；
+   * 其他类型的hashCode可能依赖对象地址，不支持作为键
+   *
+   * @throws IllegalArgumentException 键不是Long、Integer、Short、Byte或CharSequence
+   */
+  public int getNode(Object key) {
+    return getNodeByHash(hash(key));
+  }
+
+  public int getNode(long key) {
+    return getNodeByHash(HashUtil.murmur3_32(key));
+  }
+
+  /**
+   * 顺时针找到第一个不小于哈希值的点
+   */
+  public int getNodeByHash(int hash) {
+    int index = Arrays.binarySearch(points, hash);
+    if (index < 0) {
+      index = -index - 1;
+      if (index == points.length) {
+        index = 0;
+      }
+    }
+    return nodes[index];
+  }
+
+  public int getNodeNum() {
+    return nodeNum;
+  }
+
+  private static int hash(Object key) {
+    if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+      return HashUtil.murmur3_32(((Number) key).longValue());
+    }
+    if (key instanceof CharSequence) {
+      return HashUtil.murmur3_32((CharSequence) key);
+    }
+    throw new IllegalArgumentException("consistent hash only supports Long, Integer, Short, Byte " +
+        "and CharSequence keys, but key is " + (key == null ? "null" : key.getClass().getName()));
+  }
+
+}
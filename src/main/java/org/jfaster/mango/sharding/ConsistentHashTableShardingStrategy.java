@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.sharding;
+
+/**
+ * 一致性哈希分表，继承后在构造函数中给出分表数量
+ * <p>分片参数只支持整数与字符串，见{@link ConsistentHashRing#getNode(Object)}
+ *
+ * @author ash
+ */
+public class ConsistentHashTableShardingStrategy extends IndexedTableShardingStrategy<Object> {
+
+  private final ConsistentHashRing ring;
+
+  public ConsistentHashTableShardingStrategy(int tableNum) {
+    this(tableNum, ConsistentHashRing.DEFAULT_VIRTUAL_NODE_NUM);
+  }
+
+  public ConsistentHashTableShardingStrategy(int tableNum, int virtualNodeNum) {
+    super(tableNum);
+    ring = new ConsistentHashRing(tableNum, virtualNodeNum);
+  }
+
+  @Override
+  protected int getTableIndex(Object shardingParameter) {
+    return ring.getNode(shardingParameter);
+  }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按下标选择数据源工厂的策略，数据源工厂名称预先给出
+ *
+ * @author ash
+ */
+public abstract class IndexedDatabaseShardingStrategy<T>
+    implements DatabaseShardingStrategy<T>, DatabaseShardingTopology {
+
+  private final String[] dataSourceFactoryNames;
+
+  protected IndexedDatabaseShardingStrategy(String... dataSourceFactoryNames) {
+    if (dataSourceFactoryNames == null || dataSourceFactoryNames.length == 0) {
+      throw new IllegalArgumentException("dataSourceFactoryNames can't be empty");
+    }
+    this.dataSourceFactoryNames = dataSourceFactoryNames.clone();
+  }
+
+  @Override
+  public String getDataSourceFactoryName(T shardingParameter) {
+    return dataSourceFactoryNames[getDataSourceIndex(shardingParameter)];
+  }
+
+  @Override
+  public List<String> getAllDataSourceFactoryNames() {
+    List<String> names = new ArrayList<String>(dataSourceFactoryNames.length);
+    for (String name : dataSourceFactoryNames) {
+      names.add(name);
+    }
+    return names;
+  }
+
+  public int getDataSourceNum() {
+    return dataSourceFactoryNames.length;
+  }
+
+  /**
+   * 获得数据源工厂的下标，范围是[0, dataSourceNum)
+   */
+  protected abstract int getDataSourceIndex(T shardingParameter);
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按下标选择分表的策略，表名预先生成，路由时不拼接字符串
+ *
+ * @author ash
+ */
+public abstract class IndexedTableShardingStrategy<T> implements TableShardingStrategy<T>, TableShardingTopology {
+
+  private final int tableNum;
+
+  private volatile TableNames tableNames;
+
+  protected IndexedTableShardingStrategy(int tableNum) {
+    if (tableNum <= 0) {
+      throw new IllegalArgumentException("tableNum need > 0, but tableNum is " + tableNum);
+    }
+    this.tableNum = tableNum;
+  }
+
+  @Override
+  public String getTargetTable(String table, T shardingParameter) {
+    return getTableNames(table)[getTableIndex(shardingParameter)];
+  }
+
+  @Override
+  public List<String> getAllTargetTables(String table) {
+    String[] names = getTableNames(table);
+    List<String> tables = new ArrayList<String>(names.length);
+    for (String name : names) {
+      tables.add(name);
+    }
+    return tables;
+  }
+
+  public int getTableNum() {
+    return tableNum;
+  }
+
+  /**
+   * 获得分表的下标，范围是[0, tableNum)
+   */
+  protected abstract int getTableIndex(T shardingParameter);
+
+  /**
+   * 获得下标对应的表名，默认为table_index
+   */
+  protected String createTargetTable(String table, int index) {
+    return table + "_" + index;
+  }
+
+  private String[] getTableNames(String table) {
+    TableNames tn = tableNames;
+    if (tn == null || !tn.table.equals(table)) { // 同一个策略实例通常只对应一个表
+      String[] names = new String[tableNum];
+      for (int i = 0; i < tableNum; i++) {
+        names[i] = createTargetTable(table, i);
+      }
+      tn = new TableNames(table, names);
+      tableNames = tn;
+    }
+    return tn.names;
+  }
+
+  private static class TableNames {
+
+    private final String table;
+
+    private final String[] names;
+
+    TableNames(String table, String[] names) {
+      this.table = table;
+      this.names = names;
+    }
+  }
+
+}
@@ -21,11 +21,10 @@ package org.jfaster.mango.sharding;
  *
  * @author ash
  */
-public class ModHundredTableShardingStrategy implements TableShardingStrategy<Number> {
+public class ModHundredTableShardingStrategy extends ModTableShardingStrategy {
 
-  @Override
-  public String getTargetTable(String table, Number shardingParameter) {
-    return table + "_" + Math.abs(shardingParameter.longValue() % 100);
+  public ModHundredTableShardingStrategy() {
+    super(100);
   }
 
 }
@@ -21,11 +21,10 @@ package org.jfaster.mango.sharding;
  *
  * @author ash
  */
-public class ModTenTableShardingStrategy implements TableShardingStrategy<Number> {
+public class ModTenTableShardingStrategy extends ModTableShardingStrategy {
 
-  @Override
-  public String getTargetTable(String table, Number shardingParameter) {
-    return table + "_" + Math.abs(shardingParameter.longValue() % 10);
+  public ModTenTableShardingStrategy() {
+    super(10);
   }
 
 }
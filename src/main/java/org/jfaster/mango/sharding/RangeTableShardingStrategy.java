@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.sharding;
+
+import java.util.List;
+
+/**
+ * 支持范围的分表策略
+ *
+ * @author ash
+ */
+public interface RangeTableShardingStrategy<T> extends TableShardingStrategy<T> {
+
+  /**
+   * 获得范围[from, to)覆盖的所有分表，按范围的先后顺序排列
+   *
+   * @param table 取{@link org.jfaster.mango.annotation.DB#table()}中的值
+   * @param from  取{@link org.jfaster.mango.annotation.ShardingFrom}修饰的参数
+   * @param to    取{@link org.jfaster.mango.annotation.ShardingTo}修饰的参数
+   * @return
+   */
+  public List<String> getTargetTables(String table, T from, T to);
+
+}
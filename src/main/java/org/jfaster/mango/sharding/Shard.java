@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.sharding;
+
+import org.jfaster.mango.util.Objects;
+
+import javax.annotation.Nullable;
+
+/**
+ * 一个分片，由数据源工厂名称与表名确定
+ *
+ * @author ash
+ */
+public class Shard {
+
+  private final String dataSourceFactoryName;
+
+  @Nullable
+  private final String table;
+
+  public Shard(String dataSourceFactoryName, @Nullable String table) {
+    this.dataSourceFactoryName = dataSourceFactoryName;
+    this.table = table;
+  }
+
+  public String getDataSourceFactoryName() {
+    return dataSourceFactoryName;
+  }
+
+  @Nullable
+  public String getTable() {
+    return table;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    final Shard other = (Shard) obj;
+    return Objects.equal(this.dataSourceFactoryName, other.dataSourceFactoryName)
+        && Objects.equal(this.table, other.table);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(dataSourceFactoryName, table);
+  }
+
+  @Override
+  public String toString() {
+    return table != null ?
+        dataSourceFactoryName + "." + table :
+        dataSourceFactoryName;
+  }
+
+}
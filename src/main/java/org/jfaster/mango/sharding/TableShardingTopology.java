@@ -0,0 +1,36 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.sharding;
+
+import java.util.List;
+
+/**
+ * 可以列出所有分表的分表策略，用于{@link org.jfaster.mango.annotation.Broadcast}广播查询
+ *
+ * @author ash
+ */
+public interface TableShardingTopology {
+
+  /**
+   * 获得所有分表后的表名
+   *
+   * @param table 取{@link org.jfaster.mango.annotation.DB#table()}中的值
+   * @return
+   */
+  public List<String> getAllTargetTables(String table);
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.sharding;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * 按时间分表的粒度
+ *
+ * @author ash
+ */
+public enum TimeGranularity {
+
+  /**
+   * 按天分表，表名后缀如20260117
+   */
+  DAY {
+    @Override
+    LocalDateTime truncate(LocalDateTime time) {
+      return time.toLocalDate().atStartOfDay();
+    }
+
+    @Override
+    LocalDateTime next(LocalDateTime start) {
+      return start.plusDays(1);
+    }
+
+    @Override
+    String format(LocalDateTime start) {
+      return String.format(Locale.ROOT, "%04d%02d%02d", start.getYear(), start.getMonthValue(), start.getDayOfMonth());
+    }
+  },
+
+  /**
+   * 按ISO周分表，周一为一周的开始，表名后缀如2026w03
+   */
+  WEEK {
+    @Override
+    LocalDateTime truncate(LocalDateTime time) {
+      return time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+    }
+
+    @Override
+    LocalDateTime next(LocalDateTime start) {
+      return start.plusWeeks(1);
+    }
+
+    @Override
+    String format(LocalDateTime start) {
+      return String.format(Locale.ROOT, "%04dw%02d",
+          start.get(IsoFields.WEEK_BASED_YEAR), start.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+    }
+  },
+
+  /**
+   * 按月分表，表名后缀如202601
+   */
+  MONTH {
+    @Override
+    LocalDateTime truncate(LocalDateTime time) {
+      return time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+    }
+
+    @Override
+    LocalDateTime next(LocalDateTime start) {
+      return start.plusMonths(1);
+    }
+
+    @Override
+    String format(LocalDateTime start) {
+      return String.format(Locale.ROOT, "%04d%02d", start.getYear(), start.getMonthValue());
+    }
+  };
+
+  /**
+   * 获得时间所在区间的开始时间
+   */
+  abstract LocalDateTime truncate(LocalDateTime time);
+
+  /**
+   * 获得下一个区间的开始时间
+   */
+  abstract LocalDateTime next(LocalDateTime start);
+
+  /**
+   * 获得区间对应的表名后缀
+   */
+  abstract String format(LocalDateTime start);
+
+}
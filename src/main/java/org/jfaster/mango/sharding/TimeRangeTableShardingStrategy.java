@@ -0,0 +1,134 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.sharding;
+
+import javax.annotation.Nullable;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 按时间分表，表名为table_后缀，后缀由{@link TimeGranularity}决定
+ * <p/>
+ * 分表参数可以是{@link Date}及其子类，{@link LocalDate}，{@link LocalDateTime}，{@link Instant}，
+ * {@link ZonedDateTime}，{@link OffsetDateTime}，或者表示毫秒时间戳的{@link Long}
+ * <p/>
+ * 带时刻的参数按zone换算为本地时间后分表，未指定zone时使用UTC，与服务器所在时区无关，
+ * 避免不同时区的机器把同一时刻写入不同的分表
+ * <p/>
+ * 范围查询先按{@link #getEarliestTime()}与{@link #getLatestTime()}截取到已存在的分表，
+ * 截取后覆盖的分表数超过maxTables时抛出{@link IllegalArgumentException}，避免过大的范围扇出到大量分表
+ *
+ * @author ash
+ */
+public class TimeRangeTableShardingStrategy implements RangeTableShardingStrategy<Object> {
+
+  /**
+   * 一次范围查询默认最多覆盖的分表数
+   */
+  public static final int DEFAULT_MAX_TABLES = 366;
+
+  private final TimeGranularity granularity;
+
+  private final ZoneId zone;
+
+  private final int maxTables;
+
+  public TimeRangeTableShardingStrategy(TimeGranularity granularity) {
+    this(granularity, ZoneOffset.UTC);
+  }
+
+  public TimeRangeTableShardingStrategy(TimeGranularity granularity, ZoneId zone) {
+    this(granularity, zone, DEFAULT_MAX_TABLES);
+  }
+
+  public TimeRangeTableShardingStrategy(TimeGranularity granularity, ZoneId zone, int maxTables) {
+    if (maxTables <= 0) {
+      throw new IllegalArgumentException("maxTables must be greater than 0, but " + maxTables);
+    }
+    this.granularity = granularity;
+    this.zone = zone;
+    this.maxTables = maxTables;
+  }
+
+  @Override
+  public String getTargetTable(String table, Object time) {
+    return table + "_" + granularity.format(granularity.truncate(toLocalDateTime(time)));
+  }
+
+  @Override
+  public List<String> getTargetTables(String table, Object from, Object to) {
+    LocalDateTime fromTime = toLocalDateTime(from);
+    LocalDateTime toTime = toLocalDateTime(to);
+    LocalDateTime earliest = getEarliestTime();
+    if (earliest != null && fromTime.isBefore(earliest)) {
+      fromTime = earliest;
+    }
+    LocalDateTime latest = getLatestTime();
+    if (latest != null && toTime.isAfter(latest)) {
+      toTime = latest;
+    }
+    List<String> tables = new ArrayList<String>();
+    for (LocalDateTime start = granularity.truncate(fromTime); start.isBefore(toTime);
+         start = granularity.next(start)) {
+      if (tables.size() == maxTables) {
+        throw new IllegalArgumentException("range [" + from + ", " + to + ") covers more than " +
+            maxTables + " tables of " + table);
+      }
+      tables.add(table + "_" + granularity.format(start));
+    }
+    return tables;
+  }
+
+  /**
+   * 最早的分表的开始时间，范围查询不会早于该时间，为null时不限制
+   */
+  @Nullable
+  protected LocalDateTime getEarliestTime() {
+    return null;
+  }
+
+  /**
+   * 最晚的分表的结束时间(不包含)，范围查询不会晚于该时间，为null时不限制
+   */
+  @Nullable
+  protected LocalDateTime getLatestTime() {
+    return null;
+  }
+
+  protected LocalDateTime toLocalDateTime(Object time) {
+    if (time instanceof LocalDateTime) {
+      return (LocalDateTime) time;
+    } else if (time instanceof LocalDate) {
+      return ((LocalDate) time).atStartOfDay();
+    } else if (time instanceof Date) { // java.sql.Date不支持toInstant
+      return LocalDateTime.ofInstant(Instant.ofEpochMilli(((Date) time).getTime()), zone);
+    } else if (time instanceof Instant) {
+      return LocalDateTime.ofInstant((Instant) time, zone);
+    } else if (time instanceof ZonedDateTime) {
+      return ((ZonedDateTime) time).withZoneSameInstant(zone).toLocalDateTime();
+    } else if (time instanceof OffsetDateTime) {
+      return ((OffsetDateTime) time).atZoneSameInstant(zone).toLocalDateTime();
+    } else if (time instanceof Long) {
+      return LocalDateTime.ofInstant(Instant.ofEpochMilli((Long) time), zone);
+    }
+    throw new IllegalArgumentException("can't shard table by time " + time);
+  }
+
+}
@@ -16,6 +16,7 @@
 
 package org.jfaster.mango.transaction;
 
+import org.jfaster.mango.jdbc.StatementCache;
 import org.jfaster.mango.transaction.exception.CannotGetJdbcConnectionException;
 import org.jfaster.mango.util.logging.InternalLogger;
 import org.jfaster.mango.util.logging.InternalLoggerFactory;
@@ -87,6 +88,7 @@ public class DataSourceUtils {
       return;
     }
     logger.debug("Returning JDBC Connection to DataSource");
+    StatementCache.clear(conn); // 关闭连接前关闭缓存的语句
     conn.close();
   }
 
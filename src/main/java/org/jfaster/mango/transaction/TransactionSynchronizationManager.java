@@ -64,6 +64,13 @@ public abstract class TransactionSynchronizationManager {
     return map == null ? null : map.get(dataSource);
   }
 
+  /**
+   * 当前线程是否绑定了任意数据源的事务
+   */
+  public static boolean hasConnectionHolder() {
+    return CONNECTION_HOLDERS.get() != null;
+  }
+
 }
 
 
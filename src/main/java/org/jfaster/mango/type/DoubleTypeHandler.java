@@ -26,7 +26,7 @@ import java.sql.SQLException;
  * @author Clinton Begin
  * @author ash
  */
-public class DoubleTypeHandler extends BaseTypeHandler<Double> {
+public class DoubleTypeHandler extends BaseTypeHandler<Double> implements PrimitiveDoubleTypeHandler {
 
   @Override
   public void setNonNullParameter(PreparedStatement ps, int index, Double parameter, JdbcType jdbcType)
@@ -40,6 +40,15 @@ public class DoubleTypeHandler extends BaseTypeHandler<Double> {
     return rs.getDouble(index);
   }
 
+  @Override
+  public double getDouble(ResultSet rs, int index) throws SQLException {
+    try {
+      return rs.getDouble(index);
+    } catch (Exception e) {
+      throw new TypeException("Error attempting to get column #" + index + " from result set", e);
+    }
+  }
+
   @Override
   public JdbcType getJdbcType() {
     return JdbcType.DOUBLE;
@@ -26,7 +26,7 @@ import java.sql.SQLException;
  * @author Clinton Begin
  * @author ash
  */
-public class IntegerTypeHandler extends BaseTypeHandler<Integer> {
+public class IntegerTypeHandler extends BaseTypeHandler<Integer> implements PrimitiveIntTypeHandler {
 
   @Override
   public void setNonNullParameter(PreparedStatement ps, int index, Integer parameter, JdbcType jdbcType)
@@ -40,6 +40,15 @@ public class IntegerTypeHandler extends BaseTypeHandler<Integer> {
     return rs.getInt(index);
   }
 
+  @Override
+  public int getInt(ResultSet rs, int index) throws SQLException {
+    try {
+      return rs.getInt(index);
+    } catch (Exception e) {
+      throw new TypeException("Error attempting to get column #" + index + " from result set", e);
+    }
+  }
+
   @Override
   public JdbcType getJdbcType() {
     return JdbcType.INTEGER;
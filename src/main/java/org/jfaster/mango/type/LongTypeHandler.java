@@ -26,7 +26,7 @@ import java.sql.SQLException;
  * @author Clinton Begin
  * @author ash
  */
-public class LongTypeHandler extends BaseTypeHandler<Long> {
+public class LongTypeHandler extends BaseTypeHandler<Long> implements PrimitiveLongTypeHandler {
 
   @Override
   public void setNonNullParameter(PreparedStatement ps, int index, Long parameter, JdbcType jdbcType)
@@ -40,6 +40,15 @@ public class LongTypeHandler extends BaseTypeHandler<Long> {
     return rs.getLong(index);
   }
 
+  @Override
+  public long getLong(ResultSet rs, int index) throws SQLException {
+    try {
+      return rs.getLong(index);
+    } catch (Exception e) {
+      throw new TypeException("Error attempting to get column #" + index + " from result set", e);
+    }
+  }
+
   @Override
   public JdbcType getJdbcType() {
     return JdbcType.BIGINT;
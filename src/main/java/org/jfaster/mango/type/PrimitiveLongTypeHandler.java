@@ -0,0 +1,33 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.type;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 以long读取结果的类型处理器，映射到long属性时不装箱
+ * <p/>
+ * 与jdbc一致，列值为null时返回0，调用方需要通过{@link ResultSet#wasNull()}判断
+ *
+ * @author ash
+ */
+public interface PrimitiveLongTypeHandler {
+
+  long getLong(ResultSet rs, int index) throws SQLException;
+
+}
@@ -16,35 +16,96 @@
 
 package org.jfaster.mango.util;
 
-import java.math.BigInteger;
-
 /**
+ * 分片使用的哈希函数，全部使用int与long运算，不创建临时对象
+ *
  * @author ash
  */
 public class HashUtil {
 
-  private static final BigInteger INIT32 = new BigInteger("811c9dc5", 16);
-  private static final BigInteger PRIME32 = new BigInteger("01000193", 16);
-  private static final BigInteger MOD32 = new BigInteger("2").pow(32);
+  private static final int INIT32 = 0x811c9dc5;
+  private static final int PRIME32 = 0x01000193;
 
+  /**
+   * 对字符串默认编码后的字节做FNV-1哈希，保留低31位
+   */
   public static int fnv1_31(String str) {
-    BigInteger bi32 = fnv1_32(str.getBytes());
-    return bi32.intValue() & 0x7fffffff;
+    int hash = INIT32;
+    for (byte b : str.getBytes()) {
+      hash = (hash * PRIME32) ^ (b & 0xff);
+    }
+    return hash & 0x7fffffff;
   }
 
+  /**
+   * 结果与fnv1_31(String.valueOf(n))相同，直接按十进制位计算
+   */
   public static int fnv1_31(long n) {
-    return fnv1_31(String.valueOf(n));
+    if (n == Long.MIN_VALUE) {
+      return fnv1_31(String.valueOf(n));
+    }
+    int hash = INIT32;
+    if (n < 0) {
+      hash = (hash * PRIME32) ^ '-';
+      n = -n;
+    }
+    long divisor = 1;
+    while (n / divisor >= 10) {
+      divisor *= 10;
+    }
+    for (; divisor > 0; divisor /= 10) {
+      hash = (hash * PRIME32) ^ ('0' + (int) (n / divisor % 10));
+    }
+    return hash & 0x7fffffff;
   }
 
-  private static BigInteger fnv1_32(byte[] data) {
-    BigInteger hash = INIT32;
+  /**
+   * MurmurHash3的64位混淆函数，结果取低32位
+   */
+  public static int murmur3_32(long n) {
+    n ^= n >>> 33;
+    n *= 0xff51afd7ed558ccdL;
+    n ^= n >>> 33;
+    n *= 0xc4ceb9fe1a85ec53L;
+    n ^= n >>> 33;
+    return (int) n;
+  }
 
-    for (byte b : data) {
-      hash = hash.multiply(PRIME32).mod(MOD32);
-      hash = hash.xor(BigInteger.valueOf((int) b & 0xff));
+  /**
+   * 对字符串的字符做MurmurHash3_x86_32哈希，种子为0
+   */
+  public static int murmur3_32(CharSequence str) {
+    int h = 0;
+    int length = str.length();
+    int i = 1;
+    for (; i < length; i += 2) { // 每两个字符组成一个int
+      int k = str.charAt(i - 1) | (str.charAt(i) << 16);
+      h = mixH(h, mixK(k));
+    }
+    if ((length & 1) == 1) {
+      h ^= mixK(str.charAt(length - 1));
     }
+    h ^= 2 * length;
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  private static int mixK(int k) {
+    k *= 0xcc9e2d51;
+    k = Integer.rotateLeft(k, 15);
+    k *= 0x1b873593;
+    return k;
+  }
 
-    return hash;
+  private static int mixH(int h, int k) {
+    h ^= k;
+    h = Integer.rotateLeft(h, 13);
+    h = h * 5 + 0xe6546b64;
+    return h;
   }
 
 }
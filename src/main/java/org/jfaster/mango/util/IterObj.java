@@ -19,6 +19,7 @@ package org.jfaster.mango.util;
 import java.lang.reflect.Array;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * 将collection和数组的迭代结合在一起
@@ -29,7 +30,7 @@ public class IterObj implements Iterable {
 
   private Iterable<?> iterable = null;
   private Object array = null;
-  private Integer size = null;
+  private int size = -1;
   private Object object = null;
 
   public IterObj(Object object) {
@@ -54,7 +55,7 @@ public class IterObj implements Iterable {
   }
 
   public int size() {
-    if (size == null) {
+    if (size == -1) {
       if (iterable != null) {
         size = Iterables.size(iterable);
       } else if (array != null) {
@@ -77,18 +78,31 @@ public class IterObj implements Iterable {
     }
   }
 
+  /**
+   * Object[]直接按下标读取，基本类型数组使用{@link Array#get}，
+   * 元素会被装箱，因为绑定的参数统一以Object保存
+   */
   private class ArrayItr implements Iterator {
 
+    private final Object[] objects = array instanceof Object[] ? (Object[]) array : null;
+    private final int length = size();
     private int cursor = 0;
 
     @Override
     public boolean hasNext() {
-      return cursor != size();
+      return cursor != length;
     }
 
     @Override
     public Object next() {
-      return Array.get(array, cursor++);
+      if (cursor >= length) {
+        throw new NoSuchElementException();
+      }
+      int i = cursor++;
+      if (objects != null) {
+        return objects[i];
+      }
+      return Array.get(array, i);
     }
 
     @Override
@@ -17,6 +17,9 @@
 package org.jfaster.mango.util;
 
 import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.UUID;
 
 /**
  * @author ash
@@ -31,4 +34,32 @@ public class Objects {
     return java.util.Arrays.hashCode(objects);
   }
 
+  /**
+   * 对象为null或不可变类型的实例
+   */
+  public static boolean isImmutable(@Nullable Object obj) {
+    return obj == null || isImmutableType(obj.getClass());
+  }
+
+  /**
+   * 基本类型及其包装类型，枚举，String，BigDecimal，BigInteger，UUID与java.time下的类型
+   */
+  public static boolean isImmutableType(Class<?> clazz) {
+    return clazz.isPrimitive()
+        || clazz.isEnum()
+        || clazz == String.class
+        || clazz == Boolean.class
+        || clazz == Character.class
+        || clazz == Byte.class
+        || clazz == Short.class
+        || clazz == Integer.class
+        || clazz == Long.class
+        || clazz == Float.class
+        || clazz == Double.class
+        || clazz == BigDecimal.class
+        || clazz == BigInteger.class
+        || clazz == UUID.class
+        || (clazz.getPackage() != null && clazz.getPackage().getName().equals("java.time"));
+  }
+
 }
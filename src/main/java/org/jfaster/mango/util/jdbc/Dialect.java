@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.util.jdbc;
+
+import javax.annotation.Nullable;
+
+/**
+ * 数据库方言，根据{@link java.sql.DatabaseMetaData#getDatabaseProductName()}识别
+ *
+ * @author ash
+ */
+public enum Dialect {
+
+  MYSQL("mysql", "mariadb"),
+
+  POSTGRESQL("postgresql"),
+
+  HSQLDB("hsql"),
+
+  H2("h2"),
+
+  ORACLE("oracle"),
+
+  /**
+   * 无法识别的数据库
+   */
+  UNKNOWN;
+
+  private final String[] productNameKeys;
+
+  private Dialect(String... productNameKeys) {
+    this.productNameKeys = productNameKeys;
+  }
+
+  public static Dialect fromProductName(@Nullable String productName) {
+    if (productName != null) {
+      String name = productName.toLowerCase();
+      for (Dialect dialect : values()) {
+        for (String key : dialect.productNameKeys) {
+          if (name.contains(key)) {
+            return dialect;
+          }
+        }
+      }
+    }
+    return UNKNOWN;
+  }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.util.reflect;
+
+import org.jfaster.mango.util.Primitives;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.*;
+
+/**
+ * 生成直接调用get方法，set方法与构造函数的访问器
+ * <p/>
+ * 类与方法均为public且对mango的类加载器可见时，使用{@link LambdaMetafactory}生成访问器，
+ * 否则退化为{@link MethodHandle}调用
+ *
+ * @author ash
+ */
+public class Accessors {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  @SuppressWarnings("unchecked")
+  public static Function<Object, Object> getter(Method method) {
+    Class<?> clazz = method.getDeclaringClass();
+    try {
+      MethodHandle handle = unreflect(method);
+      if (isDirectAccessible(method, clazz, method.getReturnType())) {
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+            MethodType.methodType(Function.class),
+            MethodType.methodType(Object.class, Object.class),
+            handle,
+            MethodType.methodType(Primitives.wrap(method.getReturnType()), clazz));
+        return (Function<Object, Object>) site.getTarget().invokeExact();
+      }
+      final MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+      return obj -> {
+        try {
+          return generic.invokeExact(obj);
+        } catch (Throwable e) {
+          throw sneakyThrow(e);
+        }
+      };
+    } catch (Throwable e) {
+      throw new IllegalStateException("can't create getter for " + method, e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public static BiConsumer<Object, Object> setter(Method method) {
+    Class<?> clazz = method.getDeclaringClass();
+    Class<?> parameterType = method.getParameterTypes()[0];
+    try {
+      MethodHandle handle = unreflect(method);
+      if (isDirectAccessible(method, clazz, parameterType)) {
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept",
+            MethodType.methodType(BiConsumer.class),
+            MethodType.methodType(void.class, Object.class, Object.class),
+            handle,
+            MethodType.methodType(void.class, clazz, Primitives.wrap(parameterType)));
+        return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+      }
+      final MethodHandle generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+      return (obj, value) -> {
+        try {
+          generic.invokeExact(obj, value);
+        } catch (Throwable e) {
+          throw sneakyThrow(e);
+        }
+      };
+    } catch (Throwable e) {
+      throw new IllegalStateException("can't create setter for " + method, e);
+    }
+  }
+
+  /**
+   * int类型参数的set方法访问器，设置属性时不装箱
+   */
+  @SuppressWarnings("unchecked")
+  public static ObjIntConsumer<Object> intSetter(Method method) {
+    return (ObjIntConsumer<Object>) primitiveSetter(method, int.class, ObjIntConsumer.class);
+  }
+
+  /**
+   * long类型参数的set方法访问器，设置属性时不装箱
+   */
+  @SuppressWarnings("unchecked")
+  public static ObjLongConsumer<Object> longSetter(Method method) {
+    return (ObjLongConsumer<Object>) primitiveSetter(method, long.class, ObjLongConsumer.class);
+  }
+
+  /**
+   * double类型参数的set方法访问器，设置属性时不装箱
+   */
+  @SuppressWarnings("unchecked")
+  public static ObjDoubleConsumer<Object> doubleSetter(Method method) {
+    return (ObjDoubleConsumer<Object>) primitiveSetter(method, double.class, ObjDoubleConsumer.class);
+  }
+
+  private static Object primitiveSetter(Method method, Class<?> primitiveType, Class<?> consumerType) {
+    Class<?> clazz = method.getDeclaringClass();
+    if (!primitiveType.equals(method.getParameterTypes()[0])) {
+      throw new IllegalArgumentException("parameter type of " + method + " is not " + primitiveType);
+    }
+    try {
+      MethodHandle handle = unreflect(method);
+      if (isDirectAccessible(method, clazz, primitiveType)) {
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept",
+            MethodType.methodType(consumerType),
+            MethodType.methodType(void.class, Object.class, primitiveType),
+            handle,
+            MethodType.methodType(void.class, clazz, primitiveType));
+        return site.getTarget().invoke();
+      }
+      final MethodHandle generic = handle.asType(MethodType.methodType(void.class, Object.class, primitiveType));
+      if (primitiveType == int.class) {
+        return (ObjIntConsumer<Object>) (obj, value) -> {
+          try {
+            generic.invokeExact(obj, value);
+          } catch (Throwable e) {
+            throw sneakyThrow(e);
+          }
+        };
+      } else if (primitiveType == long.class) {
+        return (ObjLongConsumer<Object>) (obj, value) -> {
+          try {
+            generic.invokeExact(obj, value);
+          } catch (Throwable e) {
+            throw sneakyThrow(e);
+          }
+        };
+      } else {
+        return (ObjDoubleConsumer<Object>) (obj, value) -> {
+          try {
+            generic.invokeExact(obj, value);
+          } catch (Throwable e) {
+            throw sneakyThrow(e);
+          }
+        };
+      }
+    } catch (Throwable e) {
+      throw new IllegalStateException("can't create setter for " + method, e);
+    }
+  }
+
+  /**
+   * 无参构造函数访问器，类没有无参构造函数时返回null
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> Supplier<T> constructor(Class<T> clazz) {
+    Constructor<T> ctor;
+    try {
+      ctor = clazz.getDeclaredConstructor();
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+    try {
+      Reflection.makeAccessible(ctor);
+      MethodHandle handle = LOOKUP.unreflectConstructor(ctor);
+      if (Modifier.isPublic(ctor.getModifiers()) && isDirectAccessible(clazz)) {
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get",
+            MethodType.methodType(Supplier.class),
+            MethodType.methodType(Object.class),
+            handle,
+            MethodType.methodType(clazz));
+        return (Supplier<T>) site.getTarget().invokeExact();
+      }
+      final MethodHandle generic = handle.asType(MethodType.methodType(Object.class));
+      return () -> {
+        try {
+          return (T) generic.invokeExact();
+        } catch (Throwable e) {
+          throw sneakyThrow(e);
+        }
+      };
+    } catch (Throwable e) {
+      throw new IllegalStateException("can't create constructor accessor for " + clazz, e);
+    }
+  }
+
+  private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+    if (!method.isAccessible()) {
+      method.setAccessible(true);
+    }
+    return LOOKUP.unreflect(method);
+  }
+
+  private static boolean isDirectAccessible(Method method, Class<?> clazz, Class<?> type) {
+    return Modifier.isPublic(method.getModifiers()) &&
+        isDirectAccessible(clazz) &&
+        (type.isPrimitive() || isDirectAccessible(type));
+  }
+
+  /**
+   * 生成的访问器定义在mango的类加载器中，只能访问public且可见的类
+   */
+  private static boolean isDirectAccessible(Class<?> clazz) {
+    if (clazz.isArray()) {
+      return isDirectAccessible(clazz.getComponentType());
+    }
+    for (Class<?> c = clazz; c != null; c = c.getEnclosingClass()) {
+      if (!Modifier.isPublic(c.getModifiers())) {
+        return false;
+      }
+    }
+    if (clazz.isPrimitive()) {
+      return true;
+    }
+    try {
+      return Class.forName(clazz.getName(), false, Accessors.class.getClassLoader()) == clazz;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E extends Throwable> RuntimeException sneakyThrow(Throwable e) throws E {
+    throw (E) e;
+  }
+
+}
@@ -17,25 +17,44 @@
 package org.jfaster.mango.util.reflect;
 
 
+import org.jfaster.mango.util.local.DoubleCheckCache;
+import org.jfaster.mango.util.local.LoadingCache;
+
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * @author ash
  */
 public class Reflection {
 
+  /**
+   * 类到无参构造函数访问器的缓存
+   */
+  private final static LoadingCache<Class<?>, Supplier<?>> constructorCache = new DoubleCheckCache<>(
+      clazz -> {
+        if (clazz.isInterface()) {
+          throw new BeanInstantiationException(clazz, "specified class is an interface");
+        }
+        if (Modifier.isAbstract(clazz.getModifiers())) {
+          throw new BeanInstantiationException(clazz, "Is it an abstract class?");
+        }
+        Supplier<?> constructor = Accessors.constructor(clazz);
+        if (constructor == null) {
+          throw new BeanInstantiationException(clazz, "No default constructor found");
+        }
+        return constructor;
+      });
+
+  @SuppressWarnings("unchecked")
   public static <T> T instantiate(Class<T> clazz) throws BeanInstantiationException {
-    if (clazz.isInterface()) {
-      throw new BeanInstantiationException(clazz, "specified class is an interface");
-    }
+    Supplier<?> constructor = constructorCache.get(clazz);
     try {
-      return clazz.newInstance();
-    } catch (InstantiationException e) {
-      throw new BeanInstantiationException(clazz, "Is it an abstract class?", e);
-    } catch (IllegalAccessException e) {
-      throw new BeanInstantiationException(clazz, "Is the constructor accessible?", e);
+      return (T) constructor.get();
+    } catch (Throwable e) {
+      throw new BeanInstantiationException(clazz, "Constructor threw exception", e);
     }
   }
 
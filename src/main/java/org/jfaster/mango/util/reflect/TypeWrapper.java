@@ -20,6 +20,7 @@ import org.jfaster.mango.page.PageResult;
 
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * @author ash
@@ -42,6 +43,8 @@ public class TypeWrapper {
 
   private boolean isPageResult;
   private boolean isOptinal;
+  private boolean isStream;
+  private boolean isIterator;
   private boolean isArray;
   private boolean isCollection;
   private boolean isList;
@@ -100,6 +103,10 @@ public class TypeWrapper {
       isOptinal = true;
     } else if (PageResult.class.equals(rawType)) {
       isPageResult = true;
+    } else if (Stream.class.equals(rawType)) {
+      isStream = true;
+    } else if (Iterator.class.equals(rawType)) {
+      isIterator = true;
     } else {
       handleCollectionType(rawType);
       isIterableAssignable = true;
@@ -125,7 +132,7 @@ public class TypeWrapper {
       isIterable = true;
     } else {
       throw new IllegalStateException("parameterized type must be one of" +
-              "[Collection,List,ArrayList,LinkedList,Set,HashSet,Iterable,Optional,PageResult] but " + rawType);
+              "[Collection,List,ArrayList,LinkedList,Set,HashSet,Iterable,Optional,PageResult,Stream,Iterator] but " + rawType);
     }
   }
 
@@ -182,6 +189,14 @@ public class TypeWrapper {
   public boolean isPageResult() {
     return isPageResult;
   }
+
+  public boolean isStream() {
+    return isStream;
+  }
+
+  public boolean isIterator() {
+    return isIterator;
+  }
 }
 
 
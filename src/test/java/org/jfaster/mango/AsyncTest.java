@@ -0,0 +1,179 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango;
+
+import org.jfaster.mango.annotation.DB;
+import org.jfaster.mango.annotation.SQL;
+import org.jfaster.mango.jdbc.exception.DuplicateKeyException;
+import org.jfaster.mango.operator.Mango;
+import org.jfaster.mango.support.DataSourceConfig;
+import org.jfaster.mango.support.JdbcProxies;
+import org.jfaster.mango.support.Table;
+import org.jfaster.mango.support.model4table.Msg;
+import org.jfaster.mango.transaction.Transaction;
+import org.jfaster.mango.transaction.TransactionFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * 测试返回CompletableFuture的异步方法
+ *
+ * @author ash
+ */
+public class AsyncTest {
+
+  private final static DataSource ds = DataSourceConfig.getDataSource();
+
+  @Before
+  public void before() throws Exception {
+    Connection conn = ds.getConnection();
+    Table.MSG.load(conn);
+    conn.close();
+  }
+
+  @Test
+  public void testQueryAndUpdate() throws Exception {
+    Mango mango = Mango.newInstance(ds);
+    MsgDao dao = mango.create(MsgDao.class);
+    List<CompletableFuture<Integer>> futures = new ArrayList<CompletableFuture<Integer>>();
+    for (int i = 1; i <= 5; i++) {
+      futures.add(dao.insert(i, 100, "content" + i));
+    }
+    for (CompletableFuture<Integer> future : futures) {
+      assertThat(future.get(5, TimeUnit.SECONDS), equalTo(1));
+    }
+    List<Msg> msgs = dao.getMsgs(100).get(5, TimeUnit.SECONDS);
+    assertThat(msgs, hasSize(5));
+    assertThat(dao.getContent(3).toCompletableFuture().get(5, TimeUnit.SECONDS), equalTo("content3"));
+    assertThat(dao.getMsgsSync(100), equalTo(msgs));
+  }
+
+  @Test
+  public void testCustomExecutor() throws Exception {
+    final AtomicInteger count = new AtomicInteger();
+    final ExecutorService es = Executors.newSingleThreadExecutor();
+    Mango mango = Mango.newInstance(ds);
+    mango.setAsyncExecutor(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        count.incrementAndGet();
+        es.execute(command);
+      }
+    });
+    MsgDao dao = mango.create(MsgDao.class);
+    dao.insert(1, 100, "content").get(5, TimeUnit.SECONDS);
+    assertThat(dao.getMsgs(100).get(5, TimeUnit.SECONDS), hasSize(1));
+    assertThat(count.get(), equalTo(2));
+    es.shutdown();
+  }
+
+  @Test
+  public void testExceptionTranslated() throws Exception {
+    Mango mango = Mango.newInstance(ds);
+    MsgDao dao = mango.create(MsgDao.class);
+    dao.insert(1, 100, "content").get(5, TimeUnit.SECONDS);
+    try {
+      dao.insert(1, 100, "content").get(5, TimeUnit.SECONDS);
+      throw new AssertionError("expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(DuplicateKeyException.class));
+    }
+  }
+
+  @Test
+  public void testCancelBeforeExecute() throws Exception {
+    final List<Runnable> tasks = new ArrayList<Runnable>();
+    Mango mango = Mango.newInstance(ds);
+    mango.setAsyncExecutor(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        tasks.add(command);
+      }
+    });
+    MsgDao dao = mango.create(MsgDao.class);
+    CompletableFuture<Integer> future = dao.insert(1, 100, "content");
+    assertThat(future.cancel(true), is(true));
+    tasks.get(0).run();
+    assertThat(future.isCancelled(), is(true));
+    assertThat(dao.getMsgsSync(100), hasSize(0));
+  }
+
+  @Test
+  public void testCancelRunningStatement() throws Exception {
+    AtomicInteger cancelCount = new AtomicInteger();
+    CountDownLatch executing = new CountDownLatch(1);
+    Mango mango = Mango.newInstance(JdbcProxies.hangOnQuery(ds, cancelCount, executing));
+    MsgDao dao = mango.create(MsgDao.class);
+    CompletableFuture<List<Msg>> future = dao.getMsgs(100);
+    assertThat(executing.await(5, TimeUnit.SECONDS), is(true)); // 语句已开始执行
+    assertThat(future.cancel(true), is(true));
+    assertThat(cancelCount.get(), equalTo(1)); // 取消future时取消正在执行的语句
+    assertThat(future.isCancelled(), is(true));
+  }
+
+  @Test
+  public void testInTransaction() throws Exception {
+    final AtomicInteger count = new AtomicInteger();
+    Mango mango = Mango.newInstance(ds);
+    mango.setAsyncExecutor(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        count.incrementAndGet();
+        command.run();
+      }
+    });
+    MsgDao dao = mango.create(MsgDao.class);
+    Transaction tx = TransactionFactory.newTransaction(ds);
+    try {
+      CompletableFuture<Integer> future = dao.insert(1, 100, "content");
+      assertThat(future.isDone(), is(true)); // 在调用线程中同步执行，加入事务
+      assertThat(future.get(), equalTo(1));
+    } finally {
+      tx.rollback();
+    }
+    assertThat(count.get(), equalTo(0));
+    assertThat(dao.getMsgsSync(100), hasSize(0)); // 随事务回滚
+  }
+
+  @DB(table = "msg")
+  interface MsgDao {
+
+    @SQL("insert into #table(id, uid, content) values(:1, :2, :3)")
+    CompletableFuture<Integer> insert(int id, int uid, String content);
+
+    @SQL("select id, uid, content from #table where uid = :1 order by id")
+    CompletableFuture<List<Msg>> getMsgs(int uid);
+
+    @SQL("select content from #table where id = :1")
+    CompletionStage<String> getContent(int id);
+
+    @SQL("select id, uid, content from #table where uid = :1 order by id")
+    List<Msg> getMsgsSync(int uid);
+
+  }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango;
+
+import com.google.common.primitives.Ints;
+import org.jfaster.mango.annotation.BatchChunk;
+import org.jfaster.mango.annotation.DB;
+import org.jfaster.mango.annotation.ReturnGeneratedId;
+import org.jfaster.mango.annotation.SQL;
+import org.jfaster.mango.annotation.UseTransactionForBatchUpdate;
+import org.jfaster.mango.operator.Mango;
+import org.jfaster.mango.support.DataSourceConfig;
+import org.jfaster.mango.support.Table;
+import org.jfaster.mango.support.model4table.Msg;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * 测试参数为{@code Iterator<T>}与{@code Stream<T>}的分块批量操作
+ *
+ * @author ash
+ */
+public class BatchStreamTest {
+
+  private final static DataSource ds = DataSourceConfig.getDataSource();
+  private final static Mango mango = Mango.newInstance(ds);
+  private final static MsgDao dao = mango.create(MsgDao.class);
+
+  @Before
+  public void before() throws Exception {
+    Connection conn = ds.getConnection();
+    Table.MSG.load(conn);
+    conn.close();
+  }
+
+  @Test
+  public void testIterator() throws Exception {
+    List<Msg> msgs = createMsgs(10, 100);
+    int[] r = dao.batchInsert(msgs.iterator());
+    assertThat(r.length, is(10));
+    assertThat(Ints.asList(r), everyItem(equalTo(1)));
+    check(msgs, 100);
+  }
+
+  @Test
+  public void testStream() throws Exception {
+    List<Msg> msgs = createMsgs(10, 100);
+    AtomicBoolean closed = new AtomicBoolean(false);
+    int r = dao.batchInsertStream(msgs.stream().onClose(() -> closed.set(true)));
+    assertThat(r, is(10));
+    assertThat(closed.get(), is(true));
+    check(msgs, 100);
+  }
+
+  @Test
+  public void testEmptyIterator() throws Exception {
+    List<Msg> msgs = createMsgs(0, 100);
+    assertThat(dao.batchInsert(msgs.iterator()).length, is(0));
+  }
+
+  @Test
+  public void testCommitPerChunk() throws Exception {
+    List<Msg> msgs = createMsgs(10, 100);
+    try {
+      dao.batchInsertCommitPerChunk(failAt(msgs, 9));
+    } catch (IllegalStateException expected) {
+    }
+    assertThat(dao.getMsgs(100), hasSize(8)); // 前两块已提交
+  }
+
+  @Test
+  public void testTransactionAcrossChunks() throws Exception {
+    List<Msg> msgs = createMsgs(10, 100);
+    try {
+      dao.batchInsertInTransaction(failAt(msgs, 9));
+    } catch (IllegalStateException expected) {
+    }
+    assertThat(dao.getMsgs(100), hasSize(0));
+  }
+
+  @Test
+  public void testReturnGeneratedIds() throws Exception {
+    List<Msg> msgs = createMsgs(10, 100);
+    List<Long> ids = dao.batchInsertReturnGeneratedIds(msgs.iterator());
+    assertThat(ids, hasSize(10));
+    List<Msg> dbMsgs = dao.getMsgs(100);
+    for (int i = 0; i < msgs.size(); i++) {
+      assertThat(ids.get(i), equalTo((long) dbMsgs.get(i).getId()));
+      assertThat(msgs.get(i).getId(), equalTo(dbMsgs.get(i).getId()));
+    }
+    assertThat(dbMsgs, equalTo(msgs));
+  }
+
+  private static Iterator<Msg> failAt(final List<Msg> msgs, final int index) {
+    return new Iterator<Msg>() {
+      int i = 0;
+
+      @Override
+      public boolean hasNext() {
+        return i < msgs.size();
+      }
+
+      @Override
+      public Msg next() {
+        if (i == index) {
+          throw new IllegalStateException();
+        }
+        return msgs.get(i++);
+      }
+    };
+  }
+
+  private static List<Msg> createMsgs(int num, int uid) {
+    List<Msg> msgs = Msg.createRandomMsgs(num);
+    for (Msg msg : msgs) {
+      msg.setUid(uid);
+    }
+    return msgs;
+  }
+
+  private static void check(List<Msg> msgs, int uid) {
+    List<Msg> dbMsgs = dao.getMsgs(uid);
+    for (Msg msg : dbMsgs) {
+      msg.setId(0);
+    }
+    assertThat(dbMsgs, equalTo(msgs));
+  }
+
+  @DB(table = "msg")
+  interface MsgDao {
+
+    @BatchChunk(4)
+    @SQL("insert into #table(uid, content) values(:1.uid, :1.content)")
+    int[] batchInsert(Iterator<Msg> msgs);
+
+    @SQL("insert into #table(uid, content) values(:1.uid, :1.content)")
+    int batchInsertStream(Stream<Msg> msgs);
+
+    @BatchChunk(value = 4, commitPerChunk = true)
+    @SQL("insert into #table(uid, content) values(:1.uid, :1.content)")
+    int[] batchInsertCommitPerChunk(Iterator<Msg> msgs);
+
+    @UseTransactionForBatchUpdate
+    @BatchChunk(4)
+    @SQL("insert into #table(uid, content) values(:1.uid, :1.content)")
+    int[] batchInsertInTransaction(Iterator<Msg> msgs);
+
+    @BatchChunk(4)
+    @ReturnGeneratedId
+    @SQL("insert into #table(uid, content) values(:1.uid, :1.content)")
+    List<Long> batchInsertReturnGeneratedIds(Iterator<Msg> msgs);
+
+    @SQL("select id, uid, content from #table where uid = :1 order by id")
+    List<Msg> getMsgs(int uid);
+
+  }
+
+}
@@ -485,6 +485,28 @@ public class DbTest {
     assertThat(actual, contains(users.toArray()));
   }
 
+  @Test
+  public void testBatchUpdateListRewrite() throws Exception {
+    Mango mango = Mango.newInstance(ds);
+    mango.setRewriteBatchInsert(true);
+    mango.setMaxPlaceholdersPerStatement(12);
+    UserDao dao = mango.create(UserDao.class);
+    List<User> users = createRandomUsers(21);
+    int age = 10010;
+    for (User user : users) {
+      user.setAge(age);
+    }
+    int[] r = dao.batchInsertUserList(users);
+    assertThat(r.length, equalTo(users.size()));
+    assertThat(Ints.asList(r), everyItem(equalTo(1)));
+    List<User> actual = dao.getUsersByAge(age);
+    assertThat(actual, hasSize(users.size()));
+    for (int i = 0; i < users.size(); i++) {
+      actual.get(i).setId(0);
+    }
+    assertThat(actual, contains(users.toArray()));
+  }
+
   @Test
   public void testBatchUpdateEmptyList() throws Exception {
     List<User> users = Lists.newArrayList();
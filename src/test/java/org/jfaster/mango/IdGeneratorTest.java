@@ -0,0 +1,242 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango;
+
+import org.jfaster.mango.annotation.DB;
+import org.jfaster.mango.annotation.ID;
+import org.jfaster.mango.annotation.SQL;
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.id.SegmentIdGenerator;
+import org.jfaster.mango.id.TimeOrderedIdGenerator;
+import org.jfaster.mango.operator.Mango;
+import org.jfaster.mango.support.DataSourceConfig;
+import org.jfaster.mango.support.Table;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * 测试插入前使用{@link ID#generator()}为ID属性赋值
+ *
+ * @author ash
+ */
+public class IdGeneratorTest {
+
+  private final static DataSource ds = DataSourceConfig.getDataSource();
+  private final static Mango mango = Mango.newInstance(ds);
+  private final static MsgDao dao = mango.create(MsgDao.class);
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Before
+  public void before() throws Exception {
+    Table.LONG_ID_MSG.load(ds);
+  }
+
+  @Test
+  public void testInsert() throws Exception {
+    IdMsg msg = new IdMsg(100, "hello");
+    dao.insert(msg);
+    assertThat(msg.getId(), greaterThan(0L));
+    assertThat(dao.getMsg(msg.getId()), equalTo(msg));
+
+    IdMsg msg2 = new IdMsg(100, "world");
+    msg2.setId(7);
+    dao.insert(msg2); // 已有ID时不覆盖
+    assertThat(msg2.getId(), equalTo(7L));
+    assertThat(dao.getMsg(7), equalTo(msg2));
+  }
+
+  @Test
+  public void testBatchInsert() throws Exception {
+    List<IdMsg> msgs = new ArrayList<IdMsg>();
+    for (int i = 0; i < 10; i++) {
+      msgs.add(new IdMsg(100, "content" + i));
+    }
+    dao.batchInsert(msgs);
+    long lastId = 0;
+    for (IdMsg msg : msgs) {
+      assertThat(msg.getId(), greaterThan(lastId));
+      assertThat(dao.getMsg(msg.getId()), equalTo(msg));
+      lastId = msg.getId();
+    }
+  }
+
+  @Test
+  public void testRegisteredGenerator() throws Exception {
+    Table.MANGO_SEQUENCE.load(ds);
+    Mango m = Mango.newInstance(ds);
+    m.registerIdGenerator(new SegmentMsgIdGenerator(m));
+    SegmentMsgDao segmentDao = m.create(SegmentMsgDao.class);
+    for (long i = 1; i <= 3; i++) {
+      SegmentIdMsg msg = new SegmentIdMsg();
+      msg.setUid(100);
+      msg.setContent("content" + i);
+      segmentDao.insert(msg);
+      assertThat(msg.getId(), equalTo(i)); // 使用注册的号段生成器
+    }
+  }
+
+  @Test
+  public void testUnregisteredGenerator() throws Exception {
+    thrown.expect(DescriptionException.class);
+    thrown.expectMessage("please register an instance by Mango#registerIdGenerator");
+    Mango m = Mango.newInstance(ds);
+    m.create(SegmentMsgDao.class).insert(new SegmentIdMsg());
+  }
+
+  @DB(table = "long_id_msg")
+  interface SegmentMsgDao {
+
+    @SQL("insert into #table(id, uid, content) values(:1.id, :1.uid, :1.content)")
+    void insert(SegmentIdMsg msg);
+
+  }
+
+  public static class SegmentMsgIdGenerator extends SegmentIdGenerator {
+
+    public SegmentMsgIdGenerator(Mango mango) {
+      super(mango, "msg", 10);
+    }
+
+  }
+
+  public static class SegmentIdMsg {
+
+    @ID(generator = SegmentMsgIdGenerator.class)
+    private long id;
+
+    private int uid;
+
+    private String content;
+
+    public long getId() {
+      return id;
+    }
+
+    public void setId(long id) {
+      this.id = id;
+    }
+
+    public int getUid() {
+      return uid;
+    }
+
+    public void setUid(int uid) {
+      this.uid = uid;
+    }
+
+    public String getContent() {
+      return content;
+    }
+
+    public void setContent(String content) {
+      this.content = content;
+    }
+  }
+
+  @DB(table = "long_id_msg")
+  interface MsgDao {
+
+    @SQL("insert into #table(id, uid, content) values(:1.id, :1.uid, :1.content)")
+    void insert(IdMsg msg);
+
+    @SQL("insert into #table(id, uid, content) values(:1.id, :1.uid, :1.content)")
+    int[] batchInsert(List<IdMsg> msgs);
+
+    @SQL("select id, uid, content from #table where id = :1")
+    IdMsg getMsg(long id);
+
+  }
+
+  public static class MsgIdGenerator extends TimeOrderedIdGenerator {
+
+    public MsgIdGenerator() {
+      super(1);
+    }
+
+  }
+
+  public static class IdMsg {
+
+    @ID(generator = MsgIdGenerator.class)
+    private long id;
+
+    private int uid;
+
+    private String content;
+
+    public IdMsg() {
+    }
+
+    public IdMsg(int uid, String content) {
+      this.uid = uid;
+      this.content = content;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      IdMsg other = (IdMsg) obj;
+      return id == other.id && uid == other.uid && content.equals(other.content);
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) id;
+    }
+
+    public long getId() {
+      return id;
+    }
+
+    public void setId(long id) {
+      this.id = id;
+    }
+
+    public int getUid() {
+      return uid;
+    }
+
+    public void setUid(int uid) {
+      this.uid = uid;
+    }
+
+    public String getContent() {
+      return content;
+    }
+
+    public void setContent(String content) {
+      this.content = content;
+    }
+  }
+
+}
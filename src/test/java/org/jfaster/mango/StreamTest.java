@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango;
+
+import org.jfaster.mango.annotation.DB;
+import org.jfaster.mango.annotation.FetchSize;
+import org.jfaster.mango.annotation.ReturnGeneratedId;
+import org.jfaster.mango.annotation.SQL;
+import org.jfaster.mango.jdbc.CloseableIterator;
+import org.jfaster.mango.operator.Mango;
+import org.jfaster.mango.support.DataSourceConfig;
+import org.jfaster.mango.support.Table;
+import org.jfaster.mango.support.model4table.Msg;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * 测试流式查询
+ *
+ * @author ash
+ */
+public class StreamTest {
+
+  private final static DataSource ds = DataSourceConfig.getDataSource();
+  private final static Mango mango = Mango.newInstance(ds);
+  private final static MsgDao dao = mango.create(MsgDao.class);
+
+  @Before
+  public void before() throws Exception {
+    Connection conn = ds.getConnection();
+    Table.MSG.load(conn);
+    conn.close();
+  }
+
+  @Test
+  public void testStream() throws Exception {
+    List<Msg> msgs = insertMsgs(5, 100);
+    try (Stream<Msg> stream = dao.streamMsgs(100)) {
+      assertThat(stream.collect(Collectors.toList()), equalTo(msgs));
+    }
+  }
+
+  @Test
+  public void testIterator() throws Exception {
+    List<Msg> msgs = insertMsgs(5, 100);
+    Iterator<Msg> it = dao.iterateMsgs(100);
+    List<Msg> actual = new ArrayList<Msg>();
+    while (it.hasNext()) {
+      actual.add(it.next());
+    }
+    assertThat(actual, equalTo(msgs));
+    assertThat(it.hasNext(), is(false));
+  }
+
+  @Test
+  public void testCloseBeforeExhausted() throws Exception {
+    List<Msg> msgs = insertMsgs(5, 100);
+    for (int i = 0; i < 50; i++) {
+      try (CloseableIterator<Msg> it = (CloseableIterator<Msg>) dao.iterateMsgs(100)) {
+        assertThat(it.next(), equalTo(msgs.get(0)));
+      }
+      try (Stream<Msg> stream = dao.streamMsgs(100)) {
+        assertThat(stream.findFirst().get(), equalTo(msgs.get(0)));
+      }
+    }
+    assertThat(dao.getMsgs(100), equalTo(msgs));
+  }
+
+  @Test
+  public void testEmptyList() throws Exception {
+    insertMsgs(5, 100);
+    try (Stream<Msg> stream = dao.streamMsgsByIds(new ArrayList<Integer>())) {
+      assertThat(stream.count(), equalTo(0L));
+    }
+  }
+
+  private List<Msg> insertMsgs(int num, int uid) {
+    List<Msg> msgs = Msg.createRandomMsgs(num);
+    for (Msg msg : msgs) {
+      msg.setUid(uid);
+      msg.setId(dao.insert(msg));
+    }
+    return msgs;
+  }
+
+  @DB(table = "msg")
+  interface MsgDao {
+
+    @ReturnGeneratedId
+    @SQL("insert into #table(uid, content) values(:uid, :content)")
+    int insert(Msg msg);
+
+    @SQL("select id, uid, content from #table where uid = :1 order by id")
+    List<Msg> getMsgs(int uid);
+
+    @FetchSize(2)
+    @SQL("select id, uid, content from #table where uid = :1 order by id")
+    Stream<Msg> streamMsgs(int uid);
+
+    @SQL("select id, uid, content from #table where uid = :1 order by id")
+    Iterator<Msg> iterateMsgs(int uid);
+
+    @SQL("select id, uid, content from #table where id in (:1)")
+    Stream<Msg> streamMsgsByIds(List<Integer> ids);
+
+  }
+
+}
@@ -59,6 +59,29 @@ public class DefaultParameterContextTest {
     checkBindingParameterInvoker(ctx, "2", "userId", String.class);
   }
 
+  @Test
+  public void testSlot() throws Exception {
+    List<Annotation> empty = Collections.emptyList();
+    ParameterDescriptor p0 = ParameterDescriptor.create(0, String.class, empty, "1");
+    ParameterDescriptor p1 = ParameterDescriptor.create(1, User.class, empty, "2");
+    ParameterContext ctx = DefaultParameterContext.create(Arrays.asList(p0, p1));
+    BindingParameterInvoker i1 = ctx.getBindingParameterInvoker(BindingParameter.create("1", "", null));
+    BindingParameterInvoker i2 = ctx.getBindingParameterInvoker(BindingParameter.create("2", "userId", null));
+    BindingParameterInvoker i3 = ctx.getBindingParameterInvoker(BindingParameter.create("1", "", null));
+    assertThat(i1.getSlot(), equalTo(0));
+    assertThat(i2.getSlot(), equalTo(1));
+    assertThat(i3.getSlot(), equalTo(0));
+    assertThat(ctx.getSlotCount(), equalTo(2));
+
+    User user = new User();
+    user.setUserId("9527");
+    InvocationContext invCtx = InvocationContextFactory.create(ctx).newInvocationContext(new Object[]{"ash", user});
+    assertThat(invCtx.getBindingValue(i1), equalTo((Object) "ash"));
+    assertThat(invCtx.getBindingValue(i2), equalTo((Object) "9527"));
+    invCtx.setBindingValue(i3, "mango");
+    assertThat(invCtx.getBindingValue(i1), equalTo((Object) "mango"));
+  }
+
   private void checkBindingParameterInvoker(ParameterContext ctx, String parameterName, String propertyPath, Type type) {
     assertThat(ctx.getBindingParameterInvoker(BindingParameter.create(parameterName, propertyPath, null)).getTargetType(), equalTo(type));
   }
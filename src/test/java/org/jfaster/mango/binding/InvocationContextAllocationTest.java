@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.binding;
+
+import com.google.common.collect.Lists;
+import org.jfaster.mango.descriptor.ParameterDescriptor;
+import org.jfaster.mango.parser.ASTRootNode;
+import org.jfaster.mango.parser.SqlParser;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * 测试一次简单查询在渲染阶段分配的内存
+ *
+ * @author ash
+ */
+public class InvocationContextAllocationTest {
+
+  private static final int WARMUP = 50000;
+  private static final int ITERATIONS = 100000;
+
+  @Test
+  public void testAllocation() throws Exception {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+    Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+
+    ParameterContext context = createParameterContext(int.class, String.class);
+    ASTRootNode rootNode = SqlParser.parse("select id, name from user where id = :1 and name = :2").init();
+    rootNode.expandParameter(context);
+    rootNode.checkAndBind(context);
+    InvocationContextFactory factory = InvocationContextFactory.create(context);
+    Object[] values = new Object[]{1, "ash"};
+
+    BoundSql boundSql = run(factory, rootNode, values, 1);
+    assertThat(boundSql.getSql(), equalTo("select id, name from user where id = ? and name = ?"));
+    assertThat(boundSql.getArgs(), contains(values));
+
+    run(factory, rootNode, values, WARMUP);
+    long threadId = Thread.currentThread().getId();
+    long start = threadBean.getThreadAllocatedBytes(threadId);
+    run(factory, rootNode, values, ITERATIONS);
+    long bytesPerOp = (threadBean.getThreadAllocatedBytes(threadId) - start) / ITERATIONS;
+
+    // 上下文，参数列表视图，args与typeHandlers列表，sql字符串与BoundSql
+    assertThat(bytesPerOp, lessThan(512L));
+  }
+
+  private static BoundSql run(InvocationContextFactory factory, ASTRootNode rootNode,
+                              Object[] values, int iterations) {
+    BoundSql boundSql = null;
+    for (int i = 0; i < iterations; i++) {
+      InvocationContext context = factory.newInvocationContext(values);
+      rootNode.render(context);
+      boundSql = context.getBoundSql();
+    }
+    return boundSql;
+  }
+
+  private static ParameterContext createParameterContext(Type... types) {
+    List<Annotation> empty = Collections.emptyList();
+    List<ParameterDescriptor> pds = Lists.newArrayList();
+    for (int i = 0; i < types.length; i++) {
+      pds.add(ParameterDescriptor.create(i, types[i], empty, String.valueOf(i + 1)));
+    }
+    return DefaultParameterContext.create(pds);
+  }
+
+}
@@ -19,6 +19,7 @@ package org.jfaster.mango.crud;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.jfaster.mango.annotation.DB;
+import org.jfaster.mango.annotation.SQL;
 import org.jfaster.mango.operator.Mango;
 import org.jfaster.mango.page.Direction;
 import org.jfaster.mango.page.Page;
@@ -31,6 +32,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -47,11 +50,14 @@ public class InternalCrudDaoTest {
   private final static Mango mango = Mango.newInstance(ds);
   private final static OrderDao dao = mango.create(OrderDao.class);
   private final static MsgDao msgDao = mango.create(MsgDao.class);
+  private final static TrackedMsgDao trackedMsgDao = mango.create(TrackedMsgDao.class);
+  private final static TrackedUserDao trackedUserDao = mango.create(TrackedUserDao.class);
 
   @Before
   public void before() throws Exception {
     Table.ORDER.load(ds);
     Table.MSG.load(ds);
+    Table.USER.load(ds);
   }
 
   @Test
@@ -70,6 +76,50 @@ public class InternalCrudDaoTest {
     assertThat(dbMsg, equalTo(msg));
   }
 
+  @Test
+  public void testBatchAddAndReturnGeneratedIds() {
+    List<Msg> msgs = Msg.createRandomMsgs(5);
+    long[] ids = msgDao.addAndReturnGeneratedIds(msgs);
+    assertThat(ids.length, equalTo(5));
+    for (int i = 0; i < msgs.size(); i++) {
+      Msg msg = msgs.get(i);
+      assertThat((long) msg.getId(), equalTo(ids[i]));
+      assertThat(msgDao.getOne(msg.getId()), equalTo(msg));
+    }
+  }
+
+  @Test
+  public void testUpsert() {
+    CrudOrder co = CrudOrder.createRandomCrudOrder();
+    assertThat(dao.upsert(co), equalTo(1));
+    assertThat(dao.getOne(co.getId()), equalTo(co));
+    co.setPrice(co.getPrice() + 100);
+    dao.upsert(co);
+    assertThat(dao.getOne(co.getId()), equalTo(co));
+    assertThat(dao.count(), equalTo(1L));
+  }
+
+  @Test
+  public void testBatchUpsert() {
+    List<CrudOrder> cos = CrudOrder.createRandomCrudOrders(5);
+    dao.add(cos.subList(0, 2));
+    for (CrudOrder co : cos) {
+      co.setPrice(co.getPrice() + 100);
+    }
+    int[] r = dao.upsert(cos);
+    assertThat(r.length, equalTo(5));
+    assertThat(Sets.newHashSet(dao.findAll()), equalTo(Sets.newHashSet(cos)));
+  }
+
+  @Test
+  public void testAddIfAbsent() {
+    CrudOrder co = CrudOrder.createRandomCrudOrder();
+    assertThat(dao.addIfAbsent(co), equalTo(true));
+    CrudOrder co2 = CrudOrder.createCrudOrder(co.getId(), co.getUserId() + 1, co.getPrice() + 1);
+    assertThat(dao.addIfAbsent(co2), equalTo(false));
+    assertThat(dao.getOne(co.getId()), equalTo(co));
+  }
+
   @Test
   public void testBatchAdd() {
     List<CrudOrder> cos = CrudOrder.createRandomCrudOrders(5);
@@ -150,6 +200,91 @@ public class InternalCrudDaoTest {
     assertThat(dao.update(Lists.newArrayList()).length, equalTo(0));
   }
 
+  @Test
+  public void testUpdateChangedProperties() {
+    Msg msg = Msg.createRandomMsg();
+    int id = (int) msgDao.addAndReturnGeneratedId(msg);
+    TrackedMsg tm = trackedMsgDao.getOne(id);
+    assertThat(trackedMsgDao.update(tm), equalTo(0)); // 没有变化不执行
+
+    msg.setId(id);
+    msg.setUid(100);
+    msgDao.update(msg); // 其他地方修改了uid
+    tm.setContent("changed");
+    assertThat(trackedMsgDao.update(tm), equalTo(1));
+    msg.setContent("changed");
+    assertThat(msgDao.getOne(id), equalTo(msg)); // 只更新了content
+  }
+
+  @Test
+  public void testUpdateChangedBack() {
+    Msg msg = Msg.createRandomMsg();
+    msg.setContent("a");
+    int id = (int) msgDao.addAndReturnGeneratedId(msg);
+    TrackedMsg tm = trackedMsgDao.getOne(id);
+    tm.setContent("b");
+    assertThat(trackedMsgDao.update(tm), equalTo(1));
+    tm.setContent("a"); // 改回查询时的值，快照已刷新为b
+    assertThat(trackedMsgDao.update(tm), equalTo(1));
+    assertThat(msgDao.getOne(id).getContent(), equalTo("a"));
+
+    List<TrackedMsg> tms = Lists.newArrayList(tm);
+    tm.setContent("b");
+    assertThat(trackedMsgDao.update(tms)[0], equalTo(1));
+    tm.setContent("a");
+    assertThat(trackedMsgDao.update(tms)[0], equalTo(1));
+    assertThat(msgDao.getOne(id).getContent(), equalTo("a"));
+  }
+
+  @Test
+  public void testUpdateMutablePropertyInPlace() {
+    TrackedUser tu = new TrackedUser();
+    tu.setName("ash");
+    tu.setUpdateTime(new Date(1000000000000L));
+    int id = (int) trackedUserDao.addAndReturnGeneratedId(tu);
+    tu = trackedUserDao.getOne(id);
+    tu.getUpdateTime().setTime(2000000000000L); // 原地修改，快照中的引用指向同一个对象
+    assertThat(trackedUserDao.update(tu), equalTo(1));
+    assertThat(trackedUserDao.getOne(id).getUpdateTime().getTime(), equalTo(2000000000000L));
+    assertThat(trackedUserDao.getOne(id).getName(), equalTo("ash"));
+  }
+
+  @Test
+  public void testCustomUpdateNotTracked() {
+    Msg msg = Msg.createRandomMsg();
+    msg.setUid(1);
+    int id = (int) msgDao.addAndReturnGeneratedId(msg);
+    TrackedMsg tm = trackedMsgDao.getOne(id);
+    assertThat(trackedMsgDao.incrUid(tm), equalTo(1)); // sql的效果不来自实体属性，照常执行
+    assertThat(trackedMsgDao.updateContentByUid(tm), equalTo(0)); // where中的#if不受快照影响
+    assertThat(msgDao.getOne(id).getUid(), equalTo(2));
+  }
+
+  @Test
+  public void testBatchUpdateChangedProperties() {
+    List<Msg> msgs = Msg.createRandomMsgs(3);
+    for (Msg msg : msgs) {
+      msg.setId((int) msgDao.addAndReturnGeneratedId(msg));
+    }
+    List<TrackedMsg> tms = trackedMsgDao.findMany(Lists.newArrayList(
+        msgs.get(0).getId(), msgs.get(1).getId(), msgs.get(2).getId()));
+    assertThat(tms, hasSize(3));
+    for (TrackedMsg tm : tms) {
+      if (tm.getId() == msgs.get(0).getId()) {
+        tm.setUid(200);
+      } else if (tm.getId() == msgs.get(2).getId()) {
+        tm.setContent("changed");
+      }
+    }
+    int[] r = trackedMsgDao.update(tms);
+    assertThat(r[0] + r[1] + r[2], equalTo(2));
+    msgs.get(0).setUid(200);
+    msgs.get(2).setContent("changed");
+    for (Msg msg : msgs) {
+      assertThat(msgDao.getOne(msg.getId()), equalTo(msg));
+    }
+  }
+
   @Test
   public void testDelete() {
     CrudOrder co = CrudOrder.createRandomCrudOrder();
@@ -160,6 +295,56 @@ public class InternalCrudDaoTest {
     assertThat(dao.delete(co.getId()), equalTo(0));
   }
 
+  @Test
+  public void testBatchDelete() {
+    Mango m = Mango.newInstance(ds);
+    m.setMaxInListSize(2); // 拆成多条语句执行
+    OrderDao orderDao = m.create(OrderDao.class);
+    List<CrudOrder> cos = CrudOrder.createRandomCrudOrders(5);
+    orderDao.add(cos);
+    List<String> ids = Lists.newArrayList(cos.get(0).getId(), cos.get(2).getId(), cos.get(4).getId());
+    assertThat(orderDao.delete(ids), equalTo(3));
+    assertThat(Sets.newHashSet(orderDao.findAll()), equalTo(Sets.newHashSet(cos.get(1), cos.get(3))));
+    assertThat(orderDao.delete(Lists.<String>newArrayList()), equalTo(0));
+  }
+
+  @Test
+  public void testSplitDeleteRollback() {
+    Mango m = Mango.newInstance(ds);
+    m.setMaxInListSize(2); // 拆成多条语句执行
+    SplitMsgDao splitMsgDao = m.create(SplitMsgDao.class);
+    List<String> ids = new ArrayList<String>();
+    for (Msg msg : Msg.createRandomMsgs(3)) {
+      ids.add(String.valueOf(msgDao.addAndReturnGeneratedId(msg)));
+    }
+    ids.add("x"); // 第二条语句执行失败
+    try {
+      splitMsgDao.deleteByIds(ids);
+      throw new AssertionError("expected exception");
+    } catch (AssertionError e) {
+      throw e;
+    } catch (RuntimeException e) {
+      // 第一条语句随之回滚
+    }
+    assertThat(msgDao.findAll(), hasSize(3));
+  }
+
+  @Test
+  public void testUpdateMany() {
+    List<CrudOrder> cos = CrudOrder.createRandomCrudOrders(3);
+    dao.add(cos);
+    CrudOrder values = new CrudOrder();
+    values.setUserId(7);
+    values.setPrice(999);
+    List<String> ids = Lists.newArrayList(cos.get(0).getId(), cos.get(1).getId());
+    assertThat(dao.updateMany(ids, values), equalTo(2));
+    for (int i = 0; i < 2; i++) {
+      cos.get(i).setUserId(7);
+      cos.get(i).setPrice(999);
+    }
+    assertThat(Sets.newHashSet(dao.findAll()), equalTo(Sets.newHashSet(cos)));
+  }
+
   @Test
   public void testFindAll() {
     assertThat(dao.findAll(), hasSize(0));
@@ -224,4 +409,27 @@ public class InternalCrudDaoTest {
   interface MsgDao extends CrudDao<Msg, Integer> {
   }
 
+  @DB(table = "msg")
+  interface SplitMsgDao {
+
+    @SQL("delete from #table where id in (:1)")
+    int deleteByIds(List<String> ids);
+
+  }
+
+  @DB(table = "user")
+  interface TrackedUserDao extends CrudDao<TrackedUser, Integer> {
+  }
+
+  @DB(table = "msg")
+  interface TrackedMsgDao extends CrudDao<TrackedMsg, Integer> {
+
+    @SQL("update #table set uid = uid + 1 where id = :id")
+    int incrUid(TrackedMsg msg);
+
+    @SQL("update #table set content = :content where id = :id #if(:uid != null) and uid = :uid #end")
+    int updateContentByUid(TrackedMsg msg);
+
+  }
+
 }
\ No newline at end of file
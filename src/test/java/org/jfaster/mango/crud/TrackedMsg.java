@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.crud;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import org.jfaster.mango.annotation.AutoGenerated;
+import org.jfaster.mango.annotation.ID;
+
+import java.util.Map;
+
+/**
+ * @author ash
+ */
+public class TrackedMsg implements ChangeTrackable {
+
+  @ID
+  @AutoGenerated
+  private int id;
+  private int uid;
+  private String content;
+
+  private Map<String, Object> snapshot;
+
+  @Override
+  public Map<String, Object> snapshot() {
+    return snapshot;
+  }
+
+  @Override
+  public void snapshot(Map<String, Object> snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    final TrackedMsg other = (TrackedMsg) obj;
+    return Objects.equal(this.id, other.id)
+        && Objects.equal(this.uid, other.uid)
+        && Objects.equal(this.content, other.content);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("id", id).add("uid", uid).add("content", content).toString();
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public void setId(int id) {
+    this.id = id;
+  }
+
+  public int getUid() {
+    return uid;
+  }
+
+  public void setUid(int uid) {
+    this.uid = uid;
+  }
+
+  public String getContent() {
+    return content;
+  }
+
+  public void setContent(String content) {
+    this.content = content;
+  }
+}
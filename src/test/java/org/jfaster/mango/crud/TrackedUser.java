@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.crud;
+
+import org.jfaster.mango.annotation.AutoGenerated;
+import org.jfaster.mango.annotation.ID;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * @author ash
+ */
+public class TrackedUser implements ChangeTrackable {
+
+  @ID
+  @AutoGenerated
+  private int id;
+  private String name;
+  private Date updateTime;
+
+  private Map<String, Object> snapshot;
+
+  @Override
+  public Map<String, Object> snapshot() {
+    return snapshot;
+  }
+
+  @Override
+  public void snapshot(Map<String, Object> snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public void setId(int id) {
+    this.id = id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public Date getUpdateTime() {
+    return updateTime;
+  }
+
+  public void setUpdateTime(Date updateTime) {
+    this.updateTime = updateTime;
+  }
+}
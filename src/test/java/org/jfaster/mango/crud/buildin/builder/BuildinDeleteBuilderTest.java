@@ -32,4 +32,10 @@ public class BuildinDeleteBuilderTest {
     assertThat(b.buildSql(), equalTo("delete from #table where id2 = :1"));
   }
 
+  @Test
+  public void buildBatch() throws Exception {
+    BuildinDeleteBuilder b = new BuildinDeleteBuilder("id2", true);
+    assertThat(b.buildSql(), equalTo("delete from #table where id2 in (:1)"));
+  }
+
 }
\ No newline at end of file
@@ -45,4 +45,12 @@ public class BuildinUpdateBuilderTest {
     assertThat(b.buildSql(), equalTo("update #table set #if (:userAge != null) user_age = :userAge,#end #trim_comma where order_id = :orderId"));
   }
 
+  @Test
+  public void buildMany() throws Exception {
+    List<String> properties = Lists.newArrayList("id", "userName", "userAge");
+    List<String> columns = Lists.newArrayList("id", "user_name", "user_age");
+    BuildinUpdateBuilder b = new BuildinUpdateBuilder("id", "id", properties, columns, true);
+    assertThat(b.buildSql(), equalTo("update #table set #if (:2.userName != null) user_name = :2.userName,#end #if (:2.userAge != null) user_age = :2.userAge,#end #trim_comma where id in (:1)"));
+  }
+
 }
\ No newline at end of file
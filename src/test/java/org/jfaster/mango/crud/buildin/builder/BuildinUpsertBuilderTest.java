@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.crud.buildin.builder;
+
+import com.google.common.collect.Lists;
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.util.jdbc.Dialect;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * @author ash
+ */
+public class BuildinUpsertBuilderTest {
+
+  private final List<String> properties = Lists.newArrayList("id", "userName", "userAge");
+  private final List<String> columns = Lists.newArrayList("id", "user_name", "user_age");
+
+  @Test
+  public void buildUpsert() throws Exception {
+    BuildinUpsertBuilder b = new BuildinUpsertBuilder("id", null, properties, columns, false);
+    assertThat(b.buildSql(Dialect.MYSQL), equalTo("insert into #table(id, user_name, user_age) " +
+        "values(:id, :userName, :userAge) on duplicate key update " +
+        "user_name = values(user_name), user_age = values(user_age)"));
+    assertThat(b.buildSql(Dialect.POSTGRESQL), equalTo("insert into #table(id, user_name, user_age) " +
+        "values(:id, :userName, :userAge) on conflict (id) do update set " +
+        "user_name = excluded.user_name, user_age = excluded.user_age"));
+    assertThat(b.buildSql(Dialect.HSQLDB), equalTo("merge into #table t " +
+        "using (values(:id, :userName, :userAge)) s(id, user_name, user_age) on (t.id = s.id) " +
+        "when matched then update set t.user_name = s.user_name, t.user_age = s.user_age " +
+        "when not matched then insert (id, user_name, user_age) values (s.id, s.user_name, s.user_age)"));
+    assertThat(b.buildSql(Dialect.ORACLE), equalTo("merge into #table t " +
+        "using (select :id id, :userName user_name, :userAge user_age from dual) s on (t.id = s.id) " +
+        "when matched then update set t.user_name = s.user_name, t.user_age = s.user_age " +
+        "when not matched then insert (id, user_name, user_age) values (s.id, s.user_name, s.user_age)"));
+  }
+
+  @Test
+  public void buildAddIfAbsent() throws Exception {
+    BuildinUpsertBuilder b = new BuildinUpsertBuilder("id", null, properties, columns, true);
+    assertThat(b.buildSql(Dialect.MYSQL), equalTo("insert into #table(id, user_name, user_age) " +
+        "select :id, :userName, :userAge from dual where not exists (select 1 from #table where id = :id)"));
+    assertThat(b.buildSql(Dialect.POSTGRESQL), equalTo("insert into #table(id, user_name, user_age) " +
+        "values(:id, :userName, :userAge) on conflict (id) do nothing"));
+    assertThat(b.buildSql(Dialect.HSQLDB), equalTo("merge into #table t " +
+        "using (values(:id, :userName, :userAge)) s(id, user_name, user_age) on (t.id = s.id) " +
+        "when not matched then insert (id, user_name, user_age) values (s.id, s.user_name, s.user_age)"));
+  }
+
+  @Test
+  public void buildWithAutoGenerated() throws Exception {
+    List<String> properties = Lists.newArrayList("id", "orderId", "userAge");
+    List<String> columns = Lists.newArrayList("id", "order_id", "user_age");
+    BuildinUpsertBuilder b = new BuildinUpsertBuilder("orderId", "id", properties, columns, false);
+    assertThat(b.buildSql(), equalTo("insert into #table(order_id, user_age) " +
+        "values(:orderId, :userAge) on duplicate key update user_age = values(user_age)"));
+  }
+
+  @Test(expected = DescriptionException.class)
+  public void buildUnknown() throws Exception {
+    new BuildinUpsertBuilder("id", null, properties, columns, false).buildSql(Dialect.UNKNOWN);
+  }
+
+}
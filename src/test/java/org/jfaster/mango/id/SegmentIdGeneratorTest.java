@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.id;
+
+import org.jfaster.mango.jdbc.exception.DataRetrievalFailureException;
+import org.jfaster.mango.operator.Mango;
+import org.jfaster.mango.support.DataSourceConfig;
+import org.jfaster.mango.support.Table;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * @author ash
+ */
+public class SegmentIdGeneratorTest {
+
+  private final static DataSource ds = DataSourceConfig.getDataSource();
+  private final static Mango mango = Mango.newInstance(ds);
+
+  @Before
+  public void before() throws Exception {
+    Table.MANGO_SEQUENCE.load(ds);
+  }
+
+  @Test
+  public void testSequential() throws Exception {
+    SegmentIdGenerator g = new SegmentIdGenerator(mango, "msg", 10);
+    for (long i = 1; i <= 21; i++) {
+      assertThat(g.nextId(), equalTo(i));
+    }
+    // 已预留3个号段，第3个号段尚未触发预取
+    SegmentIdGenerator g2 = new SegmentIdGenerator(mango, "msg", 10);
+    assertThat(g2.nextId(), equalTo(31L));
+  }
+
+  @Test
+  public void testConcurrent() throws Exception {
+    final SegmentIdGenerator g = new SegmentIdGenerator(mango, "msg", 7);
+    ExecutorService es = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<List<Long>>> futures = new ArrayList<Future<List<Long>>>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(es.submit(() -> {
+          List<Long> ids = new ArrayList<Long>();
+          for (int j = 0; j < 250; j++) {
+            ids.add(g.nextId());
+          }
+          return ids;
+        }));
+      }
+      List<Long> ids = new ArrayList<Long>();
+      for (Future<List<Long>> future : futures) {
+        ids.addAll(future.get());
+      }
+      Collections.sort(ids);
+      for (int i = 0; i < ids.size(); i++) {
+        assertThat(ids.get(i), equalTo((long) i + 1));
+      }
+    } finally {
+      es.shutdown();
+    }
+  }
+
+  @Test(expected = DataRetrievalFailureException.class)
+  public void testUnknownBizTag() throws Exception {
+    new SegmentIdGenerator(mango, "unknown", 10).nextId();
+  }
+
+}
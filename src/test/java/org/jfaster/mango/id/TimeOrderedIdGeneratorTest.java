@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.id;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * @author ash
+ */
+public class TimeOrderedIdGeneratorTest {
+
+  @Test
+  public void testLayout() throws Exception {
+    FixedClockGenerator g = new FixedClockGenerator(5);
+    g.now = TimeOrderedIdGenerator.DEFAULT_EPOCH + 1000;
+    long id = g.nextId();
+    assertThat(id, equalTo((1000L << 22) | (5L << 12)));
+    assertThat(g.getTimeMillis(id), equalTo(g.now));
+    assertThat(g.nextId(), equalTo(id + 1));
+  }
+
+  @Test
+  public void testSequenceOverflow() throws Exception {
+    FixedClockGenerator g = new FixedClockGenerator(0);
+    g.now = TimeOrderedIdGenerator.DEFAULT_EPOCH + 1000;
+    long last = 0;
+    for (int i = 0; i < 4096; i++) {
+      last = g.nextId();
+    }
+    assertThat(g.getTimeMillis(last), equalTo(g.now));
+    long id = g.nextId(); // 同一毫秒内序列号用尽，借用下一毫秒
+    assertThat(id, greaterThan(last));
+    assertThat(g.getTimeMillis(id), equalTo(g.now + 1));
+  }
+
+  @Test
+  public void testClockBackwards() throws Exception {
+    FixedClockGenerator g = new FixedClockGenerator(0);
+    g.now = TimeOrderedIdGenerator.DEFAULT_EPOCH + 1000;
+    long id = g.nextId();
+    g.now -= 10;
+    long id2 = g.nextId();
+    assertThat(id2, equalTo(id + 1));
+  }
+
+  @Test
+  public void testConcurrent() throws Exception {
+    final TimeOrderedIdGenerator g = new TimeOrderedIdGenerator(1);
+    final Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+    int threadNum = 8;
+    final int idNum = 10000;
+    final CountDownLatch latch = new CountDownLatch(threadNum);
+    for (int i = 0; i < threadNum; i++) {
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          Set<Long> local = new HashSet<Long>();
+          for (int j = 0; j < idNum; j++) {
+            local.add(g.nextId());
+          }
+          ids.addAll(local);
+          latch.countDown();
+        }
+      }).start();
+    }
+    latch.await();
+    assertThat(ids.size(), equalTo(threadNum * idNum));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalWorkerId() throws Exception {
+    new TimeOrderedIdGenerator(TimeOrderedIdGenerator.MAX_WORKER_ID + 1);
+  }
+
+  static class FixedClockGenerator extends TimeOrderedIdGenerator {
+
+    long now;
+
+    FixedClockGenerator(long workerId) {
+      super(workerId);
+    }
+
+    @Override
+    protected long currentTimeMillis() {
+      return now;
+    }
+  }
+
+}
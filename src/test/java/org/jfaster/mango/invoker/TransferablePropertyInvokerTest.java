@@ -17,6 +17,7 @@
 package org.jfaster.mango.invoker;
 
 import org.jfaster.mango.annotation.Transfer;
+import org.jfaster.mango.exception.UncheckedException;
 import org.jfaster.mango.invoker.transfer.IntegerListToStringTransfer;
 import org.jfaster.mango.util.bean.BeanUtil;
 import org.jfaster.mango.util.bean.PropertyMeta;
@@ -106,6 +107,115 @@ public class TransferablePropertyInvokerTest {
     TransferablePropertyInvoker.create(idMeta);
   }
 
+  @Test
+  public void invokePublicClass() {
+    TransferableInvoker idInvoker = TransferablePropertyInvoker.create(BeanUtil.fetchPropertyMeta(ClassC.class, "id"));
+    TransferableInvoker moneyInvoker = TransferablePropertyInvoker.create(BeanUtil.fetchPropertyMeta(ClassC.class, "money"));
+    ClassC c = new ClassC();
+    idInvoker.invokeSet(c, 100);
+    moneyInvoker.invokeSet(c, 10L);
+    assertThat(c.getId(), is(100));
+    assertThat(c.getMoney(), is(10L));
+    assertThat(idInvoker.invokeGet(c), is((Object) 100));
+    assertThat(moneyInvoker.invokeGet(c), is((Object) 10L));
+
+    moneyInvoker.invokeSet(c, 20); // int拓宽为long
+    assertThat(c.getMoney(), is(20L));
+  }
+
+  @Test
+  public void primitiveSetter() {
+    TransferablePropertyInvoker idInvoker =
+        TransferablePropertyInvoker.create(BeanUtil.fetchPropertyMeta(ClassC.class, "id"));
+    TransferablePropertyInvoker moneyInvoker =
+        TransferablePropertyInvoker.create(BeanUtil.fetchPropertyMeta(ClassC.class, "money"));
+    assertThat(idInvoker.getIntSetter(), notNullValue());
+    assertThat(idInvoker.getLongSetter(), nullValue());
+    assertThat(moneyInvoker.getLongSetter(), notNullValue());
+    assertThat(moneyInvoker.getIntSetter(), nullValue());
+
+    ClassC c = new ClassC();
+    idInvoker.getIntSetter().accept(c, 9527);
+    moneyInvoker.getLongSetter().accept(c, 1L << 40);
+    assertThat(c.getId(), is(9527));
+    assertThat(c.getMoney(), is(1L << 40));
+
+    TransferablePropertyInvoker subIdsInvoker =
+        TransferablePropertyInvoker.create(BeanUtil.fetchPropertyMeta(ClassA.class, "subIds"));
+    assertThat(subIdsInvoker.getIntSetter(), nullValue());
+  }
+
+  @Test
+  public void invokeSetArgumentMismatch() {
+    thrown.expect(IllegalArgumentException.class);
+    TransferableInvoker idInvoker = TransferablePropertyInvoker.create(BeanUtil.fetchPropertyMeta(ClassC.class, "id"));
+    idInvoker.invokeSet(new ClassC(), "100");
+  }
+
+  @Test
+  public void invokeGetterException() {
+    thrown.expect(UncheckedException.class);
+    thrown.expectMessage("error getter");
+    TransferableInvoker errorInvoker = TransferablePropertyInvoker.create(BeanUtil.fetchPropertyMeta(ClassC.class, "error"));
+    errorInvoker.invokeGet(new ClassC());
+  }
+
+  @Test
+  public void invokePropertyPath() {
+    TransferableInvoker invoker = InvokerCache.getInvoker(ClassD.class, "c.money");
+    assertThat(invoker.getName(), is("c.money"));
+    assertThat(invoker.getColumnType(), is((Type) long.class));
+
+    ClassD d = new ClassD();
+    assertThat(invoker.invokeGet(d), nullValue());
+    d.setC(new ClassC());
+    invoker.invokeSet(d, 99L);
+    assertThat(d.getC().getMoney(), is(99L));
+    assertThat(invoker.invokeGet(d), is((Object) 99L));
+  }
+
+  public static class ClassC {
+
+    private int id;
+    private long money;
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public long getMoney() {
+      return money;
+    }
+
+    public void setMoney(long money) {
+      this.money = money;
+    }
+
+    public String getError() {
+      throw new IllegalStateException("error getter");
+    }
+
+    public void setError(String error) {
+    }
+  }
+
+  public static class ClassD {
+
+    private ClassC c;
+
+    public ClassC getC() {
+      return c;
+    }
+
+    public void setC(ClassC c) {
+      this.c = c;
+    }
+  }
+
   private static class ClassA {
 
     private int id;
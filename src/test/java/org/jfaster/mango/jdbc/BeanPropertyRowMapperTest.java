@@ -19,7 +19,9 @@ package org.jfaster.mango.jdbc;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import org.jfaster.mango.annotation.*;
+import org.jfaster.mango.mapper.BeanPropertyRowMapper;
 import org.jfaster.mango.mapper.MappingException;
+import org.jfaster.mango.mapper.SingleColumnRowMapper;
 import org.jfaster.mango.operator.Mango;
 import org.jfaster.mango.support.DataSourceConfig;
 import org.jfaster.mango.support.Randoms;
@@ -31,9 +33,23 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -111,6 +127,141 @@ public class BeanPropertyRowMapperTest {
     }
   }
 
+  @Test
+  public void testMappingPlan() throws Exception {
+    MsgDao dao = mango.create(MsgDao.class);
+    List<MullMsg> msgs = MullMsg.createRandomMsgs(5);
+    for (MullMsg msg : msgs) {
+      msg.setIdxx(dao.insert(msg.getUid(), msg.getYyCon()));
+    }
+    Map<String, String> propertyToColumnMap = new HashMap<String, String>();
+    propertyToColumnMap.put("idxx", "id");
+    propertyToColumnMap.put("yyCon", "content");
+    BeanPropertyRowMapper<MullMsg> mapper =
+        new BeanPropertyRowMapper<MullMsg>(MullMsg.class, propertyToColumnMap, true);
+    SingleColumnRowMapper<Integer> idMapper = new SingleColumnRowMapper<Integer>(Integer.class);
+
+    Connection conn = ds.getConnection();
+    try {
+      AtomicInteger metaDataCount = new AtomicInteger();
+      List<MullMsg> dbMsgs = new ArrayList<MullMsg>();
+      List<Integer> ids = new ArrayList<Integer>();
+      ResultSet rs = countMetaData(conn.createStatement().executeQuery(
+          "select id, uid, content from msg order by id"), metaDataCount);
+      int rowNum = 0;
+      while (rs.next()) {
+        dbMsgs.add(mapper.mapRow(rs, rowNum));
+        ids.add(idMapper.mapRow(rs, rowNum));
+        rowNum++;
+      }
+      rs.close();
+      assertThat(dbMsgs, contains(msgs.toArray()));
+      assertThat(ids, hasSize(5));
+      assertThat(metaDataCount.get(), equalTo(2)); // 两个mapper各读取一次
+
+      // 结果集形状变化时使用新的映射计划
+      rs = countMetaData(conn.createStatement().executeQuery(
+          "select content, id from msg order by id"), metaDataCount);
+      assertThat(rs.next(), is(true));
+      MullMsg msg = mapper.mapRow(rs, 0);
+      assertThat(msg.getIdxx(), equalTo(msgs.get(0).getIdxx()));
+      assertThat(msg.getYyCon(), equalTo(msgs.get(0).getYyCon()));
+      assertThat(msg.getUid(), equalTo(0));
+      rs.close();
+    } finally {
+      conn.close();
+    }
+  }
+
+  @Test
+  public void testMappingPlanConcurrent() throws Exception {
+    MsgDao dao = mango.create(MsgDao.class);
+    List<MullMsg> msgs = MullMsg.createRandomMsgs(5);
+    for (MullMsg msg : msgs) {
+      msg.setIdxx(dao.insert(msg.getUid(), msg.getYyCon()));
+    }
+    Map<String, String> propertyToColumnMap = new HashMap<String, String>();
+    propertyToColumnMap.put("idxx", "id");
+    propertyToColumnMap.put("yyCon", "content");
+    final BeanPropertyRowMapper<MullMsg> mapper =
+        new BeanPropertyRowMapper<MullMsg>(MullMsg.class, propertyToColumnMap, true);
+    final DataSource ds2 = DataSourceConfig.getDataSource(0, true, 2);
+    final AtomicInteger metaDataCount = new AtomicInteger();
+    final CyclicBarrier barrier = new CyclicBarrier(2);
+    final List<List<MullMsg>> results = new CopyOnWriteArrayList<List<MullMsg>>();
+    ExecutorService es = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int i = 0; i < 2; i++) {
+        futures.add(es.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            Connection conn = ds2.getConnection();
+            try {
+              ResultSet rs = countMetaData(conn.createStatement().executeQuery(
+                  "select id, uid, content from msg order by id"), metaDataCount);
+              List<MullMsg> dbMsgs = new ArrayList<MullMsg>();
+              int rowNum = 0;
+              while (rs.next()) {
+                barrier.await(); // 两个线程交替映射各自结果集的行
+                dbMsgs.add(mapper.mapRow(rs, rowNum++));
+              }
+              rs.close();
+              results.add(dbMsgs);
+            } finally {
+              conn.close();
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      es.shutdown();
+    }
+    assertThat(results, hasSize(2));
+    for (List<MullMsg> dbMsgs : results) {
+      assertThat(dbMsgs, contains(msgs.toArray()));
+    }
+    assertThat(metaDataCount.get(), equalTo(2)); // 每个线程各读取一次
+  }
+
+  @Test
+  public void testNullToPrimitive() throws Exception {
+    thrown.expect(NullPointerException.class);
+    thrown.expectMessage("is primitive, can not be assigned to null");
+    BeanPropertyRowMapper<MullMsg> mapper =
+        new BeanPropertyRowMapper<MullMsg>(MullMsg.class, new HashMap<String, String>(), false);
+    Connection conn = ds.getConnection();
+    try {
+      ResultSet rs = conn.createStatement().executeQuery(
+          "select cast(null as int) as uid from (values(0))");
+      assertThat(rs.next(), is(true));
+      mapper.mapRow(rs, 0);
+    } finally {
+      conn.close();
+    }
+  }
+
+  private static ResultSet countMetaData(final ResultSet rs, final AtomicInteger count) {
+    return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("getMetaData")) {
+              count.incrementAndGet();
+            }
+            try {
+              return method.invoke(rs, args);
+            } catch (InvocationTargetException e) {
+              throw e.getCause();
+            }
+          }
+        });
+  }
+
   @DB(table = "msg")
   @Results({
       @Result(column = "id", property = "idxx"),
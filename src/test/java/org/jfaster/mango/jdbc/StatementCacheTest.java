@@ -0,0 +1,215 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.jdbc;
+
+import org.jfaster.mango.annotation.DB;
+import org.jfaster.mango.annotation.SQL;
+import org.jfaster.mango.operator.Mango;
+import org.jfaster.mango.support.DataSourceConfig;
+import org.jfaster.mango.support.Table;
+import org.jfaster.mango.transaction.Transaction;
+import org.jfaster.mango.transaction.TransactionFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * 测试PreparedStatement缓存
+ *
+ * @author ash
+ */
+public class StatementCacheTest {
+
+  private final static DataSource ds = DataSourceConfig.getDataSource();
+
+  @Before
+  public void before() throws Exception {
+    Connection conn = ds.getConnection();
+    Table.MSG.load(conn);
+    conn.close();
+  }
+
+  @Test
+  public void testCacheInTransaction() throws Exception {
+    CountingDataSource cds = new CountingDataSource(ds);
+    Mango mango = Mango.newInstance(cds);
+    mango.setStatementCacheSize(10);
+    MsgDao dao = mango.create(MsgDao.class);
+
+    long hitCount = StatementCache.getHitCount();
+    Transaction tx = TransactionFactory.newTransaction(cds);
+    for (int i = 1; i <= 5; i++) {
+      dao.insert(i, 100, "content");
+      assertThat(dao.getContent(i), equalTo("content"));
+    }
+    assertThat(cds.statements, hasSize(2));
+    assertThat(StatementCache.getHitCount() - hitCount, equalTo(8L));
+    for (PreparedStatement ps : cds.statements) {
+      assertThat(ps.isClosed(), is(false));
+    }
+    tx.commit();
+    for (PreparedStatement ps : cds.statements) {
+      assertThat(ps.isClosed(), is(true));
+    }
+  }
+
+  @Test
+  public void testCacheWithDifferentSqlBatch() throws Exception {
+    CountingDataSource cds = new CountingDataSource(ds);
+    Mango mango = Mango.newInstance(cds);
+    mango.setStatementCacheSize(1);
+    MsgDao dao = mango.create(MsgDao.class);
+    for (int i = 1; i <= 3; i++) {
+      dao.insert(i, 100, "content");
+    }
+    cds.statements.clear();
+    long evictionCount = StatementCache.getEvictionCount();
+
+    Transaction tx = TransactionFactory.newTransaction(cds);
+    dao.getContent(1);
+    dao.getContent(2);
+    dao.insert(4, 100, "content");
+    dao.getContent(3);
+    tx.commit();
+    assertThat(cds.statements, hasSize(3));
+    assertThat(StatementCache.getEvictionCount() - evictionCount, equalTo(2L));
+    for (PreparedStatement ps : cds.statements) {
+      assertThat(ps.isClosed(), is(true));
+    }
+  }
+
+  @Test
+  public void testCacheClearedWhenConnectionClosed() throws Exception {
+    CountingDataSource cds = new CountingDataSource(ds);
+    Mango mango = Mango.newInstance(cds);
+    mango.setStatementCacheSize(10);
+    MsgDao dao = mango.create(MsgDao.class);
+    dao.insert(1, 100, "content");
+    dao.getContent(1);
+    dao.getContent(1);
+    assertThat(cds.statements, hasSize(3));
+    for (PreparedStatement ps : cds.statements) {
+      assertThat(ps.isClosed(), is(true));
+    }
+  }
+
+  @DB(table = "msg")
+  interface MsgDao {
+
+    @SQL("insert into #table(id, uid, content) values(:1, :2, :3)")
+    int insert(int id, int uid, String content);
+
+    @SQL("select content from #table where id = :1")
+    String getContent(int id);
+
+  }
+
+  static class CountingDataSource implements DataSource {
+
+    private final DataSource ds;
+    private final List<PreparedStatement> statements = new ArrayList<PreparedStatement>();
+
+    CountingDataSource(DataSource ds) {
+      this.ds = ds;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      final Connection conn = ds.getConnection();
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+          new Class<?>[]{Connection.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+              Object r;
+              try {
+                r = method.invoke(conn, args);
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+              if (method.getName().equals("prepareStatement")) {
+                statements.add((PreparedStatement) r);
+              }
+              if (method.getName().equals("equals")) {
+                return proxy == args[0];
+              }
+              if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+              }
+              return r;
+            }
+          });
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+      return ds.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+      ds.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+      ds.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+      return ds.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+      return ds.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+      return ds.isWrapperFor(iface);
+    }
+
+  }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author ash
+ */
+public class BatchChunkSizerTest {
+
+  @Test
+  public void testFixed() throws Exception {
+    BatchChunkSizer sizer = new BatchChunkSizer(100, 0);
+    sizer.record(100, 1000000000L);
+    assertThat(sizer.getSize(), is(100));
+  }
+
+  @Test
+  public void testAdaptive() throws Exception {
+    BatchChunkSizer sizer = new BatchChunkSizer(100, 10);
+    sizer.record(100, 5000000L); // 比目标快一倍
+    assertThat(sizer.getSize(), is(200));
+    sizer.record(200, 1000000L); // 每次最多放大一倍，最多为初始大小的4倍
+    assertThat(sizer.getSize(), is(400));
+    sizer.record(400, 1000000L);
+    assertThat(sizer.getSize(), is(400));
+    sizer.record(399, 1000000000L); // 最后一块不足时不调整
+    assertThat(sizer.getSize(), is(400));
+    sizer.record(400, 1000000000L);
+    assertThat(sizer.getSize(), is(200));
+    for (int i = 0; i < 10; i++) {
+      sizer.record(sizer.getSize(), 1000000000L);
+    }
+    assertThat(sizer.getSize(), is(6));
+  }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator;
+
+import org.jfaster.mango.binding.BoundSql;
+import org.jfaster.mango.type.TypeHandler;
+import org.jfaster.mango.type.TypeHandlerRegistry;
+import org.junit.Test;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author ash
+ */
+public class BatchInsertRewriterTest {
+
+  @Test
+  public void testParse() throws Exception {
+    assertThat(BatchInsertRewriter.Template.parse("insert into user(id, name) values(?, ?)"), notNullValue());
+    assertThat(BatchInsertRewriter.Template.parse("INSERT INTO user(id, name) VALUES (?, 'a?b')"), notNullValue());
+    assertThat(BatchInsertRewriter.Template.parse(
+        "insert into user(id, name) values(?, ?) on duplicate key update name=values(name)"), notNullValue());
+    assertThat(BatchInsertRewriter.Template.parse(
+        "insert into user(id, name) values(?, ?) on duplicate key update name=?"), nullValue());
+    assertThat(BatchInsertRewriter.Template.parse("insert into user(id, name) values(?, ?), (?, ?)"), nullValue());
+    assertThat(BatchInsertRewriter.Template.parse("insert into user(id, name) select id, name from t where id=?"),
+        nullValue());
+    assertThat(BatchInsertRewriter.Template.parse("insert into user_values(id) values(?)"), notNullValue());
+  }
+
+  @Test
+  public void testRewrite() throws Exception {
+    String sql = "insert into user(id, name) values(?, ?)";
+    List<BoundSql> boundSqls = new ArrayList<BoundSql>();
+    for (int i = 0; i < 5; i++) {
+      boundSqls.add(boundSql(sql, i, "name" + i));
+    }
+    boundSqls.add(boundSql("insert into user2(id, name) values(?, ?)", 5, "name5"));
+
+    BatchInsertRewriter.Result result = BatchInsertRewriter.rewrite(boundSqls, 4, Integer.MAX_VALUE);
+    List<BoundSql> rewritten = result.getBoundSqls();
+    assertThat(rewritten, hasSize(4));
+    assertThat(rewritten.get(0).getSql(), equalTo("insert into user(id, name) values(?, ?),(?, ?)"));
+    assertThat(rewritten.get(0).getArgs(), contains((Object) 0, "name0", 1, "name1"));
+    assertThat(rewritten.get(1).getSql(), sameInstance(rewritten.get(0).getSql()));
+    assertThat(rewritten.get(2).getSql(), equalTo(sql));
+    assertThat(rewritten.get(2).getArgs(), contains((Object) 4, "name4"));
+    assertThat(rewritten.get(3).getArgs(), contains((Object) 5, "name5"));
+
+    int[] ints = result.expand(new int[]{2, 2, 1, 1});
+    assertThat(Arrays.toString(ints), equalTo("[1, 1, 1, 1, 1, 1]"));
+    ints = result.expand(new int[]{1, 2, 1, 0});
+    assertThat(ints[0], equalTo(Statement.SUCCESS_NO_INFO));
+    assertThat(ints[1], equalTo(Statement.SUCCESS_NO_INFO));
+    assertThat(ints[2], equalTo(1));
+    assertThat(ints[5], equalTo(0));
+  }
+
+  @Test
+  public void testRewriteSqlLength() throws Exception {
+    String sql = "insert into user(id, name) values(?, ?)";
+    List<BoundSql> boundSqls = new ArrayList<BoundSql>();
+    for (int i = 0; i < 4; i++) {
+      boundSqls.add(boundSql(sql, i, "0123456789"));
+    }
+    BatchInsertRewriter.Result result = BatchInsertRewriter.rewrite(boundSqls, Integer.MAX_VALUE, 120);
+    assertThat(result.getBoundSqls(), hasSize(2));
+    assertThat(result.getBoundSqls().get(0).getArgs(), hasSize(4));
+  }
+
+  private static BoundSql boundSql(String sql, Object... args) {
+    List<TypeHandler<?>> typeHandlers = new ArrayList<TypeHandler<?>>();
+    for (Object arg : args) {
+      typeHandlers.add(TypeHandlerRegistry.getTypeHandler(arg.getClass()));
+    }
+    return new BoundSql(sql, new ArrayList<Object>(Arrays.asList(args)), typeHandlers);
+  }
+
+}
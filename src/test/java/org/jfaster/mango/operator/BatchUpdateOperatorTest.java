@@ -24,6 +24,7 @@ import org.jfaster.mango.descriptor.ParameterDescriptor;
 import org.jfaster.mango.descriptor.ReturnDescriptor;
 import org.jfaster.mango.exception.DescriptionException;
 import org.jfaster.mango.jdbc.exception.DataAccessException;
+import org.jfaster.mango.jdbc.exception.ShardedBatchUpdateException;
 import org.jfaster.mango.page.MySQLPageHandler;
 import org.jfaster.mango.sharding.DatabaseShardingStrategy;
 import org.jfaster.mango.sharding.ModHundredTableShardingStrategy;
@@ -36,13 +37,14 @@ import org.junit.rules.ExpectedException;
 
 import javax.sql.DataSource;
 import java.lang.annotation.Annotation;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
 
 /**
  * @author ash
@@ -225,6 +227,117 @@ public class BatchUpdateOperatorTest {
     assertThat(Arrays.toString(actualInts), equalTo(Arrays.toString(new int[]{3, 6, 1, 2, 5})));
   }
 
+  @Test
+  public void testExecuteMultiSameTable() throws Exception {
+    TypeToken<List<User>> pt = new TypeToken<List<User>>() {
+    };
+    TypeToken<int[]> rt = TypeToken.of(int[].class);
+    String srcSql = "update #table set name=:1.name where id=:1.id";
+    AbstractOperator operator = getOperator2(pt, rt, srcSql);
+
+    operator.setJdbcOperations(new JdbcOperationsAdapter() {
+
+      @Override
+      public int[] batchUpdate(DataSource ds, List<BoundSql> boundSqls) throws DataAccessException {
+        List<String> descSqls = Arrays.asList(
+            "update user_30 set name=? where id=?",
+            "update user_30 set name=? where id=?",
+            "update user_10 set name=? where id=?",
+            "update user_10 set name=? where id=?");
+        List<String> sqls = new ArrayList<String>();
+        List<Object> names = new ArrayList<Object>();
+        for (BoundSql boundSql : boundSqls) {
+          sqls.add(boundSql.getSql());
+          names.add(boundSql.getArgs().get(0));
+        }
+        assertThat(sqls, equalTo(descSqls));
+        assertThat(names, contains((Object) "ash", "lucy", "lily", "gill"));
+        return new int[] {1, 2, 3, 4};
+      }
+
+    });
+
+    List<User> users = Arrays.asList(
+        new User(30, "ash"), new User(10, "lily"), new User(30, "lucy"), new User(10, "gill"));
+    int[] actualInts = (int[]) operator.execute(new Object[]{users});
+    assertThat(Arrays.toString(actualInts), equalTo(Arrays.toString(new int[]{1, 3, 2, 4})));
+  }
+
+  @Test
+  public void testExecuteMultiParallel() throws Exception {
+    TypeToken<List<User>> pt = new TypeToken<List<User>>() {
+    };
+    TypeToken<int[]> rt = TypeToken.of(int[].class);
+    String srcSql = "update #table set name=:1.name where id=:1.id";
+    Config config = new Config();
+    config.setParallelBatchUpdate(true);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    config.setShardExecutor(executor);
+    AbstractOperator operator = getOperator2(pt, rt, srcSql, config);
+
+    final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+    operator.setJdbcOperations(new JdbcOperationsAdapter() {
+      @Override
+      public int[] batchUpdate(DataSource ds, List<BoundSql> boundSqls) throws DataAccessException {
+        threads.add(Thread.currentThread());
+        int[] r = new int[boundSqls.size()];
+        for (int i = 0; i < r.length; i++) {
+          r[i] = (Integer) boundSqls.get(i).getArgs().get(1);
+        }
+        return r;
+      }
+    });
+
+    List<User> users = Arrays.asList(
+        new User(30, "ash"), new User(60, "lucy"), new User(10, "lily"),
+        new User(20, "gill"), new User(55, "liu"));
+    int[] actualInts;
+    try {
+      actualInts = (int[]) operator.execute(new Object[]{users});
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(Arrays.toString(actualInts), equalTo(Arrays.toString(new int[]{30, 60, 10, 20, 55})));
+    assertThat(threads, not(hasItem(Thread.currentThread())));
+  }
+
+  @Test
+  public void testExecuteMultiParallelFailure() throws Exception {
+    TypeToken<List<User>> pt = new TypeToken<List<User>>() {
+    };
+    TypeToken<int[]> rt = TypeToken.of(int[].class);
+    String srcSql = "update #table set name=:1.name where id=:1.id";
+    Config config = new Config();
+    config.setParallelBatchUpdate(true);
+    AbstractOperator operator = getOperator2(pt, rt, srcSql, config);
+
+    final Map<DataSource, Integer> firstIds = new ConcurrentHashMap<DataSource, Integer>();
+    operator.setJdbcOperations(new JdbcOperationsAdapter() {
+      @Override
+      public int[] batchUpdate(DataSource ds, List<BoundSql> boundSqls) throws DataAccessException {
+        int id = (Integer) boundSqls.get(0).getArgs().get(1);
+        firstIds.put(ds, id);
+        if (id >= 50) {
+          throw new IllegalStateException("g50 down");
+        }
+        return new int[boundSqls.size()];
+      }
+    });
+
+    List<User> users = Arrays.asList(new User(30, "ash"), new User(60, "lucy"), new User(10, "lily"));
+    try {
+      operator.execute(new Object[]{users});
+      fail();
+    } catch (ShardedBatchUpdateException e) {
+      assertThat(e.getSucceededDataSources(), hasSize(1));
+      assertThat(firstIds.get(e.getSucceededDataSources().get(0)), equalTo(30));
+      assertThat(e.getFailures().size(), equalTo(1));
+      Map.Entry<DataSource, Throwable> failure = e.getFailures().entrySet().iterator().next();
+      assertThat(firstIds.get(failure.getKey()), equalTo(60));
+      assertThat(failure.getValue().getMessage(), equalTo("g50 down"));
+    }
+  }
+
   @Rule
   public ExpectedException thrown = ExpectedException.none();
 
@@ -274,11 +387,16 @@ public class BatchUpdateOperatorTest {
     group.addDataSourceFactory(new SimpleDataSourceFactory(DataSourceConfig.getDataSource()));
     OperatorFactory factory = new OperatorFactory(group, new MySQLPageHandler(), new Config());
 
-    AbstractOperator operator = factory.getOperator(md);
+    AbstractOperator operator = factory.createOperator(md);
     return operator;
   }
 
   private AbstractOperator getOperator2(TypeToken<?> pt, TypeToken<?> rt, String srcSql) throws Exception {
+    return getOperator2(pt, rt, srcSql, new Config());
+  }
+
+  private AbstractOperator getOperator2(TypeToken<?> pt, TypeToken<?> rt, String srcSql,
+                                        Config config) throws Exception {
     List<Annotation> pAnnos = new ArrayList<Annotation>();
     pAnnos.add(new MockShardingBy("id"));
     ParameterDescriptor p = ParameterDescriptor.create(0, pt.getType(), pAnnos, "1");
@@ -294,8 +412,8 @@ public class BatchUpdateOperatorTest {
     DataSourceFactoryGroup group = new DataSourceFactoryGroup();
     group.addDataSourceFactory(new SimpleDataSourceFactory("l50", DataSourceConfig.getDataSource(0)));
     group.addDataSourceFactory(new SimpleDataSourceFactory("g50", DataSourceConfig.getDataSource(1)));
-    OperatorFactory factory = new OperatorFactory(group, new MySQLPageHandler(), new Config());
-    AbstractOperator operator = factory.getOperator(md);
+    OperatorFactory factory = new OperatorFactory(group, new MySQLPageHandler(), config);
+    AbstractOperator operator = factory.createOperator(md);
     return operator;
   }
 
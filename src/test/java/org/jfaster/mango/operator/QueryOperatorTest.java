@@ -242,7 +242,7 @@ public class QueryOperatorTest {
 
     OperatorFactory factory = new OperatorFactory(group, new MySQLPageHandler(), new Config());
 
-    AbstractOperator operator = factory.getOperator(md);
+    AbstractOperator operator = factory.createOperator(md);
     return operator;
   }
 
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.operator;
+
+import org.jfaster.mango.mapper.SingleColumnRowMapper;
+import org.jfaster.mango.page.Order;
+import org.jfaster.mango.page.Sort;
+import org.jfaster.mango.util.jdbc.Dialect;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+/**
+ * @author ash
+ */
+public class ShardedPageMergerTest {
+
+  private final SingleColumnRowMapper<Integer> rowMapper = new SingleColumnRowMapper<Integer>(Integer.class);
+
+  @Test
+  public void testMerge() throws Exception {
+    ShardedPageMerger merger = ShardedPageMerger.create(Sort.by(Order.asc("id")), rowMapper, Dialect.MYSQL);
+    List<List<?>> shardRows = new ArrayList<List<?>>();
+    shardRows.add(Arrays.asList(1, 4, 7));
+    shardRows.add(Arrays.asList(2, 5, 8));
+    shardRows.add(Arrays.asList(3, 6, 9));
+    assertThat(merger.merge(shardRows, 2, 4), contains((Object) 3, 4, 5, 6));
+    assertThat(merger.merge(shardRows, 7, -1), contains((Object) 8, 9));
+  }
+
+  @Test
+  public void testNullsLow() throws Exception {
+    // mysql，hsqldb等升序时null在最前，降序时在最后
+    ShardedPageMerger merger = ShardedPageMerger.create(Sort.by(Order.asc("id")), rowMapper, Dialect.MYSQL);
+    List<List<?>> shardRows = new ArrayList<List<?>>();
+    shardRows.add(Arrays.asList(null, 2));
+    shardRows.add(Arrays.asList(1, 3));
+    assertThat(merger.merge(shardRows, 0, -1), contains((Object) null, 1, 2, 3));
+
+    merger = ShardedPageMerger.create(Sort.by(Order.desc("id")), rowMapper, Dialect.HSQLDB);
+    shardRows.clear();
+    shardRows.add(Arrays.asList(2, null));
+    shardRows.add(Arrays.asList(3, 1));
+    assertThat(merger.merge(shardRows, 0, -1), contains((Object) 3, 2, 1, null));
+  }
+
+  @Test
+  public void testNullsHigh() throws Exception {
+    // postgresql与oracle升序时null在最后，降序时在最前
+    ShardedPageMerger merger = ShardedPageMerger.create(Sort.by(Order.asc("id")), rowMapper, Dialect.POSTGRESQL);
+    List<List<?>> shardRows = new ArrayList<List<?>>();
+    shardRows.add(Arrays.asList(2, null));
+    shardRows.add(Arrays.asList(1, 3));
+    assertThat(merger.merge(shardRows, 0, -1), contains((Object) 1, 2, 3, null));
+
+    merger = ShardedPageMerger.create(Sort.by(Order.desc("id")), rowMapper, Dialect.ORACLE);
+    shardRows.clear();
+    shardRows.add(Arrays.asList(null, 2));
+    shardRows.add(Arrays.asList(3, 1));
+    assertThat(merger.merge(shardRows, 0, -1), contains((Object) null, 3, 2, 1));
+  }
+
+}
@@ -277,7 +277,7 @@ public class UpdateOperatorTest {
 
     OperatorFactory factory = new OperatorFactory(group, new MySQLPageHandler(), new Config());
 
-    AbstractOperator operator = factory.getOperator(md);
+    AbstractOperator operator = factory.createOperator(md);
     return operator;
   }
 
@@ -297,7 +297,7 @@ public class UpdateOperatorTest {
 
     OperatorFactory factory = new OperatorFactory(group, new MySQLPageHandler(), new Config());
 
-    AbstractOperator operator = factory.getOperator(md);
+    AbstractOperator operator = factory.createOperator(md);
     return operator;
   }
 
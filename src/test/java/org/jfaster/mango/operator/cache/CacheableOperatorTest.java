@@ -0,0 +1,303 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator.cache;
+
+import com.google.common.collect.Lists;
+import org.jfaster.mango.annotation.Cache;
+import org.jfaster.mango.annotation.CacheEvict;
+import org.jfaster.mango.annotation.DB;
+import org.jfaster.mango.annotation.SQL;
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.operator.Mango;
+import org.jfaster.mango.support.DataSourceConfig;
+import org.jfaster.mango.support.Table;
+import org.jfaster.mango.support.model4table.Msg;
+import org.jfaster.mango.transaction.Transaction;
+import org.jfaster.mango.transaction.TransactionFactory;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * 测试查询结果缓存
+ *
+ * @author ash
+ */
+public class CacheableOperatorTest {
+
+  private final static DataSource ds = DataSourceConfig.getDataSource();
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Before
+  public void before() throws Exception {
+    Connection conn = ds.getConnection();
+    Table.MSG.load(conn);
+    conn.close();
+  }
+
+  @Test
+  public void testCacheAndEvict() throws Exception {
+    Mango mango = Mango.newInstance(ds);
+    MsgDao dao = mango.create(MsgDao.class);
+    dao.insert(1, 100, "a");
+    assertThat(dao.getContent(1), equalTo("a"));
+
+    dao.updateWithoutEvict(1, "b");
+    assertThat(dao.getContent(1), equalTo("a")); // 命中缓存
+    assertThat(dao.getContent(2), nullValue());
+    assertThat(dao.getContent(2), nullValue()); // 缓存null
+
+    ResultCache cache = mango.getResultCacheManager().getResultCache(MsgDao.class, "getContent", int.class);
+    assertThat(cache.getHitCount(), equalTo(2L));
+    assertThat(cache.getMissCount(), equalTo(2L));
+
+    dao.update(1, "c");
+    assertThat(dao.getContent(1), equalTo("c"));
+    assertThat(cache.getMissCount(), equalTo(3L));
+  }
+
+  @Test
+  public void testKey() throws Exception {
+    Mango mango = Mango.newInstance(ds);
+    MsgDao dao = mango.create(MsgDao.class);
+    dao.insert(1, 100, "a");
+    dao.insert(2, 100, "b");
+    Msg msg = new Msg();
+    msg.setUid(100);
+    msg.setContent("x");
+    assertThat(dao.getMsgs(msg), hasSize(2));
+    dao.insert(3, 100, "c");
+    msg.setContent("y"); // 只有uid参与缓存key
+    assertThat(dao.getMsgs(msg), hasSize(2));
+    dao.evictAll(0);
+    assertThat(dao.getMsgs(msg), hasSize(3));
+  }
+
+  @Test
+  public void testOverload() throws Exception {
+    Mango mango = Mango.newInstance(ds);
+    MsgDao dao = mango.create(MsgDao.class);
+    dao.insert(1, 100, "a");
+    assertThat(dao.getContent(1), equalTo("a"));
+    assertThat(dao.getContent(1, 100), equalTo("a"));
+    assertThat(dao.getContent(1, 100), equalTo("a"));
+
+    ResultCacheManager cacheManager = mango.getResultCacheManager();
+    ResultCache cache = cacheManager.getResultCache(MsgDao.class, "getContent", int.class);
+    ResultCache overloadCache = cacheManager.getResultCache(MsgDao.class, "getContent", int.class, int.class);
+    assertThat(overloadCache, not(sameInstance(cache))); // 重载方法使用各自的缓存
+    assertThat(cache.getMissCount(), equalTo(1L));
+    assertThat(overloadCache.getMissCount(), equalTo(1L));
+    assertThat(overloadCache.getHitCount(), equalTo(1L));
+
+    dao.update(1, "b"); // 清除同名的全部重载方法的缓存
+    assertThat(dao.getContent(1), equalTo("b"));
+    assertThat(dao.getContent(1, 100), equalTo("b"));
+  }
+
+  @Test
+  public void testReturnCopy() throws Exception {
+    Mango mango = Mango.newInstance(ds);
+    MsgDao dao = mango.create(MsgDao.class);
+    dao.insert(1, 100, "a");
+    dao.insert(2, 100, "b");
+    Msg msg = new Msg();
+    msg.setUid(100);
+    List<Msg> msgs = dao.getMsgs(msg);
+    assertThat(msgs, hasSize(2));
+    msgs.get(0).setContent("x"); // 修改返回值不影响缓存
+    msgs.remove(1);
+    List<Msg> cachedMsgs = dao.getMsgs(msg);
+    assertThat(cachedMsgs, hasSize(2));
+    assertThat(cachedMsgs.get(0).getContent(), equalTo("a"));
+    assertThat(cachedMsgs, not(sameInstance(dao.getMsgs(msg))));
+
+    dao.getMsg(1).setContent("y");
+    assertThat(dao.getMsg(1).getContent(), equalTo("a"));
+
+    int[] ids = dao.getIds(100);
+    ids[0] = 0;
+    assertThat(dao.getIds(100), equalTo(new int[]{1, 2}));
+  }
+
+  @Test
+  public void testNotCachedInTransaction() throws Exception {
+    Mango mango = Mango.newInstance(ds);
+    MsgDao dao = mango.create(MsgDao.class);
+    dao.insert(1, 100, "a");
+    Transaction tx = TransactionFactory.newTransaction(ds);
+    try {
+      dao.updateWithoutEvict(1, "b");
+      assertThat(dao.getContent(1), equalTo("b")); // 未提交的数据不写入缓存
+    } finally {
+      tx.rollback();
+    }
+    assertThat(dao.getContent(1), equalTo("a"));
+    ResultCache cache = mango.getResultCacheManager().getResultCache(MsgDao.class, "getContent", int.class);
+    assertThat(cache.getMissCount(), equalTo(1L));
+  }
+
+  @Test
+  public void testKeyCopied() throws Exception {
+    Mango mango = Mango.newInstance(ds);
+    MsgDao dao = mango.create(MsgDao.class);
+    dao.insert(1, 100, "a");
+    dao.insert(2, 100, "b");
+    List<Integer> ids = new ArrayList<Integer>();
+    ids.add(1);
+    assertThat(dao.getContents(ids), contains("a"));
+    ids.set(0, 2); // 修改参数不影响缓存中的key
+    assertThat(dao.getContents(ids), contains("b"));
+    assertThat(dao.getContents(Lists.newArrayList(1)), contains("a"));
+    ResultCache cache = mango.getResultCacheManager().getResultCache(MsgDao.class, "getContents",
+        MsgDao.class.getMethod("getContents", List.class).getGenericParameterTypes());
+    assertThat(cache.getHitCount(), equalTo(1L));
+  }
+
+  @Test
+  public void testBeanParameterWithoutKey() throws Exception {
+    thrown.expect(DescriptionException.class);
+    thrown.expectMessage("@Cache without key can't be used on method with parameter of type " + Msg.class);
+    Mango mango = Mango.newInstance(ds);
+    mango.create(ErrorDao.class).getMsgs(new Msg());
+  }
+
+  @Test
+  public void testCacheOnUncopyableType() throws Exception {
+    thrown.expect(DescriptionException.class);
+    thrown.expectMessage("@Cache can't be used on method returning " + ImmutableMsg.class.getName());
+    Mango mango = Mango.newInstance(ds);
+    mango.create(ErrorDao.class).getMsg(1);
+  }
+
+  @Test
+  public void testEvictUnknownMethod() throws Exception {
+    thrown.expect(DescriptionException.class);
+    thrown.expectMessage("@CacheEvict on method [update] refers to [getContnet], " +
+        "but there is no method named [getContnet] with @Cache");
+    Mango mango = Mango.newInstance(ds);
+    mango.create(EvictErrorDao.class); // 创建DAO时检查
+  }
+
+  @Test
+  public void testCacheOnUpdate() throws Exception {
+    thrown.expect(DescriptionException.class);
+    thrown.expectMessage("@Cache can only be used on query method");
+    Mango mango = Mango.newInstance(ds);
+    ErrorDao dao = mango.create(ErrorDao.class);
+    dao.update(1, "a");
+  }
+
+  @DB(table = "msg")
+  interface MsgDao {
+
+    @SQL("insert into #table(id, uid, content) values(:1, :2, :3)")
+    int insert(int id, int uid, String content);
+
+    @Cache(ttl = 10)
+    @SQL("select content from #table where id = :1")
+    String getContent(int id);
+
+    @Cache(maxEntries = 10)
+    @SQL("select content from #table where id = :1 and uid = :2")
+    String getContent(int id, int uid);
+
+    @Cache(key = ":1.uid")
+    @SQL("select id, uid, content from #table where uid = :1.uid")
+    List<Msg> getMsgs(Msg msg);
+
+    @Cache
+    @SQL("select id, uid, content from #table where id = :1")
+    Msg getMsg(int id);
+
+    @Cache
+    @SQL("select id from #table where uid = :1 order by id")
+    int[] getIds(int uid);
+
+    @Cache
+    @SQL("select content from #table where id in (:1)")
+    List<String> getContents(List<Integer> ids);
+
+    @CacheEvict("getContent")
+    @SQL("update #table set content = :2 where id = :1")
+    int update(int id, String content);
+
+    @SQL("update #table set content = :2 where id = :1")
+    int updateWithoutEvict(int id, String content);
+
+    @CacheEvict
+    @SQL("delete from #table where id = :1")
+    int evictAll(int id);
+
+  }
+
+  @DB(table = "msg")
+  interface ErrorDao {
+
+    @Cache
+    @SQL("update #table set content = :2 where id = :1")
+    int update(int id, String content);
+
+    @Cache
+    @SQL("select id, uid, content from #table where id = :1")
+    ImmutableMsg getMsg(int id);
+
+    @Cache
+    @SQL("select id, uid, content from #table where uid = :1.uid")
+    List<Msg> getMsgs(Msg msg);
+
+  }
+
+  @DB(table = "msg")
+  interface EvictErrorDao {
+
+    @Cache
+    @SQL("select content from #table where id = :1")
+    String getContent(int id);
+
+    @CacheEvict("getContnet")
+    @SQL("update #table set content = :2 where id = :1")
+    int update(int id, String content);
+
+  }
+
+  static class ImmutableMsg {
+
+    private final int id;
+
+    ImmutableMsg(int id) {
+      this.id = id;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+  }
+
+}
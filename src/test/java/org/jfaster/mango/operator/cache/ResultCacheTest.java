@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.operator.cache;
+
+import org.jfaster.mango.util.Ticker;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author ash
+ */
+public class ResultCacheTest {
+
+  @Test
+  public void testTtl() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    ResultCache cache = new ResultCache(100, 10, ticker);
+    cache.put("a", 1);
+    ticker.time = 99;
+    assertThat(cache.get("a"), equalTo((Object) 1));
+    ticker.time = 100;
+    assertThat(cache.get("a"), nullValue());
+    assertThat(cache.getHitCount(), equalTo(1L));
+    assertThat(cache.getMissCount(), equalTo(1L));
+    assertThat(cache.getEvictionCount(), equalTo(1L));
+    assertThat(cache.size(), equalTo(0));
+  }
+
+  @Test
+  public void testLru() throws Exception {
+    ResultCache cache = new ResultCache(Long.MAX_VALUE, 2, new FakeTicker());
+    cache.put("a", 1);
+    cache.put("b", 2);
+    cache.get("a");
+    cache.put("c", 3);
+    assertThat(cache.get("b"), nullValue());
+    assertThat(cache.get("a"), equalTo((Object) 1));
+    assertThat(cache.get("c"), equalTo((Object) 3));
+    assertThat(cache.getEvictionCount(), equalTo(1L));
+  }
+
+  @Test
+  public void testCleanUpAndInvalidateAll() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    ResultCache cache = new ResultCache(100, 10, ticker);
+    cache.put("a", 1);
+    ticker.time = 50;
+    cache.put("b", 2);
+    ticker.time = 120;
+    cache.cleanUp();
+    assertThat(cache.size(), equalTo(1));
+    cache.invalidateAll();
+    assertThat(cache.size(), equalTo(0));
+  }
+
+  @Test
+  public void testPutAfterInvalidate() throws Exception {
+    ResultCache cache = new ResultCache(100, 10, new FakeTicker());
+    long generation = cache.getGeneration(); // 查询前获得
+    cache.invalidateAll(); // 查询期间被清除
+    assertThat(cache.put("a", 1, generation), equalTo(false));
+    assertThat(cache.size(), equalTo(0));
+    assertThat(cache.put("a", 1, cache.getGeneration()), equalTo(true));
+    assertThat(cache.get("a"), equalTo((Object) 1));
+  }
+
+  static class FakeTicker extends Ticker {
+
+    long time;
+
+    @Override
+    public long read() {
+      return time;
+    }
+
+  }
+
+}
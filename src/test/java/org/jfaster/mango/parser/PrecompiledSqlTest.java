@@ -0,0 +1,219 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.parser;
+
+import com.google.common.collect.Lists;
+import org.jfaster.mango.binding.*;
+import org.jfaster.mango.descriptor.ParameterDescriptor;
+import org.jfaster.mango.support.model4table.User;
+import org.jfaster.mango.util.reflect.TypeToken;
+import org.junit.Test;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author ash
+ */
+public class PrecompiledSqlTest {
+
+  @Test
+  public void testStatic() throws Exception {
+    String sql = "select id, name from #table where id = :1.id and name = :2 and age > :1.age";
+    ASTRootNode n = compile(sql, User.class, String.class);
+    assertThat(n.isStatic(), is(true));
+
+    User user = new User();
+    user.setId(10);
+    user.setAge(18);
+    BoundSql fast = render(n, "user_1", user, "ash");
+    BoundSql tree = renderTree(n, "user_1", user, "ash");
+    assertThat(fast.getSql(), equalTo("select id, name from user_1 where id = ? and name = ? and age > ?"));
+    assertThat(fast.getSql(), equalTo(tree.getSql()));
+    assertThat(fast.getArgs(), contains(new Object[]{10, "ash", 18}));
+    assertThat(fast.getArgs(), equalTo(tree.getArgs()));
+    assertThat(fast.getTypeHandlers(), equalTo(tree.getTypeHandlers()));
+  }
+
+  @Test
+  public void testStaticRenderOnce() throws Exception {
+    String sql = "update #table set name = :1.name where id = :1.id";
+    ASTRootNode n = compile(sql, User.class);
+    String staticSql = n.renderStaticSql("user_1");
+    assertThat(staticSql, equalTo("update user_1 set name = ? where id = ?"));
+
+    User user = new User();
+    user.setId(10);
+    user.setName("ash");
+    BoundSql bound = n.bindStaticSql(staticSql, newContext("user_1", user));
+    BoundSql tree = renderTree(n, "user_1", user);
+    assertThat(bound.getSql(), sameInstance(staticSql));
+    assertThat(bound.getSql(), equalTo(tree.getSql()));
+    assertThat(bound.getArgs(), equalTo(tree.getArgs()));
+    assertThat(bound.getTypeHandlers(), equalTo(tree.getTypeHandlers()));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRenderStaticSqlWithDynamic() throws Exception {
+    ASTRootNode n = compile("select * from user where 1=1 #if(:1) and id = :1 #end", Integer.class);
+    n.renderStaticSql(null);
+  }
+
+  @Test
+  public void testStaticWithoutTable() throws Exception {
+    ASTRootNode n = compile("update user set name = :2 where id = :1", int.class, String.class);
+    assertThat(n.isStatic(), is(true));
+    BoundSql boundSql = render(n, null, 1, null);
+    assertThat(boundSql.getSql(), equalTo("update user set name = ? where id = ?"));
+    assertThat(boundSql.getArgs(), contains(new Object[]{null, 1}));
+  }
+
+  @Test
+  public void testDynamic() throws Exception {
+    Type listType = new TypeToken<List<Integer>>() {
+    }.getType();
+    ASTRootNode n = compile("select * from user where 1=1 #if(:1) and id = :1 #end", Integer.class);
+    assertThat(n.isStatic(), is(false));
+    assertThat(n.isPrecompiled(), is(true));
+    n = compile("select * from user where id in (:1)", listType);
+    assertThat(n.isStatic(), is(false));
+    assertThat(n.isPrecompiled(), is(true));
+    n = compile("select #{:1} from user", String.class);
+    assertThat(n.isStatic(), is(false));
+    assertThat(n.isPrecompiled(), is(true));
+  }
+
+  @Test
+  public void testIfElse() throws Exception {
+    String sql = "select * from #table where 1=1 " +
+        "#if(:1 > 10) and a = :1 #elseif(:1 == 5) and b = :1 #elseif(:1 <= -1) and c = :1 #else and d = :1 #end " +
+        "order by id";
+    ASTRootNode n = compile(sql, int.class);
+    assertSame(n, "select * from user where 1=1 and a = ? order by id", 11);
+    assertSame(n, "select * from user where 1=1 and b = ? order by id", 5);
+    assertSame(n, "select * from user where 1=1 and c = ? order by id", -3);
+    assertSame(n, "select * from user where 1=1 and d = ? order by id", 0);
+
+    n = compile("select * from user where 1=1 #if(:1 > 9223372036854775800) and a = 1 #end", long.class);
+    assertSame(n, "select * from user where 1=1 and a = 1", Long.MAX_VALUE);
+    assertSame(n, "select * from user where 1=1", 10L);
+  }
+
+  @Test
+  public void testTruth() throws Exception {
+    Type listType = new TypeToken<List<Integer>>() {
+    }.getType();
+    String sql = "select * from user where 1=1 " +
+        "#if(:1 && !:2) and a = 1 #end" +
+        "#if(:3 || :4) and b = 1 #end" +
+        "#if(:5) and c = 1 #end";
+    ASTRootNode n = compile(sql, Boolean.class, String.class, listType, int[].class, Object.class);
+    assertSame(n, "select * from user where 1=1 and a = 1 and b = 1 and c = 1",
+        true, "", Lists.newArrayList(1), new int[0], "x");
+    assertSame(n, "select * from user where 1=1 and b = 1",
+        null, "ash", Lists.newArrayList(), new int[]{1}, Collections.emptyList());
+    assertSame(n, "select * from user where 1=1",
+        false, null, null, null, null);
+  }
+
+  @Test
+  public void testEquals() throws Exception {
+    String sql = "select * from user where 1=1 " +
+        "#if(:1 == 'hello') and a = 1 #end" +
+        "#if(:2 != null) and b = :2 #end" +
+        "#if(:3 == 1) and c = 1 #end";
+    ASTRootNode n = compile(sql, String.class, Integer.class, Object.class);
+    assertSame(n, "select * from user where 1=1 and a = 1 and b = ? and c = 1", "hello", 2, 1L);
+    assertSame(n, "select * from user where 1=1 and c = 1", "world", null, "1");
+  }
+
+  @Test
+  public void testIterableAndJoin() throws Exception {
+    Type listType = new TypeToken<List<Integer>>() {
+    }.getType();
+    String sql = "update #{:1} set #if(:2 != null) name = :2, #end #if(:3 > 0) age = :3, #end #trim_comma " +
+        "where id in (:4)";
+    ASTRootNode n = compile(sql, String.class, String.class, int.class, listType);
+    assertSame(n, "update user set name = ?, age = ? where id in (?,?,?)", "user", "ash", 18,
+        Lists.newArrayList(1, 2, 3));
+    assertSame(n, "update user set name = ? where id in (?)", "user", "ash", 0, Lists.newArrayList(1));
+  }
+
+  @Test(expected = EmptyCollectionException.class)
+  public void testEmptyCollection() throws Exception {
+    Type listType = new TypeToken<List<Integer>>() {
+    }.getType();
+    ASTRootNode n = compile("select * from user where id in (:1)", listType);
+    render(n, null, Lists.newArrayList());
+  }
+
+  @Test(expected = BindingException.class)
+  public void testJoinNull() throws Exception {
+    ASTRootNode n = compile("select #{:1} from user", String.class);
+    render(n, null, new Object[]{null});
+  }
+
+  private static void assertSame(ASTRootNode n, String sql, Object... values) {
+    assertThat(n.isPrecompiled(), is(true));
+    BoundSql fast = render(n, "user", values);
+    BoundSql tree = renderTree(n, "user", values);
+    assertThat(fast.getSql().replaceAll("\\s+", " ").trim(), equalTo(sql));
+    assertThat(fast.getSql(), equalTo(tree.getSql()));
+    assertThat(fast.getArgs(), equalTo(tree.getArgs()));
+    assertThat(fast.getTypeHandlers(), equalTo(tree.getTypeHandlers()));
+  }
+
+  static ASTRootNode compile(String sql, Type... types) {
+    ASTRootNode n = SqlParser.parse(sql).init();
+    List<Annotation> empty = Collections.emptyList();
+    List<ParameterDescriptor> pds = Lists.newArrayList();
+    for (int i = 0; i < types.length; i++) {
+      pds.add(ParameterDescriptor.create(i, types[i], empty, String.valueOf(i + 1)));
+    }
+    ParameterContext ctx = DefaultParameterContext.create(pds);
+    n.expandParameter(ctx);
+    n.checkAndBind(ctx);
+    return n;
+  }
+
+  static BoundSql render(ASTRootNode n, String table, Object... values) {
+    InvocationContext context = newContext(table, values);
+    n.render(context);
+    return context.getBoundSql();
+  }
+
+  static BoundSql renderTree(ASTRootNode n, String table, Object... values) {
+    InvocationContext context = newContext(table, values);
+    n.renderTree(context);
+    return context.getBoundSql();
+  }
+
+  private static InvocationContext newContext(String table, Object... values) {
+    InvocationContext context = DefaultInvocationContext.create();
+    for (int i = 0; i < values.length; i++) {
+      context.addParameter(String.valueOf(i + 1), values[i]);
+    }
+    context.setGlobalTable(table);
+    return context;
+  }
+
+}
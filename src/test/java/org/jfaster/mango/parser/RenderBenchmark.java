@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.parser;
+
+import org.jfaster.mango.support.model4table.User;
+
+/**
+ * 比较预编译渲染程序与遍历语法树渲染的耗时
+ * <p/>
+ * 直接运行main方法，不作为单元测试执行
+ *
+ * @author ash
+ */
+public class RenderBenchmark {
+
+  private static final int WARMUP = 200000;
+  private static final int ITERATIONS = 2000000;
+
+  public static void main(String[] args) {
+    String staticSql = "select id, name, age, gender, money, update_time from #table " +
+        "where id = :1.id and name = :2 and age > :1.age and gender = :1.gender";
+    String dynamicSql = "select id, name, age, gender, money, update_time from #table where 1=1 " +
+        "#if(:1.id > 0) and id = :1.id #end " +
+        "#if(:2) and name = :2 #else and name is null #end " +
+        "#if(:1.age >= 18 && :1.gender) and age > :1.age #end";
+    User user = new User();
+    user.setId(10);
+    user.setAge(18);
+    user.setGender(true);
+    bench("static", PrecompiledSqlTest.compile(staticSql, User.class, String.class), user);
+    bench("dynamic", PrecompiledSqlTest.compile(dynamicSql, User.class, String.class), user);
+  }
+
+  private static void bench(String name, ASTRootNode n, User user) {
+    for (int round = 0; round < 3; round++) {
+      run(n, user, false, WARMUP);
+      run(n, user, true, WARMUP);
+      System.out.println(String.format("%s round %d: tree %.1f ns/op, precompiled %.1f ns/op", name, round,
+          run(n, user, false, ITERATIONS),
+          run(n, user, true, ITERATIONS)));
+    }
+  }
+
+  private static double run(ASTRootNode n, User user, boolean precompiled, int iterations) {
+    long blackhole = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      blackhole += precompiled ?
+          PrecompiledSqlTest.render(n, "user", user, "ash").getArgs().size() :
+          PrecompiledSqlTest.renderTree(n, "user", user, "ash").getArgs().size();
+    }
+    long cost = System.nanoTime() - start;
+    if (blackhole == 0) {
+      throw new IllegalStateException();
+    }
+    return (double) cost / iterations;
+  }
+
+}
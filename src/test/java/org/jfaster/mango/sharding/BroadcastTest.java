@@ -0,0 +1,449 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.sharding;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.jfaster.mango.annotation.*;
+import org.jfaster.mango.datasource.SimpleDataSourceFactory;
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.jdbc.exception.QueryTimeoutException;
+import org.jfaster.mango.jdbc.exception.ShardedQueryException;
+import org.jfaster.mango.operator.Mango;
+import org.jfaster.mango.page.*;
+import org.jfaster.mango.support.DataSourceConfig;
+import org.jfaster.mango.support.JdbcProxies;
+import org.jfaster.mango.support.Randoms;
+import org.jfaster.mango.support.Table;
+import org.jfaster.mango.support.model4table.Msg;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * 测试没有分片参数时的广播查询
+ *
+ * @author ash
+ */
+public class BroadcastTest {
+
+  private final static DataSource ds = DataSourceConfig.getDataSource();
+  private final static Mango mango = Mango.newInstance(ds);
+  private final static MsgDao dao = mango.create(MsgDao.class);
+
+  private static String[] dsns = new String[]{"ds1", "ds2", "ds3"};
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Before
+  public void before() throws Exception {
+    Connection conn = ds.getConnection();
+    Table.MSG_PARTITION.load(conn);
+    conn.close();
+  }
+
+  @Test
+  public void testTableSharding() {
+    List<Msg> msgs = new ArrayList<Msg>();
+    for (int i = 0; i < 20; i++) {
+      Msg msg = new Msg();
+      msg.setUid(i);
+      msg.setContent(i % 2 == 0 ? "even" : Randoms.randomString(20));
+      msg.setId(dao.insert(msg));
+      msgs.add(msg);
+    }
+    List<Msg> evens = new ArrayList<Msg>();
+    Set<Integer> evenUids = Sets.newHashSet();
+    for (Msg msg : msgs) {
+      if ("even".equals(msg.getContent())) {
+        evens.add(msg);
+        evenUids.add(msg.getUid());
+      }
+    }
+    assertThat(dao.getMsgsByContent("even"), containsInAnyOrder(evens.toArray()));
+    assertThat(dao.getUidSetByContent("even"), equalTo(evenUids));
+    assertThat(dao.getUidArrayByContent("even").length, equalTo(10));
+    assertThat(dao.count(), equalTo(20));
+    assertThat(dao.countByContent("even"), equalTo(10L));
+    assertThat(dao.sumUid(), equalTo(Optional.of(190L)));
+    assertThat(dao.sumUidByContent("none"), equalTo(Optional.<Long>empty()));
+    assertThat(dao.getMsgByUid(7), equalTo(msgs.get(7)));
+    assertThat(dao.getMsgByUid(100), nullValue());
+    assertThat(dao.findMsgByUid(9), equalTo(Optional.of(msgs.get(9))));
+    assertThat(dao.findMsgByUid(100), equalTo(Optional.<Msg>empty()));
+  }
+
+  @Test
+  public void testSortAndPage() {
+    List<Msg> msgs = new ArrayList<Msg>();
+    for (int i = 0; i < 25; i++) {
+      Msg msg = new Msg();
+      msg.setUid(i);
+      msg.setContent(i % 3 == 0 ? "a" : "b");
+      msg.setId(dao.insert(msg));
+      msgs.add(msg);
+    }
+    List<Msg> descMsgs = Lists.reverse(msgs);
+    assertThat(dao.getMsgs(Page.of(0, 7, Direction.DESC, "uid")), equalTo(descMsgs.subList(0, 7)));
+    assertThat(dao.getMsgs(Page.of(3, 7, Direction.DESC, "uid")), equalTo(descMsgs.subList(21, 25)));
+    assertThat(dao.getMsgs(Page.of(4, 7, Direction.DESC, "uid")), empty());
+
+    PageResult<Msg> pr = dao.getMsgPage(Page.of(1, 10, Sort.by(Order.desc("content"), Order.asc("uid"))));
+    assertThat(pr.getTotal(), equalTo(25L));
+    List<Msg> expected = new ArrayList<Msg>();
+    for (Msg msg : msgs) {
+      if ("b".equals(msg.getContent())) {
+        expected.add(msg);
+      }
+    }
+    for (Msg msg : msgs) {
+      if ("a".equals(msg.getContent())) {
+        expected.add(msg);
+      }
+    }
+    assertThat(pr.getData(), equalTo(expected.subList(10, 20)));
+
+    List<Integer> uids = new ArrayList<Integer>();
+    for (int i = 0; i < 25; i++) {
+      uids.add(i);
+    }
+    assertThat(dao.getUids(Sort.by("uid")), equalTo(uids));
+  }
+
+  @Test
+  public void testShardingTopology() throws Exception {
+    Mango m = createRouterMango();
+    RouterMsgDao routerDao = m.create(RouterMsgDao.class);
+    for (int i = 0; i < 30; i++) {
+      Msg msg = new Msg();
+      msg.setUid(i);
+      msg.setContent(Randoms.randomString(20));
+      routerDao.insert(msg);
+    }
+    assertThat(routerDao.count(), equalTo(30));
+    assertThat(routerDao.getUids(), hasSize(30));
+  }
+
+  @Test
+  public void testPartialFailure() throws Exception {
+    Mango m = createRouterMango();
+    RouterMsgDao routerDao = m.create(RouterMsgDao.class);
+    for (int i = 0; i < 30; i++) {
+      Msg msg = new Msg();
+      msg.setUid(i);
+      msg.setContent(Randoms.randomString(20));
+      routerDao.insert(msg);
+    }
+    BrokenMsgDao brokenDao = m.create(BrokenMsgDao.class);
+    try {
+      brokenDao.count();
+      throw new AssertionError("expected ShardedQueryException");
+    } catch (ShardedQueryException e) {
+      assertThat(e.getFailures().keySet(), contains(new Shard("ds3", "msg_10")));
+      assertThat(e.getSucceededShards(), hasSize(10));
+      assertThat(e.getPartialResult(), equalTo((Object) 30));
+    }
+  }
+
+  @Test
+  public void testTimeoutCancelsStatement() throws Exception {
+    Mango m = createRouterMango();
+    final AtomicInteger cancelCount = new AtomicInteger();
+    DataSource hangingDs = JdbcProxies.hangOnQuery(DataSourceConfig.getDataSource(3), cancelCount);
+    m.addDataSourceFactory(new SimpleDataSourceFactory(dsns[2], hangingDs));
+    ExecutorService es = Executors.newCachedThreadPool();
+    m.setShardExecutor(es);
+    try {
+      TimeoutMsgDao timeoutDao = m.create(TimeoutMsgDao.class);
+      try {
+        timeoutDao.count();
+        throw new AssertionError("expected ShardedQueryException");
+      } catch (ShardedQueryException e) {
+        assertThat(e.getFailures().keySet(), hasSize(4)); // ds3上的4个分片
+        for (Throwable t : e.getFailures().values()) {
+          assertThat(t, instanceOf(QueryTimeoutException.class));
+        }
+      }
+      long deadline = System.currentTimeMillis() + 5000;
+      while (cancelCount.get() < 4 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertThat(cancelCount.get(), equalTo(4));
+    } finally {
+      es.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testDefaultShardExecutor() throws Exception {
+    Mango m = createRouterMango();
+    final Set<String> threadNames = Sets.newConcurrentHashSet();
+    m.addDataSourceFactory(new SimpleDataSourceFactory(dsns[2], JdbcProxies.wrap(DataSource.class,
+        DataSourceConfig.getDataSource(3), new JdbcProxies.Handler() {
+          @Override
+          public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("getConnection")) {
+              threadNames.add(Thread.currentThread().getName());
+            }
+            return JdbcProxies.forward(target, method, args);
+          }
+        })));
+    RouterMsgDao routerDao = m.create(RouterMsgDao.class);
+    assertThat(routerDao.count(), equalTo(0));
+    assertThat(threadNames, not(empty()));
+    for (String threadName : threadNames) {
+      assertThat(threadName, startsWith("mango-shard-")); // 固定大小的线程池，而非异步方法的executor
+    }
+  }
+
+  @Test
+  public void testStrategyWithoutTopology() {
+    thrown.expect(DescriptionException.class);
+    thrown.expectMessage("must implement " + TableShardingTopology.class.getName());
+    mango.create(NoTopologyMsgDao.class).count();
+  }
+
+  @Test
+  public void testUpdateNotSupported() {
+    thrown.expect(DescriptionException.class);
+    thrown.expectMessage("@Broadcast can only be used on query method");
+    mango.create(MsgDao.class).deleteAll();
+  }
+
+  @Test
+  public void testNumberWithoutSumShards() {
+    thrown.expect(DescriptionException.class);
+    thrown.expectMessage("please use @SumShards if they should be summed");
+    mango.create(MsgDao.class).maxUid();
+  }
+
+  @Test
+  public void testSumShardsOnList() {
+    thrown.expect(DescriptionException.class);
+    thrown.expectMessage("@SumShards can only be used on query method returning a number");
+    mango.create(MsgDao.class).getUidsSummed();
+  }
+
+  @Test
+  public void testSumShardsOnSingleShard() {
+    thrown.expect(DescriptionException.class);
+    thrown.expectMessage("@SumShards can only be used on query method executed on several shards");
+    mango.create(MsgDao.class).countByUid(1);
+  }
+
+  private Mango createRouterMango() throws Exception {
+    Table[] tables = new Table[]{Table.MSG_ROUTER1, Table.MSG_ROUTER2, Table.MSG_ROUTER3};
+    Mango m = Mango.newInstance();
+    for (int i = 0; i < 3; i++) {
+      DataSource ds = DataSourceConfig.getDataSource(i + 1);
+      Connection conn = ds.getConnection();
+      tables[i].load(conn);
+      conn.close();
+      m.addDataSourceFactory(new SimpleDataSourceFactory(dsns[i], ds));
+    }
+    return m;
+  }
+
+  @DB(table = "msg")
+  @Sharding(tableShardingStrategy = ModTenTableShardingStrategy.class)
+  interface MsgDao {
+
+    @ReturnGeneratedId
+    @SQL("insert into #table(uid, content) values(:1.uid, :1.content)")
+    int insert(@ShardingBy("uid") Msg msg);
+
+    @Broadcast
+    @SQL("select id, uid, content from #table where content = :1")
+    List<Msg> getMsgsByContent(String content);
+
+    @Broadcast
+    @SQL("select uid from #table where content = :1")
+    Set<Integer> getUidSetByContent(String content);
+
+    @Broadcast
+    @SQL("select uid from #table where content = :1")
+    int[] getUidArrayByContent(String content);
+
+    @Broadcast(timeoutMillis = 10000)
+    @SumShards
+    @SQL("select count(1) from #table")
+    int count();
+
+    @Broadcast
+    @SumShards
+    @SQL("select count(1) from #table where content = :1")
+    long countByContent(String content);
+
+    @Broadcast
+    @SumShards
+    @SQL("select sum(uid) from #table")
+    Optional<Long> sumUid();
+
+    @Broadcast
+    @SumShards
+    @SQL("select sum(uid) from #table where content = :1")
+    Optional<Long> sumUidByContent(String content);
+
+    @Broadcast
+    @SQL("select max(uid) from #table")
+    int maxUid();
+
+    @Broadcast
+    @SumShards
+    @SQL("select uid from #table")
+    List<Integer> getUidsSummed();
+
+    @SumShards
+    @SQL("select count(1) from #table where uid = :1")
+    int countByUid(@ShardingBy int uid);
+
+    @Broadcast
+    @SQL("select id, uid, content from #table where uid = :1")
+    Msg getMsgByUid(int uid);
+
+    @Broadcast
+    @SQL("select id, uid, content from #table where uid = :1")
+    Optional<Msg> findMsgByUid(int uid);
+
+    @Broadcast
+    @SQL("select id, uid, content from #table")
+    List<Msg> getMsgs(Page page);
+
+    @Broadcast
+    @SQL("select id, uid, content from #table")
+    PageResult<Msg> getMsgPage(Page page);
+
+    @Broadcast
+    @SQL("select uid from #table")
+    List<Integer> getUids(Sort sort);
+
+    @Broadcast
+    @SQL("delete from #table")
+    int deleteAll();
+
+  }
+
+  @DB(table = "msg")
+  @Sharding(
+      databaseShardingStrategy = RouterShardingStrategy.class,
+      tableShardingStrategy = ModTenTableShardingStrategy.class
+  )
+  interface RouterMsgDao {
+
+    @SQL("insert into #table(uid, content) values(:1.uid, :1.content)")
+    int insert(@ShardingBy("uid") Msg msg);
+
+    @Broadcast
+    @SumShards
+    @SQL("select count(1) from #table")
+    int count();
+
+    @Broadcast
+    @SQL("select uid from #table")
+    List<Integer> getUids();
+
+  }
+
+  @DB(table = "msg")
+  @Sharding(databaseShardingStrategy = RouterShardingStrategy.class)
+  interface TimeoutMsgDao {
+
+    @Broadcast(timeoutMillis = 200)
+    @SumShards
+    @SQL("select count(1) from #table")
+    int count();
+
+  }
+
+  @DB(table = "msg")
+  @Sharding(databaseShardingStrategy = BrokenShardingStrategy.class)
+  interface BrokenMsgDao {
+
+    @Broadcast
+    @SumShards
+    @SQL("select count(1) from #table")
+    int count();
+
+  }
+
+  @DB(table = "msg")
+  @Sharding(tableShardingStrategy = NoTopologyTableShardingStrategy.class)
+  interface NoTopologyMsgDao {
+
+    @Broadcast
+    @SumShards
+    @SQL("select count(1) from #table")
+    int count();
+
+  }
+
+  static class RouterShardingStrategy implements DatabaseShardingStrategy<Integer>, ShardingTopology {
+
+    @Override
+    public String getDataSourceFactoryName(Integer uid) {
+      int tail = uid % 10;
+      return tail <= 2 ? dsns[0] : tail <= 5 ? dsns[1] : dsns[2];
+    }
+
+    @Override
+    public List<Shard> getAllShards(String table) {
+      List<Shard> shards = new ArrayList<Shard>();
+      for (int i = 0; i < 10; i++) {
+        shards.add(new Shard(getDataSourceFactoryName(i), table + "_" + i));
+      }
+      return shards;
+    }
+
+  }
+
+  static class BrokenShardingStrategy extends RouterShardingStrategy {
+
+    @Override
+    public List<Shard> getAllShards(String table) {
+      List<Shard> shards = Lists.newArrayList(super.getAllShards(table));
+      shards.add(new Shard(dsns[2], table + "_10")); // 不存在的表
+      return shards;
+    }
+
+  }
+
+  static class NoTopologyTableShardingStrategy implements TableShardingStrategy<Integer> {
+
+    @Override
+    public String getTargetTable(String table, Integer uid) {
+      return table + "_" + uid % 10;
+    }
+
+  }
+
+}
@@ -17,14 +17,18 @@
 package org.jfaster.mango.sharding;
 
 import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multiset;
 import org.jfaster.mango.annotation.*;
 import org.jfaster.mango.datasource.SimpleDataSourceFactory;
 import org.jfaster.mango.operator.Mango;
 import org.jfaster.mango.support.DataSourceConfig;
+import org.jfaster.mango.support.JdbcProxies;
 import org.jfaster.mango.support.Randoms;
 import org.jfaster.mango.support.Table;
 import org.jfaster.mango.support.model4table.Msg;
+import org.jfaster.mango.transaction.TransactionSynchronizationManager;
+import org.jfaster.mango.transaction.exception.TransactionSystemException;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -99,6 +103,76 @@ public class DatabaseShardingTest {
     check(msgs, dao);
   }
 
+  @Test
+  public void testSplitUpdateCommitFailure() throws Exception {
+    DataSource[] dss = new DataSource[3];
+    Mango m = createCommitFailureMango(dss);
+    MsgDao dao = m.create(MsgDao.class);
+    List<Integer> uids = Lists.newArrayList(0, 3, 6);
+    for (int uid : uids) {
+      Msg msg = new Msg();
+      msg.setUid(uid);
+      msg.setContent(Randoms.randomString(20));
+      dao.insert(msg);
+    }
+    try {
+      dao.deleteByUids(uids);
+      throw new AssertionError("expected TransactionSystemException");
+    } catch (TransactionSystemException e) {
+      assertThat(e.getMessage(), containsString("Could not roll back JDBC transaction"));
+    }
+    for (DataSource ds : dss) {
+      assertThat(TransactionSynchronizationManager.getConnectionHolder(ds), nullValue()); // 全部事务都已结束
+    }
+    assertThat(dao.getMsgs(0), hasSize(0)); // 已提交
+    assertThat(dao.getMsgs(6), hasSize(1)); // 之前的数据源提交失败，回滚
+  }
+
+  @Test
+  public void testBatchUpdateCommitFailure() throws Exception {
+    DataSource[] dss = new DataSource[3];
+    Mango m = createCommitFailureMango(dss);
+    m.setUseTransactionForBatchUpdate(true);
+    m.setBatchChunkSize(2); // 事务跨越多个块，每块只有一个数据源，按数据源顺序开始事务
+    MsgDao dao = m.create(MsgDao.class);
+    List<Msg> msgs = new ArrayList<Msg>();
+    for (int uid : new int[]{0, 10, 3, 13, 6, 16}) {
+      Msg msg = new Msg();
+      msg.setUid(uid);
+      msg.setContent("old");
+      msg.setId(dao.insert(msg));
+      msg.setContent("new");
+      msgs.add(msg);
+    }
+    try {
+      dao.batchUpdate(msgs);
+      throw new AssertionError("expected TransactionSystemException");
+    } catch (TransactionSystemException e) {
+      assertThat(e.getMessage(), containsString("Could not roll back JDBC transaction"));
+    }
+    for (DataSource ds : dss) {
+      assertThat(TransactionSynchronizationManager.getConnectionHolder(ds), nullValue());
+    }
+    assertThat(dao.getMsgs(0).get(0).getContent(), equalTo("new"));
+    assertThat(dao.getMsgs(6).get(0).getContent(), equalTo("old"));
+    assertThat(dao.getMsgs(16).get(0).getContent(), equalTo("old"));
+  }
+
+  /**
+   * 第二个数据源提交失败
+   */
+  private Mango createCommitFailureMango(DataSource[] dss) {
+    Mango m = Mango.newInstance();
+    for (int i = 0; i < 3; i++) {
+      dss[i] = DataSourceConfig.getDataSource(i + 1);
+      if (i == 1) {
+        dss[i] = JdbcProxies.failOnCommit(dss[i]);
+      }
+      m.addDataSourceFactory(new SimpleDataSourceFactory(dsns[i], dss[i]));
+    }
+    return m;
+  }
+
   private void check(List<Msg> msgs, MsgDao dao) {
     List<Msg> dbMsgs = new ArrayList<Msg>();
     Multiset<Integer> ms = HashMultiset.create();
@@ -130,6 +204,9 @@ public class DatabaseShardingTest {
     @SQL("select id, uid, content from #table where uid=:1")
     public List<Msg> getMsgs(@ShardingBy int uid);
 
+    @SQL("delete from #table where uid in (:1)")
+    public int deleteByUids(@ShardingBy List<Integer> uids);
+
   }
 
   static class MyDatabaseShardingStrategy implements DatabaseShardingStrategy<Integer> {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.sharding;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+
+/**
+ * 测试预先生成表名与一致性哈希的分片策略
+ *
+ * @author ash
+ */
+public class IndexedShardingStrategyTest {
+
+  @Test
+  public void testModTable() throws Exception {
+    ModHundredTableShardingStrategy strategy = new ModHundredTableShardingStrategy();
+    for (long n = -200; n < 200; n++) {
+      assertThat(strategy.getTargetTable("msg", n), equalTo("msg_" + Math.abs(n % 100)));
+    }
+    assertThat(strategy.getTargetTable("msg", 7), sameInstance(strategy.getTargetTable("msg", 107)));
+    assertThat(strategy.getTargetTable("user", 7), equalTo("user_7"));
+    List<String> tables = strategy.getAllTargetTables("msg");
+    assertThat(tables, hasSize(100));
+    assertThat(tables.get(99), equalTo("msg_99"));
+  }
+
+  @Test
+  public void testConsistentHashDistribution() throws Exception {
+    int nodeNum = 8;
+    int keyNum = 80000;
+    ConsistentHashRing ring = new ConsistentHashRing(nodeNum);
+    int[] counts = new int[nodeNum];
+    for (int key = 0; key < keyNum; key++) {
+      counts[ring.getNode(key)]++;
+    }
+    for (int count : counts) {
+      assertThat(count, greaterThan(keyNum / nodeNum / 2));
+      assertThat(count, lessThan(keyNum / nodeNum * 2));
+    }
+  }
+
+  @Test
+  public void testConsistentHashAddNode() throws Exception {
+    int keyNum = 80000;
+    ConsistentHashRing ring = new ConsistentHashRing(8);
+    ConsistentHashRing newRing = new ConsistentHashRing(9);
+    int moved = 0;
+    for (int key = 0; key < keyNum; key++) {
+      int node = ring.getNode(key);
+      int newNode = newRing.getNode(key);
+      if (node != newNode) {
+        assertThat(newNode, equalTo(8)); // 只迁移到新增的节点
+        moved++;
+      }
+    }
+    assertThat(moved, greaterThan(keyNum / 9 / 2));
+    assertThat(moved, lessThan(keyNum / 9 * 2));
+  }
+
+  @Test
+  public void testConsistentHashStrategy() throws Exception {
+    ConsistentHashTableShardingStrategy strategy = new ConsistentHashTableShardingStrategy(16);
+    assertThat(strategy.getTargetTable("msg", 12345), equalTo(strategy.getTargetTable("msg", 12345L)));
+    assertThat(strategy.getTargetTable("msg", "abc"), equalTo(strategy.getTargetTable("msg", "abc")));
+    assertThat(strategy.getAllTargetTables("msg"), hasItem(strategy.getTargetTable("msg", "abc")));
+
+    ConsistentHashDatabaseShardingStrategy dbStrategy = new ConsistentHashDatabaseShardingStrategy("ds1", "ds2");
+    assertThat(dbStrategy.getAllDataSourceFactoryNames(), contains("ds1", "ds2"));
+    assertThat(dbStrategy.getDataSourceFactoryName(1), isOneOf("ds1", "ds2"));
+  }
+
+  @Test
+  public void testConsistentHashUnsupportedKey() throws Exception {
+    ConsistentHashTableShardingStrategy strategy = new ConsistentHashTableShardingStrategy(16);
+    for (Object key : new Object[] {new Object(), 1.5d, null}) {
+      try {
+        strategy.getTargetTable("msg", key);
+        fail();
+      } catch (IllegalArgumentException e) {
+        assertThat(e.getMessage(), containsString("consistent hash only supports"));
+      }
+    }
+  }
+
+}
@@ -20,6 +20,7 @@ import org.jfaster.mango.annotation.DB;
 import org.jfaster.mango.annotation.SQL;
 import org.jfaster.mango.annotation.Sharding;
 import org.jfaster.mango.annotation.ShardingBy;
+import org.jfaster.mango.exception.IncorrectParameterTypeException;
 import org.jfaster.mango.operator.Mango;
 import org.jfaster.mango.support.DataSourceConfig;
 import org.jfaster.mango.support.Table;
@@ -31,6 +32,8 @@ import org.junit.rules.ExpectedException;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * @author ash
@@ -66,6 +69,24 @@ public class ShardingExceptionTest {
     dao.getUser(1);
   }
 
+  @Test
+  public void testIterableShardingWithTwoInClauses() throws Exception {
+    thrown.expect(IncorrectParameterTypeException.class);
+    thrown.expectMessage("the type of parameter Modified @TableShardingBy is error");
+    UserDao3 dao = mango.create(UserDao3.class);
+    dao.getUsers(Arrays.asList(1, 2), Arrays.asList(3, 4));
+  }
+
+  @Test
+  public void testIterableShardingByProperty() throws Exception {
+    thrown.expect(IncorrectParameterTypeException.class);
+    thrown.expectMessage("the type of parameter Modified @TableShardingBy is error");
+    UserDao4 dao = mango.create(UserDao4.class);
+    UserQuery query = new UserQuery();
+    query.setIds(Arrays.asList(1, 2));
+    dao.getUsers(query);
+  }
+
   @DB(table = "user")
   @Sharding(databaseShardingStrategy = UserDatabaseShardingStrategy.class)
   static interface UserDao {
@@ -93,6 +114,48 @@ public class ShardingExceptionTest {
 
   }
 
+  @DB(table = "user")
+  @Sharding(tableShardingStrategy = IntegerTableShardingStrategy.class)
+  static interface UserDao3 {
+
+    // 有两个in语句时无法按元素拆分
+    @SQL("select id, name, age, gender, money, update_time from #table where id in (:1) and age in (:2)")
+    public List<User> getUsers(@ShardingBy List<Integer> ids, List<Integer> ages);
+
+  }
+
+  @DB(table = "user")
+  @Sharding(tableShardingStrategy = IntegerTableShardingStrategy.class)
+  static interface UserDao4 {
+
+    // in语句使用属性时无法按元素拆分
+    @SQL("select id, name, age, gender, money, update_time from #table where id in (:1.ids)")
+    public List<User> getUsers(@ShardingBy("ids") UserQuery query);
+
+  }
+
+  public static class UserQuery {
+
+    private List<Integer> ids;
+
+    public List<Integer> getIds() {
+      return ids;
+    }
+
+    public void setIds(List<Integer> ids) {
+      this.ids = ids;
+    }
+  }
+
+  static class IntegerTableShardingStrategy implements TableShardingStrategy<Integer> {
+
+    @Override
+    public String getTargetTable(String table, Integer shardParam) {
+      return table;
+    }
+
+  }
+
   static class UserTableShardingStrategy implements TableShardingStrategy<String> {
 
     @Override
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.sharding;
+
+import org.jfaster.mango.util.HashUtil;
+
+import java.math.BigInteger;
+
+/**
+ * 比较预先生成表名的分片策略与拼接表名的分片策略，以及int运算与BigInteger运算的哈希耗时
+ * <p/>
+ * 直接运行main方法，不作为单元测试执行
+ *
+ * @author ash
+ */
+public class ShardingStrategyBenchmark {
+
+  private static final int WARMUP = 200000;
+  private static final int ITERATIONS = 5000000;
+
+  public static void main(String[] args) {
+    final TableShardingStrategy<Number> concat = new TableShardingStrategy<Number>() {
+      @Override
+      public String getTargetTable(String table, Number shardingParameter) {
+        return table + "_" + Math.abs(shardingParameter.longValue() % 100);
+      }
+    };
+    final TableShardingStrategy<Number> indexed = new ModHundredTableShardingStrategy();
+    final TableShardingStrategy<Object> ring = new ConsistentHashTableShardingStrategy(100);
+    for (int round = 0; round < 3; round++) {
+      System.out.println(String.format("round %d: concat %.1f ns/op, indexed %.1f ns/op, consistent hash %.1f ns/op",
+          round,
+          run(new Op() {
+            @Override
+            public int apply(long n) {
+              return concat.getTargetTable("msg", n).length();
+            }
+          }),
+          run(new Op() {
+            @Override
+            public int apply(long n) {
+              return indexed.getTargetTable("msg", n).length();
+            }
+          }),
+          run(new Op() {
+            @Override
+            public int apply(long n) {
+              return ring.getTargetTable("msg", n).length();
+            }
+          })));
+      System.out.println(String.format("round %d: fnv1 BigInteger %.1f ns/op, fnv1 int %.1f ns/op, murmur3 %.1f ns/op",
+          round,
+          run(new Op() {
+            @Override
+            public int apply(long n) {
+              return legacyFnv1_31(String.valueOf(n));
+            }
+          }),
+          run(new Op() {
+            @Override
+            public int apply(long n) {
+              return HashUtil.fnv1_31(n);
+            }
+          }),
+          run(new Op() {
+            @Override
+            public int apply(long n) {
+              return HashUtil.murmur3_32(n);
+            }
+          })));
+    }
+  }
+
+  private static double run(Op op) {
+    long blackhole = 0;
+    for (int i = 0; i < WARMUP; i++) {
+      blackhole += op.apply(i * 31L);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      blackhole += op.apply(i * 31L);
+    }
+    long cost = System.nanoTime() - start;
+    if (blackhole == 0) {
+      throw new IllegalStateException();
+    }
+    return (double) cost / ITERATIONS;
+  }
+
+  interface Op {
+    int apply(long n);
+  }
+
+  private static final BigInteger INIT32 = new BigInteger("811c9dc5", 16);
+  private static final BigInteger PRIME32 = new BigInteger("01000193", 16);
+  private static final BigInteger MOD32 = new BigInteger("2").pow(32);
+
+  private static int legacyFnv1_31(String str) {
+    BigInteger hash = INIT32;
+    for (byte b : str.getBytes()) {
+      hash = hash.multiply(PRIME32).mod(MOD32);
+      hash = hash.xor(BigInteger.valueOf((int) b & 0xff));
+    }
+    return hash.intValue() & 0x7fffffff;
+  }
+
+}
@@ -17,9 +17,12 @@
 package org.jfaster.mango.sharding;
 
 import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multiset;
 import org.jfaster.mango.annotation.*;
 import org.jfaster.mango.operator.Mango;
+import org.jfaster.mango.page.Direction;
+import org.jfaster.mango.page.Sort;
 import org.jfaster.mango.support.DataSourceConfig;
 import org.jfaster.mango.support.Randoms;
 import org.jfaster.mango.support.Table;
@@ -91,6 +94,68 @@ public class TableShardingTest {
     check(msgs);
   }
 
+  @Test
+  public void testMultiPartition() {
+    int num = 30;
+    List<Msg> msgs = new ArrayList<Msg>();
+    for (int i = 0; i < num; i++) {
+      Msg msg = new Msg();
+      msg.setUid(i % 3);
+      msg.setContent(Randoms.randomString(20));
+      msgs.add(msg);
+      int id = dao.insert(msg);
+      msg.setId(id);
+    }
+    check(msgs);
+    for (Msg msg : msgs) {
+      msg.setContent(Randoms.randomString(20));
+    }
+    int[] ints = dao.batchUpdate(msgs);
+    assertThat(ints.length, is(num));
+    for (int i : ints) {
+      assertThat(i, is(1));
+    }
+    check(msgs);
+  }
+
+  @Test
+  public void testDeleteByShardingList() {
+    List<Msg> msgs = new ArrayList<Msg>();
+    int[] uids = new int[]{0, 1, 2, 10, 11, 3};
+    for (int uid : uids) {
+      Msg msg = new Msg();
+      msg.setUid(uid);
+      msg.setContent(Randoms.randomString(20));
+      msg.setId(dao.insert(msg));
+      msgs.add(msg);
+    }
+    // 每个分表执行一条in语句
+    assertThat(dao.deleteByUids(Lists.newArrayList(0, 1, 2, 10, 11)), is(5));
+    check(msgs.subList(5, 6));
+    assertThat(dao.getMsgs(0), hasSize(0));
+    assertThat(dao.getMsgs(11), hasSize(0));
+  }
+
+  @Test
+  public void testQueryByShardingList() {
+    List<Msg> msgs = new ArrayList<Msg>();
+    int[] uids = new int[]{0, 1, 2, 10, 11, 3};
+    for (int uid : uids) {
+      Msg msg = new Msg();
+      msg.setUid(uid);
+      msg.setContent(Randoms.randomString(20));
+      msg.setId(dao.insert(msg));
+      msgs.add(msg);
+    }
+    // 每个分表执行一条in语句，并行查询后合并结果
+    List<Integer> shardingUids = Lists.newArrayList(0, 1, 2, 10, 11, 5);
+    assertThat(dao.getMsgsByUids(shardingUids), containsInAnyOrder(msgs.subList(0, 5).toArray()));
+    assertThat(dao.countByUids(shardingUids), is(5));
+    assertThat(dao.getSortedMsgsByUids(shardingUids, Sort.by(Direction.DESC, "uid")),
+        contains(msgs.get(4), msgs.get(3), msgs.get(2), msgs.get(1), msgs.get(0)));
+    assertThat(dao.getMsgsByUids(Lists.newArrayList(3)), contains(msgs.get(5)));
+  }
+
   private void check(List<Msg> msgs) {
     List<Msg> dbMsgs = new ArrayList<Msg>();
     Multiset<Integer> ms = HashMultiset.create();
@@ -118,6 +183,19 @@ public class TableShardingTest {
     @SQL("select id, uid, content from #table where uid=:1")
     public List<Msg> getMsgs(@ShardingBy int uid);
 
+    @SQL("select id, uid, content from #table where uid in (:1)")
+    public List<Msg> getMsgsByUids(@ShardingBy List<Integer> uids);
+
+    @SQL("select id, uid, content from #table where uid in (:1)")
+    public List<Msg> getSortedMsgsByUids(@ShardingBy List<Integer> uids, Sort sort);
+
+    @SumShards
+    @SQL("select count(1) from #table where uid in (:1)")
+    public int countByUids(@ShardingBy List<Integer> uids);
+
+    @SQL("delete from #table where uid in (:1)")
+    public int deleteByUids(@ShardingBy List<Integer> uids);
+
   }
 
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.sharding;
+
+import org.jfaster.mango.annotation.*;
+import org.jfaster.mango.exception.DescriptionException;
+import org.jfaster.mango.operator.Mango;
+import org.jfaster.mango.page.Direction;
+import org.jfaster.mango.page.Page;
+import org.jfaster.mango.page.PageResult;
+import org.jfaster.mango.page.Sort;
+import org.jfaster.mango.support.DataSourceConfig;
+import org.jfaster.mango.support.Table;
+import org.jfaster.mango.support.model4table.Event;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * 测试按时间范围分表的查询
+ *
+ * @author ash
+ */
+public class TimeRangeShardingTest {
+
+  private final static DataSource ds = DataSourceConfig.getDataSource();
+  private final static Mango mango = Mango.newInstance(ds);
+  private final static EventDao dao = mango.create(EventDao.class);
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Before
+  public void before() throws Exception {
+    Table.EVENT_PARTITION.load(ds);
+  }
+
+  @Test
+  public void testRangeQuery() throws Exception {
+    // 2026年1月到4月，每10天一个事件，uid按时间递增
+    List<Integer> uids = new ArrayList<Integer>();
+    LocalDateTime time = LocalDateTime.of(2026, 1, 1, 12, 0);
+    for (int uid = 0; time.getYear() == 2026 && time.getMonthValue() <= 4; uid++) {
+      Event event = new Event();
+      event.setUid(uid);
+      event.setCreatedAt(toDate(time));
+      dao.insert(event);
+      uids.add(uid);
+      time = time.plusDays(10);
+    }
+    int size = uids.size();
+    Date from = toDate(LocalDateTime.of(2026, 1, 1, 0, 0));
+    Date to = toDate(LocalDateTime.of(2026, 5, 1, 0, 0));
+
+    assertThat(getUids(dao.getEvents(from, to)), equalTo(uids)); // 按分表的先后顺序拼接
+    assertThat(dao.count(from, to), equalTo(size));
+
+    List<Integer> descUids = new ArrayList<Integer>(uids);
+    Collections.reverse(descUids);
+    assertThat(getUids(dao.getEvents(from, to, Sort.by(Direction.DESC, "created_at"))), equalTo(descUids));
+
+    PageResult<Event> pr = dao.getEventPage(from, to, Page.of(1, 4, Direction.DESC, "created_at"));
+    assertThat(pr.getTotal(), equalTo((long) size));
+    assertThat(getUids(pr.getData()), equalTo(descUids.subList(4, 8)));
+
+    // 2月1日到2月11日，只有一个分表
+    Date feb = toDate(LocalDateTime.of(2026, 2, 1, 0, 0));
+    Date feb11 = toDate(LocalDateTime.of(2026, 2, 11, 0, 0));
+    List<Event> events = dao.getEvents(feb, feb11);
+    assertThat(events, hasSize(1));
+    assertThat(events.get(0).getCreatedAt().getTime(), equalTo(toDate(LocalDateTime.of(2026, 2, 10, 12, 0)).getTime()));
+
+    assertThat(dao.getEvents(to, from), empty());
+  }
+
+  @Test
+  public void testTableNames() throws Exception {
+    TimeRangeTableShardingStrategy day = new DayTableShardingStrategy();
+    assertThat(day.getTargetTables("event", LocalDate.of(2026, 1, 30), LocalDateTime.of(2026, 2, 2, 0, 1)),
+        contains("event_20260130", "event_20260131", "event_20260201", "event_20260202"));
+    TimeRangeTableShardingStrategy week = new WeekTableShardingStrategy();
+    assertThat(week.getTargetTable("event", LocalDate.of(2025, 12, 29)), equalTo("event_2026w01"));
+    assertThat(week.getTargetTables("event", LocalDate.of(2025, 12, 24), LocalDate.of(2026, 1, 5)),
+        contains("event_2025w52", "event_2026w01"));
+    TimeRangeTableShardingStrategy month = new MonthTableShardingStrategy();
+    assertThat(month.getTargetTable("event", LocalDate.of(2026, 1, 31)), equalTo("event_202601"));
+    assertThat(month.getTargetTables("event", LocalDate.of(2026, 1, 31), LocalDate.of(2026, 3, 1)),
+        contains("event_202601", "event_202602"));
+  }
+
+  @Test
+  public void testZone() throws Exception {
+    Instant instant = LocalDateTime.of(2026, 1, 31, 20, 0).toInstant(ZoneOffset.UTC);
+    Date date = Date.from(instant);
+    assertThat(new DayTableShardingStrategy().getTargetTable("event", date), equalTo("event_20260131"));
+    assertThat(new MonthTableShardingStrategy().getTargetTable("event", instant.toEpochMilli()),
+        equalTo("event_202601"));
+    ZoneId shanghai = ZoneId.of("Asia/Shanghai");
+    assertThat(new DayTableShardingStrategy(shanghai).getTargetTable("event", date), equalTo("event_20260201"));
+    assertThat(new MonthTableShardingStrategy(shanghai).getTargetTable("event", instant), equalTo("event_202602"));
+    assertThat(new WeekTableShardingStrategy(ZoneId.of("America/New_York")).getTargetTable("event", date),
+        equalTo(new WeekTableShardingStrategy().getTargetTable("event", date)));
+  }
+
+  @Test
+  public void testKnownTables() throws Exception {
+    TimeRangeTableShardingStrategy month = new MonthTableShardingStrategy() {
+      @Override
+      protected LocalDateTime getEarliestTime() {
+        return LocalDateTime.of(2026, 1, 1, 0, 0);
+      }
+
+      @Override
+      protected LocalDateTime getLatestTime() {
+        return LocalDateTime.of(2026, 3, 1, 0, 0);
+      }
+    };
+    assertThat(month.getTargetTables("event", LocalDate.of(2000, 1, 1), LocalDate.of(2100, 1, 1)),
+        contains("event_202601", "event_202602"));
+    assertThat(month.getTargetTables("event", LocalDate.of(2026, 2, 15), LocalDate.of(2100, 1, 1)),
+        contains("event_202602"));
+    assertThat(month.getTargetTables("event", LocalDate.of(2027, 1, 1), LocalDate.of(2100, 1, 1)), empty());
+  }
+
+  @Test
+  public void testMaxTables() throws Exception {
+    TimeRangeTableShardingStrategy day = new TimeRangeTableShardingStrategy(TimeGranularity.DAY,
+        ZoneOffset.UTC, 3);
+    assertThat(day.getTargetTables("event", LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 4)), hasSize(3));
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("covers more than 3 tables of event");
+    day.getTargetTables("event", LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 5));
+  }
+
+  @Test
+  public void testDefaultMaxTables() throws Exception {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("covers more than " + TimeRangeTableShardingStrategy.DEFAULT_MAX_TABLES + " tables");
+    new DayTableShardingStrategy().getTargetTables("event", 0L, Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testStrategyWithoutRange() {
+    thrown.expect(DescriptionException.class);
+    thrown.expectMessage("must implement " + RangeTableShardingStrategy.class.getName());
+    mango.create(NoRangeEventDao.class).count(new Date(), new Date());
+  }
+
+  private static Date toDate(LocalDateTime time) {
+    return Date.from(time.atZone(ZoneOffset.UTC).toInstant());
+  }
+
+  private static List<Integer> getUids(List<Event> events) {
+    List<Integer> uids = new ArrayList<Integer>();
+    for (Event event : events) {
+      uids.add(event.getUid());
+    }
+    return uids;
+  }
+
+  @DB(table = "event")
+  @Sharding(tableShardingStrategy = MonthTableShardingStrategy.class)
+  interface EventDao {
+
+    @SQL("insert into #table(uid, created_at) values(:1.uid, :1.createdAt)")
+    int insert(@ShardingBy("createdAt") Event event);
+
+    @SQL("select id, uid, created_at from #table where created_at >= :1 and created_at < :2 order by created_at")
+    List<Event> getEvents(@ShardingFrom Date from, @ShardingTo Date to);
+
+    @SQL("select id, uid, created_at from #table where created_at >= :1 and created_at < :2")
+    List<Event> getEvents(@ShardingFrom Date from, @ShardingTo Date to, Sort sort);
+
+    @SQL("select id, uid, created_at from #table where created_at >= :1 and created_at < :2")
+    PageResult<Event> getEventPage(@ShardingFrom Date from, @ShardingTo Date to, Page page);
+
+    @SumShards
+    @SQL("select count(1) from #table where created_at >= :1 and created_at < :2")
+    int count(@ShardingFrom Date from, @ShardingTo Date to);
+
+  }
+
+  @DB(table = "event")
+  @Sharding(tableShardingStrategy = ModTenTableShardingStrategy.class)
+  interface NoRangeEventDao {
+
+    @SumShards
+    @SQL("select count(1) from #table where created_at >= :1 and created_at < :2")
+    int count(@ShardingFrom Date from, @ShardingTo Date to);
+
+  }
+
+}
@@ -53,6 +53,11 @@ public class JdbcOperationsAdapter implements JdbcOperations {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public <T> CloseableIterator<T> queryForIterator(DataSource ds, BoundSql boundSql, RowMapper<T> rowMapper, int fetchSize) throws DataAccessException {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public int update(DataSource ds, BoundSql boundSql) throws DataAccessException {
     throw new UnsupportedOperationException();
@@ -68,4 +73,9 @@ public class JdbcOperationsAdapter implements JdbcOperations {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public int[] batchUpdate(DataSource ds, List<BoundSql> boundSqls, List<GeneratedKeyHolder> holders) throws DataAccessException {
+    throw new UnsupportedOperationException();
+  }
+
 }
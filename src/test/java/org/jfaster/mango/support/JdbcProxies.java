@@ -0,0 +1,133 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.support;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 代理数据源，用于模拟jdbc操作的失败与阻塞
+ *
+ * @author ash
+ */
+public class JdbcProxies {
+
+  /**
+   * 连接的commit与rollback抛出{@link SQLException}，事务提交时抛出异常
+   */
+  public static DataSource failOnCommit(DataSource ds) {
+    return wrapConnections(ds, new Handler() {
+      @Override
+      public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("commit") || method.getName().equals("rollback")) {
+          throw new SQLException(method.getName() + " failed");
+        }
+        return forward(target, method, args);
+      }
+    });
+  }
+
+  /**
+   * 查询语句一直阻塞，直到被取消，cancelCount记录取消的次数
+   */
+  public static DataSource hangOnQuery(DataSource ds, AtomicInteger cancelCount) {
+    return hangOnQuery(ds, cancelCount, new CountDownLatch(0));
+  }
+
+  /**
+   * 同上，每个查询语句开始阻塞时executing减1
+   */
+  public static DataSource hangOnQuery(DataSource ds, final AtomicInteger cancelCount,
+                                       final CountDownLatch executing) {
+    return wrapConnections(ds, new Handler() {
+      @Override
+      public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        Object r = forward(target, method, args);
+        if (!method.getName().equals("prepareStatement")) {
+          return r;
+        }
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        return wrap(PreparedStatement.class, (PreparedStatement) r, new Handler() {
+          @Override
+          public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("cancel")) {
+              cancelCount.incrementAndGet();
+              cancelled.countDown();
+              return null;
+            }
+            if (method.getName().equals("executeQuery")) {
+              executing.countDown();
+              cancelled.await(10, TimeUnit.SECONDS);
+              throw new SQLException("statement cancelled");
+            }
+            return forward(target, method, args);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * 使用handler处理数据源返回的连接上的方法调用
+   */
+  public static DataSource wrapConnections(DataSource ds, final Handler connectionHandler) {
+    return wrap(DataSource.class, ds, new Handler() {
+      @Override
+      public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        Object r = forward(target, method, args);
+        return method.getName().equals("getConnection") ?
+            wrap(Connection.class, (Connection) r, connectionHandler) :
+            r;
+      }
+    });
+  }
+
+  public static <T> T wrap(Class<T> type, final T target, final Handler handler) {
+    return type.cast(Proxy.newProxyInstance(JdbcProxies.class.getClassLoader(), new Class<?>[]{type},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return handler.invoke(target, method, args);
+          }
+        }));
+  }
+
+  public static Object forward(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  public interface Handler {
+
+    Object invoke(Object target, Method method, Object[] args) throws Throwable;
+
+  }
+
+}
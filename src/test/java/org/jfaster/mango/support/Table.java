@@ -40,6 +40,7 @@ public enum Table {
   MSG_ROUTER2("msg_router2.sql"),
   MSG_ROUTER3("msg_router3.sql"),
   LONG_ID_MSG("long_id_msg.sql"),
+  MANGO_SEQUENCE("mango_sequence.sql"),
   ACCOUNT("account.sql"),
   POSITION("position.sql"),
   BT("bt.sql"),
@@ -48,6 +49,7 @@ public enum Table {
   ORDER_PARTITION("order_partition.sql"),
   PRODUCT_PARTITION("product_partition.sql"),
   TABLE_INCLUDE_ALL_TYPES("table_include_all_types.sql"),
+  EVENT_PARTITION("event_partition.sql"),
   ;
 
   private String name;
@@ -46,4 +46,10 @@ public class DoubleTypeHandlerTest extends BaseTypeHandlerTest {
     // Unnecessary
   }
 
-}
\ No newline at end of file
+  @Test
+  public void shouldGetPrimitiveResultFromResultSetByPosition() throws Exception {
+    when(rs.getDouble(1)).thenReturn(100d);
+    assertEquals(100d, ((PrimitiveDoubleTypeHandler) TYPE_HANDLER).getDouble(rs, 1), 0d);
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.jfaster.mango.util;
+
+import com.google.common.hash.Hashing;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * @author ash
+ */
+public class HashUtilTest {
+
+  @Test
+  public void testFnv1() throws Exception {
+    long[] ns = new long[]{0, 1, 9, 10, 99, 100, -1, -10, 123456789, Long.MAX_VALUE, Long.MIN_VALUE};
+    for (long n : ns) {
+      assertThat(HashUtil.fnv1_31(n), equalTo(legacyFnv1_31(String.valueOf(n))));
+    }
+    Random random = new Random(0);
+    for (int i = 0; i < 1000; i++) {
+      long n = random.nextLong();
+      assertThat(HashUtil.fnv1_31(n), equalTo(legacyFnv1_31(String.valueOf(n))));
+      String str = Long.toHexString(n);
+      assertThat(HashUtil.fnv1_31(str), equalTo(legacyFnv1_31(str)));
+    }
+  }
+
+  @Test
+  public void testMurmur3() throws Exception {
+    String[] strs = new String[]{"", "a", "ab", "abc", "mango", "分库分表"};
+    for (String str : strs) {
+      assertThat(HashUtil.murmur3_32(str), equalTo(Hashing.murmur3_32().hashUnencodedChars(str).asInt()));
+    }
+    assertThat(HashUtil.murmur3_32(1L) == HashUtil.murmur3_32(2L), equalTo(false));
+  }
+
+  /**
+   * 原先使用BigInteger的实现
+   */
+  private static int legacyFnv1_31(String str) {
+    BigInteger hash = new BigInteger("811c9dc5", 16);
+    BigInteger prime = new BigInteger("01000193", 16);
+    BigInteger mod = new BigInteger("2").pow(32);
+    for (byte b : str.getBytes()) {
+      hash = hash.multiply(prime).mod(mod);
+      hash = hash.xor(BigInteger.valueOf((int) b & 0xff));
+    }
+    return hash.intValue() & 0x7fffffff;
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.util;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author ash
+ */
+public class IterObjTest {
+
+  @Test
+  public void testArray() throws Exception {
+    assertThat(toList(new int[]{1, 2, 3}), contains((Object) 1, 2, 3));
+    assertThat(toList(new long[]{1L, 2L}), contains((Object) 1L, 2L));
+    assertThat(toList(new String[]{"a", "b"}), contains((Object) "a", "b"));
+    assertThat(toList(new short[]{1, 2}), contains((Object) (short) 1, (short) 2));
+    assertThat(new IterObj(new int[0]).isEmpty(), is(true));
+    assertThat(new IterObj(new int[0]).isCollection(), is(false));
+  }
+
+  @Test
+  public void testCollection() throws Exception {
+    IterObj iterObj = new IterObj(Lists.newArrayList(1, 2));
+    assertThat(iterObj.isCollection(), is(true));
+    assertThat(iterObj.size(), is(2));
+    assertThat(toList(Lists.newArrayList(1, 2)), contains((Object) 1, 2));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Object> toList(Object obj) {
+    List<Object> r = new ArrayList<Object>();
+    for (Object o : new IterObj(obj)) {
+      r.add(o);
+    }
+    return r;
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 mango.jfaster.org
+ *
+ * The Mango Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.jfaster.mango.util.reflect;
+
+import org.junit.Test;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author ash
+ */
+public class AccessorsTest {
+
+  @Test
+  public void testPublicClass() throws Exception {
+    Function<Object, Object> getter = Accessors.getter(PublicBean.class.getMethod("getId"));
+    BiConsumer<Object, Object> setter = Accessors.setter(PublicBean.class.getMethod("setId", int.class));
+    Supplier<PublicBean> constructor = Accessors.constructor(PublicBean.class);
+    assertThat(getter.getClass().getName(), containsString("$$Lambda"));
+    assertThat(setter.getClass().getName(), containsString("$$Lambda"));
+    assertThat(constructor.getClass().getName(), containsString("$$Lambda"));
+
+    PublicBean bean = constructor.get();
+    setter.accept(bean, 9527);
+    assertThat(bean.getId(), equalTo(9527));
+    assertThat(getter.apply(bean), equalTo((Object) 9527));
+  }
+
+  @Test
+  public void testPrivateClass() throws Exception {
+    Function<Object, Object> getter = Accessors.getter(PrivateBean.class.getMethod("getName"));
+    BiConsumer<Object, Object> setter = Accessors.setter(PrivateBean.class.getMethod("setName", String.class));
+    Supplier<PrivateBean> constructor = Accessors.constructor(PrivateBean.class);
+
+    PrivateBean bean = constructor.get();
+    setter.accept(bean, "ash");
+    assertThat(bean.getName(), equalTo("ash"));
+    assertThat(getter.apply(bean), equalTo((Object) "ash"));
+  }
+
+  @Test
+  public void testNoDefaultConstructor() throws Exception {
+    assertThat(Accessors.constructor(NoDefaultConstructorBean.class), nullValue());
+  }
+
+  public static class PublicBean {
+
+    private int id;
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+  }
+
+  private static class PrivateBean {
+
+    private String name;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+
+  public static class NoDefaultConstructorBean {
+
+    public NoDefaultConstructorBean(int id) {
+    }
+  }
+
+}
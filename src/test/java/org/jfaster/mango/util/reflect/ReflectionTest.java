@@ -25,7 +25,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
-import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 /**
@@ -36,6 +36,25 @@ public class ReflectionTest {
   @Test
   public void testInstantiate() throws Exception {
     Reflection.instantiateClass(A.class);
+    assertThat(Reflection.instantiate(A.class), notNullValue());
+    assertThat(Reflection.instantiate(B.class), notNullValue());
+    assertThat(Reflection.instantiate(B.class), not(sameInstance(Reflection.instantiate(B.class))));
+  }
+
+  @Test(expected = BeanInstantiationException.class)
+  public void testInstantiateAbstract() throws Exception {
+    Reflection.instantiate(C.class);
+  }
+
+  @Test(expected = BeanInstantiationException.class)
+  public void testInstantiateInterface() throws Exception {
+    Reflection.instantiate(SuperDao.class);
+  }
+
+  public static class B {
+  }
+
+  public abstract static class C {
   }
 
   private static class A {
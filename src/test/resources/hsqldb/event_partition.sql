@@ -0,0 +1,36 @@
+DROP TABLE IF EXISTS event_202601;
+DROP TABLE IF EXISTS event_202602;
+DROP TABLE IF EXISTS event_202603;
+DROP TABLE IF EXISTS event_202604;
+
+CREATE TABLE event_202601
+(
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY (START WITH 1, INCREMENT BY 1) NOT NULL,
+    uid INTEGER,
+    created_at TIMESTAMP,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE event_202602
+(
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY (START WITH 1, INCREMENT BY 1) NOT NULL,
+    uid INTEGER,
+    created_at TIMESTAMP,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE event_202603
+(
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY (START WITH 1, INCREMENT BY 1) NOT NULL,
+    uid INTEGER,
+    created_at TIMESTAMP,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE event_202604
+(
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY (START WITH 1, INCREMENT BY 1) NOT NULL,
+    uid INTEGER,
+    created_at TIMESTAMP,
+    PRIMARY KEY (id)
+);
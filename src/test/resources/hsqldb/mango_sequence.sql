@@ -0,0 +1,10 @@
+DROP TABLE IF EXISTS mango_sequence;
+
+CREATE TABLE mango_sequence
+(
+    biz_tag VARCHAR(128) NOT NULL,
+    max_id BIGINT NOT NULL,
+    PRIMARY KEY (biz_tag)
+);
+
+INSERT INTO mango_sequence(biz_tag, max_id) VALUES('msg', 0);
\ No newline at end of file
@@ -0,0 +1,9 @@
+DROP TABLE IF EXISTS mango_sequence;
+
+CREATE TABLE `mango_sequence` (
+  `biz_tag` varchar(128) NOT NULL,
+  `max_id` bigint(21) NOT NULL,
+  PRIMARY KEY (`biz_tag`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+INSERT INTO mango_sequence(biz_tag, max_id) VALUES('msg', 0);
\ No newline at end of file